@@ -0,0 +1,20 @@
+-- Move os pontos do JSONB dados para colunas inteiras em placar.
+--
+-- Rodar uma vez em bancos criados antes das colunas pontos_casa/pontos_visitante
+-- e, em seguida, rodar scripts.sql de novo para recriar as funções
+-- (fn_placar_documento, sp_inicia_placar, sp_atualiza_placar).
+--
+-- ADD COLUMN com DEFAULT constante não reescreve a tabela (PostgreSQL 11+).
+
+ALTER TABLE placar ADD COLUMN IF NOT EXISTS pontos_casa INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE placar ADD COLUMN IF NOT EXISTS pontos_visitante INTEGER NOT NULL DEFAULT 0;
+
+-- backfill a partir do JSON; os pontos saem de dados para não haver duas fontes
+UPDATE placar SET
+pontos_casa = coalesce((dados #>> '{time_da_casa,pontos}')::int, 0),
+pontos_visitante = coalesce((dados #>> '{time_visitante,pontos}')::int, 0),
+dados = dados #- '{time_da_casa,pontos}' #- '{time_visitante,pontos}'
+WHERE dados #> '{time_da_casa,pontos}' IS NOT NULL
+OR dados #> '{time_visitante,pontos}' IS NOT NULL;
+
+VACUUM ANALYZE placar;
@@ -0,0 +1,17 @@
+-- Cria o log de pontos usado com placar.contador=eventos.
+--
+-- Rodar uma vez em bancos criados antes de placar_evento (o mesmo DDL está
+-- em scripts.sql). Sem eventos pendentes o placar lido é o de sempre, então
+-- pode rodar antes do deploy.
+
+CREATE TABLE IF NOT EXISTS placar_evento (
+seq BIGSERIAL PRIMARY KEY,
+placar_id INTEGER NOT NULL REFERENCES placar(id),
+lado VARCHAR(10) NOT NULL CHECK (lado IN ('casa', 'visitante')),
+delta INTEGER NOT NULL,
+criado_em TIMESTAMP NOT NULL DEFAULT now(),
+aplicado BOOLEAN NOT NULL DEFAULT false
+);
+
+CREATE INDEX IF NOT EXISTS placar_evento_placar_seq ON placar_evento (placar_id, seq);
+CREATE INDEX IF NOT EXISTS placar_evento_pendente ON placar_evento (placar_id) WHERE NOT aplicado;
@@ -0,0 +1,63 @@
+-- Converte placar em tabela particionada: por status e, para os finalizados,
+-- pelo mês de início (mesmo layout de scripts.sql).
+--
+-- Rodar uma vez, numa janela sem escrita: a tabela inteira é copiada. Em
+-- seguida rodar scripts.sql de novo para criar fn_placar_particao_mes e
+-- sp_arquiva_placares (as instruções de tabela de lá viram no-op).
+
+BEGIN;
+
+-- placar_evento não pode mais referenciar placar(id)
+ALTER TABLE IF EXISTS placar_evento DROP CONSTRAINT IF EXISTS placar_evento_placar_id_fkey;
+
+ALTER TABLE placar RENAME TO placar_antigo;
+ALTER INDEX placar_pkey RENAME TO placar_antigo_pkey;
+ALTER INDEX placar_hash_id_key RENAME TO placar_antigo_hash_id_key;
+
+CREATE TABLE placar (
+id INTEGER NOT NULL DEFAULT nextval('placar_id_seq'),
+hash_id VARCHAR(64) NOT NULL,
+data_inicio TIMESTAMP NOT NULL DEFAULT now(),
+status VARCHAR(20) NOT NULL DEFAULT 'ATIVO',
+dados JSONB,
+pontos_casa INTEGER NOT NULL DEFAULT 0,
+pontos_visitante INTEGER NOT NULL DEFAULT 0,
+PRIMARY KEY (id, status, data_inicio)
+) PARTITION BY LIST (status);
+
+CREATE TABLE placar_ativo PARTITION OF placar FOR VALUES IN ('ATIVO');
+CREATE TABLE placar_finalizado PARTITION OF placar FOR VALUES IN ('FINALIZADO')
+PARTITION BY RANGE (data_inicio);
+CREATE TABLE placar_finalizado_sem_mes PARTITION OF placar_finalizado DEFAULT;
+CREATE TABLE placar_outros PARTITION OF placar DEFAULT;
+
+-- uma partição por mês com jogos finalizados, mais o mês atual e o próximo
+DO $$
+DECLARE
+mes DATE;
+BEGIN
+FOR mes IN
+SELECT date_trunc('month', data_inicio)::date FROM placar_antigo
+WHERE status = 'FINALIZADO' AND data_inicio IS NOT NULL
+UNION
+SELECT date_trunc('month', now())::date
+UNION
+SELECT (date_trunc('month', now()) + interval '1 month')::date
+LOOP
+EXECUTE format('CREATE TABLE %I PARTITION OF placar_finalizado FOR VALUES FROM (%L) TO (%L)',
+'placar_finalizado_' || to_char(mes, 'YYYYMM'), mes, (mes + interval '1 month')::date);
+END LOOP;
+END $$;
+
+INSERT INTO placar (id, hash_id, data_inicio, status, dados, pontos_casa, pontos_visitante)
+SELECT id, hash_id, coalesce(data_inicio, now()), coalesce(status, 'ATIVO'), dados, pontos_casa, pontos_visitante
+FROM placar_antigo;
+
+CREATE INDEX placar_hash_id ON placar (hash_id);
+
+ALTER SEQUENCE placar_id_seq OWNED BY placar.id;
+DROP TABLE placar_antigo;
+
+COMMIT;
+
+ANALYZE placar;
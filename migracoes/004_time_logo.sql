@@ -0,0 +1,57 @@
+-- Move os logos de time.logo (TEXT) para time_logo (BYTEA), deixando em
+-- time só o hash usado na URL do logo.
+--
+-- Converte como TimeLogo.deTexto: data URI vira os bytes com o tipo do
+-- cabeçalho, base64 puro de PNG/JPEG/GIF vira a imagem e o resto fica como
+-- texto (SVG ou text/plain). Rodar junto com
+-- o deploy: a aplicação nova não lê mais time.logo, a antiga não conhece
+-- time.logo_hash.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS time_logo (
+time_id INTEGER PRIMARY KEY REFERENCES time(id) ON DELETE CASCADE,
+conteudo BYTEA NOT NULL,
+tipo VARCHAR(100) NOT NULL,
+hash VARCHAR(64) NOT NULL
+);
+
+ALTER TABLE time ADD COLUMN IF NOT EXISTS logo_hash VARCHAR(64);
+
+WITH bruto AS (
+    SELECT id, logo, regexp_replace(logo, '\s', '', 'g') AS limpo
+    FROM time
+    WHERE logo IS NOT NULL AND logo <> ''
+), decodificado AS (
+    SELECT id, logo,
+           CASE WHEN logo ~ '^data:[^,]*;base64,'
+                THEN decode(regexp_replace(substring(logo from ',(.*)$'), '\s', '', 'g'), 'base64')
+                WHEN logo ~ '^data:[^,]*,'
+                THEN convert_to(substring(logo from ',(.*)$'), 'UTF8')
+                WHEN limpo ~ '^[A-Za-z0-9+/]+={0,2}$' AND length(limpo) % 4 = 0
+                THEN decode(limpo, 'base64') END AS bytes
+    FROM bruto
+), origem AS (
+    SELECT id,
+           CASE WHEN logo ~ '^data:[^,]*,' THEN bytes
+                WHEN substring(bytes from 1 for 4) IN ('\x89504e47'::bytea, '\x47494638'::bytea)
+                  OR substring(bytes from 1 for 3) = '\xffd8ff'::bytea THEN bytes
+                ELSE convert_to(logo, 'UTF8') END AS conteudo,
+           CASE WHEN logo ~ '^data:[^;,]+' THEN lower(substring(logo from '^data:([^;,]+)'))
+                WHEN substring(bytes from 1 for 4) = '\x89504e47'::bytea THEN 'image/png'
+                WHEN substring(bytes from 1 for 3) = '\xffd8ff'::bytea THEN 'image/jpeg'
+                WHEN substring(bytes from 1 for 4) = '\x47494638'::bytea THEN 'image/gif'
+                WHEN ltrim(logo) LIKE '<svg%' OR (ltrim(logo) LIKE '<?xml%' AND logo LIKE '%<svg%')
+                THEN 'image/svg+xml'
+                ELSE 'text/plain;charset=UTF-8' END AS tipo
+    FROM decodificado
+)
+INSERT INTO time_logo (time_id, conteudo, tipo, hash)
+SELECT id, conteudo, tipo, encode(sha256(conteudo), 'hex') FROM origem
+ON CONFLICT (time_id) DO NOTHING;
+
+UPDATE time t SET logo_hash = l.hash FROM time_logo l WHERE l.time_id = t.id;
+
+ALTER TABLE time DROP COLUMN IF EXISTS logo;
+
+COMMIT;
@@ -0,0 +1,82 @@
+-- Classificação por competição: tabela classificacao e sp_finaliza_placar
+-- passando a somar o resultado de jogos de competição aos dois times.
+--
+-- Rodar junto com o deploy, numa transação (o mesmo DDL está em
+-- scripts.sql). sp_finaliza_placar muda o tipo de retorno de VOID para as
+-- linhas da classificação, então é recriada. A aplicação antiga não cria
+-- jogos com competição, então para ela a função não devolve linhas, como
+-- antes. Jogos finalizados antes da migração não entram na classificação.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS classificacao (
+competicao VARCHAR(100) NOT NULL,
+time VARCHAR(255) NOT NULL,
+pontos INTEGER NOT NULL DEFAULT 0,
+jogos INTEGER NOT NULL DEFAULT 0,
+vitorias INTEGER NOT NULL DEFAULT 0,
+empates INTEGER NOT NULL DEFAULT 0,
+derrotas INTEGER NOT NULL DEFAULT 0,
+marcados INTEGER NOT NULL DEFAULT 0,
+sofridos INTEGER NOT NULL DEFAULT 0,
+PRIMARY KEY (competicao, time)
+);
+
+-- mesma ordem do sorted set: leitura da tabela quando o Redis não tem a competição
+CREATE INDEX IF NOT EXISTS classificacao_ordem ON classificacao
+(competicao, pontos DESC, vitorias DESC, (marcados - sofridos) DESC, marcados DESC, time DESC);
+
+
+-- finaliza o jogo. Só na primeira vez e se o jogo é de uma competição
+-- (dados->>'competicao'), soma o resultado à classificação dos dois times e
+-- devolve as linhas atualizadas. Os pontos incluem os eventos ainda não
+-- consolidados (placar.contador=eventos). Os times são atualizados em ordem
+-- de nome, para dois jogos dos mesmos times não travarem um ao outro.
+DROP FUNCTION IF EXISTS sp_finaliza_placar(TEXT);
+CREATE OR REPLACE FUNCTION sp_finaliza_placar(hid TEXT) RETURNS SETOF classificacao AS $$
+DECLARE
+j RECORD;
+pc INTEGER;
+pv INTEGER;
+linha classificacao%ROWTYPE;
+BEGIN
+UPDATE placar SET status = 'FINALIZADO'
+WHERE hash_id = hid AND status <> 'FINALIZADO'
+RETURNING id, dados->>'competicao' AS competicao,
+dados #>> '{time_da_casa,nome}' AS casa, dados #>> '{time_visitante,nome}' AS visitante,
+pontos_casa, pontos_visitante INTO j;
+IF NOT FOUND THEN
+RETURN;
+END IF;
+IF j.competicao IS NULL OR j.casa IS NULL OR j.visitante IS NULL OR j.casa = j.visitante THEN
+RETURN;
+END IF;
+
+SELECT j.pontos_casa + coalesce(sum(delta) FILTER (WHERE lado = 'casa'), 0),
+j.pontos_visitante + coalesce(sum(delta) FILTER (WHERE lado = 'visitante'), 0)
+INTO pc, pv
+FROM placar_evento WHERE placar_id = j.id AND NOT aplicado;
+
+FOR linha IN
+INSERT INTO classificacao AS c (competicao, time, pontos, jogos, vitorias, empates, derrotas, marcados, sofridos)
+SELECT j.competicao, r.time,
+CASE WHEN r.pro > r.contra THEN 3 WHEN r.pro = r.contra THEN 1 ELSE 0 END,
+1, (r.pro > r.contra)::int, (r.pro = r.contra)::int, (r.pro < r.contra)::int, r.pro, r.contra
+FROM (VALUES (j.casa, pc, pv), (j.visitante, pv, pc)) AS r(time, pro, contra)
+ORDER BY r.time
+ON CONFLICT (competicao, time) DO UPDATE SET
+pontos = c.pontos + excluded.pontos,
+jogos = c.jogos + 1,
+vitorias = c.vitorias + excluded.vitorias,
+empates = c.empates + excluded.empates,
+derrotas = c.derrotas + excluded.derrotas,
+marcados = c.marcados + excluded.marcados,
+sofridos = c.sofridos + excluded.sofridos
+RETURNING c.*
+LOOP
+RETURN NEXT linha;
+END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+COMMIT;
@@ -0,0 +1,9 @@
+-- Índice da listagem dos jogos em andamento (GET /api/placar?status=ATIVO),
+-- usado quando o Redis não tem placar:ativos. Vai direto na partição
+-- placar_ativo, que só tem jogos ativos, na ordem da listagem.
+--
+-- Pode rodar antes ou depois do deploy; fora de transação por causa do
+-- CONCURRENTLY (a partição é uma tabela comum, então o índice pode ser
+-- criado sem bloquear escritas).
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS placar_ativo_inicio ON placar_ativo (data_inicio, id);
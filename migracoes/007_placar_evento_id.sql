@@ -0,0 +1,12 @@
+-- Id de evento dado pelo cliente em placar_evento, para que um ponto
+-- reenviado (por exemplo após um timeout) não seja gravado duas vezes.
+--
+-- Rodar uma vez em bancos criados antes da coluna (o mesmo DDL está em
+-- scripts.sql), antes do deploy: a gravação do log usa
+-- ON CONFLICT (placar_id, evento_id). A cópia do arquivo recebe a coluna na
+-- mesma posição, porque sp_arquiva_placares move os eventos com SELECT *.
+
+ALTER TABLE placar_evento ADD COLUMN IF NOT EXISTS evento_id TEXT;
+ALTER TABLE IF EXISTS placar_arquivo.placar_evento ADD COLUMN IF NOT EXISTS evento_id TEXT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS placar_evento_evento_id ON placar_evento (placar_id, evento_id);
@@ -0,0 +1,36 @@
+-- Unicidade de hash_id (e de id) em placar particionado, e a FK de
+-- placar_evento de volta, agora apontando para placar_hash.
+--
+-- Rodar uma vez em bancos convertidos por 003_placar_particionado.sql, numa
+-- janela sem criação de jogos, e em seguida rodar scripts.sql de novo para
+-- que sp_inicia_placar passe a gravar em placar_hash. Se já houver hash_id
+-- ou id repetido, a migração falha no INSERT e nada é alterado.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS placar_hash (
+hash_id VARCHAR(64) PRIMARY KEY,
+placar_id INTEGER NOT NULL UNIQUE
+);
+
+INSERT INTO placar_hash (hash_id, placar_id)
+SELECT hash_id, id FROM placar;
+
+-- jogos já arquivados: os hashes continuam reservados
+DO $$
+DECLARE
+part RECORD;
+BEGIN
+FOR part IN
+SELECT tablename FROM pg_tables
+WHERE schemaname = 'placar_arquivo' AND tablename ~ '^placar_finalizado_[0-9]{6}$'
+LOOP
+EXECUTE format('INSERT INTO placar_hash (hash_id, placar_id) SELECT hash_id, id FROM placar_arquivo.%I', part.tablename);
+END LOOP;
+END $$;
+
+ALTER TABLE placar_evento DROP CONSTRAINT IF EXISTS placar_evento_placar_id_fkey;
+ALTER TABLE placar_evento ADD CONSTRAINT placar_evento_placar_id_fkey
+FOREIGN KEY (placar_id) REFERENCES placar_hash(placar_id);
+
+COMMIT;
@@ -0,0 +1,51 @@
+-- data_inicio em placar_hash: com id e data_inicio, a busca por hash_id de
+-- um jogo finalizado vai só à subpartição do mês dele, em vez de consultar o
+-- índice de hash_id de todas as partições.
+--
+-- Rodar uma vez depois de 008_placar_hash.sql, numa janela sem criação de
+-- jogos, antes do deploy da aplicação. Já troca sp_inicia_placar (igual à de
+-- scripts.sql) para que jogos novos gravem a coluna.
+
+BEGIN;
+
+ALTER TABLE placar_hash ADD COLUMN IF NOT EXISTS data_inicio TIMESTAMP;
+
+CREATE OR REPLACE FUNCTION sp_inicia_placar(dados JSONB) RETURNS JSONB AS $$
+DECLARE
+hid TEXT := encode(gen_random_bytes(16), 'hex');
+pid INTEGER := nextval('placar_id_seq');
+inicio TIMESTAMP := now();
+rec JSONB;
+BEGIN
+-- hash repetido falha aqui, antes de criar o placar
+INSERT INTO placar_hash(hash_id, placar_id, data_inicio) VALUES (hid, pid, inicio);
+INSERT INTO placar(id, hash_id, data_inicio, dados, pontos_casa, pontos_visitante)
+VALUES (pid, hid, inicio,
+dados #- '{time_da_casa,pontos}' #- '{time_visitante,pontos}',
+coalesce((dados #>> '{time_da_casa,pontos}')::int, 0),
+coalesce((dados #>> '{time_visitante,pontos}')::int, 0))
+RETURNING jsonb_build_object('hash_id', hid, 'inicio_ms', cast(extract(epoch FROM data_inicio) * 1000 AS BIGINT)) INTO rec;
+RETURN rec;
+END;
+$$ LANGUAGE plpgsql;
+
+UPDATE placar_hash h SET data_inicio = p.data_inicio
+FROM placar p WHERE p.id = h.placar_id AND h.data_inicio IS NULL;
+
+-- jogos já arquivados
+DO $$
+DECLARE
+part RECORD;
+BEGIN
+FOR part IN
+SELECT tablename FROM pg_tables
+WHERE schemaname = 'placar_arquivo' AND tablename ~ '^placar_finalizado_[0-9]{6}$'
+LOOP
+EXECUTE format('UPDATE placar_hash h SET data_inicio = a.data_inicio FROM placar_arquivo.%I a '
+'WHERE a.id = h.placar_id AND h.data_inicio IS NULL', part.tablename);
+END LOOP;
+END $$;
+
+ALTER TABLE placar_hash ALTER COLUMN data_inicio SET NOT NULL;
+
+COMMIT;
@@ -1,49 +1,280 @@
 CREATE TABLE IF NOT EXISTS time (
 id SERIAL PRIMARY KEY,
 nome VARCHAR(255) UNIQUE NOT NULL,
-logo TEXT
+logo_hash VARCHAR(64)
+);
+
+-- logos fora da tabela time: listar times não lê os bytes. O hash (SHA-256
+-- do conteúdo) fica também em time.logo_hash para montar a URL do logo.
+CREATE TABLE IF NOT EXISTS time_logo (
+time_id INTEGER PRIMARY KEY REFERENCES time(id) ON DELETE CASCADE,
+conteudo BYTEA NOT NULL,
+tipo VARCHAR(100) NOT NULL,
+hash VARCHAR(64) NOT NULL
 );
 
 
+-- placar particionado por status: os jogos em andamento ficam numa partição
+-- pequena e quente; os finalizados são subparticionados pelo mês de início,
+-- e os meses antigos são arquivados por sp_arquiva_placares. Índices únicos
+-- de tabela particionada precisam conter as chaves de partição, por isso a
+-- PK inclui status e data_inicio e o índice de hash_id não é único: a
+-- unicidade de hash_id e de id fica em placar_hash.
 CREATE TABLE IF NOT EXISTS placar (
-id SERIAL PRIMARY KEY,
-hash_id VARCHAR(64) UNIQUE NOT NULL,
-data_inicio TIMESTAMP DEFAULT now(),
-status VARCHAR(20) DEFAULT 'ATIVO',
-dados JSONB
+id SERIAL,
+hash_id VARCHAR(64) NOT NULL,
+data_inicio TIMESTAMP NOT NULL DEFAULT now(),
+status VARCHAR(20) NOT NULL DEFAULT 'ATIVO',
+dados JSONB,
+pontos_casa INTEGER NOT NULL DEFAULT 0,
+pontos_visitante INTEGER NOT NULL DEFAULT 0,
+PRIMARY KEY (id, status, data_inicio)
+) PARTITION BY LIST (status);
+
+CREATE TABLE IF NOT EXISTS placar_ativo PARTITION OF placar FOR VALUES IN ('ATIVO');
+CREATE TABLE IF NOT EXISTS placar_finalizado PARTITION OF placar FOR VALUES IN ('FINALIZADO')
+PARTITION BY RANGE (data_inicio);
+-- meses sem partição própria; fn_placar_particao_mes tira daqui as linhas do mês que cria
+CREATE TABLE IF NOT EXISTS placar_finalizado_sem_mes PARTITION OF placar_finalizado DEFAULT;
+CREATE TABLE IF NOT EXISTS placar_outros PARTITION OF placar DEFAULT;
+
+CREATE INDEX IF NOT EXISTS placar_hash_id ON placar (hash_id);
+
+-- um registro por jogo criado, gravado por sp_inicia_placar antes da linha do
+-- placar: garante hash_id e id únicos em todas as partições e é o alvo da FK
+-- de placar_evento. Fica quando o jogo é arquivado, então um hash arquivado
+-- também não se repete. Com id e data_inicio, a busca por hash_id de um jogo
+-- finalizado vai só à partição do mês dele.
+CREATE TABLE IF NOT EXISTS placar_hash (
+hash_id VARCHAR(64) PRIMARY KEY,
+placar_id INTEGER NOT NULL UNIQUE,
+data_inicio TIMESTAMP NOT NULL
 );
 
+-- listagem dos jogos em andamento (GET /api/placar?status=ATIVO) quando o
+-- Redis não tem placar:ativos. A partição placar_ativo já separa os ativos,
+-- então o índice vai nela, na ordem da listagem.
+CREATE INDEX IF NOT EXISTS placar_ativo_inicio ON placar_ativo (data_inicio, id);
+
+
+-- documento do placar: dados (times etc.) com os pontos vindos das colunas
+CREATE OR REPLACE FUNCTION fn_placar_documento(d JSONB, pc INTEGER, pv INTEGER) RETURNS JSONB AS $$
+SELECT coalesce(d, '{}'::jsonb) || jsonb_build_object(
+'time_da_casa', coalesce(d->'time_da_casa', '{}'::jsonb) || jsonb_build_object('pontos', pc),
+'time_visitante', coalesce(d->'time_visitante', '{}'::jsonb) || jsonb_build_object('pontos', pv));
+$$ LANGUAGE sql IMMUTABLE;
 
--- procedure para iniciar placar (recebe JSON com times)
+
+-- procedure para iniciar placar (recebe JSON com times); devolve hash_id e
+-- inicio_ms, o data_inicio em ms que ordena placar:ativos no Redis
 CREATE OR REPLACE FUNCTION sp_inicia_placar(dados JSONB) RETURNS JSONB AS $$
 DECLARE
 hid TEXT := encode(gen_random_bytes(16), 'hex');
+pid INTEGER := nextval('placar_id_seq');
+inicio TIMESTAMP := now();
 rec JSONB;
 BEGIN
-INSERT INTO placar(hash_id, dados) VALUES (hid, dados) RETURNING jsonb_build_object('hash_id', hid) INTO rec;
+-- hash repetido falha aqui, antes de criar o placar
+INSERT INTO placar_hash(hash_id, placar_id, data_inicio) VALUES (hid, pid, inicio);
+INSERT INTO placar(id, hash_id, data_inicio, dados, pontos_casa, pontos_visitante)
+VALUES (pid, hid, inicio,
+dados #- '{time_da_casa,pontos}' #- '{time_visitante,pontos}',
+coalesce((dados #>> '{time_da_casa,pontos}')::int, 0),
+coalesce((dados #>> '{time_visitante,pontos}')::int, 0))
+RETURNING jsonb_build_object('hash_id', hid, 'inicio_ms', cast(extract(epoch FROM data_inicio) * 1000 AS BIGINT)) INTO rec;
 RETURN rec;
 END;
 $$ LANGUAGE plpgsql;
 
 
--- atualizar: recebe hash_id e objeto JSON com alteração
+-- atualizar: recebe hash_id e objeto JSON com alteração.
+-- Os pontos vão para as colunas; o restante do patch é mesclado em dados,
+-- inclusive dentro de time_da_casa/time_visitante (dados só é reescrito
+-- quando o patch traz algo além dos pontos).
 CREATE OR REPLACE FUNCTION sp_atualiza_placar(hid TEXT, patch JSONB) RETURNS JSONB AS $$
 DECLARE
-cur JSONB;
+resto JSONB := patch #- '{time_da_casa,pontos}' #- '{time_visitante,pontos}';
+res JSONB;
 BEGIN
-SELECT dados INTO cur FROM placar WHERE hash_id = hid FOR UPDATE;
-IF cur IS NULL THEN
+IF resto->'time_da_casa' = '{}'::jsonb THEN resto := resto - 'time_da_casa'; END IF;
+IF resto->'time_visitante' = '{}'::jsonb THEN resto := resto - 'time_visitante'; END IF;
+UPDATE placar SET
+pontos_casa = coalesce((patch #>> '{time_da_casa,pontos}')::int, pontos_casa),
+pontos_visitante = coalesce((patch #>> '{time_visitante,pontos}')::int, pontos_visitante),
+dados = CASE WHEN resto = '{}'::jsonb THEN dados ELSE dados || resto
+|| CASE WHEN resto ? 'time_da_casa'
+THEN jsonb_build_object('time_da_casa', coalesce(dados->'time_da_casa', '{}'::jsonb) || (resto->'time_da_casa'))
+ELSE '{}'::jsonb END
+|| CASE WHEN resto ? 'time_visitante'
+THEN jsonb_build_object('time_visitante', coalesce(dados->'time_visitante', '{}'::jsonb) || (resto->'time_visitante'))
+ELSE '{}'::jsonb END
+END
+WHERE hash_id = hid
+RETURNING fn_placar_documento(dados, pontos_casa, pontos_visitante) INTO res;
+IF res IS NULL THEN
 RAISE EXCEPTION 'Placar nao encontrado';
 END IF;
-cur := cur || patch;
-UPDATE placar SET dados = cur WHERE hash_id = hid;
-RETURN cur;
+RETURN res;
+END;
+$$ LANGUAGE plpgsql;
+
+
+-- classificação por competição, fonte de verdade do ranking mantido no Redis
+-- (sorted set classificacao:<competicao>). Cada jogo finalizado de uma
+-- competição soma uma vez aos dois times, na transação que o finaliza.
+CREATE TABLE IF NOT EXISTS classificacao (
+competicao VARCHAR(100) NOT NULL,
+time VARCHAR(255) NOT NULL,
+pontos INTEGER NOT NULL DEFAULT 0,
+jogos INTEGER NOT NULL DEFAULT 0,
+vitorias INTEGER NOT NULL DEFAULT 0,
+empates INTEGER NOT NULL DEFAULT 0,
+derrotas INTEGER NOT NULL DEFAULT 0,
+marcados INTEGER NOT NULL DEFAULT 0,
+sofridos INTEGER NOT NULL DEFAULT 0,
+PRIMARY KEY (competicao, time)
+);
+
+-- mesma ordem do sorted set: leitura da tabela quando o Redis não tem a competição
+CREATE INDEX IF NOT EXISTS classificacao_ordem ON classificacao
+(competicao, pontos DESC, vitorias DESC, (marcados - sofridos) DESC, marcados DESC, time DESC);
+
+
+-- finaliza o jogo. Só na primeira vez e se o jogo é de uma competição
+-- (dados->>'competicao'), soma o resultado à classificação dos dois times e
+-- devolve as linhas atualizadas. Os pontos incluem os eventos ainda não
+-- consolidados (placar.contador=eventos). Os times são atualizados em ordem
+-- de nome, para dois jogos dos mesmos times não travarem um ao outro.
+--
+-- versões antigas devolviam VOID, e CREATE OR REPLACE não troca o tipo de retorno
+DROP FUNCTION IF EXISTS sp_finaliza_placar(TEXT);
+CREATE OR REPLACE FUNCTION sp_finaliza_placar(hid TEXT) RETURNS SETOF classificacao AS $$
+DECLARE
+j RECORD;
+pc INTEGER;
+pv INTEGER;
+linha classificacao%ROWTYPE;
+BEGIN
+UPDATE placar SET status = 'FINALIZADO'
+WHERE hash_id = hid AND status <> 'FINALIZADO'
+RETURNING id, dados->>'competicao' AS competicao,
+dados #>> '{time_da_casa,nome}' AS casa, dados #>> '{time_visitante,nome}' AS visitante,
+pontos_casa, pontos_visitante INTO j;
+IF NOT FOUND THEN
+RETURN;
+END IF;
+IF j.competicao IS NULL OR j.casa IS NULL OR j.visitante IS NULL OR j.casa = j.visitante THEN
+RETURN;
+END IF;
+
+SELECT j.pontos_casa + coalesce(sum(delta) FILTER (WHERE lado = 'casa'), 0),
+j.pontos_visitante + coalesce(sum(delta) FILTER (WHERE lado = 'visitante'), 0)
+INTO pc, pv
+FROM placar_evento WHERE placar_id = j.id AND NOT aplicado;
+
+FOR linha IN
+INSERT INTO classificacao AS c (competicao, time, pontos, jogos, vitorias, empates, derrotas, marcados, sofridos)
+SELECT j.competicao, r.time,
+CASE WHEN r.pro > r.contra THEN 3 WHEN r.pro = r.contra THEN 1 ELSE 0 END,
+1, (r.pro > r.contra)::int, (r.pro = r.contra)::int, (r.pro < r.contra)::int, r.pro, r.contra
+FROM (VALUES (j.casa, pc, pv), (j.visitante, pv, pc)) AS r(time, pro, contra)
+ORDER BY r.time
+ON CONFLICT (competicao, time) DO UPDATE SET
+pontos = c.pontos + excluded.pontos,
+jogos = c.jogos + 1,
+vitorias = c.vitorias + excluded.vitorias,
+empates = c.empates + excluded.empates,
+derrotas = c.derrotas + excluded.derrotas,
+marcados = c.marcados + excluded.marcados,
+sofridos = c.sofridos + excluded.sofridos
+RETURNING c.*
+LOOP
+RETURN NEXT linha;
+END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- log de pontos (placar.contador=eventos): cada ponto é uma linha nova, sem
+-- reescrever nem travar a linha do placar. O placar atual é o snapshot
+-- (pontos_casa/pontos_visitante) mais os eventos ainda não aplicados, que a
+-- aplicação consolida no snapshot periodicamente. Os eventos aplicados ficam
+-- na tabela como histórico.
+CREATE TABLE IF NOT EXISTS placar_evento (
+seq BIGSERIAL PRIMARY KEY,
+-- placar particionado não aceita FK só por id; placar_hash tem o id único
+placar_id INTEGER NOT NULL REFERENCES placar_hash(placar_id),
+lado VARCHAR(10) NOT NULL CHECK (lado IN ('casa', 'visitante')),
+delta INTEGER NOT NULL,
+criado_em TIMESTAMP NOT NULL DEFAULT now(),
+aplicado BOOLEAN NOT NULL DEFAULT false,
+-- id opcional dado pelo cliente: o mesmo ponto reenviado não é gravado duas vezes
+evento_id TEXT
+);
+
+CREATE INDEX IF NOT EXISTS placar_evento_placar_seq ON placar_evento (placar_id, seq);
+
+-- alvo do ON CONFLICT DO NOTHING na gravação; eventos sem id (NULL) nunca conflitam
+CREATE UNIQUE INDEX IF NOT EXISTS placar_evento_evento_id ON placar_evento (placar_id, evento_id);
+
+-- só a cauda ainda não consolidada: fica pequena e é a única lida nas consultas do placar
+CREATE INDEX IF NOT EXISTS placar_evento_pendente ON placar_evento (placar_id) WHERE NOT aplicado;
+
+
+-- cria a partição de finalizados do mês de 'mes', se ainda não existir,
+-- movendo para ela as linhas desse mês que estejam na partição padrão
+CREATE OR REPLACE FUNCTION fn_placar_particao_mes(mes DATE) RETURNS TEXT AS $$
+DECLARE
+inicio DATE := date_trunc('month', mes)::date;
+fim DATE := (date_trunc('month', mes) + interval '1 month')::date;
+nome TEXT := 'placar_finalizado_' || to_char(mes, 'YYYYMM');
+BEGIN
+IF to_regclass(nome) IS NULL THEN
+EXECUTE format('CREATE TABLE %I (LIKE placar_finalizado INCLUDING DEFAULTS)', nome);
+EXECUTE format('WITH movidos AS (DELETE FROM placar_finalizado_sem_mes WHERE data_inicio >= %L AND data_inicio < %L RETURNING *) '
+|| 'INSERT INTO %I SELECT * FROM movidos', inicio, fim, nome);
+EXECUTE format('ALTER TABLE placar_finalizado ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', nome, inicio, fim);
+END IF;
+RETURN nome;
 END;
 $$ LANGUAGE plpgsql;
 
 
-CREATE OR REPLACE FUNCTION sp_finaliza_placar(hid TEXT) RETURNS VOID AS $$
+-- arquivamento: garante as partições do mês atual e do próximo e, com
+-- meses_retencao >= 0, tira da tabela as partições de finalizados com mais de
+-- meses_retencao meses. Cada partição é desanexada e movida para o schema
+-- placar_arquivo, junto com os eventos dos seus jogos. DETACH trava
+-- placar_finalizado por um instante. Devolve as partições arquivadas.
+CREATE SCHEMA IF NOT EXISTS placar_arquivo;
+CREATE TABLE IF NOT EXISTS placar_arquivo.placar_evento (LIKE placar_evento);
+
+CREATE OR REPLACE FUNCTION sp_arquiva_placares(meses_retencao INTEGER) RETURNS SETOF TEXT AS $$
+DECLARE
+limite DATE := (date_trunc('month', now()) - make_interval(months => meses_retencao))::date;
+part RECORD;
 BEGIN
-UPDATE placar SET status = 'FINALIZADO' WHERE hash_id = hid;
+-- uma instância por vez
+PERFORM pg_advisory_xact_lock(hashtext('sp_arquiva_placares'));
+PERFORM fn_placar_particao_mes(now()::date);
+PERFORM fn_placar_particao_mes((now() + interval '1 month')::date);
+-- retenção negativa: só as partições (arquivamento desligado)
+IF meses_retencao < 0 THEN
+RETURN;
+END IF;
+FOR part IN
+SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+WHERE i.inhparent = 'placar_finalizado'::regclass
+AND c.relname ~ '^placar_finalizado_[0-9]{6}$'
+AND to_date(right(c.relname, 6), 'YYYYMM') < limite
+ORDER BY c.relname
+LOOP
+EXECUTE format('ALTER TABLE placar_finalizado DETACH PARTITION %I', part.relname);
+EXECUTE format('WITH movidos AS (DELETE FROM placar_evento e USING %I p WHERE e.placar_id = p.id RETURNING e.*) '
+|| 'INSERT INTO placar_arquivo.placar_evento SELECT * FROM movidos', part.relname);
+EXECUTE format('ALTER TABLE %I SET SCHEMA placar_arquivo', part.relname);
+RETURN NEXT part.relname;
+END LOOP;
 END;
-$$ LANGUAGE plpgsql;
\ No newline at end of file
+$$ LANGUAGE plpgsql;
+
+SELECT fn_placar_particao_mes(now()::date);
+SELECT fn_placar_particao_mes((now() + interval '1 month')::date);
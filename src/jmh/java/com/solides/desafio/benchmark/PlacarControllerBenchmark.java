@@ -0,0 +1,61 @@
+package com.solides.desafio.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solides.desafio.domain.PlacarEstado;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * (De)serialização na borda HTTP, com os mesmos conversores que o Spring MVC
+ * usa no {@code PlacarController}: leitura do corpo de {@code iniciar},
+ * escrita do placar tipado em {@code pontuar} e a escrita direta de bytes do
+ * {@code GET /api/placar/{hash_id}}.
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.args="PlacarControllerBenchmark -prof gc"</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlacarControllerBenchmark {
+
+    private final MappingJackson2HttpMessageConverter json = new MappingJackson2HttpMessageConverter(new ObjectMapper());
+    private final ByteArrayHttpMessageConverter bytes = new ByteArrayHttpMessageConverter();
+    private PlacarEstado estado;
+    private byte[] corpo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        estado = PlacarEstado.of("Flamengo", 42, "Fluminense", 37);
+        corpo = new ObjectMapper().writeValueAsBytes(estado);
+    }
+
+    @Benchmark
+    public Object lerCorpoIniciar() throws IOException {
+        MockHttpInputMessage entrada = new MockHttpInputMessage(corpo);
+        entrada.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return json.read(PlacarEstado.class, entrada);
+    }
+
+    @Benchmark
+    public byte[] escreverPlacarTipado() throws IOException {
+        MockHttpOutputMessage saida = new MockHttpOutputMessage();
+        json.write(estado, MediaType.APPLICATION_JSON, saida);
+        return saida.getBodyAsBytes();
+    }
+
+    @Benchmark
+    public byte[] escreverBytesDoCache() throws IOException {
+        MockHttpOutputMessage saida = new MockHttpOutputMessage();
+        bytes.write(corpo, MediaType.APPLICATION_JSON, saida);
+        return saida.getBodyAsBytes();
+    }
+}
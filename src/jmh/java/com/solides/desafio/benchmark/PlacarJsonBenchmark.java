@@ -0,0 +1,91 @@
+package com.solides.desafio.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.solides.desafio.domain.PlacarEstado;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse e serialização de documentos de placar de vários tamanhos, em árvore
+ * ({@link JsonNode}, como o serviço fazia antes) e tipado
+ * ({@link PlacarEstado}). Com {@code -prof gc}, {@code gc.alloc.rate.norm}
+ * mostra os bytes alocados por operação em cada caminho.
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.args="PlacarJsonBenchmark -prof gc"</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlacarJsonBenchmark {
+
+    /** Campos extras no documento, além dos dois times (o tipado os ignora, como o cache). */
+    @Param({"0", "10", "100"})
+    public int extras;
+
+    private final ObjectMapper mapper = PlacarEstado.tolerante(new ObjectMapper());
+    private byte[] documento;
+    private JsonNode arvore;
+    private PlacarEstado estado;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        ObjectNode doc = mapper.createObjectNode();
+        doc.set("time_da_casa", mapper.createObjectNode().put("nome", "Flamengo").put("pontos", 42));
+        doc.set("time_visitante", mapper.createObjectNode().put("nome", "Fluminense").put("pontos", 37));
+        for (int i = 0; i < extras; i++) {
+            doc.put("extra_" + i, "valor do campo extra " + i);
+        }
+        documento = mapper.writeValueAsBytes(doc);
+        arvore = mapper.readTree(documento);
+        estado = mapper.readValue(documento, PlacarEstado.class);
+    }
+
+    @Benchmark
+    public JsonNode parseArvore() throws IOException {
+        return mapper.readTree(documento);
+    }
+
+    @Benchmark
+    public PlacarEstado parseTipado() throws IOException {
+        return mapper.readValue(documento, PlacarEstado.class);
+    }
+
+    @Benchmark
+    public byte[] serializarArvore() throws IOException {
+        return mapper.writeValueAsBytes(arvore);
+    }
+
+    @Benchmark
+    public byte[] serializarTipado() throws IOException {
+        return mapper.writeValueAsBytes(estado);
+    }
+
+    /** Ida e volta do caminho antigo: bytes, String, árvore, patch e String de novo. */
+    @Benchmark
+    public String pontuarArvore() throws IOException {
+        JsonNode atual = mapper.readTree(new String(documento, StandardCharsets.UTF_8));
+        int pontos = atual.path("time_da_casa").path("pontos").asInt() + 1;
+        ObjectNode patch = mapper.createObjectNode();
+        patch.set("time_da_casa", mapper.createObjectNode().put("pontos", pontos));
+        ObjectNode novo = atual.deepCopy();
+        ((ObjectNode) novo.path("time_da_casa")).put("pontos", pontos);
+        mapper.writeValueAsString(patch);
+        return mapper.writeValueAsString(novo);
+    }
+
+    /** O mesmo ponto no caminho tipado: lê o estado, soma e serializa uma vez. */
+    @Benchmark
+    public byte[] pontuarTipado() throws IOException {
+        PlacarEstado atual = mapper.readValue(documento, PlacarEstado.class);
+        PlacarEstado novo = PlacarEstado.of(atual.casa().nome(), atual.casa().pontos() + 1,
+                atual.visitante().nome(), atual.visitante().pontos());
+        return mapper.writeValueAsBytes(novo);
+    }
+}
@@ -0,0 +1,189 @@
+package com.solides.desafio.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HexFormat;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca por hash_id (a consulta de {@code PlacarRepository.buscarPorHash})
+ * na tabela {@code placar} plana, como era, contra a particionada de
+ * {@code scripts.sql}: {@code linhas} jogos, 1% em andamento e o resto
+ * finalizado ao longo de 24 meses.
+ * <p>
+ * Precisa de um Postgres. Cada layout fica num schema próprio
+ * ({@code bench_plano}, {@code bench_particionado}), criado e populado na
+ * primeira execução (10M de linhas levam alguns minutos por layout) e
+ * reaproveitado nas seguintes.
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.args="PlacarParticionamentoBenchmark -p url=jdbc:postgresql://localhost:5432/postgres"</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlacarParticionamentoBenchmark {
+
+    static final int MESES = 24;
+    static final int LOTE_CARGA = 1_000_000;
+
+    static final String[] DDL_PLANO = {
+            "create table if not exists placar (id integer primary key, hash_id varchar(64) unique not null, " +
+            "data_inicio timestamp default now(), status varchar(20) default 'ATIVO', dados jsonb, " +
+            "pontos_casa integer not null default 0, pontos_visitante integer not null default 0)",
+    };
+
+    static final String[] DDL_PARTICIONADO = {
+            "create table if not exists placar (id integer not null, hash_id varchar(64) not null, " +
+            "data_inicio timestamp not null default now(), status varchar(20) not null default 'ATIVO', dados jsonb, " +
+            "pontos_casa integer not null default 0, pontos_visitante integer not null default 0, " +
+            "primary key (id, status, data_inicio)) partition by list (status)",
+            "create table if not exists placar_ativo partition of placar for values in ('ATIVO')",
+            "create table if not exists placar_finalizado partition of placar for values in ('FINALIZADO') " +
+            "partition by range (data_inicio)",
+            "create table if not exists placar_finalizado_sem_mes partition of placar_finalizado default",
+            "create table if not exists placar_outros partition of placar default",
+            "do $$ begin for k in 0.." + (MESES - 1) + " loop " +
+            "execute format('create table if not exists %I partition of placar_finalizado for values from (%L) to (%L)', " +
+            "'placar_finalizado_' || to_char(date_trunc('month', now()) - k * interval '1 month', 'YYYYMM'), " +
+            "(date_trunc('month', now()) - k * interval '1 month')::date, " +
+            "(date_trunc('month', now()) - (k - 1) * interval '1 month')::date); " +
+            "end loop; end $$",
+            "create index if not exists placar_hash_id on placar (hash_id)",
+    };
+
+    static final String[] DDL_EVENTO = {
+            "create table if not exists placar_evento (seq bigserial primary key, placar_id integer not null, " +
+            "lado varchar(10) not null, delta integer not null, criado_em timestamp not null default now(), " +
+            "aplicado boolean not null default false)",
+            "create index if not exists placar_evento_pendente on placar_evento (placar_id) where not aplicado",
+    };
+
+    /** O jogo i tem hash md5(i); i múltiplo de 100 está em andamento. */
+    static final String CARGA =
+            "insert into placar (id, hash_id, data_inicio, status, dados) " +
+            "select i, md5(i::text), " +
+            "date_trunc('month', now()) - (i % " + MESES + ") * interval '1 month' + (i % 28) * interval '1 day', " +
+            "case when i % 100 = 0 then 'ATIVO' else 'FINALIZADO' end, " +
+            "jsonb_build_object('time_da_casa', jsonb_build_object('nome', 'Casa ' || i % 1000), " +
+            "'time_visitante', jsonb_build_object('nome', 'Visitante ' || i % 1000)) " +
+            "from generate_series(?, ?) i";
+
+    /** Mesma consulta de {@code PlacarRepository.SELECT_ESTADO_COM_CAUDA} (modo eventos, o caso mais caro). */
+    static final String CONSULTA =
+            "select p.dados #>> '{time_da_casa,nome}', p.pontos_casa + coalesce(t.casa, 0), " +
+            "p.dados #>> '{time_visitante,nome}', p.pontos_visitante + coalesce(t.visitante, 0) from placar p " +
+            "left join lateral (select sum(e.delta) filter (where e.lado = 'casa') as casa, " +
+            "sum(e.delta) filter (where e.lado = 'visitante') as visitante " +
+            "from placar_evento e where e.placar_id = p.id and not e.aplicado) t on true where p.hash_id = ?";
+
+    @Param({"jdbc:postgresql://localhost:5432/postgres"})
+    public String url;
+
+    @Param({"postgres"})
+    public String usuario;
+
+    @Param({"postgres"})
+    public String senha;
+
+    @Param({"10000000"})
+    public int linhas;
+
+    @Param({"plano", "particionado"})
+    public String layout;
+
+    /** Jogo em andamento (partição pequena) ou finalizado. */
+    @Param({"ativo", "finalizado"})
+    public String alvo;
+
+    private Connection conexao;
+    private PreparedStatement busca;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        conexao = DriverManager.getConnection(url, usuario, senha);
+        conexao.setAutoCommit(true);
+        String schema = "bench_" + layout;
+        try (Statement st = conexao.createStatement()) {
+            st.execute("create schema if not exists " + schema);
+            st.execute("set search_path = " + schema);
+            for (String ddl : "plano".equals(layout) ? DDL_PLANO : DDL_PARTICIONADO) st.execute(ddl);
+            for (String ddl : DDL_EVENTO) st.execute(ddl);
+        }
+        popular();
+        busca = conexao.prepareStatement(CONSULTA);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws SQLException {
+        if (conexao != null) conexao.close();
+    }
+
+    /** Sorteio do jogo buscado, por thread. */
+    @State(Scope.Thread)
+    public static class Sorteio {
+        final SplittableRandom aleatorio = new SplittableRandom(42);
+        final MessageDigest md5;
+
+        public Sorteio() {
+            try {
+                md5 = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        String hash(long i) {
+            return HexFormat.of().formatHex(md5.digest(Long.toString(i).getBytes(StandardCharsets.US_ASCII)));
+        }
+    }
+
+    @Benchmark
+    public boolean buscarPorHash(Sorteio s) throws SQLException {
+        long i;
+        if ("ativo".equals(alvo)) {
+            i = 100L * (1 + s.aleatorio.nextInt(linhas / 100));
+        } else {
+            i = 1 + s.aleatorio.nextInt(linhas);
+            if (i % 100 == 0) i--;
+        }
+        busca.setString(1, s.hash(i));
+        try (ResultSet rs = busca.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    private void popular() throws SQLException {
+        long existentes;
+        try (Statement st = conexao.createStatement();
+             ResultSet rs = st.executeQuery("select coalesce(max(id), 0) from placar")) {
+            rs.next();
+            existentes = rs.getLong(1);
+        }
+        if (existentes >= linhas) return;
+
+        try (PreparedStatement carga = conexao.prepareStatement(CARGA)) {
+            for (long de = existentes + 1; de <= linhas; de += LOTE_CARGA) {
+                long ate = Math.min(linhas, de + LOTE_CARGA - 1);
+                carga.setLong(1, de);
+                carga.setLong(2, ate);
+                carga.executeUpdate();
+                System.out.println("placar (" + layout + "): " + ate + "/" + linhas + " linhas");
+            }
+        }
+        try (Statement st = conexao.createStatement()) {
+            st.execute("analyze placar");
+        }
+    }
+}
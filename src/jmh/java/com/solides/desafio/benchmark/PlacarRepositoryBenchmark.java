@@ -0,0 +1,131 @@
+package com.solides.desafio.benchmark;
+
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.repository.PlacarJdbcRepository;
+import com.solides.desafio.repository.PlacarRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code PlacarRepository} (EntityManager e uma transação do Spring por
+ * chamada) contra {@code PlacarJdbcRepository} (JDBC em autocommit, preparado
+ * no servidor), com o mesmo pool e o mesmo SQL, num contexto Spring mínimo.
+ * <p>
+ * Precisa de um Postgres com o {@code scripts.sql} aplicado; cada execução
+ * cria {@code jogos} placares novos.
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.args="PlacarRepositoryBenchmark -p url=jdbc:postgresql://localhost:5432/postgres"</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlacarRepositoryBenchmark {
+
+    @Param({"jdbc:postgresql://localhost:5432/postgres"})
+    public String url;
+
+    @Param({"postgres"})
+    public String usuario;
+
+    @Param({"postgres"})
+    public String senha;
+
+    @Param({"jpa", "jdbc"})
+    public String repositorio;
+
+    @Param({"1000"})
+    public int jogos;
+
+    private AnnotationConfigApplicationContext contexto;
+    private PlacarRepository repo;
+    private String[] hashes;
+
+    /** Só o que o repositório usa: pool, JPA e transações. */
+    @Configuration
+    @EnableTransactionManagement
+    public static class Persistencia {
+
+        @Bean
+        public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
+            emf.setDataSource(dataSource);
+            emf.setPackagesToScan("com.solides.desafio.domain");
+            emf.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            return emf;
+        }
+
+        @Bean
+        public JpaTransactionManager transactionManager(EntityManagerFactory emf) {
+            return new JpaTransactionManager(emf);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(usuario);
+        dataSource.setPassword(senha);
+        dataSource.setMaximumPoolSize(8);
+
+        contexto = new AnnotationConfigApplicationContext();
+        contexto.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("benchmark", Map.of("placar.repositorio", repositorio)));
+        contexto.registerBean(DataSource.class, () -> dataSource);
+        contexto.register(Persistencia.class, PlacarRepository.class, PlacarJdbcRepository.class);
+        contexto.refresh();
+        repo = contexto.getBean(PlacarRepository.class);
+
+        hashes = new String[jogos];
+        for (int i = 0; i < jogos; i++) {
+            hashes[i] = repo.iniciar(PlacarEstado.of("Casa " + i, 0, "Visitante " + i, 0)).hashId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    /** Posição de cada thread na lista de jogos, para não disputar sempre o mesmo placar. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int i;
+
+        String proximo(String[] hashes) {
+            return hashes[i++ % hashes.length];
+        }
+    }
+
+    @Benchmark
+    public Optional<PlacarEstado> buscar(Cursor cursor) {
+        return repo.buscarPorHash(cursor.proximo(hashes));
+    }
+
+    @Benchmark
+    public Optional<PlacarEstado> incrementar(Cursor cursor) {
+        return repo.incrementar(cursor.proximo(hashes), 1, 0);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<PlacarEstado> buscarConcorrente(Cursor cursor) {
+        return repo.buscarPorHash(cursor.proximo(hashes));
+    }
+}
@@ -0,0 +1,73 @@
+package com.solides.desafio.benchmark;
+
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.infra.redis.PlacarCache;
+import com.solides.desafio.perf.fake.PlacarEmMemoria;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do {@code PlacarService} sobre dublês em memória: sem rede, o que
+ * sobra é a CPU e a alocação do próprio serviço (serialização, evento,
+ * cache, write-behind, entrega à thread gravadora do log de eventos).
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.args="PontuarBenchmark -prof gc"</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PontuarBenchmark {
+
+    @Param({"banco", "redis", "eventos"})
+    public String modo;
+
+    @Param({"1000"})
+    public int jogos;
+
+    private PlacarEmMemoria ambiente;
+    private String[] hashes;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        ambiente = new PlacarEmMemoria(modo);
+        hashes = new String[jogos];
+        for (int i = 0; i < jogos; i++) {
+            hashes[i] = ambiente.service.iniciar(PlacarEstado.of("Casa " + i, 0, "Visitante " + i, 0));
+        }
+    }
+
+    /** Posição de cada thread na lista de jogos, para não disputar sempre o mesmo placar. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int i;
+
+        String proximo(String[] hashes) {
+            return hashes[i++ % hashes.length];
+        }
+    }
+
+    @Benchmark
+    public PlacarEstado pontuar(Cursor cursor) {
+        return ambiente.service.pontuar(cursor.proximo(hashes), (cursor.i & 1) == 0 ? "casa" : "visitante");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public PlacarEstado pontuarConcorrente(Cursor cursor) {
+        return pontuar(cursor);
+    }
+
+    @Benchmark
+    public Optional<PlacarEstado> buscarTipado(Cursor cursor) {
+        return ambiente.service.buscar(cursor.proximo(hashes));
+    }
+
+    @Benchmark
+    public Optional<PlacarCache.Bruto> buscarBruto(Cursor cursor) {
+        return ambiente.service.buscarBruto(cursor.proximo(hashes));
+    }
+}
@@ -0,0 +1,101 @@
+package com.solides.desafio.benchmark;
+
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.perf.fake.PlacarEmMemoria;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Requisições de pontuação concorrentes num pool de threads de plataforma
+ * (o {@code maxThreads} padrão do Tomcat, 200) contra uma virtual thread por
+ * requisição, como com {@code spring.threads.virtual.enabled=true}.
+ * <p>
+ * Cada requisição chama o {@code PlacarService} sobre os dublês em memória e
+ * bloqueia {@code ioMicros} simulando as idas ao Postgres, ao Redis e ao
+ * RabbitMQ. Em {@code bloqueio=synchronized} a espera acontece dentro de um
+ * monitor, como nos drivers que ainda usam {@code synchronized}: a virtual
+ * thread fica presa à portadora e o ganho desaparece.
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.args="ThreadsVirtuaisBenchmark"</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadsVirtuaisBenchmark {
+
+    /** Requisições simultâneas por rajada. */
+    static final int REQUISICOES = 2000;
+
+    @Param({"plataforma", "virtual"})
+    public String threads;
+
+    @Param({"0", "2000"})
+    public int ioMicros;
+
+    @Param({"livre", "synchronized"})
+    public String bloqueio;
+
+    @Param({"200"})
+    public int threadsPlataforma;
+
+    private PlacarEmMemoria ambiente;
+    private String[] hashes;
+    private Object[] monitores;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        ambiente = new PlacarEmMemoria("banco");
+        hashes = new String[1000];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = ambiente.service.iniciar(PlacarEstado.of("Casa " + i, 0, "Visitante " + i, 0));
+        }
+        // um monitor por requisição: sem disputa, só o efeito do pinning
+        monitores = new Object[REQUISICOES];
+        for (int i = 0; i < monitores.length; i++) monitores[i] = new Object();
+        executor = "virtual".equals(threads)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(threadsPlataforma);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUISICOES)
+    public void rajada() throws InterruptedException {
+        CountDownLatch fim = new CountDownLatch(REQUISICOES);
+        boolean sincronizado = "synchronized".equals(bloqueio);
+        for (int i = 0; i < REQUISICOES; i++) {
+            int n = i;
+            executor.execute(() -> {
+                try {
+                    ambiente.service.pontuar(hashes[n % hashes.length], (n & 1) == 0 ? "casa" : "visitante");
+                    if (sincronizado) {
+                        synchronized (monitores[n]) {
+                            esperarIo();
+                        }
+                    } else {
+                        esperarIo();
+                    }
+                } finally {
+                    fim.countDown();
+                }
+            });
+        }
+        fim.await();
+    }
+
+    private void esperarIo() {
+        if (ioMicros > 0) LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(ioMicros));
+    }
+}
@@ -0,0 +1,70 @@
+package com.solides.desafio.loadtest;
+
+import com.solides.desafio.controller.PlacarController;
+import com.solides.desafio.controller.TimeController;
+import com.solides.desafio.perf.fake.PlacarEmMemoria;
+import com.solides.desafio.perf.fake.RedisIndisponivel;
+import com.solides.desafio.perf.fake.TimeRepositoryEmMemoria;
+import com.solides.desafio.service.PlacarAoVivo;
+import com.solides.desafio.service.PlacarAtivos;
+import com.solides.desafio.service.PlacarService;
+import com.solides.desafio.service.TimeCatalogo;
+import com.solides.desafio.service.TimeNomes;
+import com.solides.desafio.service.TimeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Aplicação para o teste de carga: os controllers reais sobre
+ * {@link PlacarService} e {@link TimeService} reais, com Postgres, Redis e
+ * RabbitMQ trocados pelos dublês em memória de {@code com.solides.desafio.perf.fake}.
+ * <p>
+ * Não há component scan: os repositórios em memória não são beans, para
+ * que o Spring não tente injetar um {@code EntityManager} neles. As métricas
+ * do serviço vão para o registry do actuator, como na aplicação.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
+@Import({PlacarController.class, TimeController.class})
+public class CargaConfig {
+
+    private final TimeRepositoryEmMemoria timeRepository = new TimeRepositoryEmMemoria();
+
+    @Bean
+    PlacarEmMemoria placarEmMemoria(@Value("${placar.contador:banco}") String modoContador,
+                                    MeterRegistry registry) {
+        return new PlacarEmMemoria(modoContador, registry);
+    }
+
+    @Bean
+    PlacarService placarService(PlacarEmMemoria ambiente) {
+        return ambiente.service;
+    }
+
+    @Bean
+    PlacarAoVivo placarAoVivo(PlacarEmMemoria ambiente) {
+        return ambiente.aoVivo;
+    }
+
+    @Bean
+    PlacarAtivos placarAtivos(PlacarEmMemoria ambiente) {
+        return ambiente.ativos;
+    }
+
+    /** Sem Redis: o catálogo de times funciona sem versão, então sem ETag. */
+    @Bean
+    TimeCatalogo timeCatalogo(MeterRegistry registry) {
+        return new TimeCatalogo(timeRepository, new RedisIndisponivel(), registry);
+    }
+
+    @Bean
+    TimeService timeService(TimeCatalogo catalogo) {
+        return new TimeService(timeRepository, catalogo, new TimeNomes());
+    }
+}
@@ -0,0 +1,338 @@
+package com.solides.desafio.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gerador de carga em malha aberta para a API de placar e times.
+ * <p>
+ * As requisições saem numa taxa fixa ({@code --taxa} por segundo),
+ * independente de quanto a aplicação demora para responder. A latência é
+ * medida a partir do instante em que a requisição <em>deveria</em> ter saído,
+ * então atrasos do próprio gerador ou filas no servidor aparecem nos
+ * percentis (correção de coordinated omission).
+ * <p>
+ * Sem {@code --alvo}, sobe a aplicação no próprio processo ({@link CargaConfig})
+ * com Postgres, Redis e RabbitMQ em memória. Gerador e servidor dividem a
+ * CPU: o resultado é um piso para a capacidade de uma instância real.
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dcarga.args="taxa=5000 duracao=60"
+ * mvn -Ploadtest test-compile exec:exec -Dcarga.args="alvo=http://localhost:8081 mix=pontuar=50,buscar=50"
+ * </pre>
+ * Opções ({@code chave=valor}, com ou sem {@code --}): {@code --taxa} (req/s, 1000), {@code --duracao} (s, 30),
+ * {@code --aquecimento} (s, 5), {@code --mix} (pesos por operação),
+ * {@code --jogos} (1000), {@code --times} (100), {@code --contador}
+ * (banco|redis|eventos, só no processo), {@code --virtual} (true|false, só no
+ * processo: requisições em virtual threads), {@code --clientes} (threads do cliente HTTP,
+ * 32), {@code --max-em-voo} (20000).
+ * <p>
+ * {@code finalizar} e {@code time_deletar} só atingem jogos e times criados
+ * durante a própria carga, para não esvaziar o conjunto inicial; sem nenhum
+ * disponível, a requisição não sai e é contada como "sem alvo".
+ */
+public final class CargaPlacar {
+
+    enum Operacao {
+        INICIAR, PONTUAR, BUSCAR, FINALIZAR,
+        TIME_CRIAR, TIME_BUSCAR, TIME_ATUALIZAR, TIME_DELETAR, TIME_LISTAR
+    }
+
+    static final String MIX_PADRAO = "pontuar=60,buscar=30,iniciar=2,finalizar=2,"
+            + "time_criar=1,time_buscar=2,time_atualizar=1,time_deletar=1,time_listar=1";
+
+    /** Maior latência registrada: 60 s, em microssegundos. */
+    private static final long LATENCIA_MAXIMA_US = TimeUnit.SECONDS.toMicros(60);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String alvo;
+    private final HttpClient client;
+    private final ExecutorService executorCliente;
+    private final Operacao[] sorteio;
+    private final int taxa;
+    private final int duracaoS;
+    private final int aquecimentoS;
+    private final int maxEmVoo;
+
+    private final Map<Operacao, Histogram> latencias = new EnumMap<>(Operacao.class);
+    private final AtomicLongArray sucessos = new AtomicLongArray(Operacao.values().length);
+    private final AtomicLongArray erros = new AtomicLongArray(Operacao.values().length);
+    private final AtomicLongArray descartadas = new AtomicLongArray(Operacao.values().length);
+    private final AtomicLongArray semAlvo = new AtomicLongArray(Operacao.values().length);
+    private final AtomicInteger emVoo = new AtomicInteger();
+    private final AtomicLong sequenciaTimes = new AtomicLong();
+
+    private String[] jogos;
+    private long[] times;
+    private final ConcurrentLinkedQueue<String> jogosParaFinalizar = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> timesParaDeletar = new ConcurrentLinkedQueue<>();
+
+    CargaPlacar(String alvo, Map<String, String> opcoes) {
+        this.alvo = alvo;
+        this.taxa = Integer.parseInt(opcoes.getOrDefault("taxa", "1000"));
+        this.duracaoS = Integer.parseInt(opcoes.getOrDefault("duracao", "30"));
+        this.aquecimentoS = Integer.parseInt(opcoes.getOrDefault("aquecimento", "5"));
+        this.maxEmVoo = Integer.parseInt(opcoes.getOrDefault("max-em-voo", "20000"));
+        this.sorteio = montarSorteio(opcoes.getOrDefault("mix", MIX_PADRAO));
+        int clientes = Integer.parseInt(opcoes.getOrDefault("clientes", "32"));
+        this.executorCliente = Executors.newFixedThreadPool(clientes, r -> {
+            Thread t = new Thread(r, "carga-http");
+            t.setDaemon(true);
+            return t;
+        });
+        this.client = HttpClient.newBuilder()
+                .executor(executorCliente)
+                .connectTimeout(Duration.ofSeconds(5))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        for (Operacao op : Operacao.values()) {
+            latencias.put(op, new ConcurrentHistogram(LATENCIA_MAXIMA_US, 3));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = opcoes(args);
+        ConfigurableApplicationContext app = null;
+        String alvo = opcoes.get("alvo");
+        if (alvo == null) {
+            // argumentos de linha de comando: têm precedência sobre o application.properties
+            app = new SpringApplicationBuilder(CargaConfig.class)
+                    .run("--server.port=0",
+                            "--spring.main.banner-mode=off",
+                            "--logging.level.root=WARN",
+                            "--placar.contador=" + opcoes.getOrDefault("contador", "banco"),
+                            "--spring.threads.virtual.enabled=" + opcoes.getOrDefault("virtual", "false"));
+            int porta = ((WebServerApplicationContext) app).getWebServer().getPort();
+            alvo = "http://localhost:" + porta;
+            System.out.println("Aplicação em memória em " + alvo);
+        }
+
+        CargaPlacar carga = new CargaPlacar(alvo, opcoes);
+        try {
+            carga.preparar(Integer.parseInt(opcoes.getOrDefault("jogos", "1000")),
+                    Integer.parseInt(opcoes.getOrDefault("times", "100")));
+            carga.executar();
+            carga.relatorio();
+        } finally {
+            carga.executorCliente.shutdownNow();
+            if (app != null) app.close();
+        }
+    }
+
+    /** Cria os jogos e times usados por pontuar/buscar e pelas operações de time. */
+    void preparar(int quantidadeJogos, int quantidadeTimes) throws Exception {
+        jogos = new String[quantidadeJogos];
+        for (int i = 0; i < quantidadeJogos; i++) {
+            HttpResponse<String> res = client.send(requisicao(Operacao.INICIAR, null), HttpResponse.BodyHandlers.ofString());
+            jogos[i] = mapper.readTree(res.body()).path("hash_id").asText();
+        }
+        times = new long[quantidadeTimes];
+        for (int i = 0; i < quantidadeTimes; i++) {
+            HttpResponse<String> res = client.send(requisicao(Operacao.TIME_CRIAR, null), HttpResponse.BodyHandlers.ofString());
+            times[i] = mapper.readTree(res.body()).path("id").asLong();
+        }
+        System.out.printf("Preparado: %d jogos, %d times. Carga: %d req/s por %ds (+%ds de aquecimento)%n",
+                quantidadeJogos, quantidadeTimes, taxa, duracaoS, aquecimentoS);
+    }
+
+    void executar() {
+        long inicio = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long inicioMedicao = inicio + TimeUnit.SECONDS.toNanos(aquecimentoS);
+        long fim = inicioMedicao + TimeUnit.SECONDS.toNanos(duracaoS);
+
+        for (long i = 0; ; i++) {
+            long previsto = inicio + (long) (i * (1_000_000_000.0 / taxa));
+            if (previsto >= fim) break;
+            esperarAte(previsto);
+            disparar(sorteio[ThreadLocalRandom.current().nextInt(sorteio.length)], previsto, previsto >= inicioMedicao);
+        }
+
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (emVoo.get() > 0 && System.nanoTime() < limite) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    private void disparar(Operacao op, long previsto, boolean medir) {
+        if (emVoo.incrementAndGet() > maxEmVoo) {
+            // o servidor não está dando conta: não acumula memória sem limite
+            emVoo.decrementAndGet();
+            if (medir) descartadas.incrementAndGet(op.ordinal());
+            return;
+        }
+        HttpRequest req = requisicao(op, alvoDa(op));
+        if (req == null) {
+            // finalizar/deletar sem jogo ou time criado durante a carga
+            emVoo.decrementAndGet();
+            if (medir) semAlvo.incrementAndGet(op.ordinal());
+            return;
+        }
+        client.sendAsync(req, HttpResponse.BodyHandlers.ofString()).whenComplete((res, erro) -> {
+            try {
+                long latenciaUs = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - previsto);
+                boolean ok = erro == null && res.statusCode() < 400;
+                if (medir) {
+                    latencias.get(op).recordValue(Math.min(latenciaUs, LATENCIA_MAXIMA_US));
+                    (ok ? sucessos : erros).incrementAndGet(op.ordinal());
+                }
+                if (ok) registrarCriado(op, res.body());
+            } finally {
+                emVoo.decrementAndGet();
+            }
+        });
+    }
+
+    /** Jogo ou time alvo da operação; null quando a operação não precisa de um. */
+    private String alvoDa(Operacao op) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        return switch (op) {
+            case PONTUAR, BUSCAR -> jogos[r.nextInt(jogos.length)];
+            case FINALIZAR -> jogosParaFinalizar.poll();
+            case TIME_BUSCAR, TIME_ATUALIZAR -> Long.toString(times[r.nextInt(times.length)]);
+            case TIME_DELETAR -> {
+                Long id = timesParaDeletar.poll();
+                yield id != null ? id.toString() : null;
+            }
+            default -> null;
+        };
+    }
+
+    private HttpRequest requisicao(Operacao op, String alvoOp) {
+        HttpRequest.Builder b = HttpRequest.newBuilder().timeout(Duration.ofSeconds(30));
+        switch (op) {
+            case INICIAR -> b.uri(uri("/api/placar/iniciar"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"time_da_casa\":{\"nome\":\"Casa\",\"pontos\":0},\"time_visitante\":{\"nome\":\"Visitante\",\"pontos\":0}}"));
+            case PONTUAR -> b.uri(uri("/api/placar/pontuar/" + alvoOp + "?lado="
+                            + (ThreadLocalRandom.current().nextBoolean() ? "casa" : "visitante")))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.noBody());
+            case BUSCAR -> b.uri(uri("/api/placar/" + alvoOp)).GET();
+            case FINALIZAR -> {
+                if (alvoOp == null) return null;
+                b.uri(uri("/api/placar/" + alvoOp)).DELETE();
+            }
+            case TIME_CRIAR -> b.uri(uri("/api/time"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"nome\":\"Time " + sequenciaTimes.incrementAndGet() + "\",\"logo\":\"logo.png\"}"));
+            case TIME_BUSCAR -> b.uri(uri("/api/time/" + alvoOp)).GET();
+            case TIME_ATUALIZAR -> b.uri(uri("/api/time/" + alvoOp))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(
+                            "{\"nome\":\"Time base " + alvoOp + "\",\"logo\":\"logo-" + System.nanoTime() + ".png\"}"));
+            case TIME_DELETAR -> {
+                if (alvoOp == null) return null;
+                b.uri(uri("/api/time/" + alvoOp)).DELETE();
+            }
+            case TIME_LISTAR -> b.uri(uri("/api/time")).GET();
+        }
+        return b.build();
+    }
+
+    private void registrarCriado(Operacao op, String corpo) {
+        try {
+            if (op == Operacao.INICIAR) {
+                String hash = mapper.readTree(corpo).path("hash_id").asText(null);
+                if (hash != null) jogosParaFinalizar.add(hash);
+            } else if (op == Operacao.TIME_CRIAR) {
+                JsonNode id = mapper.readTree(corpo).path("id");
+                if (!id.isMissingNode()) timesParaDeletar.add(id.asLong());
+            }
+        } catch (Exception e) {
+            // só alimenta finalizar/deletar; não afeta a medição
+        }
+    }
+
+    void relatorio() {
+        System.out.println();
+        System.out.printf("%-15s %10s %8s %10s %9s %10s %10s %10s %10s%n",
+                "operação", "ok", "erros", "descart.", "sem alvo", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        long total = 0;
+        Histogram geral = new Histogram(LATENCIA_MAXIMA_US, 3);
+        for (Operacao op : Operacao.values()) {
+            Histogram h = latencias.get(op);
+            long ok = sucessos.get(op.ordinal());
+            long err = erros.get(op.ordinal());
+            long desc = descartadas.get(op.ordinal());
+            long sem = semAlvo.get(op.ordinal());
+            if (ok + err + desc + sem == 0) continue;
+            total += ok + err;
+            geral.add(h);
+            System.out.printf("%-15s %10d %8d %10d %9d %10.2f %10.2f %10.2f %10.2f%n",
+                    op.name().toLowerCase(), ok, err, desc, sem,
+                    ms(h, 50), ms(h, 99), ms(h, 99.9), h.getMaxValue() / 1000.0);
+        }
+        System.out.printf("%-15s %10d %8s %10s %9s %10.2f %10.2f %10.2f %10.2f%n",
+                "total", total, "", "", "", ms(geral, 50), ms(geral, 99), ms(geral, 99.9), geral.getMaxValue() / 1000.0);
+        System.out.printf("%nVazão atingida: %.0f req/s (alvo %d req/s)%n", (double) total / duracaoS, taxa);
+    }
+
+    private static double ms(Histogram h, double percentil) {
+        return h.getValueAtPercentile(percentil) / 1000.0;
+    }
+
+    private URI uri(String caminho) {
+        return URI.create(alvo + caminho);
+    }
+
+    private static void esperarAte(long instanteNs) {
+        long falta;
+        while ((falta = instanteNs - System.nanoTime()) > 0) {
+            if (falta > 200_000) LockSupport.parkNanos(falta - 100_000);
+            else Thread.onSpinWait();
+        }
+    }
+
+    /** Expande os pesos do mix ("pontuar=60,buscar=30") numa tabela de sorteio. */
+    static Operacao[] montarSorteio(String mix) {
+        Map<Operacao, Integer> pesos = new LinkedHashMap<>();
+        for (String item : mix.split(",")) {
+            String[] kv = item.trim().split("=");
+            if (kv.length != 2) throw new IllegalArgumentException("mix inválido: " + item);
+            pesos.put(Operacao.valueOf(kv[0].trim().toUpperCase()), Integer.parseInt(kv[1].trim()));
+        }
+        int soma = pesos.values().stream().mapToInt(Integer::intValue).sum();
+        if (soma <= 0) throw new IllegalArgumentException("mix sem operações: " + mix);
+        Operacao[] res = new Operacao[soma];
+        int i = 0;
+        for (Map.Entry<Operacao, Integer> e : pesos.entrySet()) {
+            for (int n = 0; n < e.getValue(); n++) res[i++] = e.getKey();
+        }
+        return res;
+    }
+
+    static Map<String, String> opcoes(String[] args) {
+        Map<String, String> res = new LinkedHashMap<>();
+        for (String arg : args) {
+            String opcao = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = opcao.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("argumento inválido (use chave=valor): " + arg);
+            res.put(opcao.substring(0, eq), opcao.substring(eq + 1));
+        }
+        return res;
+    }
+}
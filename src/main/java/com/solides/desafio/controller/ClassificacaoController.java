@@ -0,0 +1,88 @@
+package com.solides.desafio.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solides.desafio.service.ClassificacaoService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+
+/**
+ * Classificação das competições, formada pelos jogos iniciados com
+ * {@code /api/placar/iniciar?competicao=...} e já finalizados.
+ */
+@RestController
+@RequestMapping("/api/classificacao")
+public class ClassificacaoController {
+
+    private final ClassificacaoService service;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Value("${classificacao.pagina.limite-padrao:20}")
+    private int limitePadrao = 20;
+
+    @Value("${classificacao.pagina.limite-maximo:100}")
+    private int limiteMaximo = 100;
+
+    public ClassificacaoController(ClassificacaoService service) {
+        this.service = service;
+    }
+
+    /** Página da tabela a partir da posição {@code offset + 1}; o líder tem posição 1. */
+    @GetMapping(value = "/{competicao}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> pagina(@PathVariable("competicao") String competicao,
+                                    @RequestParam(value = "offset", defaultValue = "0") long offset,
+                                    @RequestParam(value = "limit", required = false) Integer limit) {
+        if (!ClassificacaoService.competicaoValida(competicao)) return competicaoInvalida();
+        if (offset < 0 || (limit != null && limit < 1)) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error","offset deve ser >= 0 e limit >= 1"));
+        }
+        int limite = limit == null ? limitePadrao : Math.min(limit, limiteMaximo);
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(service.pagina(competicao, offset, limite));
+        } catch (Exception ex) {
+            return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error","Erro ao buscar classificação: " + ex.getMessage()));
+        }
+    }
+
+    /** Posição e campanha de um time na competição. */
+    @GetMapping(value = "/{competicao}/times/{time}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> posicao(@PathVariable("competicao") String competicao,
+                                     @PathVariable("time") String time) {
+        if (!ClassificacaoService.competicaoValida(competicao)) return competicaoInvalida();
+        try {
+            Optional<ClassificacaoService.Linha> linha = service.posicao(competicao, time);
+            if (linha.isEmpty()) {
+                return ResponseEntity.status(404).contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.createObjectNode().put("error","Time fora da classificação"));
+            }
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(linha.get());
+        } catch (Exception ex) {
+            return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error","Erro ao buscar classificação: " + ex.getMessage()));
+        }
+    }
+
+    /** Regrava a competição no Redis a partir do banco. */
+    @PostMapping("/{competicao}/reconstruir")
+    public ResponseEntity<?> reconstruir(@PathVariable("competicao") String competicao) {
+        if (!ClassificacaoService.competicaoValida(competicao)) return competicaoInvalida();
+        try {
+            service.reconstruir(competicao);
+            return ResponseEntity.noContent().build();
+        } catch (Exception ex) {
+            return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error","Erro ao reconstruir classificação: " + ex.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> competicaoInvalida() {
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                .body(mapper.createObjectNode().put("error","Competição inválida"));
+    }
+}
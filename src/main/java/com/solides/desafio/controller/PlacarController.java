@@ -1,12 +1,34 @@
 package com.solides.desafio.controller;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.solides.desafio.domain.Lance;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontuacao;
+import com.solides.desafio.infra.redis.PlacarCache;
+import com.solides.desafio.service.ClassificacaoService;
+import com.solides.desafio.service.PlacarAoVivo;
+import com.solides.desafio.service.PlacarAtivos;
 import com.solides.desafio.service.PlacarService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -14,33 +36,100 @@ import java.util.Optional;
 public class PlacarController {
 
     private final PlacarService placarService;
+    private final PlacarAoVivo aoVivo;
+    private final PlacarAtivos ativos;
     private final ObjectMapper mapper = new ObjectMapper();
 
-    public PlacarController(PlacarService placarService) {
+    @Value("${placar.lote.max-itens:1000}")
+    private int maxItensLote = 1000;
+
+    @Value("${placar.buscar.max-itens:500}")
+    private int maxItensBusca = 500;
+
+    @Value("${placar.ativos.limite-padrao:50}")
+    private int limitePadraoAtivos = 50;
+
+    @Value("${placar.ativos.limite-maximo:200}")
+    private int limiteMaximoAtivos = 200;
+
+    public PlacarController(PlacarService placarService, PlacarAoVivo aoVivo, PlacarAtivos ativos) {
         this.placarService = placarService;
+        this.aoVivo = aoVivo;
+        this.ativos = ativos;
     }
 
+    /**
+     * Jogos em andamento com o placar atual de cada um, em ordem de início.
+     * Só {@code status=ATIVO} é listável; os placares vão na resposta como
+     * estão no cache, sem reserializar.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> listar(@RequestParam(value = "status", required = false) String status,
+                                    @RequestParam(value = "offset", defaultValue = "0") long offset,
+                                    @RequestParam(value = "limit", required = false) Integer limit) {
+        if (!"ATIVO".equalsIgnoreCase(status)) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error","Informe status=ATIVO"));
+        }
+        if (offset < 0 || (limit != null && limit < 1)) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error","offset deve ser >= 0 e limit >= 1"));
+        }
+        int limite = limit == null ? limitePadraoAtivos : Math.min(limit, limiteMaximoAtivos);
+        try {
+            PlacarAtivos.Pagina pagina = ativos.pagina(offset, limite);
+            ObjectNode res = mapper.createObjectNode().put("total", pagina.total()).put("offset", offset);
+            ArrayNode placares = res.putArray("placares");
+            pagina.placares().forEach((hashId, json) -> placares.addObject()
+                    .put("hash_id", hashId)
+                    .putRawValue("placar", new RawValue(new String(json, StandardCharsets.UTF_8))));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(res);
+        } catch (Exception ex) {
+            return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error","Erro ao listar placares: " + ex.getMessage()));
+        }
+    }
+
+    /**
+     * Cria o placar. Com {@code competicao}, o resultado do jogo entra na
+     * classificação dela ao ser finalizado ({@code /api/classificacao}).
+     */
     @PostMapping(value = "/iniciar", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<?> iniciarPlacar(@RequestBody JsonNode payload) {
-        if (payload == null || payload.isNull() || payload.isEmpty()) {
+    public ResponseEntity<?> iniciarPlacar(@RequestBody(required = false) PlacarEstado payload,
+                                           @RequestParam(value = "competicao", required = false) String competicao) {
+        if (payload == null || payload.isVazio()) {
             return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
                     .body(mapper.createObjectNode().put("error","Payload inválido"));
         }
+        if (competicao != null && !ClassificacaoService.competicaoValida(competicao)) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error","Competição inválida"));
+        }
         try {
-            String payloadStr = mapper.writeValueAsString(payload);
-            String result = placarService.iniciar(payloadStr);
-            if (result == null || result.isBlank()) {
+            String hashId = placarService.iniciar(payload, competicao);
+            if (hashId == null || hashId.isBlank()) {
                 return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON)
                         .body(mapper.createObjectNode().put("error","Resposta inválida da service"));
             }
-            JsonNode node = mapper.readTree(result);
-            return ResponseEntity.status(201).contentType(MediaType.APPLICATION_JSON).body(node);
+            return ResponseEntity.status(201).contentType(MediaType.APPLICATION_JSON).body(Map.of("hash_id", hashId));
         } catch (Exception ex) {
             return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON)
                     .body(mapper.createObjectNode().put("error","Erro ao iniciar placar: " + ex.getMessage()));
         }
     }
 
+    /**
+     * Corpo ilegível ou fora do formato do placar; campos desconhecidos
+     * chegam aqui pela recusa em {@link PlacarEstado}.
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<?> corpoInvalido(HttpMessageNotReadableException ex) {
+        Throwable causa = ex.getMostSpecificCause();
+        String erro = causa instanceof IllegalArgumentException ? causa.getMessage() : "Payload inválido";
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                .body(mapper.createObjectNode().put("error", erro));
+    }
+
     @PostMapping(value = "/pontuar/{hash_id}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> pontuar(
             @PathVariable("hash_id") String hashId,
@@ -49,6 +138,7 @@ public class PlacarController {
     ) {
         try {
             String lado = null;
+            String eventoId = body != null && body.hasNonNull("evento_id") ? body.get("evento_id").asText() : null;
             if (ladoQuery != null && !ladoQuery.isBlank()) {
                 lado = ladoQuery;
             } else if (body != null && !body.isEmpty()) {
@@ -61,13 +151,12 @@ public class PlacarController {
                         .body(mapper.createObjectNode().put("error","Parâmetro 'lado' é obrigatório (casa ou visitante)"));
             }
 
-            String atualizado = placarService.pontuar(hashId, lado);
+            PlacarEstado atualizado = placarService.pontuar(hashId, lado, eventoId);
             if (atualizado == null) {
                 return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON)
                         .body(mapper.createObjectNode().put("error","Resposta inválida da service"));
             }
-            JsonNode node = mapper.readTree(atualizado);
-            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(node);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(atualizado);
 
         } catch (IllegalArgumentException iae) {
             return ResponseEntity.status(404).contentType(MediaType.APPLICATION_JSON)
@@ -78,13 +167,74 @@ public class PlacarController {
         }
     }
 
+    /**
+     * Pontua vários jogos numa requisição. O corpo é um array JSON ou NDJSON
+     * (um objeto por linha) de {@code {"hash_id", "lado", "delta", "evento_id"}},
+     * com {@code delta} opcional (1) e {@code evento_id} opcional (ver {@link Pontuacao}). Cada item recebe seu próprio resultado, na
+     * ordem do lote: um item inválido não impede os demais.
+     */
+    @PostMapping(value = "/pontuar/lote",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> pontuarLote(InputStream corpo) {
+        List<Pontuacao> itens = new ArrayList<>();
+        try (MappingIterator<JsonNode> it = mapper.readerFor(JsonNode.class).readValues(corpo)) {
+            while (it.hasNextValue()) {
+                if (itens.size() == maxItensLote) {
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).contentType(MediaType.APPLICATION_JSON)
+                            .body(mapper.createObjectNode().put("error", "Lote acima de " + maxItensLote + " itens"));
+                }
+                itens.add(pontuacao(it.nextValue()));
+            }
+        } catch (IOException | RuntimeException ex) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error", "Lote inválido: " + ex.getMessage()));
+        }
+
+        try {
+            List<PlacarService.ResultadoLote> resultados = placarService.pontuarLote(itens);
+            ObjectNode res = mapper.createObjectNode();
+            ArrayNode lista = mapper.createArrayNode();
+            int aplicados = 0;
+            for (int i = 0; i < resultados.size(); i++) {
+                PlacarService.ResultadoLote r = resultados.get(i);
+                ObjectNode item = lista.addObject()
+                        .put("indice", i)
+                        .put("hash_id", itens.get(i).hashId())
+                        .put("status", r.status().name().toLowerCase());
+                if (r.placar() != null) item.set("placar", mapper.valueToTree(r.placar()));
+                if (r.erro() != null) item.put("error", r.erro());
+                if (r.status() == PlacarService.StatusLote.OK) aplicados++;
+            }
+            res.put("total", resultados.size()).put("aplicados", aplicados).set("resultados", lista);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(res);
+        } catch (Exception ex) {
+            return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error","Erro ao pontuar lote: " + ex.getMessage()));
+        }
+    }
+
+    /**
+     * Devolve os bytes do placar como estão no Redis, sem reserializar, com
+     * ETag forte derivada da versão do placar. Um {@code If-None-Match} que
+     * confere com a versão atual responde 304 sem ler o JSON.
+     */
     @GetMapping(value = "/{hash_id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<?> buscar(@PathVariable("hash_id") String hashId) {
+    public ResponseEntity<?> buscar(@PathVariable("hash_id") String hashId,
+                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            Optional<String> opt = placarService.buscar(hashId);
+            if (ifNoneMatch != null && !ifNoneMatch.isBlank()) {
+                long versao = placarService.versao(hashId);
+                if (versao > 0 && etagConfere(ifNoneMatch, etag(versao))) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(versao)).build();
+                }
+            }
+
+            Optional<PlacarCache.Bruto> opt = placarService.buscarBruto(hashId);
             if (opt.isPresent()) {
-                JsonNode node = mapper.readTree(opt.get());
-                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(node);
+                ResponseEntity.BodyBuilder ok = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+                if (opt.get().versao() > 0) ok.eTag(etag(opt.get().versao()));
+                return ok.body(opt.get().json());
             } else {
                 return ResponseEntity.status(404).contentType(MediaType.APPLICATION_JSON)
                         .body(mapper.createObjectNode().put("error","Placar não encontrado"));
@@ -95,6 +245,76 @@ public class PlacarController {
         }
     }
 
+    /**
+     * Vários placares numa requisição. O corpo é um array JSON de hash_ids; a
+     * resposta, um objeto hash_id -> placar, com null para os que não
+     * existem. Os placares em cache vão como estão no Redis, sem reserializar.
+     */
+    @PostMapping(value = "/buscar", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> buscarVarios(@RequestBody(required = false) JsonNode body) {
+        if (body == null || !body.isArray()) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error","Informe um array de hash_ids"));
+        }
+        if (body.size() > maxItensBusca) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error", "Busca acima de " + maxItensBusca + " itens"));
+        }
+        List<String> hashIds = new ArrayList<>(body.size());
+        for (JsonNode item : body) {
+            if (!item.isTextual() || item.asText().isBlank()) {
+                return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.createObjectNode().put("error","hash_id inválido: " + item));
+            }
+            hashIds.add(item.asText());
+        }
+        try {
+            ObjectNode res = mapper.createObjectNode();
+            placarService.buscarVarios(hashIds).forEach((hashId, json) -> {
+                if (json == null) res.putNull(hashId);
+                else res.putRawValue(hashId, new RawValue(new String(json, StandardCharsets.UTF_8)));
+            });
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(res);
+        } catch (Exception ex) {
+            return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error","Erro ao buscar placares: " + ex.getMessage()));
+        }
+    }
+
+    /**
+     * Transmite o placar ao vivo (Server-Sent Events). O cliente recebe o
+     * placar atual e depois um evento por ponto; ao reconectar com
+     * {@code Last-Event-ID} recebe só o que perdeu.
+     */
+    @GetMapping(value = "/{hash_id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@PathVariable("hash_id") String hashId,
+                                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Optional<PlacarEstado> atual = placarService.buscar(hashId);
+        if (atual.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(aoVivo.assinar(hashId, ultimoId(lastEventId), atual.get()));
+    }
+
+    /**
+     * Histórico de pontos do jogo (modo {@code placar.contador=eventos}), em
+     * ordem, com o placar após cada ponto.
+     */
+    @GetMapping(value = "/{hash_id}/eventos", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> eventos(@PathVariable("hash_id") String hashId) {
+        try {
+            Optional<List<Lance>> lances = placarService.lances(hashId);
+            if (lances.isEmpty()) {
+                return ResponseEntity.status(404).contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.createObjectNode().put("error","Placar não encontrado"));
+            }
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(lances.get());
+        } catch (Exception ex) {
+            return ResponseEntity.status(500).contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.createObjectNode().put("error","Erro ao buscar eventos do placar: " + ex.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{hash_id}")
     public ResponseEntity<?> finalizar(@PathVariable("hash_id") String hashId) {
         try {
@@ -108,4 +328,37 @@ public class PlacarController {
                     .body(mapper.createObjectNode().put("error","Erro ao finalizar placar: " + ex.getMessage()));
         }
     }
+
+    static Pontuacao pontuacao(JsonNode item) {
+        if (item == null || !item.isObject()) return new Pontuacao(null, null, 0);
+        String lado = item.hasNonNull("lado") ? item.get("lado").asText()
+                : item.hasNonNull("side") ? item.get("side").asText() : null;
+        int delta = item.hasNonNull("delta") ? (item.get("delta").canConvertToInt() ? item.get("delta").asInt() : 0) : 1;
+        return new Pontuacao(item.hasNonNull("hash_id") ? item.get("hash_id").asText() : null, lado, delta,
+                item.hasNonNull("evento_id") ? item.get("evento_id").asText() : null);
+    }
+
+    static long ultimoId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return -1L;
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    static String etag(long versao) {
+        return "\"v" + versao + "\"";
+    }
+
+    /** Comparação fraca do If-None-Match (RFC 9110): ignora o prefixo W/ e aceita lista e "*". */
+    static boolean etagConfere(String ifNoneMatch, String etag) {
+        for (String candidata : ifNoneMatch.split(",")) {
+            String c = candidata.trim();
+            if (c.equals("*")) return true;
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals(etag)) return true;
+        }
+        return false;
+    }
 }
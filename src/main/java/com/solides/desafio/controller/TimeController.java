@@ -1,17 +1,51 @@
 package com.solides.desafio.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.solides.desafio.domain.Time;
+import com.solides.desafio.domain.TimeLogo;
+import com.solides.desafio.service.TimeCatalogo;
 import com.solides.desafio.service.TimeService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/time")
 public class TimeController {
 
+    static final String NDJSON = "application/x-ndjson";
+
     private final TimeService service;
+    // sem flush a cada time: o gerador e o buffer da resposta juntam as linhas
+    private final ObjectWriter writer = new ObjectMapper().writerFor(Time.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    @Value("${time.pagina.limite-padrao:100}")
+    private int limitePadrao = 100;
+
+    @Value("${time.pagina.limite-maximo:1000}")
+    private int limiteMaximo = 1000;
+
+    @Value("${time.logo.max-bytes:524288}")
+    private int maxBytesLogo = 524288;
 
     public TimeController(TimeService service) {
         this.service = service;
@@ -23,12 +57,83 @@ public class TimeController {
         return ResponseEntity.status(201).body(created);
     }
 
+    /**
+     * Cadastro em massa a partir de um CSV ({@code nome} na primeira coluna) ou
+     * NDJSON ({@code {"nome": ...}} por linha), lido à medida que chega. Nomes
+     * repetidos ou já cadastrados são contados em {@code ignorados}.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", NDJSON})
+    public TimeService.ResultadoImportacao importar(@RequestHeader(HttpHeaders.CONTENT_TYPE) String tipo,
+                                                    InputStream corpo){
+        return service.importar(corpo, MediaType.parseMediaType(tipo));
+    }
+
+    /**
+     * Sem {@code after}/{@code limit}: a lista inteira, servida do catálogo em
+     * memória, com a versão do catálogo como ETag; um {@code If-None-Match}
+     * com a versão atual responde 304.
+     * <p>
+     * Com {@code after} e/ou {@code limit}: uma página em ordem de id, lida do
+     * banco por chave ({@code id > after}). Página cheia leva um cabeçalho
+     * {@code Link: <...>; rel="next"} com o cursor da seguinte.
+     */
     @GetMapping
-    public List<Time> listar(){ return service.listar(); }
+    public ResponseEntity<List<Time>> listar(@RequestParam(value = "after", required = false) Long after,
+                                             @RequestParam(value = "limit", required = false) Integer limit,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        if (after == null && limit == null) {
+            TimeCatalogo.Snapshot catalogo = service.catalogo();
+            return comVersao(catalogo.versao(), ifNoneMatch, catalogo.times());
+        }
+
+        int limite = Math.max(1, Math.min(limit != null ? limit : limitePadrao, limiteMaximo));
+        List<Time> pagina = service.pagina(after != null ? after : 0L, limite);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (pagina.size() == limite) {
+            String proxima = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", pagina.get(pagina.size() - 1).getId())
+                    .replaceQueryParam("limit", limite)
+                    .toUriString();
+            ok.header(HttpHeaders.LINK, "<" + proxima + ">; rel=\"next\"");
+        }
+        return ok.body(pagina);
+    }
+
+    /**
+     * Todos os times depois de {@code after}, um JSON por linha (NDJSON), em
+     * ordem de id. As linhas são escritas conforme o cursor do banco avança,
+     * então a memória não depende do tamanho do catálogo.
+     */
+    @GetMapping(produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(value = "after", defaultValue = "0") long after){
+        StreamingResponseBody corpo = out -> {
+            try (JsonGenerator gen = writer.createGenerator(out)) {
+                gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                gen.setRootValueSeparator(new SerializedString("\n"));
+                long[] linhas = {0};
+                service.percorrer(after, t -> {
+                    try {
+                        writer.writeValue(gen, t);
+                        linhas[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (linhas[0] > 0) gen.writeRaw('\n');
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(corpo);
+    }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Time> buscar(@PathVariable Long id){
-        return service.buscar(id).map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<Time> buscar(@PathVariable Long id,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        TimeCatalogo.Snapshot catalogo = service.catalogo();
+        return catalogo.buscar(id)
+                .map(t -> comVersao(catalogo.versao(), ifNoneMatch, t))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PutMapping("/{id}")
@@ -36,9 +141,88 @@ public class TimeController {
         return ResponseEntity.ok(service.atualizar(id,t));
     }
 
+    /**
+     * Bytes do logo, fora das respostas de time (que só trazem
+     * {@code logo_url}). A ETag é o SHA-256 do conteúdo; com {@code ?v=}
+     * igual ao início do hash a resposta é imutável e cacheável por um ano,
+     * sem ele o cliente revalida. O 304 compara com o hash no banco, sem ler
+     * os bytes: o catálogo em memória pode estar atrasado até o TTL depois de
+     * uma troca de logo em outra instância.
+     */
+    @GetMapping("/{id}/logo")
+    public ResponseEntity<byte[]> logo(@PathVariable Long id,
+                                       @RequestParam(value = "v", required = false) String versao,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        if (ifNoneMatch != null) {
+            String hash = service.hashLogo(id).orElse(null);
+            if (hash != null && PlacarController.etagConfere(ifNoneMatch, "\"" + hash + "\"")) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(hash).cacheControl(cacheLogo(hash, versao)).build();
+            }
+        }
+
+        Optional<TimeLogo> logo = service.logo(id);
+        if (logo.isEmpty()) return ResponseEntity.notFound().build();
+        TimeLogo l = logo.get();
+        return ResponseEntity.ok()
+                .eTag(l.hash())
+                .cacheControl(cacheLogo(l.hash(), versao))
+                .contentType(MediaType.parseMediaType(l.tipo()))
+                .contentLength(l.conteudo().length)
+                // o conteúdo vem do cliente: nada de sniffing nem script num SVG
+                .header("X-Content-Type-Options", "nosniff")
+                .header("Content-Security-Policy", "default-src 'none'; style-src 'unsafe-inline'; sandbox")
+                .body(l.conteudo());
+    }
+
+    /**
+     * Troca o logo pelo corpo da requisição. Um {@code Content-Length} acima
+     * de {@code time.logo.max-bytes} é recusado antes de ler o corpo; sem ele
+     * (chunked), a leitura para um byte depois do limite.
+     */
+    @PutMapping(value = "/{id}/logo", consumes = "image/*")
+    public ResponseEntity<Void> enviarLogo(@PathVariable Long id,
+                                           @RequestHeader(HttpHeaders.CONTENT_TYPE) String tipo,
+                                           @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long tamanho,
+                                           InputStream corpo) throws IOException {
+        if (tamanho != null && tamanho > maxBytesLogo) throw logoGrande();
+        byte[] conteudo = corpo.readNBytes(maxBytesLogo + 1);
+        if (conteudo.length > maxBytesLogo) throw logoGrande();
+        // o tipo guardado é o servido depois: sem parâmetros como charset
+        MediaType mt = MediaType.parseMediaType(tipo);
+        TimeLogo logo = service.enviarLogo(id, conteudo, mt.getType() + "/" + mt.getSubtype());
+        return ResponseEntity.noContent().eTag(logo.hash()).build();
+    }
+
+    @DeleteMapping("/{id}/logo")
+    public ResponseEntity<Void> removerLogo(@PathVariable Long id){
+        service.removerLogo(id);
+        return ResponseEntity.noContent().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletar(@PathVariable Long id){
         service.deletar(id);
         return ResponseEntity.noContent().build();
     }
+
+    private ResponseStatusException logoGrande(){
+        return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Logo maior que " + maxBytesLogo + " bytes");
+    }
+
+    private static CacheControl cacheLogo(String hash, String versao){
+        if (versao != null && versao.length() >= 16 && hash.startsWith(versao)) {
+            return CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+        }
+        return CacheControl.noCache().cachePublic();
+    }
+
+    /** 304 se o cliente já tem esta versão do catálogo; sem versão conhecida, responde sem ETag. */
+    private static <T> ResponseEntity<T> comVersao(long versao, String ifNoneMatch, T corpo){
+        if (versao <= 0) return ResponseEntity.ok(corpo);
+        String etag = PlacarController.etag(versao);
+        if (ifNoneMatch != null && PlacarController.etagConfere(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(corpo);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.solides.desafio.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Campanha de um time numa competição: jogos finalizados, resultados,
+ * pontos marcados e sofridos e pontos na tabela (3 por vitória, 1 por empate).
+ */
+public record Classificacao(
+        @JsonIgnore String competicao,
+        String time,
+        int pontos,
+        int jogos,
+        int vitorias,
+        int empates,
+        int derrotas,
+        int marcados,
+        int sofridos) {
+
+    /*
+     * Limites de cada critério dentro do score: acima deles o valor satura,
+     * e a ordem passa a considerar só os critérios anteriores.
+     */
+    static final int MAX_PONTOS = (1 << 12) - 1;
+    static final int MAX_VITORIAS = (1 << 11) - 1;
+    static final int MAX_SALDO = (1 << 15) - 1;
+    static final int MAX_MARCADOS = (1 << 13) - 1;
+
+    @JsonProperty("saldo")
+    public int saldo() {
+        return marcados - sofridos;
+    }
+
+    /**
+     * Critérios de desempate num único número, para o sorted set do Redis:
+     * pontos, vitórias, saldo e pontos marcados, nessa ordem. Cada critério
+     * ocupa uma faixa de bits que os seguintes não alcançam, e o total cabe
+     * nos 53 bits exatos de um double.
+     */
+    @JsonIgnore
+    public long score() {
+        return ((long) limitar(pontos, 0, MAX_PONTOS) << 41)
+                + ((long) limitar(vitorias, 0, MAX_VITORIAS) << 30)
+                + ((long) limitar(saldo(), -MAX_SALDO, MAX_SALDO) << 13)
+                + limitar(marcados, 0, MAX_MARCADOS);
+    }
+
+    private static int limitar(int v, int min, int max) {
+        return Math.max(min, Math.min(max, v));
+    }
+}
@@ -0,0 +1,17 @@
+package com.solides.desafio.domain;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+/**
+ * Um evento do log de pontos, com o placar logo após ele.
+ */
+public record Lance(
+        long seq,
+        String lado,
+        int delta,
+        @JsonProperty("criado_em") LocalDateTime criadoEm,
+        @JsonProperty("pontos_casa") int pontosCasa,
+        @JsonProperty("pontos_visitante") int pontosVisitante) {
+}
@@ -18,6 +18,12 @@ public class Placar {
     @Column(name="status")
     private String status;
 
+    @Column(name="pontos_casa")
+    private Integer pontosCasa;
+
+    @Column(name="pontos_visitante")
+    private Integer pontosVisitante;
+
     public Integer getId() {
         return id;
     }
@@ -49,4 +55,20 @@ public class Placar {
         this.status = status;
     }
 
+    public Integer getPontosCasa() {
+        return pontosCasa;
+    }
+
+    public void setPontosCasa(Integer pontosCasa) {
+        this.pontosCasa = pontosCasa;
+    }
+
+    public Integer getPontosVisitante() {
+        return pontosVisitante;
+    }
+
+    public void setPontosVisitante(Integer pontosVisitante) {
+        this.pontosVisitante = pontosVisitante;
+    }
+
 }
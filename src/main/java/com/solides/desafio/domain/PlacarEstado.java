@@ -0,0 +1,64 @@
+package com.solides.desafio.domain;
+
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Estado imutável de um placar, no mesmo formato JSON exposto pela API:
+ * <pre>{"time_da_casa":{"nome":"A","pontos":1},"time_visitante":{"nome":"B","pontos":0}}</pre>
+ * Campos fora desse formato são recusados na leitura, mesmo com
+ * {@code FAIL_ON_UNKNOWN_PROPERTIES} desligado: só estes são gravados, e
+ * ignorá-los perderia o dado sem aviso. Ver {@link #tolerante}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PlacarEstado(
+        @JsonProperty("time_da_casa") Equipe casa,
+        @JsonProperty("time_visitante") Equipe visitante) {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Equipe(String nome, int pontos) {
+
+        @JsonAnySetter
+        private void campoDesconhecido(String campo, Object valor) {
+            throw new IllegalArgumentException("Campo desconhecido em time: " + campo);
+        }
+    }
+
+    public static PlacarEstado of(String nomeCasa, int pontosCasa, String nomeVisitante, int pontosVisitante) {
+        return new PlacarEstado(new Equipe(nomeCasa, pontosCasa), new Equipe(nomeVisitante, pontosVisitante));
+    }
+
+    @JsonAnySetter
+    private void campoDesconhecido(String campo, Object valor) {
+        throw new IllegalArgumentException("Campo desconhecido no placar: " + campo);
+    }
+
+    /**
+     * Ignora campos extras em vez de recusá-los, para leitores internos de
+     * documentos gravados antes do formato fixo (cache com JSON livre).
+     */
+    public static ObjectMapper tolerante(ObjectMapper mapper) {
+        return mapper.addMixIn(PlacarEstado.class, Tolerante.class)
+                .addMixIn(Equipe.class, Tolerante.class);
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private abstract static class Tolerante {
+        @JsonAnySetter(enabled = false)
+        abstract void campoDesconhecido(String campo, Object valor);
+    }
+
+    @JsonIgnore
+    public boolean isVazio() {
+        return casa == null && visitante == null;
+    }
+
+    @JsonIgnore
+    public Pontos getPontos() {
+        return new Pontos(casa != null ? casa.pontos() : 0, visitante != null ? visitante.pontos() : 0);
+    }
+}
@@ -0,0 +1,7 @@
+package com.solides.desafio.domain;
+
+/**
+ * Evento publicado no RabbitMQ a cada ponto marcado.
+ */
+public record PlacarEvento(String hashId, String lado, int pontosCasa, int pontosVisitante) {
+}
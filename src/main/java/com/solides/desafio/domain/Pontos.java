@@ -0,0 +1,15 @@
+package com.solides.desafio.domain;
+
+/**
+ * Pontos dos dois lados de um placar.
+ */
+public record Pontos(int casa, int visitante) {
+
+    public int total() {
+        return casa + visitante;
+    }
+
+    public Pontos somar(Pontos outro) {
+        return new Pontos(casa + outro.casa, visitante + outro.visitante);
+    }
+}
@@ -0,0 +1,14 @@
+package com.solides.desafio.domain;
+
+/**
+ * Um item do lote de pontuação: {@code delta} pontos para um lado do placar.
+ * <p>
+ * {@code eventoId} é opcional e vem do cliente: com {@code placar.contador=eventos}
+ * um ponto reenviado com o mesmo id no mesmo jogo não é gravado de novo.
+ */
+public record Pontuacao(String hashId, String lado, int delta, String eventoId) {
+
+    public Pontuacao(String hashId, String lado, int delta) {
+        this(hashId, lado, delta, null);
+    }
+}
@@ -1,5 +1,7 @@
 package com.solides.desafio.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 
 @Entity
@@ -10,6 +12,18 @@ public class Time {
     private Integer id;
 
     private String nome;
+
+    /** SHA-256 do logo em {@code time_logo}, ou null sem logo. */
+    @JsonIgnore
+    @Column(name = "logo_hash")
+    private String logoHash;
+
+    /**
+     * Logo recebido no POST/PUT do time (data URI, base64 ou texto). Não é
+     * persistido aqui: vai para {@code time_logo} e sai só como {@code logo_url}.
+     */
+    @Transient
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String logo;
 
     public Integer getId() { return id; }
@@ -20,4 +34,14 @@ public class Time {
 
     public String getLogo() { return logo; }
     public void setLogo(String logo) { this.logo = logo; }
+
+    public String getLogoHash() { return logoHash; }
+    public void setLogoHash(String logoHash) { this.logoHash = logoHash; }
+
+    /** URL do logo com a versão (início do hash), cacheável para sempre; null sem logo. */
+    @JsonProperty(value = "logo_url", access = JsonProperty.Access.READ_ONLY)
+    public String getLogoUrl() {
+        if (id == null || logoHash == null) return null;
+        return "/api/time/" + id + "/logo?v=" + logoHash.substring(0, Math.min(16, logoHash.length()));
+    }
 }
@@ -0,0 +1,81 @@
+package com.solides.desafio.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Logo de um time como fica em {@code time_logo}: os bytes, o tipo de
+ * conteúdo e o SHA-256 dos bytes em hexadecimal, que é a ETag e a versão na
+ * URL do logo.
+ */
+public record TimeLogo(byte[] conteudo, String tipo, String hash) {
+
+    public static TimeLogo de(byte[] conteudo, String tipo) {
+        return new TimeLogo(conteudo, tipo, sha256(conteudo));
+    }
+
+    /**
+     * Logo recebido como texto no campo {@code logo} do time, como era
+     * guardado antes: data URI ({@code data:image/png;base64,...}), base64
+     * puro ou o próprio texto (um SVG, ou uma URL que fica como texto).
+     */
+    public static TimeLogo deTexto(String logo) {
+        String s = logo.trim();
+        if (s.startsWith("data:")) {
+            int virgula = s.indexOf(',');
+            if (virgula > 0) {
+                String cabecalho = s.substring(5, virgula);
+                String dados = s.substring(virgula + 1);
+                boolean base64 = cabecalho.endsWith(";base64");
+                String tipo = (base64 ? cabecalho.substring(0, cabecalho.length() - 7) : cabecalho).split(";")[0];
+                byte[] bytes = base64 ? Base64.getMimeDecoder().decode(dados) : dados.getBytes(StandardCharsets.UTF_8);
+                return de(bytes, tipo.isEmpty() ? tipoPeloConteudo(bytes) : tipo.toLowerCase(Locale.ROOT));
+            }
+        }
+        if (!s.startsWith("<")) {
+            try {
+                byte[] bytes = Base64.getMimeDecoder().decode(s);
+                String tipo = tipoPeloConteudo(bytes);
+                if (!tipo.equals("application/octet-stream")) return de(bytes, tipo);
+            } catch (IllegalArgumentException naoEhBase64) {
+                // segue como texto
+            }
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        String tipo = tipoPeloConteudo(bytes);
+        return de(bytes, tipo.equals("application/octet-stream") ? "text/plain;charset=UTF-8" : tipo);
+    }
+
+    /** Tipo pelos primeiros bytes (PNG, JPEG, GIF, WebP, SVG), ou texto/binário genérico. */
+    static String tipoPeloConteudo(byte[] b) {
+        if (comeca(b, 0x89, 'P', 'N', 'G')) return "image/png";
+        if (comeca(b, 0xFF, 0xD8, 0xFF)) return "image/jpeg";
+        if (comeca(b, 'G', 'I', 'F', '8')) return "image/gif";
+        if (comeca(b, 'R', 'I', 'F', 'F') && b.length >= 12 && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
+            return "image/webp";
+        }
+        String inicio = new String(b, 0, Math.min(b.length, 256), StandardCharsets.UTF_8).stripLeading();
+        if (inicio.startsWith("<svg") || (inicio.startsWith("<?xml") && inicio.contains("<svg"))) return "image/svg+xml";
+        return "application/octet-stream";
+    }
+
+    private static boolean comeca(byte[] b, int... prefixo) {
+        if (b.length < prefixo.length) return false;
+        for (int i = 0; i < prefixo.length; i++) {
+            if ((b[i] & 0xFF) != prefixo[i]) return false;
+        }
+        return true;
+    }
+
+    private static String sha256(byte[] conteudo) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.solides.desafio.infra.jvm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Diagnóstico de pinning das virtual threads.
+ * <p>
+ * Uma virtual thread que bloqueia dentro de um bloco {@code synchronized} (ou
+ * numa chamada nativa) fica presa à thread portadora, e enquanto isso nenhuma
+ * outra virtual thread usa aquela portadora. Isso acontece dentro de
+ * bibliotecas clientes (drivers, pools) sem aparecer no nosso código.
+ * <p>
+ * Escuta o evento JFR {@code jdk.VirtualThreadPinned} acima de
+ * {@code placar.virtual.pinning-limiar-ms}, conta as ocorrências por origem
+ * (primeiro frame fora do JDK) e imprime a pilha na primeira vez que cada
+ * origem aparece. Cada ocorrência entra no timer {@code jvm.virtual.pinning}
+ * com o tempo que a thread ficou presa.
+ */
+@Component
+@ConditionalOnProperty(name = "placar.virtual.diagnostico-pinning", havingValue = "true")
+public class MonitorPinning {
+
+    static final String EVENTO = "jdk.VirtualThreadPinned";
+
+    @Value("${placar.virtual.pinning-limiar-ms:20}")
+    private long limiarMs = 20;
+
+    @Value("${placar.virtual.pinning-frames:12}")
+    private int frames = 12;
+
+    private RecordingStream stream;
+
+    private final Timer presas;
+    private final ConcurrentHashMap<String, LongAdder> porOrigem = new ConcurrentHashMap<>();
+
+    public MonitorPinning(MeterRegistry registry) {
+        presas = Timer.builder("jvm.virtual.pinning")
+                .description("Virtual threads presas à portadora acima do limiar")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        try {
+            RecordingStream rs = new RecordingStream();
+            rs.enable(EVENTO).withThreshold(Duration.ofMillis(limiarMs)).withStackTrace();
+            rs.onEvent(EVENTO, this::registrar);
+            rs.startAsync();
+            stream = rs;
+            System.out.println("Diagnóstico de pinning ativo (limiar " + limiarMs + "ms)");
+        } catch (Exception | LinkageError e) {
+            // JFR indisponível nesta JVM: segue sem o diagnóstico
+            System.err.println("Aviso: não foi possível iniciar o diagnóstico de pinning. CAUSA: " + e.getMessage());
+        }
+    }
+
+    /** Ocorrências de pinning acima do limiar. */
+    public long getEventos() { return presas.count(); }
+    public double getTempoPresoMs() { return presas.totalTime(TimeUnit.MILLISECONDS); }
+
+    /** Ocorrências por origem, ordenadas pelo nome da origem. */
+    public Map<String, Long> getPorOrigem() {
+        Map<String, Long> res = new TreeMap<>();
+        porOrigem.forEach((origem, n) -> res.put(origem, n.sum()));
+        return res;
+    }
+
+    @PreDestroy
+    public void fechar() {
+        if (stream != null) stream.close();
+        stream = null;
+    }
+
+    void registrar(RecordedEvent evento) {
+        String origem = origem(evento.getStackTrace());
+        LongAdder contagem = porOrigem.computeIfAbsent(origem, k -> new LongAdder());
+        contagem.increment();
+        presas.record(evento.getDuration());
+        if (contagem.sum() == 1) {
+            System.err.println("Aviso: virtual thread presa à portadora por " + evento.getDuration().toMillis()
+                    + "ms em " + origem + " (próximas ocorrências só são contadas)" + pilha(evento.getStackTrace()));
+        }
+    }
+
+    /** Primeiro frame fora do JDK: a biblioteca ou classe nossa que bloqueou. */
+    static String origem(RecordedStackTrace pilha) {
+        if (pilha == null) return "desconhecida";
+        for (RecordedFrame f : pilha.getFrames()) {
+            if (!f.isJavaFrame()) continue;
+            String classe = f.getMethod().getType().getName();
+            if (!classe.startsWith("java.") && !classe.startsWith("jdk.") && !classe.startsWith("sun.")) {
+                return classe + "." + f.getMethod().getName();
+            }
+        }
+        return "jdk";
+    }
+
+    private String pilha(RecordedStackTrace pilha) {
+        if (pilha == null) return "";
+        StringBuilder sb = new StringBuilder();
+        List<RecordedFrame> lista = pilha.getFrames();
+        for (int i = 0; i < Math.min(frames, lista.size()); i++) {
+            RecordedFrame f = lista.get(i);
+            sb.append("\n\tat ").append(f.getMethod().getType().getName()).append('.').append(f.getMethod().getName())
+                    .append(':').append(f.getLineNumber());
+        }
+        return sb.toString();
+    }
+}
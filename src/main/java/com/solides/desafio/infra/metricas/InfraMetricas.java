@@ -0,0 +1,108 @@
+package com.solides.desafio.infra.metricas;
+
+import com.solides.desafio.infra.rabbitmq.PlacarConsumer;
+import com.solides.desafio.infra.rabbitmq.PlacarProducer;
+import com.solides.desafio.infra.redis.RedisClientProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publica no Micrometer os contadores que o pool do Redis, o publicador e o
+ * consumidor do RabbitMQ já mantêm, sem mexer no caminho quente deles: cada medidor só lê o
+ * getter quando o registry é coletado.
+ * <ul>
+ *   <li>{@code redis.pool.conexoes} por {@code estado} (ativas|ociosas),
+ *       {@code redis.pool.aguardando} e {@code redis.pool.espera.media|maxima};</li>
+ *   <li>{@code placar.publicador.eventos} por {@code resultado}
+ *       (publicado|confirmado|rejeitado|descartado),
+ *       {@code placar.publicador.falhas}, {@code placar.publicador.pendentes}
+ *       e {@code placar.publicador.sem.confirmacao};</li>
+ *   <li>{@code placar.consumidor.lag} (mensagens prontas na fila),
+ *       {@code placar.consumidor.taxa} (eventos por segundo),
+ *       {@code placar.consumidor.processados|lotes|falhas}; só com
+ *       {@code rabbit.enabled=true}, quando o consumidor existe.</li>
+ * </ul>
+ * O Spring Boot liga todo {@link MeterBinder} ao registry na inicialização.
+ */
+@Component
+public class InfraMetricas implements MeterBinder {
+
+    private final RedisClientProvider redis;
+    private final PlacarProducer producer;
+    private final Optional<PlacarConsumer> consumer;
+
+    public InfraMetricas(RedisClientProvider redis, PlacarProducer producer, Optional<PlacarConsumer> consumer) {
+        this.redis = redis;
+        this.producer = producer;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("redis.pool.conexoes", redis, RedisClientProvider::getConexoesAtivas)
+                .description("Conexões do pool do Redis")
+                .tag("estado", "ativas")
+                .register(registry);
+        Gauge.builder("redis.pool.conexoes", redis, RedisClientProvider::getConexoesOciosas)
+                .description("Conexões do pool do Redis")
+                .tag("estado", "ociosas")
+                .register(registry);
+        Gauge.builder("redis.pool.aguardando", redis, RedisClientProvider::getThreadsAguardando)
+                .description("Threads esperando uma conexão livre do pool do Redis")
+                .register(registry);
+        TimeGauge.builder("redis.pool.espera.media", redis, TimeUnit.MILLISECONDS, RedisClientProvider::getEsperaMediaMs)
+                .description("Espera média por uma conexão do pool do Redis")
+                .register(registry);
+        TimeGauge.builder("redis.pool.espera.maxima", redis, TimeUnit.MILLISECONDS, RedisClientProvider::getEsperaMaximaMs)
+                .description("Maior espera por uma conexão do pool do Redis")
+                .register(registry);
+
+        evento(registry, "publicado", PlacarProducer::getPublicados);
+        evento(registry, "confirmado", PlacarProducer::getConfirmados);
+        evento(registry, "rejeitado", PlacarProducer::getRejeitados);
+        evento(registry, "descartado", PlacarProducer::getDescartados);
+        FunctionCounter.builder("placar.publicador.falhas", producer, PlacarProducer::getFalhas)
+                .description("Falhas ao publicar no RabbitMQ")
+                .register(registry);
+        Gauge.builder("placar.publicador.pendentes", producer, PlacarProducer::getPendentes)
+                .description("Eventos na fila aguardando publicação")
+                .register(registry);
+        Gauge.builder("placar.publicador.sem.confirmacao", producer, PlacarProducer::getSemConfirmacao)
+                .description("Eventos publicados ainda sem confirmação do broker")
+                .register(registry);
+
+        consumer.ifPresent(c -> {
+            Gauge.builder("placar.consumidor.lag", c, PlacarConsumer::getLag)
+                    .description("Mensagens prontas na fila ainda não entregues a nenhum worker")
+                    .register(registry);
+            Gauge.builder("placar.consumidor.taxa", c, PlacarConsumer::getTaxaPorSegundo)
+                    .description("Eventos processados por segundo no último intervalo")
+                    .baseUnit("eventos/s")
+                    .register(registry);
+            FunctionCounter.builder("placar.consumidor.processados", c, PlacarConsumer::getProcessados)
+                    .description("Eventos gravados no Redis e confirmados")
+                    .register(registry);
+            FunctionCounter.builder("placar.consumidor.lotes", c, PlacarConsumer::getLotes)
+                    .description("Lotes gravados no Redis")
+                    .register(registry);
+            FunctionCounter.builder("placar.consumidor.falhas", c, PlacarConsumer::getFalhas)
+                    .description("Lotes que falharam ao gravar no Redis ou ao confirmar no broker")
+                    .register(registry);
+        });
+    }
+
+    private void evento(MeterRegistry registry, String resultado, ToDoubleFunction<PlacarProducer> valor) {
+        FunctionCounter.builder("placar.publicador.eventos", producer, valor)
+                .description("Eventos do placar enviados ao RabbitMQ")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+}
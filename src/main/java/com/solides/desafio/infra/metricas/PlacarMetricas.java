@@ -0,0 +1,160 @@
+package com.solides.desafio.infra.metricas;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métricas do {@code PlacarService}, exportadas pelo Micrometer
+ * ({@code /actuator/prometheus}):
+ * <ul>
+ *   <li>{@code placar.operacao}: duração de cada operação, por
+ *       {@code operacao} e {@code resultado} (ok|erro);</li>
+ *   <li>{@code placar.etapa}: duração de cada ida a um backend dentro da
+ *       operação, por {@code operacao} e {@code etapa};</li>
+ *   <li>{@code placar.cache}: leituras do cache por {@code resultado}
+ *       (hit|miss|erro); miss e erro caem no banco;</li>
+ *   <li>{@code placar.erros.ignorados}: falhas engolidas para não derrubar a
+ *       operação, por {@code backend} e {@code operacao}.</li>
+ * </ul>
+ * Os medidores ficam em arrays indexados pelos enums e são registrados na
+ * primeira vez que são usados, então o caminho quente não monta tags nem
+ * consulta o registry: custa duas leituras de {@code System.nanoTime()} e um
+ * {@code record}. {@code values()} clona o array a cada chamada, por isso os
+ * enums ficam em constantes.
+ * <p>
+ * Quem mede passa o trecho a {@link #operacao(Operacao, Supplier)} ou
+ * {@link #etapa(Operacao, Etapa, Supplier)}, que leem o relógio e registram
+ * também quando o trecho lança.
+ */
+@Component
+public class PlacarMetricas {
+
+    public enum Operacao { INICIAR, PONTUAR, PONTUAR_LOTE, BUSCAR, BUSCAR_BRUTO, BUSCAR_VARIOS, VERSAO, FINALIZAR }
+
+    public enum Etapa {
+        DB_INICIAR, DB_INCREMENTAR, DB_ANEXAR, DB_BUSCAR, DB_FINALIZAR,
+        REDIS_LER, REDIS_GRAVAR, REDIS_REMOVER, REDIS_CONTADOR,
+        WRITE_BEHIND, RABBITMQ_PUBLICAR, SSE_PUBLICAR
+    }
+
+    public enum Cache { HIT, MISS, ERRO }
+
+    public enum Backend { REDIS, RABBITMQ, SSE }
+
+    private static final Operacao[] OPERACOES = Operacao.values();
+    private static final Etapa[] ETAPAS = Etapa.values();
+    private static final Cache[] CACHES = Cache.values();
+    private static final Backend[] BACKENDS = Backend.values();
+
+    private final MeterRegistry registry;
+    // registro preguiçoso: uma corrida só faz o registry devolver o mesmo medidor duas vezes
+    private final Timer[] operacoes = new Timer[OPERACOES.length * 2];
+    private final Timer[] etapas = new Timer[OPERACOES.length * ETAPAS.length];
+    private final Counter[] leiturasCache = new Counter[OPERACOES.length * CACHES.length];
+    private final Counter[] errosIgnorados = new Counter[OPERACOES.length * BACKENDS.length];
+
+    public PlacarMetricas(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /** Executa a operação e a registra: ok se {@code corpo} retornar, erro se lançar. */
+    public <T> T operacao(Operacao op, Supplier<T> corpo) {
+        long inicio = System.nanoTime();
+        boolean ok = false;
+        try {
+            T res = corpo.get();
+            ok = true;
+            return res;
+        } finally {
+            operacao(op, inicio, ok);
+        }
+    }
+
+    /** Executa o passo e registra sua duração como {@code etapa} de {@code op}, também se lançar. */
+    public <T> T etapa(Operacao op, Etapa etapa, Supplier<T> passo) {
+        long inicio = System.nanoTime();
+        try {
+            return passo.get();
+        } finally {
+            etapa(op, etapa, inicio);
+        }
+    }
+
+    /** Como {@link #etapa(Operacao, Etapa, Supplier)}, para passos sem resultado. */
+    public void etapa(Operacao op, Etapa etapa, Runnable passo) {
+        long inicio = System.nanoTime();
+        try {
+            passo.run();
+        } finally {
+            etapa(op, etapa, inicio);
+        }
+    }
+
+    /** Registra uma operação iniciada em {@code inicioNs} ({@link System#nanoTime()}). */
+    public void operacao(Operacao op, long inicioNs, boolean sucesso) {
+        int i = op.ordinal() * 2 + (sucesso ? 0 : 1);
+        Timer t = operacoes[i];
+        if (t == null) {
+            t = Timer.builder("placar.operacao")
+                    .description("Duração das operações do placar")
+                    .tag("operacao", tag(op))
+                    .tag("resultado", sucesso ? "ok" : "erro")
+                    .register(registry);
+            operacoes[i] = t;
+        }
+        t.record(System.nanoTime() - inicioNs, TimeUnit.NANOSECONDS);
+    }
+
+    /** Registra uma etapa da operação iniciada em {@code inicioNs}. */
+    public void etapa(Operacao op, Etapa etapa, long inicioNs) {
+        int i = op.ordinal() * ETAPAS.length + etapa.ordinal();
+        Timer t = etapas[i];
+        if (t == null) {
+            t = Timer.builder("placar.etapa")
+                    .description("Duração de cada ida a um backend dentro das operações do placar")
+                    .tag("operacao", tag(op))
+                    .tag("etapa", tag(etapa))
+                    .register(registry);
+            etapas[i] = t;
+        }
+        t.record(System.nanoTime() - inicioNs, TimeUnit.NANOSECONDS);
+    }
+
+    public void cache(Operacao op, Cache resultado) {
+        int i = op.ordinal() * CACHES.length + resultado.ordinal();
+        Counter c = leiturasCache[i];
+        if (c == null) {
+            c = Counter.builder("placar.cache")
+                    .description("Leituras do cache de placares")
+                    .tag("operacao", tag(op))
+                    .tag("resultado", tag(resultado))
+                    .register(registry);
+            leiturasCache[i] = c;
+        }
+        c.increment();
+    }
+
+    public void erroIgnorado(Operacao op, Backend backend) {
+        int i = op.ordinal() * BACKENDS.length + backend.ordinal();
+        Counter c = errosIgnorados[i];
+        if (c == null) {
+            c = Counter.builder("placar.erros.ignorados")
+                    .description("Falhas de backend que não interromperam a operação")
+                    .tag("operacao", tag(op))
+                    .tag("backend", tag(backend))
+                    .register(registry);
+            errosIgnorados[i] = c;
+        }
+        c.increment();
+    }
+
+    private static String tag(Enum<?> valor) {
+        return valor.name().toLowerCase(Locale.ROOT);
+    }
+}
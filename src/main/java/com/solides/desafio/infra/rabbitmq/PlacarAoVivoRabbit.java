@@ -0,0 +1,158 @@
+package com.solides.desafio.infra.rabbitmq;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.*;
+import com.solides.desafio.domain.PlacarEvento;
+import com.solides.desafio.service.PlacarAoVivo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Leva a {@link PlacarAoVivo} desta instância os eventos de todas as
+ * instâncias.
+ * <p>
+ * Cada instância declara uma fila própria (nome gerado pelo broker,
+ * exclusiva e apagada quando a conexão cai) ligada ao exchange fanout
+ * {@code rabbit.exchange}, por onde o {@link PlacarProducer} publica cada
+ * ponto, e ao fanout {@code rabbit.aovivo.exchange-fim}, por onde
+ * {@link #encerrar} avisa que um jogo terminou. Assim um assinante recebe os
+ * pontos marcados em qualquer instância, não só na que atende a conexão SSE.
+ * <p>
+ * Os eventos da própria instância também chegam por aqui, depois de já terem
+ * sido repassados direto pelo {@code PlacarService}; a cópia é descartada por
+ * {@link PlacarAoVivo}, que ignora eventos com id que já passou. A entrega é
+ * sem ack: um evento perdido é coberto pelo próximo, que traz o placar
+ * completo, e um cliente que reconecta recebe o placar atual.
+ */
+@Component
+public class PlacarAoVivoRabbit {
+
+    static final String TIPO_FIM = "fim";
+
+    private final PlacarAoVivo aoVivo;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ReentrantLock publicacao = new ReentrantLock();
+
+    private Connection connection;
+    private Channel consumo;
+    private Channel avisos;
+
+    @Value("${rabbit.enabled:true}")
+    private boolean rabbitEnabled;
+
+    @Value("${rabbit.host:rabbitmq}")
+    private String rabbitHost;
+
+    @Value("${rabbit.exchange:placar_eventos}")
+    private String exchange = "placar_eventos";
+
+    @Value("${rabbit.aovivo.exchange-fim:placar_eventos.fim}")
+    private String exchangeFim = "placar_eventos.fim";
+
+    @Value("${rabbit.aovivo.prefetch:500}")
+    private int prefetch = 500;
+
+    public PlacarAoVivoRabbit(PlacarAoVivo aoVivo) {
+        this.aoVivo = aoVivo;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!rabbitEnabled) return;
+        try {
+            ConnectionFactory factory = new ConnectionFactory();
+            factory.setHost(rabbitHost);
+            // a recuperação automática redeclara a fila (com novo nome) e as ligações
+            connection = factory.newConnection();
+
+            consumo = connection.createChannel();
+            consumo.exchangeDeclare(exchange, BuiltinExchangeType.FANOUT, true);
+            consumo.exchangeDeclare(exchangeFim, BuiltinExchangeType.FANOUT, true);
+            String fila = consumo.queueDeclare().getQueue();
+            consumo.queueBind(fila, exchange, "");
+            consumo.queueBind(fila, exchangeFim, "");
+            consumo.basicQos(prefetch);
+            consumo.basicConsume(fila, true, new Receptor(consumo));
+
+            avisos = connection.createChannel();
+            System.out.println("PlacarAoVivoRabbit conectado ao RabbitMQ em " + rabbitHost + " (fila " + fila + ")");
+        } catch (IOException | TimeoutException ex) {
+            // sem o broker, os assinantes desta instância recebem só os pontos marcados nela
+            System.err.println("Aviso: transmissão ao vivo limitada a esta instância. RabbitMq host=" + rabbitHost
+                    + ". Mensagem: " + ex.getMessage());
+            shutdown();
+        } catch (Exception ex) {
+            System.err.println("Erro inesperado em PlacarAoVivoRabbit.init: " + ex.getMessage());
+            shutdown();
+        }
+    }
+
+    /**
+     * Avisa todas as instâncias, esta inclusive, que o jogo terminou. Sem
+     * broker não faz nada: quem chama já encerrou a transmissão local.
+     */
+    public void encerrar(String hashId) {
+        Channel ch = avisos;
+        if (ch == null || !ch.isOpen()) return;
+        AMQP.BasicProperties props = new AMQP.BasicProperties.Builder().type(TIPO_FIM).build();
+        // canais AMQP não aceitam publicação concorrente
+        publicacao.lock();
+        try {
+            ch.basicPublish(exchangeFim, "", props, hashId.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Fim do jogo não avisado às outras instâncias. CAUSA: " + e.getMessage());
+        } finally {
+            publicacao.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        safeCloseChannel(consumo);
+        consumo = null;
+        safeCloseChannel(avisos);
+        avisos = null;
+        try {
+            if (connection != null && connection.isOpen()) connection.close();
+        } catch (Exception e) {
+            System.err.println("Erro ao fechar connection RabbitMQ: " + e.getMessage());
+        } finally {
+            connection = null;
+        }
+    }
+
+    private final class Receptor extends DefaultConsumer {
+        Receptor(Channel channel) {
+            super(channel);
+        }
+
+        @Override
+        public void handleDelivery(String consumerTag, Envelope envelope,
+                                   AMQP.BasicProperties properties, byte[] body) {
+            try {
+                if (TIPO_FIM.equals(properties.getType())) {
+                    aoVivo.encerrar(new String(body, StandardCharsets.UTF_8));
+                } else {
+                    aoVivo.publicar(mapper.readValue(body, PlacarEvento.class));
+                }
+            } catch (Exception e) {
+                System.err.println("Evento ao vivo ignorado. CAUSA: " + e.getMessage());
+            }
+        }
+    }
+
+    private void safeCloseChannel(Channel channel) {
+        try {
+            if (channel != null && channel.isOpen()) channel.close();
+        } catch (Exception e) {
+            System.err.println("Erro ao fechar channel RabbitMQ: " + e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.solides.desafio.infra.rabbitmq;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabbitmq.client.*;
 import com.solides.desafio.infra.redis.RedisClientProvider;
 import jakarta.annotation.PostConstruct;
@@ -8,26 +9,130 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Consome os eventos de placar com ack manual.
+ * <p>
+ * São {@code rabbit.consumer.workers} canais, cada um com prefetch de
+ * {@code rabbit.consumer.prefetch} mensagens e despachado em paralelo. Cada
+ * canal acumula os eventos recebidos e grava no Redis em lote, num único
+ * script: o último evento de cada jogo vai para
+ * {@code placar_eventos_last:<hash>} (expira em {@code rabbit.consumer.ttl-s})
+ * e o último de todos para {@code placar_eventos_last}. O lote é gravado ao
+ * chegar a {@code rabbit.consumer.lote} eventos ou após
+ * {@code rabbit.consumer.linger-ms}, e só então é confirmado com um único ack
+ * múltiplo.
+ * <p>
+ * Os workers gravam lotes concorrentes, então o script só troca um valor por
+ * outro mais novo: por jogo, o de mais pontos (o placar só cresce); no geral,
+ * o recebido por último, pelo instante de recebimento em
+ * {@code placar_eventos_last_em}.
+ * <p>
+ * Se o Redis falhar, o lote fica com o worker, sem ack, e a gravação é
+ * tentada de novo com backoff exponencial (100 ms dobrando até 5 s); o
+ * prefetch segura novas entregas enquanto isso. Só ao encerrar um lote que
+ * não pôde ser gravado volta para a fila (nack com requeue).
+ */
 @Component
 @ConditionalOnProperty(name = "rabbit.enabled", havingValue = "true")
 public class PlacarConsumer {
 
+    static final String CHAVE_ULTIMO = "placar_eventos_last";
+    static final String CHAVE_ULTIMO_EM = "placar_eventos_last_em";
+
+    static final long ESPERA_MIN_MS = 100;
+    static final long ESPERA_MAX_MS = 5_000;
+
+    /**
+     * KEYS: último geral, instante do último geral, último de cada jogo.
+     * ARGV: ttl dos jogos, último geral, instante dele, e pontos + evento de cada jogo.
+     */
+    static final String SCRIPT_ULTIMOS = """
+            local em = tonumber(redis.call('GET', KEYS[2]) or '-1')
+            if tonumber(ARGV[3]) > em then
+              redis.call('SET', KEYS[1], ARGV[2])
+              redis.call('SET', KEYS[2], ARGV[3])
+            end
+            for i = 3, #KEYS do
+              local seq = tonumber(ARGV[2 * i - 2])
+              local atual = redis.call('GET', KEYS[i])
+              local seqAtual = -1
+              if atual then
+                local ok, obj = pcall(cjson.decode, atual)
+                if ok and type(obj) == 'table' then
+                  seqAtual = (tonumber(obj['pontosCasa']) or 0) + (tonumber(obj['pontosVisitante']) or 0)
+                end
+              end
+              if seq > seqAtual then
+                redis.call('SET', KEYS[i], ARGV[2 * i - 1], 'EX', ARGV[1])
+              else
+                redis.call('EXPIRE', KEYS[i], ARGV[1])
+              end
+            end
+            return #KEYS - 2
+            """;
+
+    private static final String SHA_ULTIMOS = sha1(SCRIPT_ULTIMOS);
+
     private final RedisClientProvider redisProvider;
+    private final ObjectMapper mapper = new ObjectMapper();
 
     // RabbitMQ resources
     private Connection connection;
-    private Channel channel;
+    private Channel monitor;
+    private final List<Trabalhador> trabalhadores = new CopyOnWriteArrayList<>();
+    private ExecutorService despacho;
+    private ScheduledExecutorService agendador;
 
     @Value("${rabbit.host:rabbitmq}")
     private String rabbitHost;
 
     @Value("${rabbit.queue:placar_eventos}")
-    private String queueName;
+    private String queueName = "placar_eventos";
+
+    @Value("${rabbit.consumer.workers:4}")
+    private int workers = 4;
+
+    @Value("${rabbit.consumer.prefetch:250}")
+    private int prefetch = 250;
+
+    @Value("${rabbit.consumer.lote:100}")
+    private int lote = 100;
+
+    @Value("${rabbit.consumer.linger-ms:20}")
+    private long lingerMs = 20;
+
+    @Value("${rabbit.consumer.ttl-s:86400}")
+    private long ttlS = 86400;
+
+    // métricas
+    private final AtomicLong processados = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private volatile long lag;
+    private volatile double taxaPorSegundo;
+    private long processadosNaUltimaMedicao;
+    private long ultimaMedicaoNs;
 
     public PlacarConsumer(RedisClientProvider redisProvider) {
         this.redisProvider = redisProvider;
@@ -38,56 +143,243 @@ public class PlacarConsumer {
         try {
             ConnectionFactory factory = new ConnectionFactory();
             factory.setHost(rabbitHost);
+            AtomicInteger n = new AtomicInteger();
+            despacho = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "placar-consumer-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            // um thread de despacho por canal: os workers processam em paralelo
+            factory.setSharedExecutor(despacho);
 
             connection = factory.newConnection();
-            channel = connection.createChannel();
-            channel.queueDeclare(queueName, true, false, false, null);
-
-            Consumer consumer = new DefaultConsumer(channel) {
-                @Override
-                public void handleDelivery(String consumerTag, Envelope envelope,
-                                           AMQP.BasicProperties properties, byte[] body) throws IOException {
-                    String msg = new String(body, StandardCharsets.UTF_8);
-                    try (Jedis jedis = redisProvider.getJedis()) {
-                        jedis.set("placar_eventos_last", msg);
-                    } catch (Exception e) {
-                        System.err.println("Erro ao processar mensagem do RabbitMQ: " + e.getMessage());
-                    }
-                }
-            };
+            for (int i = 0; i < workers; i++) {
+                Channel channel = connection.createChannel();
+                if (i == 0) channel.queueDeclare(queueName, true, false, false, null);
+                channel.basicQos(prefetch);
+                Trabalhador trabalhador = new Trabalhador(channel);
+                trabalhadores.add(trabalhador);
+                channel.basicConsume(queueName, false, trabalhador);
+            }
+            monitor = connection.createChannel();
 
-            channel.basicConsume(queueName, true, consumer);
-            System.out.println("PlacarConsumer conectado ao RabbitMQ em " + rabbitHost);
+            agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "placar-consumer-flush");
+                t.setDaemon(true);
+                return t;
+            });
+            long periodo = Math.max(1, lingerMs);
+            agendador.scheduleWithFixedDelay(this::descarregarVencidos, periodo, periodo, TimeUnit.MILLISECONDS);
+            ultimaMedicaoNs = System.nanoTime();
+            agendador.scheduleWithFixedDelay(this::medir, 1, 1, TimeUnit.SECONDS);
+
+            System.out.println("PlacarConsumer conectado ao RabbitMQ em " + rabbitHost
+                    + " (" + workers + " workers, prefetch " + prefetch + ")");
         } catch (IOException | TimeoutException ex) {
             // Não propagar - log e deixar a aplicação subir
             System.err.println("Aviso: não foi possível inicializar PlacarConsumer. RabbitMq host=" + rabbitHost
                     + ". Mensagem: " + ex.getMessage());
-            safeCloseChannel();
-            safeCloseConnection();
-            channel = null;
-            connection = null;
+            shutdown();
         } catch (Exception ex) {
             System.err.println("Erro inesperado em PlacarConsumer.init: " + ex.getMessage());
-            safeCloseChannel();
-            safeCloseConnection();
-            channel = null;
-            connection = null;
+            shutdown();
         }
     }
 
+    /** Eventos gravados no Redis e confirmados. */
+    public long getProcessados() { return processados.get(); }
+    public long getLotes() { return lotes.get(); }
+    public long getFalhas() { return falhas.get(); }
+    /** Mensagens prontas na fila ainda não entregues a nenhum worker (medido a cada segundo). */
+    public long getLag() { return lag; }
+    /** Eventos processados por segundo no último intervalo de medição. */
+    public double getTaxaPorSegundo() { return taxaPorSegundo; }
+
     @PreDestroy
     public void shutdown() {
-        safeCloseChannel();
+        if (agendador != null) agendador.shutdownNow();
+        agendador = null;
+        for (Trabalhador t : trabalhadores) {
+            t.descarregar(true);
+            safeCloseChannel(t.getChannel());
+        }
+        trabalhadores.clear();
+        safeCloseChannel(monitor);
+        monitor = null;
         safeCloseConnection();
+        if (despacho != null) despacho.shutdown();
+        despacho = null;
+    }
+
+    private void descarregarVencidos() {
+        for (Trabalhador t : trabalhadores) {
+            t.descarregar(false);
+        }
+    }
+
+    private void medir() {
+        long agora = System.nanoTime();
+        long total = processados.get();
+        double segundos = (agora - ultimaMedicaoNs) / 1_000_000_000.0;
+        if (segundos > 0) taxaPorSegundo = (total - processadosNaUltimaMedicao) / segundos;
+        processadosNaUltimaMedicao = total;
+        ultimaMedicaoNs = agora;
+        try {
+            Channel ch = monitor;
+            if (ch != null && ch.isOpen()) lag = ch.messageCount(queueName);
+        } catch (Exception e) {
+            // métrica apenas: tenta de novo na próxima medição
+        }
     }
 
-    private void safeCloseChannel() {
+    /** Evento lido da mensagem: jogo e total de pontos, que só cresce. */
+    private record Evento(String hashId, long seq) {}
+
+    private Evento evento(String msg) {
+        try {
+            var json = mapper.readTree(msg);
+            String hashId = json.path("hashId").asText(null);
+            if (hashId == null || hashId.isBlank()) return null;
+            return new Evento(hashId, json.path("pontosCasa").asLong() + json.path("pontosVisitante").asLong());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /** Mensagem mais nova de um jogo dentro do lote. */
+    private record Ultimo(String msg, long seq) {}
+
+    private void gravar(Map<String, Ultimo> ultimoPorJogo, String ultimo, long ultimoEm) {
+        List<String> keys = new ArrayList<>(ultimoPorJogo.size() + 2);
+        List<String> args = new ArrayList<>(2 * ultimoPorJogo.size() + 3);
+        keys.add(CHAVE_ULTIMO);
+        keys.add(CHAVE_ULTIMO_EM);
+        args.add(Long.toString(ttlS));
+        args.add(ultimo);
+        args.add(Long.toString(ultimoEm));
+        ultimoPorJogo.forEach((hashId, u) -> {
+            keys.add(CHAVE_ULTIMO + ":" + hashId);
+            args.add(Long.toString(u.seq()));
+            args.add(u.msg());
+        });
+        try (Jedis jedis = redisProvider.getJedis()) {
+            try {
+                jedis.evalsha(SHA_ULTIMOS, keys, args);
+            } catch (JedisNoScriptException e) {
+                jedis.eval(SCRIPT_ULTIMOS, keys, args);
+            }
+        }
+    }
+
+    /** Consumidor de um canal; acumula entregas até o próximo lote. */
+    private final class Trabalhador extends DefaultConsumer {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Ultimo> ultimoPorJogo = new LinkedHashMap<>();
+        private String ultimo;
+        private long ultimoEm;
+        private long ultimaTag;
+        private int pendentes;
+        private long primeiroEm;
+        /** Falhas seguidas do Redis e quando tentar de novo (nanoTime). */
+        private int falhasSeguidas;
+        private long proximaTentativa;
+
+        Trabalhador(Channel channel) {
+            super(channel);
+        }
+
+        @Override
+        public void handleDelivery(String consumerTag, Envelope envelope,
+                                   AMQP.BasicProperties properties, byte[] body) {
+            String msg = new String(body, StandardCharsets.UTF_8);
+            Evento evento = evento(msg);
+            lock.lock();
+            try {
+                if (evento != null) {
+                    ultimoPorJogo.merge(evento.hashId(), new Ultimo(msg, evento.seq()),
+                            (a, b) -> b.seq() >= a.seq() ? b : a);
+                }
+                ultimo = msg;
+                ultimoEm = System.currentTimeMillis();
+                ultimaTag = envelope.getDeliveryTag();
+                if (pendentes++ == 0) primeiroEm = System.nanoTime();
+                if (pendentes >= lote && System.nanoTime() - proximaTentativa >= 0) descarregarTravado(false);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Grava o lote pendente; sem {@code forcar}, só se o linger e o backoff já venceram. */
+        void descarregar(boolean forcar) {
+            lock.lock();
+            try {
+                if (pendentes == 0) return;
+                long agora = System.nanoTime();
+                if (forcar) {
+                    descarregarTravado(true);
+                } else if (agora - primeiroEm >= TimeUnit.MILLISECONDS.toNanos(lingerMs)
+                        && agora - proximaTentativa >= 0) {
+                    descarregarTravado(false);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @param devolver com o Redis fora do ar, devolve o lote à fila em vez
+         *                 de mantê-lo para a próxima tentativa
+         */
+        private void descarregarTravado(boolean devolver) {
+            int quantidade = pendentes;
+            long tag = ultimaTag;
+            try {
+                gravar(ultimoPorJogo, ultimo, ultimoEm);
+            } catch (Exception e) {
+                falhas.incrementAndGet();
+                if (!devolver) {
+                    long espera = Math.min(ESPERA_MAX_MS, ESPERA_MIN_MS << Math.min(falhasSeguidas++, 10));
+                    proximaTentativa = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(espera);
+                    System.err.println("Redis indisponível ao gravar " + quantidade + " evento(s) do RabbitMQ, nova tentativa em "
+                            + espera + " ms. CAUSA: " + e.getMessage());
+                    return;
+                }
+                System.err.println("Redis indisponível ao encerrar; " + quantidade + " evento(s) devolvidos à fila. CAUSA: "
+                        + e.getMessage());
+                try {
+                    getChannel().basicNack(tag, true, true);
+                } catch (Exception nack) {
+                    // canal fechado: o broker reentrega as mensagens não confirmadas
+                }
+                limpar();
+                return;
+            }
+            falhasSeguidas = 0;
+            proximaTentativa = 0;
+            try {
+                getChannel().basicAck(tag, true);
+                processados.addAndGet(quantidade);
+                lotes.incrementAndGet();
+            } catch (Exception e) {
+                // canal fechado: o broker reentrega; o script só troca por eventos mais novos
+                falhas.incrementAndGet();
+                System.err.println("Erro ao confirmar lote do RabbitMQ: " + e.getMessage());
+            }
+            limpar();
+        }
+
+        private void limpar() {
+            ultimoPorJogo.clear();
+            ultimo = null;
+            pendentes = 0;
+        }
+    }
+
+    private void safeCloseChannel(Channel channel) {
         try {
             if (channel != null && channel.isOpen()) channel.close();
         } catch (Exception e) {
             System.err.println("Erro ao fechar channel RabbitMQ: " + e.getMessage());
-        } finally {
-            channel = null;
         }
     }
 
@@ -100,4 +392,13 @@ public class PlacarConsumer {
             connection = null;
         }
     }
+
+    private static String sha1(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
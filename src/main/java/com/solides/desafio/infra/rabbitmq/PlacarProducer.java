@@ -1,5 +1,7 @@
 package com.solides.desafio.infra.rabbitmq;
 
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.BuiltinExchangeType;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
@@ -10,15 +12,50 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * PlacarProducer robusto: init tolerante a falhas e toggle via property.
+ * <p>
+ * {@link #enviarEvento} só enfileira: o {@code Channel} é usado por uma única
+ * thread publicadora, já que canais AMQP não são seguros para publicação
+ * concorrente. A fila é sem lock e limitada a
+ * {@code rabbit.publisher.capacidade} eventos; acima disso o evento é
+ * descartado e contado.
+ * <p>
+ * A publicadora junta até {@code rabbit.publisher.lote} eventos, esperando no
+ * máximo {@code rabbit.publisher.linger-ms} para completar o lote, e publica
+ * com publisher confirms assíncronos. Eventos rejeitados pelo broker (nack) ou
+ * sem confirmação quando o canal cai voltam para o início da fila.
+ * <p>
+ * Com o canal fechado, a publicadora espera a recuperação automática da
+ * conexão com backoff exponencial (50 ms dobrando até 1 s), por no máximo
+ * {@code rabbit.publisher.max-esperas-canal} esperas; depois descarta a
+ * conexão e volta a conectar do zero a cada {@code rabbit.publisher.reconexao-ms}.
+ * <p>
+ * Os eventos saem pelo exchange fanout {@code rabbit.exchange}, ligado à fila
+ * durável {@code rabbit.queue} e à fila própria de cada instância para a
+ * transmissão ao vivo ({@link PlacarAoVivoRabbit}).
  */
 @Component
 public class PlacarProducer {
+
+    private static final AMQP.BasicProperties PROPRIEDADES = new AMQP.BasicProperties.Builder()
+            .contentType("application/json")
+            .deliveryMode(2)
+            .build();
+
     private Connection connection;
-    private Channel channel;
+    private volatile Channel channel;
 
     @Value("${rabbit.enabled:true}")
     private boolean rabbitEnabled;
@@ -29,6 +66,48 @@ public class PlacarProducer {
     @Value("${rabbit.queue:placar_eventos}")
     private String queueName;
 
+    @Value("${rabbit.exchange:placar_eventos}")
+    private String exchange = "placar_eventos";
+
+    @Value("${rabbit.publisher.capacidade:10000}")
+    private int capacidade = 10000;
+
+    @Value("${rabbit.publisher.lote:100}")
+    private int lote = 100;
+
+    @Value("${rabbit.publisher.linger-ms:5}")
+    private long lingerMs = 5;
+
+    /** Limite de eventos publicados aguardando confirmação do broker. */
+    @Value("${rabbit.publisher.max-sem-confirmacao:5000}")
+    private int maxSemConfirmacao = 5000;
+
+    @Value("${rabbit.publisher.reconexao-ms:5000}")
+    private long reconexaoMs = 5000;
+
+    @Value("${rabbit.publisher.max-esperas-canal:20}")
+    private int maxEsperasCanal = 20;
+
+    static final long ESPERA_CANAL_MIN_MS = 50;
+    static final long ESPERA_CANAL_MAX_MS = 1000;
+
+    private final ConcurrentLinkedDeque<byte[]> fila = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger tamanhoFila = new AtomicInteger();
+    /** Publicados e ainda não confirmados, por número de sequência do canal. */
+    private final ConcurrentSkipListMap<Long, byte[]> semConfirmacao = new ConcurrentSkipListMap<>();
+    private volatile Thread publicador;
+    private volatile boolean rodando;
+    private long proximaReconexao;
+    /** Esperas seguidas com o canal fechado; acessado só pela publicadora. */
+    private int esperasCanal;
+
+    // métricas
+    private final AtomicLong publicados = new AtomicLong();
+    private final AtomicLong confirmados = new AtomicLong();
+    private final AtomicLong rejeitados = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+
     @PostConstruct
     public void init() {
         if (!rabbitEnabled) {
@@ -36,6 +115,218 @@ public class PlacarProducer {
             return;
         }
 
+        if (!conectar()) {
+            proximaReconexao = System.currentTimeMillis() + reconexaoMs;
+        }
+        rodando = true;
+        Thread t = new Thread(this::publicar, "placar-rabbit-publisher");
+        t.setDaemon(true);
+        publicador = t;
+        t.start();
+    }
+
+    /**
+     * Enfileira o evento para publicação. Não bloqueia: com a fila cheia o
+     * evento é descartado e contado em {@link #getDescartados()}.
+     */
+    public void enviarEvento(String json) {
+        if (!rabbitEnabled) {
+            // comportamento: ignorar envios se desabilitado
+            System.out.println("RabbitMQ disabled - evento descartado: " + json);
+            return;
+        }
+
+        if (enfileirar(json)) acordarPublicador();
+    }
+
+    /**
+     * Enfileira vários eventos, em ordem, acordando a publicadora uma única
+     * vez; eles tendem a sair no mesmo lote.
+     */
+    public void enviarEventos(List<String> jsons) {
+        if (!rabbitEnabled) {
+            System.out.println("RabbitMQ disabled - " + jsons.size() + " evento(s) descartado(s)");
+            return;
+        }
+
+        boolean algum = false;
+        for (String json : jsons) {
+            algum |= enfileirar(json);
+        }
+        if (algum) acordarPublicador();
+    }
+
+    private boolean enfileirar(String json) {
+        if (tamanhoFila.incrementAndGet() > capacidade) {
+            tamanhoFila.decrementAndGet();
+            descartados.incrementAndGet();
+            System.err.println("Aviso: fila de publicação do RabbitMQ cheia. Evento descartado: " + json);
+            return false;
+        }
+        fila.addLast(json.getBytes(StandardCharsets.UTF_8));
+        return true;
+    }
+
+    private void acordarPublicador() {
+        Thread t = publicador;
+        if (t != null) LockSupport.unpark(t);
+    }
+
+    public long getPublicados() { return publicados.get(); }
+    public long getConfirmados() { return confirmados.get(); }
+    public long getRejeitados() { return rejeitados.get(); }
+    public long getDescartados() { return descartados.get(); }
+    public long getFalhas() { return falhas.get(); }
+    public int getPendentes() { return tamanhoFila.get(); }
+    public int getSemConfirmacao() { return semConfirmacao.size(); }
+
+    @PreDestroy
+    public void close() {
+        rodando = false;
+        Thread t = publicador;
+        if (t != null) {
+            LockSupport.unpark(t);
+            try {
+                t.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        safeCloseChannel();
+        safeCloseConnection();
+    }
+
+    /** Laço da thread publicadora. */
+    private void publicar() {
+        while (rodando) {
+            try {
+                Channel ch = channel;
+                if (ch == null) {
+                    if (System.currentTimeMillis() >= proximaReconexao && !conectar()) {
+                        proximaReconexao = System.currentTimeMillis() + reconexaoMs;
+                    }
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+                } else if (!ch.isOpen()) {
+                    esperarCanal();
+                } else if (fila.isEmpty()) {
+                    esperasCanal = 0;
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                } else if (semConfirmacao.size() >= maxSemConfirmacao) {
+                    esperasCanal = 0;
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                } else {
+                    esperasCanal = 0;
+                    publicarLote(ch, true);
+                }
+            } catch (Exception e) {
+                falhas.incrementAndGet();
+                System.err.println("Falha ao publicar no RabbitMQ, nova tentativa em seguida. CAUSA: " + e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            }
+        }
+        descarregarAoEncerrar();
+    }
+
+    /**
+     * Canal fechado: a recuperação automática da conexão pode estar em
+     * andamento. Espera com backoff; esgotadas as esperas, desiste da conexão
+     * e agenda uma nova, sem perder eventos (os sem confirmação já voltaram
+     * para a fila pelo shutdown listener).
+     */
+    private void esperarCanal() {
+        if (esperasCanal >= maxEsperasCanal) {
+            falhas.incrementAndGet();
+            System.err.println("Canal do RabbitMQ continua fechado após " + esperasCanal
+                    + " esperas; descartando a conexão e reconectando em " + reconexaoMs + " ms. "
+                    + tamanhoFila.get() + " evento(s) aguardando.");
+            esperasCanal = 0;
+            safeCloseChannel();
+            safeCloseConnection();
+            proximaReconexao = System.currentTimeMillis() + reconexaoMs;
+            return;
+        }
+        long espera = Math.min(ESPERA_CANAL_MAX_MS, ESPERA_CANAL_MIN_MS << Math.min(esperasCanal, 10));
+        esperasCanal++;
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(espera));
+    }
+
+    /**
+     * Publica até {@code lote} eventos da fila. Com {@code esperar}, aguarda
+     * até {@code linger-ms} para o lote encher.
+     *
+     * @return quantidade publicada
+     */
+    int publicarLote(Channel ch, boolean esperar) throws IOException {
+        if (esperar && lingerMs > 0) {
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+            long resta;
+            while (rodando && tamanhoFila.get() < lote && (resta = limite - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(resta);
+            }
+        }
+
+        int n = 0;
+        byte[] msg;
+        while (n < lote && (msg = fila.pollFirst()) != null) {
+            tamanhoFila.decrementAndGet();
+            long seq = ch.getNextPublishSeqNo();
+            semConfirmacao.put(seq, msg);
+            try {
+                ch.basicPublish(exchange, "", PROPRIEDADES, msg);
+            } catch (IOException | RuntimeException e) {
+                semConfirmacao.remove(seq);
+                devolver(List.of(msg));
+                throw e;
+            }
+            publicados.incrementAndGet();
+            n++;
+        }
+        return n;
+    }
+
+    void confirmar(long seq, boolean multiplos) {
+        confirmados.addAndGet(retirar(seq, multiplos).size());
+    }
+
+    void rejeitar(long seq, boolean multiplos) {
+        List<byte[]> msgs = List.copyOf(retirar(seq, multiplos).values());
+        rejeitados.addAndGet(msgs.size());
+        devolver(msgs);
+        System.err.println("Aviso: RabbitMQ rejeitou " + msgs.size() + " evento(s); serão publicados novamente.");
+    }
+
+    /** Remove e devolve, em ordem de sequência, os eventos cobertos pela confirmação. */
+    private NavigableMap<Long, byte[]> retirar(long seq, boolean multiplos) {
+        NavigableMap<Long, byte[]> res = new TreeMap<>();
+        if (multiplos) {
+            NavigableMap<Long, byte[]> ate = semConfirmacao.headMap(seq, true);
+            res.putAll(ate);
+            res.keySet().forEach(ate::remove);
+        } else {
+            byte[] msg = semConfirmacao.remove(seq);
+            if (msg != null) res.put(seq, msg);
+        }
+        return res;
+    }
+
+    /** Devolve eventos ao início da fila, na ordem original. */
+    private void devolver(List<byte[]> msgs) {
+        for (int i = msgs.size() - 1; i >= 0; i--) {
+            fila.addFirst(msgs.get(i));
+            tamanhoFila.incrementAndGet();
+        }
+    }
+
+    /**
+     * Canal caiu: confirmações pendentes nunca vão chegar (a sequência
+     * recomeça no canal recuperado), então os eventos voltam para a fila.
+     */
+    private void reenfileirarSemConfirmacao() {
+        NavigableMap<Long, byte[]> pendentes = retirar(Long.MAX_VALUE, true);
+        if (!pendentes.isEmpty()) devolver(List.copyOf(pendentes.values()));
+    }
+
+    private boolean conectar() {
         try {
             ConnectionFactory factory = new ConnectionFactory();
             factory.setHost(rabbitHost);
@@ -43,52 +334,44 @@ public class PlacarProducer {
             // factory.setUsername(...); factory.setPassword(...);
 
             connection = factory.newConnection();
-            channel = connection.createChannel();
-            channel.queueDeclare(queueName, true, false, false, null);
+            Channel ch = connection.createChannel();
+            ch.exchangeDeclare(exchange, BuiltinExchangeType.FANOUT, true);
+            ch.queueDeclare(queueName, true, false, false, null);
+            ch.queueBind(queueName, exchange, "");
+            ch.confirmSelect();
+            ch.addConfirmListener(this::confirmar, this::rejeitar);
+            ch.addShutdownListener(cause -> reenfileirarSemConfirmacao());
+            channel = ch;
             System.out.println("PlacarProducer connected to RabbitMQ at " + rabbitHost);
+            return true;
         } catch (IOException | TimeoutException ex) {
             // NÃO lançar: apenas logar e manter application up.
             System.err.println("Aviso: não foi possível inicializar RabbitMQ (PlacarProducer). " +
-                    "Eventos não serão enviados. Causa: " + ex.getMessage());
+                    "Eventos ficam na fila até a reconexão. Causa: " + ex.getMessage());
             // garantir que recursos parcialmente abertos sejam fechados
             safeCloseChannel();
             safeCloseConnection();
-            channel = null;
-            connection = null;
+            return false;
         } catch (Exception ex) {
             System.err.println("Erro inesperado ao inicializar PlacarProducer: " + ex.getMessage());
             safeCloseChannel();
             safeCloseConnection();
-            channel = null;
-            connection = null;
+            return false;
         }
     }
 
-    /**
-     * Tenta enviar evento. Se Rabbit não estiver disponível, apenas loga.
-     * Se preferir falhar rápido, substitua o comportamento por lançar exceção.
-     */
-    public void enviarEvento(String json) throws IOException {
-        if (!rabbitEnabled) {
-            // comportamento: ignorar envios se desabilitado
-            System.out.println("RabbitMQ disabled - evento descartado: " + json);
-            return;
-        }
-
-        if (channel == null || connection == null) {
-            // decidir comportamento: aqui apenas logamos — não interromper aplicação.
-            System.err.println("Aviso: RabbitMQ não disponível. Evento descartado: " + json);
-            return;
+    /** Publica o que restou na fila e espera as confirmações antes de fechar o canal. */
+    private void descarregarAoEncerrar() {
+        Channel ch = channel;
+        if (ch == null || !ch.isOpen()) return;
+        try {
+            while (!fila.isEmpty()) {
+                publicarLote(ch, false);
+            }
+            ch.waitForConfirms(TimeUnit.SECONDS.toMillis(2));
+        } catch (Exception e) {
+            System.err.println("Eventos podem ter ficado sem confirmação ao encerrar o PlacarProducer: " + e.getMessage());
         }
-
-        // channel.basicPublish pode lançar IOException
-        channel.basicPublish("", queueName, null, json.getBytes(StandardCharsets.UTF_8));
-    }
-
-    @PreDestroy
-    public void close() {
-        safeCloseChannel();
-        safeCloseConnection();
     }
 
     private void safeCloseChannel() {
@@ -0,0 +1,186 @@
+package com.solides.desafio.infra.redis;
+
+import com.solides.desafio.domain.Classificacao;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.resps.Tuple;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ranking de cada competição no Redis: um sorted set
+ * ({@code classificacao:<competicao>}) com o {@link Classificacao#score()} de
+ * cada time, para posição em O(log n) e páginas do topo com ZREVRANGE, e um
+ * hash ({@code classificacao:<competicao>:times}) com a campanha de cada time.
+ * <p>
+ * A fonte de verdade é a tabela {@code classificacao}; aqui só se gravam
+ * linhas lidas dela. Cada linha carrega o número de jogos do time, que só
+ * cresce: o script ignora uma linha mais antiga que a gravada, então duas
+ * finalizações concorrentes podem chegar em qualquer ordem.
+ * <p>
+ * Erros de Redis são propagados; quem chama decide se lê do banco.
+ */
+@Component
+public class ClassificacaoRedis {
+
+    /**
+     * KEYS: ranking, campanhas. ARGV[1]: {@code 1} exige a competição já no
+     * Redis (devolve -1 se não estiver), {@code 0} (reconstrução) não. Depois,
+     * grupos de time, jogos, score e campanha; em qualquer modo só se grava
+     * a linha com mais jogos que a atual.
+     */
+    static final String SCRIPT_GRAVAR = """
+            if ARGV[1] == '1' and redis.call('EXISTS', KEYS[2]) == 0 then
+              return -1
+            end
+            local gravadas = 0
+            for i = 2, #ARGV, 4 do
+              local time, jogos = ARGV[i], tonumber(ARGV[i + 1])
+              local atual = redis.call('HGET', KEYS[2], time)
+              local jogosAtual = atual and tonumber(string.match(atual, '^(%d+)'))
+              if not jogosAtual or jogos > jogosAtual then
+                redis.call('HSET', KEYS[2], time, ARGV[i + 3])
+                redis.call('ZADD', KEYS[1], ARGV[i + 2], time)
+                gravadas = gravadas + 1
+              end
+            end
+            return gravadas
+            """;
+
+    private static final String SHA_GRAVAR = sha1(SCRIPT_GRAVAR);
+
+    private final RedisClientProvider redisProvider;
+
+    public ClassificacaoRedis(RedisClientProvider redisProvider) {
+        this.redisProvider = redisProvider;
+    }
+
+    /** Campanha do time e sua posição (1 = líder). */
+    public record Posicao(long posicao, Classificacao classificacao) {}
+
+    /**
+     * Grava as linhas recém-alteradas de uma competição.
+     *
+     * @return false se a competição não está no Redis; nesse caso nada é
+     *         gravado e ela precisa ser reconstruída com {@link #substituir}
+     */
+    public boolean aplicar(String competicao, List<Classificacao> linhas) {
+        return gravar(competicao, true, linhas) >= 0;
+    }
+
+    /**
+     * Grava a competição inteira a partir do banco, mesmo que ainda não
+     * esteja no Redis, com a mesma regra de {@link #aplicar}: um time só é
+     * regravado se a linha lida tem mais jogos que a do Redis. Uma
+     * finalização gravada depois da leitura não é desfeita pela cópia mais
+     * antiga. Times não são removidos: toda linha gravada veio do banco, onde
+     * linhas não são apagadas.
+     */
+    public void substituir(String competicao, List<Classificacao> linhas) {
+        gravar(competicao, false, linhas);
+    }
+
+    /**
+     * Até {@code limite} times a partir da posição {@code offset + 1}, em
+     * ordem. Retorna null quando a competição não está no Redis.
+     */
+    public List<Classificacao> pagina(String competicao, long offset, int limite) {
+        String campanhas = chaveCampanhas(competicao);
+        try (Jedis jedis = redisProvider.getJedis()) {
+            Pipeline p = jedis.pipelined();
+            Response<Boolean> existe = p.exists(campanhas);
+            Response<List<Tuple>> topo = p.zrevrangeWithScores(chaveRanking(competicao), offset, offset + limite - 1);
+            p.sync();
+            if (!existe.get()) return null;
+            if (topo.get().isEmpty()) return List.of();
+
+            String[] times = topo.get().stream().map(Tuple::getElement).toArray(String[]::new);
+            List<String> valores = jedis.hmget(campanhas, times);
+            List<Classificacao> res = new ArrayList<>(times.length);
+            for (int i = 0; i < times.length; i++) {
+                // campanha removida entre as duas leituras (reconstrução): o time sai da página
+                if (valores.get(i) != null) res.add(campanha(competicao, times[i], valores.get(i)));
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Posição do time numa única ida ao Redis. Retorna null quando a
+     * competição não está no Redis, e vazio se o time não está nela.
+     */
+    public Optional<Posicao> posicao(String competicao, String time) {
+        String campanhas = chaveCampanhas(competicao);
+        try (Jedis jedis = redisProvider.getJedis()) {
+            Pipeline p = jedis.pipelined();
+            Response<Boolean> existe = p.exists(campanhas);
+            Response<Long> rank = p.zrevrank(chaveRanking(competicao), time);
+            Response<String> valor = p.hget(campanhas, time);
+            p.sync();
+            if (!existe.get()) return null;
+            if (rank.get() == null || valor.get() == null) return Optional.empty();
+            return Optional.of(new Posicao(rank.get() + 1, campanha(competicao, time, valor.get())));
+        }
+    }
+
+    private long gravar(String competicao, boolean exigeCompeticao, List<Classificacao> linhas) {
+        List<String> keys = List.of(chaveRanking(competicao), chaveCampanhas(competicao));
+        List<String> args = new ArrayList<>(1 + linhas.size() * 4);
+        args.add(exigeCompeticao ? "1" : "0");
+        for (Classificacao c : linhas) {
+            args.add(c.time());
+            args.add(Integer.toString(c.jogos()));
+            args.add(Long.toString(c.score()));
+            args.add(campanha(c));
+        }
+        Object res;
+        try (Jedis jedis = redisProvider.getJedis()) {
+            try {
+                res = jedis.evalsha(SHA_GRAVAR, keys, args);
+            } catch (JedisNoScriptException e) {
+                // primeira execução neste servidor (ou SCRIPT FLUSH): EVAL carrega o script
+                res = jedis.eval(SCRIPT_GRAVAR, keys, args);
+            }
+        }
+        return ((Number) res).longValue();
+    }
+
+    /** Campanha no hash: jogos primeiro, que é o que o script compara. */
+    static String campanha(Classificacao c) {
+        return c.jogos() + ":" + c.pontos() + ":" + c.vitorias() + ":" + c.empates() + ":"
+                + c.derrotas() + ":" + c.marcados() + ":" + c.sofridos();
+    }
+
+    static Classificacao campanha(String competicao, String time, String valor) {
+        String[] v = valor.split(":");
+        return new Classificacao(competicao, time,
+                Integer.parseInt(v[1]), Integer.parseInt(v[0]), Integer.parseInt(v[2]), Integer.parseInt(v[3]),
+                Integer.parseInt(v[4]), Integer.parseInt(v[5]), Integer.parseInt(v[6]));
+    }
+
+    static String chaveRanking(String competicao) {
+        return "classificacao:" + competicao;
+    }
+
+    static String chaveCampanhas(String competicao) {
+        return "classificacao:" + competicao + ":times";
+    }
+
+    private static String sha1(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.solides.desafio.infra.redis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solides.desafio.domain.PlacarEstado;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.params.SetParams;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache Redis do estado dos placares ({@code placar:<hash>}), guardado como o
+ * próprio JSON da API: é serializado uma vez ao gravar e lido direto para
+ * {@link PlacarEstado}, sem árvore intermediária.
+ * <p>
+ * Cada escrita incrementa {@code placar:<hash>:versao} na mesma transação, e
+ * essa versão é a ETag do placar. Placar e versão expiram juntos
+ * ({@code placar.cache.ttl-s}, renovado a cada escrita) e são apagados juntos.
+ * Uma versão recriada parte do instante atual em µs ({@link #pisoVersao}),
+ * acima de qualquer versão já entregue, para que uma ETag antiga nunca volte
+ * a valer.
+ * <p>
+ * Se o placar mudou no banco e a escrita no cache falhou, quem chama marca o
+ * jogo com {@link #invalidar}: as leituras desta instância deixam de usar o
+ * Redis para ele (nada de placar velho nem 304) e placar e versão são apagados
+ * assim que o Redis responder, a cada {@code placar.cache.invalidacao-s}.
+ * <p>
+ * Os jogos em andamento ficam no sorted set {@code placar:ativos}, com o
+ * instante de início (ms) como score: entram ao iniciar e saem ao remover o
+ * placar, na mesma transação. {@code placar:ativos:sincronizado} marca que o
+ * conjunto foi montado a partir do banco; sem ele (Redis novo ou esvaziado) o
+ * conjunto não é confiável e a listagem vai ao banco.
+ * <p>
+ * Erros de Redis são propagados; quem chama decide se segue sem cache.
+ */
+@Component
+public class PlacarCache {
+
+    /** JSON do placar como está no Redis e a versão correspondente (0 se desconhecida). */
+    public record Bruto(byte[] json, long versao) {}
+
+    /**
+     * Página dos jogos em andamento: total de jogos e, na ordem de início,
+     * hash_id -> JSON do placar (null se o placar não está em cache).
+     */
+    public record Ativos(long total, Map<String, byte[]> placares) {}
+
+    static final String ATIVOS = "placar:ativos";
+    static final String ATIVOS_SINCRONIZADO = "placar:ativos:sincronizado";
+
+    /**
+     * KEYS: ativos, marcador. ARGV[1]: corte (ms); depois pares de hash_id e
+     * início. Inclui os jogos lidos do banco sem mexer no score dos que já
+     * estão no conjunto, tira os que entraram antes do corte e não vieram do
+     * banco (finalizados sem ZREM) e grava o marcador.
+     */
+    static final String SCRIPT_SINCRONIZAR = """
+            local noBanco = {}
+            for i = 2, #ARGV, 2 do
+              noBanco[ARGV[i]] = true
+              redis.call('ZADD', KEYS[1], 'NX', ARGV[i + 1], ARGV[i])
+            end
+            local removidos = 0
+            for _, hash in ipairs(redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[1])) do
+              if not noBanco[hash] then
+                redis.call('ZREM', KEYS[1], hash)
+                removidos = removidos + 1
+              end
+            end
+            redis.call('SET', KEYS[2], ARGV[1])
+            return removidos
+            """;
+
+    private static final String SHA_SINCRONIZAR = sha1(SCRIPT_SINCRONIZAR);
+
+    private final RedisClientProvider redisProvider;
+    private final ObjectMapper mapper = PlacarEstado.tolerante(new ObjectMapper());
+    private final Set<String> invalidos = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService scheduler;
+
+    @Value("${placar.cache.ttl-s:86400}")
+    private long ttlS = 86400;
+
+    @Value("${placar.cache.invalidacao-s:5}")
+    private long invalidacaoS = 5;
+
+    public PlacarCache(RedisClientProvider redisProvider) {
+        this.redisProvider = redisProvider;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "placar-cache-invalidacao");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::invalidarPendentesSeguro, invalidacaoS, invalidacaoS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    public Optional<PlacarEstado> ler(String hashId) {
+        if (invalidos.contains(hashId)) return Optional.empty();
+        byte[] raw;
+        try (Jedis jedis = redisProvider.getJedis()) {
+            raw = jedis.get(chave(hashId));
+        }
+        if (raw == null) return Optional.empty();
+        try {
+            return Optional.of(mapper.readValue(raw, PlacarEstado.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Placar inválido no cache: " + hashId, e);
+        }
+    }
+
+    /**
+     * Lê os bytes do placar e a versão num único MGET, sem desserializar.
+     */
+    public Optional<Bruto> lerBruto(String hashId) {
+        if (invalidos.contains(hashId)) return Optional.empty();
+        List<byte[]> valores;
+        try (Jedis jedis = redisProvider.getJedis()) {
+            valores = jedis.mget(chave(hashId), chaveVersao(hashId).getBytes(StandardCharsets.UTF_8));
+        }
+        if (valores == null || valores.isEmpty() || valores.get(0) == null) return Optional.empty();
+        byte[] versao = valores.size() > 1 ? valores.get(1) : null;
+        return Optional.of(new Bruto(valores.get(0),
+                versao != null ? Long.parseLong(new String(versao, StandardCharsets.US_ASCII)) : 0L));
+    }
+
+    /** Versão atual do placar, ou 0 se não houver. Não lê o JSON. */
+    public long versao(String hashId) {
+        if (invalidos.contains(hashId)) return 0L;
+        String v;
+        try (Jedis jedis = redisProvider.getJedis()) {
+            v = jedis.get(chaveVersao(hashId));
+        }
+        return v != null ? Long.parseLong(v) : 0L;
+    }
+
+    /**
+     * Grava o placar e incrementa a versão no mesmo MULTI/EXEC.
+     *
+     * @return a nova versão
+     */
+    public long gravar(String hashId, PlacarEstado estado) {
+        byte[] json;
+        try {
+            json = mapper.writeValueAsBytes(estado);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try (Jedis jedis = redisProvider.getJedis()) {
+            Transaction tx = jedis.multi();
+            Response<Long> versao = gravar(tx, hashId, json, pisoVersao());
+            tx.exec();
+            return versao.get();
+        }
+    }
+
+    /**
+     * Como {@link #gravar}, e põe o jogo em {@code placar:ativos} no mesmo
+     * MULTI/EXEC.
+     */
+    public long gravarAtivo(String hashId, PlacarEstado estado, long inicioMs) {
+        byte[] json;
+        try {
+            json = mapper.writeValueAsBytes(estado);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try (Jedis jedis = redisProvider.getJedis()) {
+            Transaction tx = jedis.multi();
+            Response<Long> versao = gravar(tx, hashId, json, pisoVersao());
+            tx.zadd(ATIVOS, inicioMs, hashId);
+            tx.exec();
+            return versao.get();
+        }
+    }
+
+    /**
+     * Grava vários placares numa única transação: todos os SET e INCR vão
+     * juntos para o Redis e voltam num só EXEC.
+     */
+    public void gravarEmLote(Map<String, PlacarEstado> estados) {
+        if (estados.isEmpty()) return;
+        Map<String, byte[]> jsons = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, PlacarEstado> e : estados.entrySet()) {
+                jsons.put(e.getKey(), mapper.writeValueAsBytes(e.getValue()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long piso = pisoVersao();
+        try (Jedis jedis = redisProvider.getJedis()) {
+            Transaction tx = jedis.multi();
+            jsons.forEach((hashId, json) -> gravar(tx, hashId, json, piso));
+            tx.exec();
+        }
+    }
+
+    /** Apaga o placar e a versão e o tira de {@code placar:ativos} no mesmo MULTI/EXEC. */
+    public void remover(String hashId) {
+        try (Jedis jedis = redisProvider.getJedis()) {
+            Transaction tx = jedis.multi();
+            tx.del(chave(hashId));
+            tx.del(chaveVersao(hashId));
+            tx.zrem(ATIVOS, hashId);
+            tx.exec();
+        }
+    }
+
+    /**
+     * Marca o placar em cache como desatualizado em relação ao banco. Não vai
+     * ao Redis aqui (a escrita acabou de falhar); ver {@link #invalidarPendentes}.
+     */
+    public void invalidar(String hashId) {
+        invalidos.add(hashId);
+    }
+
+    /**
+     * Apaga placar e versão dos jogos marcados por {@link #invalidar}; para no
+     * primeiro erro e tenta de novo no próximo ciclo.
+     */
+    public void invalidarPendentes() {
+        if (invalidos.isEmpty()) return;
+        try (Jedis jedis = redisProvider.getJedis()) {
+            for (String hashId : invalidos) {
+                if (!invalidos.remove(hashId)) continue;
+                try {
+                    jedis.del(chave(hashId), chaveVersao(hashId).getBytes(StandardCharsets.UTF_8));
+                } catch (RuntimeException e) {
+                    invalidos.add(hashId);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public int getPendentesInvalidacao() {
+        return invalidos.size();
+    }
+
+    /** Tira de {@code placar:ativos} um jogo que o banco já não tem como ativo. */
+    public void removerAtivo(String hashId) {
+        try (Jedis jedis = redisProvider.getJedis()) {
+            jedis.zrem(ATIVOS, hashId);
+        }
+    }
+
+    /**
+     * Até {@code limite} jogos em andamento a partir do {@code offset}, em
+     * ordem de início, com os placares lidos num único MGET. Retorna null
+     * quando o conjunto não foi sincronizado com o banco.
+     */
+    public Ativos ativos(long offset, int limite) {
+        try (Jedis jedis = redisProvider.getJedis()) {
+            Pipeline p = jedis.pipelined();
+            Response<Boolean> sincronizado = p.exists(ATIVOS_SINCRONIZADO);
+            Response<Long> total = p.zcard(ATIVOS);
+            Response<List<String>> pagina = p.zrange(ATIVOS, offset, offset + limite - 1);
+            p.sync();
+            if (!sincronizado.get()) return null;
+
+            List<String> hashes = pagina.get();
+            Map<String, byte[]> placares = new LinkedHashMap<>();
+            List<byte[]> jsons = mget(jedis, hashes);
+            for (int i = 0; i < hashes.size(); i++) placares.put(hashes.get(i), jsons.get(i));
+            return new Ativos(total.get(), placares);
+        }
+    }
+
+    /**
+     * JSON de vários placares num único MGET, sem desserializar, na ordem de
+     * {@code hashIds}; null para os que não estão em cache.
+     */
+    public List<byte[]> lerVarios(List<String> hashIds) {
+        try (Jedis jedis = redisProvider.getJedis()) {
+            return mget(jedis, hashIds);
+        }
+    }
+
+    /**
+     * Acerta {@code placar:ativos} com os jogos ativos lidos do banco
+     * (hash_id -> início em ms). Jogos iniciados depois de {@code corteMs}
+     * podem não estar na leitura e são mantidos.
+     *
+     * @return quantos jogos saíram do conjunto
+     */
+    public long sincronizarAtivos(Map<String, Long> ativos, long corteMs) {
+        List<String> keys = List.of(ATIVOS, ATIVOS_SINCRONIZADO);
+        List<String> args = new ArrayList<>(1 + ativos.size() * 2);
+        args.add(Long.toString(corteMs));
+        ativos.forEach((hashId, inicio) -> {
+            args.add(hashId);
+            args.add(Long.toString(inicio));
+        });
+        Object res;
+        try (Jedis jedis = redisProvider.getJedis()) {
+            try {
+                res = jedis.evalsha(SHA_SINCRONIZAR, keys, args);
+            } catch (JedisNoScriptException e) {
+                // primeira execução neste servidor (ou SCRIPT FLUSH): EVAL carrega o script
+                res = jedis.eval(SCRIPT_SINCRONIZAR, keys, args);
+            }
+        }
+        return ((Number) res).longValue();
+    }
+
+    /** MGET dos placares; os marcados por {@link #invalidar} saem como null. */
+    private List<byte[]> mget(Jedis jedis, List<String> hashIds) {
+        if (hashIds.isEmpty()) return List.of();
+        byte[][] chaves = new byte[hashIds.size()][];
+        for (int i = 0; i < chaves.length; i++) chaves[i] = chave(hashIds.get(i));
+        List<byte[]> jsons = jedis.mget(chaves);
+        if (!invalidos.isEmpty()) {
+            jsons = new ArrayList<>(jsons);
+            for (int i = 0; i < hashIds.size(); i++) {
+                if (invalidos.contains(hashIds.get(i))) jsons.set(i, null);
+            }
+        }
+        return jsons;
+    }
+
+    /**
+     * SET do placar e INCR da versão, os dois com o TTL do cache. Versão
+     * ausente (expirada ou apagada) recomeça do {@code piso}.
+     */
+    private Response<Long> gravar(Transaction tx, String hashId, byte[] json, long piso) {
+        String chaveVersao = chaveVersao(hashId);
+        tx.set(chave(hashId), json, SetParams.setParams().ex(ttlS));
+        tx.set(chaveVersao, Long.toString(piso), SetParams.setParams().nx());
+        Response<Long> versao = tx.incr(chaveVersao);
+        tx.expire(chaveVersao, ttlS);
+        return versao;
+    }
+
+    /**
+     * Valor inicial de uma versão recriada: o instante atual em µs. Fica acima
+     * de toda versão entregue antes, que partiu de um instante anterior e só
+     * cresceu de um em um desde então.
+     */
+    public static long pisoVersao() {
+        return System.currentTimeMillis() * 1000;
+    }
+
+    private void invalidarPendentesSeguro() {
+        try {
+            invalidarPendentes();
+        } catch (Exception e) {
+            System.err.println("Invalidação de placares em cache falhou, nova tentativa no próximo ciclo. CAUSA: " + e.getMessage());
+        }
+    }
+
+    static byte[] chave(String hashId) {
+        return ("placar:" + hashId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String chaveVersao(String hashId) {
+        return "placar:" + hashId + ":versao";
+    }
+
+    private static String sha1(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
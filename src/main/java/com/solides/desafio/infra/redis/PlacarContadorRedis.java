@@ -0,0 +1,292 @@
+package com.solides.desafio.infra.redis;
+
+import com.solides.desafio.domain.Pontos;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contador de pontos mantido num hash Redis ({@code placar:<hash>:pontos}),
+ * incrementado de forma atômica no servidor por um script Lua.
+ * <p>
+ * Uma única ida ao Redis incrementa os dois lados, atualiza o placar em
+ * cache ({@code placar:<hash>}) e sua versão quando ele existe e devolve os novos pontos
+ * com os nomes dos times, sem o Java precisar ler o JSON. Placar e versão
+ * seguem as regras de TTL e piso de versão de {@link PlacarCache}.
+ * <p>
+ * O contador expira {@code placar.contador.ttl-s} após o último ponto; o
+ * write-behind já levou os pontos ao banco, e o próximo ponto semeia de novo.
+ * Contadores que ficaram atrasados em relação ao banco (pontos gravados direto
+ * nele com o Redis fora do ar) são marcados com {@link #descartar} e apagados,
+ * junto com o placar em cache, assim que o Redis responder.
+ */
+@Component
+public class PlacarContadorRedis {
+
+    static final String SCRIPT_INCREMENTO = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+              return false
+            end
+            local casa = redis.call('HINCRBY', KEYS[1], 'casa', ARGV[1])
+            local visitante = redis.call('HINCRBY', KEYS[1], 'visitante', ARGV[2])
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            local doc = redis.call('GET', KEYS[2])
+            local nomeCasa, nomeVisitante, emCache = false, false, 0
+            if doc then
+              local ok, obj = pcall(cjson.decode, doc)
+              if ok and type(obj) == 'table' then
+                if type(obj['time_da_casa']) ~= 'table' then obj['time_da_casa'] = {} end
+                if type(obj['time_visitante']) ~= 'table' then obj['time_visitante'] = {} end
+                obj['time_da_casa']['pontos'] = casa
+                obj['time_visitante']['pontos'] = visitante
+                if type(obj['time_da_casa']['nome']) == 'string' then nomeCasa = obj['time_da_casa']['nome'] end
+                if type(obj['time_visitante']['nome']) == 'string' then nomeVisitante = obj['time_visitante']['nome'] end
+                redis.call('SET', KEYS[2], cjson.encode(obj), 'EX', ARGV[4])
+                redis.call('SET', KEYS[3], ARGV[5], 'NX')
+                redis.call('INCR', KEYS[3])
+                redis.call('EXPIRE', KEYS[3], ARGV[4])
+                emCache = 1
+              end
+            end
+            return {casa, visitante, nomeCasa, nomeVisitante, emCache}
+            """;
+
+    private static final String SHA_INCREMENTO = sha1(SCRIPT_INCREMENTO);
+
+    private final RedisClientProvider redisProvider;
+    private final Set<String> aDescartar = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService scheduler;
+
+    @Value("${placar.contador.ttl-s:86400}")
+    private long ttlS = 86400;
+
+    @Value("${placar.cache.ttl-s:86400}")
+    private long cacheTtlS = 86400;
+
+    @Value("${placar.contador.descarte-s:5}")
+    private long descarteS = 5;
+
+    public PlacarContadorRedis(RedisClientProvider redisProvider) {
+        this.redisProvider = redisProvider;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "placar-contador-descarte");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::descartarPendentesSeguro, descarteS, descarteS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    /**
+     * Resultado de um incremento: pontos atuais e nomes dos times lidos do
+     * placar em cache. {@code emCache} é false quando não havia placar em
+     * cache para atualizar (os nomes vêm nulos).
+     */
+    public record Resultado(int casa, int visitante, String nomeCasa, String nomeVisitante, boolean emCache) {}
+
+    /**
+     * Incrementa o placar atomicamente. Retorna null quando o contador ainda
+     * não foi semeado para esse hash; nesse caso chame {@link #semear} e tente
+     * novamente.
+     */
+    public Resultado incrementar(String hashId, int deltaCasa, int deltaVisitante) {
+        List<String> keys = chaves(hashId);
+        List<String> args = argumentos(deltaCasa, deltaVisitante, PlacarCache.pisoVersao());
+
+        Object res;
+        try (Jedis jedis = redisProvider.getJedis()) {
+            descartarSeMarcado(jedis, hashId);
+            try {
+                res = jedis.evalsha(SHA_INCREMENTO, keys, args);
+            } catch (JedisNoScriptException e) {
+                // primeira execução neste servidor (ou SCRIPT FLUSH): EVAL carrega o script
+                res = jedis.eval(SCRIPT_INCREMENTO, keys, args);
+            }
+        }
+        return resultado(res);
+    }
+
+    /**
+     * Incrementa vários placares com o mesmo script, num único pipeline.
+     *
+     * @param deltas hash_id -> pontos a somar
+     * @return hash_id -> resultado; hashes cujo contador não foi semeado ficam
+     *         de fora, como o null de {@link #incrementar}
+     */
+    public Map<String, Resultado> incrementarEmLote(Map<String, Pontos> deltas) {
+        Map<String, Resultado> res = new LinkedHashMap<>();
+        if (deltas.isEmpty()) return res;
+        try (Jedis jedis = redisProvider.getJedis()) {
+            deltas.keySet().forEach(hashId -> descartarSeMarcado(jedis, hashId));
+            Map<String, Pontos> semScript = executarEmPipeline(jedis, deltas, res);
+            if (!semScript.isEmpty()) {
+                // script ausente no servidor: carrega uma vez e refaz só o que falhou
+                jedis.scriptLoad(SCRIPT_INCREMENTO);
+                executarEmPipeline(jedis, semScript, res);
+            }
+        }
+        return res;
+    }
+
+    /** @return os itens que falharam com NOSCRIPT */
+    private Map<String, Pontos> executarEmPipeline(Jedis jedis, Map<String, Pontos> deltas, Map<String, Resultado> res) {
+        Map<String, Response<Object>> respostas = new LinkedHashMap<>();
+        long piso = PlacarCache.pisoVersao();
+        Pipeline pipeline = jedis.pipelined();
+        deltas.forEach((hashId, d) -> respostas.put(hashId, pipeline.evalsha(SHA_INCREMENTO, chaves(hashId),
+                argumentos(d.casa(), d.visitante(), piso))));
+        pipeline.sync();
+
+        Map<String, Pontos> semScript = new LinkedHashMap<>();
+        respostas.forEach((hashId, resposta) -> {
+            try {
+                Resultado r = resultado(resposta.get());
+                if (r != null) res.put(hashId, r);
+            } catch (JedisNoScriptException e) {
+                semScript.put(hashId, deltas.get(hashId));
+            }
+        });
+        return semScript;
+    }
+
+    private static List<String> chaves(String hashId) {
+        return List.of(chavePontos(hashId), chaveDocumento(hashId), PlacarCache.chaveVersao(hashId));
+    }
+
+    private List<String> argumentos(int deltaCasa, int deltaVisitante, long pisoVersao) {
+        return List.of(Integer.toString(deltaCasa), Integer.toString(deltaVisitante),
+                Long.toString(ttlS), Long.toString(cacheTtlS), Long.toString(pisoVersao));
+    }
+
+    private static Resultado resultado(Object res) {
+        if (!(res instanceof List<?> lista) || lista.size() < 5) return null;
+
+        return new Resultado(
+                ((Number) lista.get(0)).intValue(),
+                ((Number) lista.get(1)).intValue(),
+                lista.get(2) != null ? lista.get(2).toString() : null,
+                lista.get(3) != null ? lista.get(3).toString() : null,
+                ((Number) lista.get(4)).intValue() == 1);
+    }
+
+    /**
+     * Semeia o contador com os pontos conhecidos. Os dois HSETNX vão no mesmo
+     * MULTI/EXEC, com o EXPIRE, então não sobrescrevem nem se intercalam com
+     * um contador já semeado por outra requisição concorrente.
+     */
+    public void semear(String hashId, int casa, int visitante) {
+        String chave = chavePontos(hashId);
+        try (Jedis jedis = redisProvider.getJedis()) {
+            Transaction tx = jedis.multi();
+            tx.hsetnx(chave, "casa", Integer.toString(casa));
+            tx.hsetnx(chave, "visitante", Integer.toString(visitante));
+            tx.expire(chave, ttlS);
+            tx.exec();
+        }
+    }
+
+    /**
+     * Marca o contador do jogo, e o placar em cache que ele reescreve (com a
+     * versão), para
+     * serem apagados: os pontos foram gravados direto no banco e o contador
+     * ficou para trás. Não vai ao Redis aqui (ele pode estar fora do ar); o
+     * descarte acontece no próximo incremento do jogo ou no próximo ciclo.
+     */
+    public void descartar(String hashId) {
+        aDescartar.add(hashId);
+    }
+
+    /** Apaga os contadores marcados; para no primeiro erro e tenta de novo no próximo ciclo. */
+    public void descartarPendentes() {
+        if (aDescartar.isEmpty()) return;
+        try (Jedis jedis = redisProvider.getJedis()) {
+            for (String hashId : aDescartar) descartarSeMarcado(jedis, hashId);
+        }
+    }
+
+    public int getPendentesDescarte() {
+        return aDescartar.size();
+    }
+
+    private void descartarSeMarcado(Jedis jedis, String hashId) {
+        if (!aDescartar.remove(hashId)) return;
+        try {
+            jedis.del(chavePontos(hashId), chaveDocumento(hashId), PlacarCache.chaveVersao(hashId));
+        } catch (RuntimeException e) {
+            aDescartar.add(hashId);
+            throw e;
+        }
+    }
+
+    private void descartarPendentesSeguro() {
+        try {
+            descartarPendentes();
+        } catch (Exception e) {
+            System.err.println("Descarte de contadores do placar falhou, nova tentativa no próximo ciclo. CAUSA: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Pontos atuais do contador, somados os incrementos de todas as
+     * instâncias; vazio se o contador não foi semeado (ou expirou).
+     */
+    public Optional<Pontos> pontos(String hashId) {
+        List<String> valores;
+        try (Jedis jedis = redisProvider.getJedis()) {
+            valores = jedis.hmget(chavePontos(hashId), "casa", "visitante");
+        }
+        if (valores == null || valores.get(0) == null || valores.get(1) == null) return Optional.empty();
+        return Optional.of(new Pontos(Integer.parseInt(valores.get(0)), Integer.parseInt(valores.get(1))));
+    }
+
+    public void remover(String hashId) {
+        try (Jedis jedis = redisProvider.getJedis()) {
+            jedis.del(chavePontos(hashId));
+        }
+    }
+
+    static String chavePontos(String hashId) {
+        return "placar:" + hashId + ":pontos";
+    }
+
+    static String chaveDocumento(String hashId) {
+        return "placar:" + hashId;
+    }
+
+    private static String sha1(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,28 +1,138 @@
 package com.solides.desafio.infra.redis;
 
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
 
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fornece conexões Redis a partir de um pool de longa duração.
+ * <p>
+ * Cada {@link #getJedis()} empresta uma conexão do pool; o {@code close()} do
+ * {@link Jedis} devolve a conexão ao pool, então os chamadores continuam usando
+ * try-with-resources normalmente. A validação é feita pelo evictor em conexões
+ * ociosas, e não com um PING a cada empréstimo.
+ */
 @Component
 public class RedisClientProvider {
     private static final Logger log = LoggerFactory.getLogger(RedisClientProvider.class);
 
+    @Value("${REDIS_HOST:127.0.0.1}")
+    private String host;
+
+    @Value("${REDIS_PORT:6379}")
+    private int port;
+
+    @Value("${REDIS_TIMEOUT_MS:2000}")
+    private int timeout;
+
+    @Value("${redis.pool.max-total:64}")
+    private int maxTotal;
+
+    @Value("${redis.pool.max-idle:32}")
+    private int maxIdle;
+
+    @Value("${redis.pool.min-idle:4}")
+    private int minIdle;
+
+    @Value("${redis.pool.max-wait-ms:500}")
+    private long maxWaitMs;
+
+    @Value("${redis.pool.eviction-interval-ms:30000}")
+    private long evictionIntervalMs;
+
+    private volatile JedisPool pool;
+    private final ReentrantLock criacao = new ReentrantLock();
+
     public Jedis getJedis(){
-        String host = System.getenv().getOrDefault("REDIS_HOST","127.0.0.1");
-        int port = Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT","6379"));
-        int timeout = Integer.parseInt(System.getenv().getOrDefault("REDIS_TIMEOUT_MS","2000"));
-
-        log.info("Tentando conectar Redis em {}:{} (timeout {}ms)", host, port, timeout);
-        try {
-            Jedis jedis = new Jedis(host, port, timeout);
-            String pong = jedis.ping(); // valida conexão imediatamente
-            log.info("Redis respondeu: {}", pong);
-            return jedis;
-        } catch (Exception e) {
-            log.error("Erro conectando ao Redis em {}:{} - {}", host, port, e.getMessage(), e);
-            throw e;
+        return pool().getResource();
+    }
+
+    /** Conexões emprestadas no momento. */
+    public int getConexoesAtivas() {
+        JedisPool p = pool;
+        return p != null ? p.getNumActive() : 0;
+    }
+
+    /** Conexões ociosas disponíveis no pool. */
+    public int getConexoesOciosas() {
+        JedisPool p = pool;
+        return p != null ? p.getNumIdle() : 0;
+    }
+
+    /** Threads aguardando uma conexão livre. */
+    public int getThreadsAguardando() {
+        JedisPool p = pool;
+        return p != null ? p.getNumWaiters() : 0;
+    }
+
+    /** Tempo médio de espera por empréstimo, em milissegundos. */
+    public long getEsperaMediaMs() {
+        JedisPool p = pool;
+        return p != null ? p.getMeanBorrowWaitTimeMillis() : 0L;
+    }
+
+    /** Maior tempo de espera por empréstimo observado, em milissegundos. */
+    public long getEsperaMaximaMs() {
+        JedisPool p = pool;
+        return p != null ? p.getMaxBorrowWaitTimeMillis() : 0L;
+    }
+
+    @PreDestroy
+    public void close() {
+        JedisPool p = pool;
+        pool = null;
+        if (p != null) {
+            try {
+                p.close();
+            } catch (Exception e) {
+                log.warn("Erro ao fechar pool Redis: {}", e.getMessage());
+            }
+        }
+    }
+
+    JedisPoolConfig poolConfig() {
+        JedisPoolConfig cfg = new JedisPoolConfig();
+        cfg.setMaxTotal(maxTotal);
+        cfg.setMaxIdle(maxIdle);
+        cfg.setMinIdle(minIdle);
+        cfg.setMaxWait(Duration.ofMillis(maxWaitMs));
+        cfg.setBlockWhenExhausted(true);
+        // valida só conexões ociosas, no evictor, e não a cada empréstimo
+        cfg.setTestOnBorrow(false);
+        cfg.setTestOnReturn(false);
+        cfg.setTestWhileIdle(true);
+        cfg.setTimeBetweenEvictionRuns(Duration.ofMillis(evictionIntervalMs));
+        // expõe NumActive/NumIdle/MeanBorrowWaitTimeMillis via JMX
+        cfg.setJmxEnabled(true);
+        cfg.setJmxNamePrefix("placar-redis");
+        return cfg;
+    }
+
+    private JedisPool pool() {
+        JedisPool p = pool;
+        if (p == null) {
+            // lock em vez de synchronized: não prende a virtual thread à portadora
+            criacao.lock();
+            try {
+                p = pool;
+                if (p == null) {
+                    log.info("Criando pool Redis em {}:{} (timeout {}ms, maxTotal {}, minIdle {})",
+                            host, port, timeout, maxTotal, minIdle);
+                    p = new JedisPool(poolConfig(), host, port, timeout);
+                    pool = p;
+                }
+            } finally {
+                criacao.unlock();
+            }
         }
+        return p;
     }
 }
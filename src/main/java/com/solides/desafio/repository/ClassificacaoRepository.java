@@ -0,0 +1,108 @@
+package com.solides.desafio.repository;
+
+import com.solides.desafio.domain.Classificacao;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tabela {@code classificacao}, fonte de verdade do ranking. As linhas só
+ * mudam dentro de {@code sp_finaliza_placar} (ver
+ * {@link PlacarRepository#finalizar}); aqui só há leituras, para servir a
+ * classificação sem Redis e para reconstruí-la.
+ */
+@Repository
+public class ClassificacaoRepository {
+
+    /** Colunas lidas para montar uma {@link Classificacao}, na ordem de {@link #classificacao(Object[])}. */
+    static final String COLUNAS = "competicao, time, pontos, jogos, vitorias, empates, derrotas, marcados, sofridos";
+
+    /** A mesma ordem do sorted set do Redis (empate total: nome em ordem decrescente, como o ZREVRANGE). */
+    static final String ORDEM = "pontos desc, vitorias desc, (marcados - sofridos) desc, marcados desc, time desc";
+
+    static final String PAGINA =
+            "select " + COLUNAS + " from classificacao where competicao = :c order by " + ORDEM + " offset :o limit :l";
+
+    static final String TODOS = "select " + COLUNAS + " from classificacao where competicao = :c";
+
+    static final String BUSCAR = "select " + COLUNAS + " from classificacao where competicao = :c and time = :t";
+
+    /** Quantos times estão à frente: posição = isso + 1. */
+    static final String A_FRENTE =
+            "select count(*) from classificacao c, classificacao t " +
+            "where c.competicao = :c and t.competicao = :c and t.time = :t " +
+            "and (c.pontos, c.vitorias, c.marcados - c.sofridos, c.marcados, c.time) " +
+            "> (t.pontos, t.vitorias, t.marcados - t.sofridos, t.marcados, t.time)";
+
+    static final String COMPETICOES = "select distinct competicao from classificacao";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /** Até {@code limite} times a partir da posição {@code offset + 1}. */
+    @Transactional(readOnly = true)
+    public List<Classificacao> pagina(String competicao, long offset, int limite) {
+        return lista(em.createNativeQuery(PAGINA)
+                .setParameter("c", competicao)
+                .setParameter("o", offset)
+                .setParameter("l", limite)
+                .getResultList());
+    }
+
+    /** A competição inteira, sem ordem: a reconstrução calcula os scores. */
+    @Transactional(readOnly = true)
+    public List<Classificacao> listar(String competicao) {
+        return lista(em.createNativeQuery(TODOS)
+                .setParameter("c", competicao)
+                .getResultList());
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Classificacao> buscar(String competicao, String time) {
+        List<Classificacao> res = lista(em.createNativeQuery(BUSCAR)
+                .setParameter("c", competicao)
+                .setParameter("t", time)
+                .getResultList());
+        return res.isEmpty() ? Optional.empty() : Optional.of(res.get(0));
+    }
+
+    /** Posição do time (1 = líder); 0 se o time não está na competição. */
+    @Transactional(readOnly = true)
+    public long posicao(String competicao, String time) {
+        if (buscar(competicao, time).isEmpty()) return 0;
+        Object res = em.createNativeQuery(A_FRENTE)
+                .setParameter("c", competicao)
+                .setParameter("t", time)
+                .getSingleResult();
+        return ((Number) res).longValue() + 1;
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> competicoes() {
+        List<?> res = em.createNativeQuery(COMPETICOES).getResultList();
+        List<String> nomes = new ArrayList<>(res.size());
+        for (Object c : res) nomes.add(c.toString());
+        return nomes;
+    }
+
+    static List<Classificacao> lista(List<?> linhas) {
+        List<Classificacao> res = new ArrayList<>(linhas.size());
+        for (Object linha : linhas) res.add(classificacao((Object[]) linha));
+        return res;
+    }
+
+    static Classificacao classificacao(Object[] linha) {
+        return new Classificacao(
+                (String) linha[0], (String) linha[1],
+                ((Number) linha[2]).intValue(), ((Number) linha[3]).intValue(),
+                ((Number) linha[4]).intValue(), ((Number) linha[5]).intValue(),
+                ((Number) linha[6]).intValue(), ((Number) linha[7]).intValue(),
+                ((Number) linha[8]).intValue());
+    }
+}
@@ -0,0 +1,184 @@
+package com.solides.desafio.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.solides.desafio.domain.Lance;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontuacao;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.solides.desafio.repository.PlacarRepository.CAUDA;
+import static com.solides.desafio.repository.PlacarRepository.estado;
+
+/**
+ * Log de pontos ({@code placar_evento}), usado com {@code placar.contador=eventos}.
+ * <p>
+ * Cada ponto é um INSERT: a linha do placar não é reescrita nem travada por
+ * quem pontua. O placar atual é o snapshot nas colunas de pontos somado aos
+ * eventos ainda não aplicados (a cauda); {@link #consolidar} leva a cauda
+ * para o snapshot em segundo plano.
+ */
+@Repository
+public class PlacarEventoRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Resultado de {@link #anexar}: placar de cada jogo após o lote e as
+     * posições, na lista recebida, dos itens cujo {@code eventoId} já estava
+     * no log e não foram gravados de novo.
+     */
+    public record Anexacao(Map<String, PlacarEstado> finais, Set<Integer> repetidos) {
+
+        public static Anexacao de(Map<String, PlacarEstado> finais) {
+            return new Anexacao(finais, Set.of());
+        }
+    }
+
+    /**
+     * Grava os eventos numa única instrução, na ordem recebida, e devolve o
+     * placar de cada jogo já com eles. Itens de hashes inexistentes ou de
+     * jogos já finalizados são descartados. Um item com {@code eventoId} já gravado no mesmo jogo, ou
+     * repetido no próprio lote, não é gravado de novo ({@code on conflict do
+     * nothing} no índice único de {@code (placar_id, evento_id)}): quem reenvia
+     * um ponto depois de um timeout recebe o placar atual sem contar o ponto
+     * duas vezes.
+     *
+     * @param eventos itens já validados, com {@code lado} em minúsculas
+     * @return placar após os eventos, só dos hashes existentes, e os itens repetidos
+     */
+    @Transactional
+    public Anexacao anexar(List<Pontuacao> eventos) {
+        if (eventos.isEmpty()) return Anexacao.de(Map.of());
+        ArrayNode lote = mapper.createArrayNode();
+        Set<Integer> repetidos = new HashSet<>();
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < eventos.size(); i++) {
+            Pontuacao p = eventos.get(i);
+            if (p.eventoId() != null && !ids.add(p.hashId() + ':' + p.eventoId())) {
+                // repetido no lote: o índice único recusaria só na gravação, sem dizer qual
+                repetidos.add(i);
+                continue;
+            }
+            ObjectNode item = lote.addObject()
+                    .put("ordem", i)
+                    .put("hash_id", p.hashId())
+                    .put("lado", p.lado())
+                    .put("delta", p.delta());
+            if (p.eventoId() != null) item.put("evento_id", p.eventoId());
+        }
+
+        // os eventos recém-inseridos não aparecem na cauda desta mesma instrução: entram pela soma
+        List<?> linhas = em.createNativeQuery(
+                        "with v as (select * from jsonb_to_recordset(cast(:lote as jsonb)) " +
+                        "as x(ordem int, hash_id text, lado text, delta int, evento_id text)), " +
+                        "novos as (insert into placar_evento (placar_id, lado, delta, evento_id) " +
+                        "select p.id, v.lado, v.delta, v.evento_id from v join placar p on p.hash_id = v.hash_id and p.status = 'ATIVO' " +
+                        "order by v.ordem " +
+                        "on conflict (placar_id, evento_id) do nothing " +
+                        "returning placar_id, lado, delta, evento_id), " +
+                        "soma as (select placar_id, sum(delta) filter (where lado = 'casa') as casa, " +
+                        "sum(delta) filter (where lado = 'visitante') as visitante from novos group by placar_id) " +
+                        "select p.hash_id, p.dados #>> '{time_da_casa,nome}', " +
+                        "p.pontos_casa + coalesce(t.casa, 0) + coalesce(s.casa, 0), " +
+                        "p.dados #>> '{time_visitante,nome}', " +
+                        "p.pontos_visitante + coalesce(t.visitante, 0) + coalesce(s.visitante, 0), " +
+                        "(select string_agg(cast(v.ordem as text), ',') from v where v.hash_id = p.hash_id " +
+                        "and v.evento_id is not null and not exists (select 1 from novos n " +
+                        "where n.placar_id = p.id and n.evento_id = v.evento_id)) " +
+                        "from placar p left join soma s on s.placar_id = p.id " + CAUDA +
+                        " where p.hash_id in (select hash_id from v) and p.status = 'ATIVO'")
+                .setParameter("lote", lote.toString())
+                .getResultList();
+
+        Map<String, PlacarEstado> res = new LinkedHashMap<>();
+        for (Object linha : linhas) {
+            Object[] colunas = (Object[]) linha;
+            res.put((String) colunas[0], estado(Arrays.copyOfRange(colunas, 1, 5)));
+            if (colunas[5] != null) {
+                for (String ordem : colunas[5].toString().split(",")) repetidos.add(Integer.parseInt(ordem));
+            }
+        }
+        return new Anexacao(res, repetidos);
+    }
+
+    /**
+     * Soma nas colunas de pontos até {@code lote} eventos pendentes e os
+     * marca como aplicados, na mesma instrução: quem lê o placar vê o evento
+     * na cauda ou no snapshot, nunca nos dois. Eventos travados por outra
+     * consolidação são pulados; eventos de transações ainda não confirmadas
+     * não são vistos e ficam para a próxima.
+     *
+     * @return quantidade de eventos consolidados
+     */
+    @Transactional
+    public int consolidar(int lote) {
+        Object res = em.createNativeQuery(
+                        "with pendentes as (select seq from placar_evento where not aplicado limit :n for update skip locked), " +
+                        "marcados as (update placar_evento e set aplicado = true from pendentes where e.seq = pendentes.seq " +
+                        "returning e.placar_id, e.lado, e.delta), " +
+                        "soma as (select placar_id, coalesce(sum(delta) filter (where lado = 'casa'), 0) as casa, " +
+                        "coalesce(sum(delta) filter (where lado = 'visitante'), 0) as visitante, count(*) as n " +
+                        "from marcados group by placar_id), " +
+                        "alvo as (select p.id from placar p join soma s on s.placar_id = p.id order by p.id for update of p), " +
+                        "atualizados as (update placar p set pontos_casa = p.pontos_casa + s.casa, " +
+                        "pontos_visitante = p.pontos_visitante + s.visitante " +
+                        "from soma s where p.id = s.placar_id and p.id in (select id from alvo) returning s.n) " +
+                        "select coalesce(sum(n), 0) from atualizados")
+                .setParameter("n", lote)
+                .getSingleResult();
+        return ((Number) res).intValue();
+    }
+
+    /**
+     * Eventos do jogo em ordem de seq, cada um com o placar logo após ele. O
+     * placar de partida é o snapshot sem os eventos já aplicados, ou seja, o
+     * placar do jogo antes do primeiro evento do log.
+     */
+    @Transactional(readOnly = true)
+    public List<Lance> listar(String hashId) {
+        List<?> linhas = em.createNativeQuery(
+                        "select e.seq, e.lado, e.delta, e.criado_em, " +
+                        "b.casa + sum(case when e.lado = 'casa' then e.delta else 0 end) over w, " +
+                        "b.visitante + sum(case when e.lado = 'visitante' then e.delta else 0 end) over w " +
+                        "from placar_hash h join placar p on p.id = h.placar_id and p.data_inicio = h.data_inicio " +
+                        "cross join lateral (select p.pontos_casa - coalesce(sum(a.delta) filter (where a.lado = 'casa' and a.aplicado), 0) as casa, " +
+                        "p.pontos_visitante - coalesce(sum(a.delta) filter (where a.lado = 'visitante' and a.aplicado), 0) as visitante " +
+                        "from placar_evento a where a.placar_id = p.id) b " +
+                        "join placar_evento e on e.placar_id = p.id " +
+                        "where h.hash_id = :h window w as (order by e.seq) order by e.seq")
+                .setParameter("h", hashId)
+                .getResultList();
+
+        List<Lance> res = new ArrayList<>(linhas.size());
+        for (Object linha : linhas) {
+            Object[] c = (Object[]) linha;
+            res.add(new Lance(((Number) c[0]).longValue(), (String) c[1], ((Number) c[2]).intValue(),
+                    dataHora(c[3]), ((Number) c[4]).intValue(), ((Number) c[5]).intValue()));
+        }
+        return res;
+    }
+
+    private static LocalDateTime dataHora(Object coluna) {
+        // o tipo devolvido para TIMESTAMP em consultas nativas depende da versão do Hibernate
+        return coluna instanceof Timestamp ts ? ts.toLocalDateTime() : (LocalDateTime) coluna;
+    }
+}
@@ -0,0 +1,251 @@
+package com.solides.desafio.repository;
+
+import com.solides.desafio.domain.Classificacao;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontos;
+import org.postgresql.PGStatement;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * {@link PlacarRepository} em JDBC puro, com {@code placar.repositorio=jdbc}.
+ * <p>
+ * Cada chamada é uma única instrução em autocommit numa conexão do pool, sem
+ * EntityManager, contexto de persistência nem transação: as sobrescritas
+ * declaram {@code NOT_SUPPORTED} porque o {@code @Transactional} dos métodos
+ * da superclasse é herdado. As instruções são preparadas no servidor já na
+ * primeira execução ({@code prepareThreshold=1}) e o pgjdbc guarda a
+ * preparação no cache da conexão, então as chamadas seguintes na mesma
+ * conexão só enviam Bind/Execute. O fetch size é o número de linhas esperado.
+ * <p>
+ * O SQL é o do {@link PlacarRepository}, com os parâmetros nomeados trocados
+ * por posicionais na mesma ordem.
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = "placar.repositorio", havingValue = "jdbc")
+public class PlacarJdbcRepository extends PlacarRepository {
+
+    private static final Pattern PARAMETRO = Pattern.compile("(?<!:):[a-zA-Z]\\w*");
+
+    static final String INICIAR_JDBC = posicional(INICIAR);
+    static final String ATUALIZAR_JDBC = posicional(ATUALIZAR);
+    static final String INCREMENTAR_JDBC = posicional(INCREMENTAR);
+    static final String INCREMENTAR_LOTE_JDBC = posicional(INCREMENTAR_LOTE);
+    static final String ATUALIZAR_LOTE_JDBC = posicional(ATUALIZAR_LOTE);
+    static final String FINALIZAR_JDBC = posicional(FINALIZAR);
+    static final String ARQUIVAR_JDBC = posicional(ARQUIVAR);
+    static final String SELECT_ESTADO_JDBC = posicional(SELECT_ESTADO);
+    static final String SELECT_ESTADO_COM_CAUDA_JDBC = posicional(SELECT_ESTADO_COM_CAUDA);
+    static final String PAGINA_ATIVOS_JDBC = posicional(PAGINA_ATIVOS);
+    static final String PAGINA_ATIVOS_COM_CAUDA_JDBC = posicional(PAGINA_ATIVOS_COM_CAUDA);
+
+    /** Fetch size da lista de jogos em andamento, que não tem tamanho conhecido. */
+    static final int LINHAS_ATIVOS = 1000;
+
+    @FunctionalInterface
+    interface Leitor<T> {
+        T ler(ResultSet rs) throws SQLException;
+    }
+
+    private final DataSource dataSource;
+
+    /**
+     * Pelo SQLSTATE, que o Postgres preenche em todo erro. O tradutor por
+     * código de erro abriria uma conexão já na construção para descobrir o banco.
+     */
+    private final SQLExceptionTranslator tradutor = new SQLStateSQLExceptionTranslator();
+
+    public PlacarJdbcRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Inicio iniciar(PlacarEstado estado) {
+        return iniciar(estado, null);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Inicio iniciar(PlacarEstado estado, String competicao) {
+        return consultar("iniciar", INICIAR_JDBC, 1,
+                rs -> rs.next() && rs.getString(1) != null ? new Inicio(rs.getString(1), rs.getLong(2)) : null,
+                json(estado, competicao));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public String atualizar(String hashId, String patchJson) {
+        return consultar("atualizar", ATUALIZAR_JDBC, 1, PlacarJdbcRepository::texto, hashId, patchJson);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<PlacarEstado> incrementar(String hashId, int deltaCasa, int deltaVisitante) {
+        return consultar("incrementar", INCREMENTAR_JDBC, 1, PlacarJdbcRepository::estadoOpcional,
+                deltaCasa, deltaVisitante, hashId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, PlacarEstado> incrementarEmLote(Map<String, Pontos> deltas) {
+        if (deltas.isEmpty()) return Map.of();
+        return consultar("incrementarEmLote", INCREMENTAR_LOTE_JDBC, deltas.size(), rs -> {
+            Map<String, PlacarEstado> res = new LinkedHashMap<>();
+            while (rs.next()) res.put(rs.getString(1), estado(rs, 2));
+            return res;
+        }, lote(deltas));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int atualizarEmLote(Map<String, Pontos> pontos) {
+        if (pontos.isEmpty()) return 0;
+        try (Connection c = conexao();
+             PreparedStatement ps = preparar(c, ATUALIZAR_LOTE_JDBC, 0, lote(pontos))) {
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw tradutor.translate("atualizarEmLote", ATUALIZAR_LOTE_JDBC, e);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Classificacao> finalizar(String hashId) {
+        return consultar("finalizar", FINALIZAR_JDBC, 2, rs -> {
+            List<Classificacao> linhas = new ArrayList<>(2);
+            while (rs.next()) {
+                linhas.add(new Classificacao(rs.getString(1), rs.getString(2), rs.getInt(3), rs.getInt(4),
+                        rs.getInt(5), rs.getInt(6), rs.getInt(7), rs.getInt(8), rs.getInt(9)));
+            }
+            return linhas;
+        }, hashId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<String> arquivarParticoes(int mesesRetencao) {
+        return consultar("arquivarParticoes", ARQUIVAR_JDBC, 16, rs -> {
+            List<String> nomes = new ArrayList<>();
+            while (rs.next()) nomes.add(rs.getString(1));
+            return nomes;
+        }, mesesRetencao);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<PlacarEstado> buscarPorHash(String hashId) {
+        return consultar("buscarPorHash", comCauda() ? SELECT_ESTADO_COM_CAUDA_JDBC : SELECT_ESTADO_JDBC, 1,
+                PlacarJdbcRepository::estadoOpcional, hashId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, PlacarEstado> buscarPorHashes(Collection<String> hashIds) {
+        return estadosPorHashes("buscarPorHashes", comCauda() ? SELECT_ESTADOS_COM_CAUDA : SELECT_ESTADOS, hashIds);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, PlacarEstado> buscarAtivosPorHashes(Collection<String> hashIds) {
+        return estadosPorHashes("buscarAtivosPorHashes",
+                comCauda() ? SELECT_ESTADOS_ATIVOS_COM_CAUDA : SELECT_ESTADOS_ATIVOS, hashIds);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Long> ativos() {
+        return consultar("ativos", ATIVOS, LINHAS_ATIVOS, rs -> {
+            Map<String, Long> ativos = new LinkedHashMap<>();
+            while (rs.next()) ativos.put(rs.getString(1), rs.getLong(2));
+            return ativos;
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, PlacarEstado> paginaAtivos(long offset, int limite) {
+        return consultar("paginaAtivos", comCauda() ? PAGINA_ATIVOS_COM_CAUDA_JDBC : PAGINA_ATIVOS_JDBC, limite,
+                PlacarRepository::estadosPorHash, offset, limite);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long contarAtivos() {
+        return consultar("contarAtivos", CONTAR_ATIVOS, 1, rs -> rs.next() ? rs.getLong(1) : 0L);
+    }
+
+    /** Troca {@code :nome} por {@code ?}; os casts {@code ::tipo} ficam. */
+    static String posicional(String sql) {
+        return PARAMETRO.matcher(sql).replaceAll("?");
+    }
+
+    private Map<String, PlacarEstado> estadosPorHashes(String tarefa, String sql, Collection<String> hashIds) {
+        if (hashIds.isEmpty()) return Map.of();
+        try (Connection c = conexao();
+             PreparedStatement ps = preparar(c, sql, hashIds.size(), c.createArrayOf("text", hashIds.toArray()));
+             ResultSet rs = ps.executeQuery()) {
+            return estadosPorHash(rs);
+        } catch (SQLException e) {
+            throw tradutor.translate(tarefa, sql, e);
+        }
+    }
+
+    private <T> T consultar(String tarefa, String sql, int linhas, Leitor<T> leitor, Object... parametros) {
+        try (Connection c = conexao();
+             PreparedStatement ps = preparar(c, sql, linhas, parametros);
+             ResultSet rs = ps.executeQuery()) {
+            return leitor.ler(rs);
+        } catch (SQLException e) {
+            throw tradutor.translate(tarefa, sql, e);
+        }
+    }
+
+    private Connection conexao() throws SQLException {
+        Connection c = dataSource.getConnection();
+        if (!c.getAutoCommit()) c.setAutoCommit(true);
+        return c;
+    }
+
+    private static PreparedStatement preparar(Connection c, String sql, int linhas, Object... parametros) throws SQLException {
+        PreparedStatement ps = c.prepareStatement(sql);
+        if (ps.isWrapperFor(PGStatement.class)) ps.unwrap(PGStatement.class).setPrepareThreshold(1);
+        ps.setFetchSize(linhas);
+        for (int i = 0; i < parametros.length; i++) ps.setObject(i + 1, parametros[i]);
+        return ps;
+    }
+
+    private static String texto(ResultSet rs) throws SQLException {
+        return rs.next() ? rs.getString(1) : null;
+    }
+
+    private static Optional<PlacarEstado> estadoOpcional(ResultSet rs) throws SQLException {
+        return rs.next() ? Optional.of(estado(rs, 1)) : Optional.empty();
+    }
+
+    /** Colunas de {@link #COLUNAS_ESTADO} a partir da coluna {@code primeira}. */
+    private static PlacarEstado estado(ResultSet rs, int primeira) throws SQLException {
+        return PlacarEstado.of(
+                rs.getString(primeira), rs.getInt(primeira + 1),
+                rs.getString(primeira + 2), rs.getInt(primeira + 3));
+    }
+}
@@ -1,57 +1,390 @@
 package com.solides.desafio.repository;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.solides.desafio.domain.Classificacao;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontos;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.NoResultException;
 import jakarta.persistence.PersistenceContext;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
 public class PlacarRepository {
 
+    /** Jogo criado: hash_id e {@code data_inicio} em ms, a mesma medida de {@link #ativos()}. */
+    public record Inicio(String hashId, long inicioMs) {}
+
+    /** Colunas lidas para montar um {@link PlacarEstado}, na ordem de {@link #estado(Object[])}. */
+    static final String COLUNAS_ESTADO =
+            "dados #>> '{time_da_casa,nome}', pontos_casa, dados #>> '{time_visitante,nome}', pontos_visitante";
+
+    /**
+     * Pontos que ainda estão só no log ({@code placar_evento}) e não foram
+     * consolidados nas colunas; junta-se a {@code placar p} como {@code t}.
+     * Só entra nas consultas com {@code placar.contador=eventos}: nos outros
+     * modos ninguém escreve no log.
+     */
+    static final String CAUDA =
+            "left join lateral (select sum(e.delta) filter (where e.lado = 'casa') as casa, " +
+            "sum(e.delta) filter (where e.lado = 'visitante') as visitante " +
+            "from placar_evento e where e.placar_id = p.id and not e.aplicado) t on true";
+
+    /** Como {@link #COLUNAS_ESTADO}, somando a {@link #CAUDA} do log aos pontos. */
+    static final String COLUNAS_ESTADO_COM_CAUDA =
+            "p.dados #>> '{time_da_casa,nome}', p.pontos_casa + coalesce(t.casa, 0), " +
+            "p.dados #>> '{time_visitante,nome}', p.pontos_visitante + coalesce(t.visitante, 0)";
+
+    /**
+     * Linha do placar a partir de {@code placar_hash h}: com id e data_inicio
+     * a consulta vai só à partição do jogo, em vez do índice de hash_id de
+     * todas as partições (uma a mais por mês de finalizados).
+     */
+    private static final String PELO_HASH =
+            "join placar p on p.id = h.placar_id and p.data_inicio = h.data_inicio ";
+
+    /**
+     * Um placar pelo hash_id. Tenta primeiro a partição dos jogos em
+     * andamento; só sem linha nela o {@code limit} deixa ir às demais.
+     */
+    static final String SELECT_ESTADO =
+            "with h as (select placar_id, data_inicio from placar_hash where hash_id = :h) " +
+            "(select " + COLUNAS_ESTADO + " from h " + PELO_HASH + "and p.status = 'ATIVO') union all " +
+            "(select " + COLUNAS_ESTADO + " from h " + PELO_HASH + "and p.status <> 'ATIVO') limit 1";
+
+    static final String SELECT_ESTADO_COM_CAUDA =
+            "with h as (select placar_id, data_inicio from placar_hash where hash_id = :h) " +
+            "(select " + COLUNAS_ESTADO_COM_CAUDA + " from h " + PELO_HASH + "and p.status = 'ATIVO' " + CAUDA + ") union all " +
+            "(select " + COLUNAS_ESTADO_COM_CAUDA + " from h " + PELO_HASH + "and p.status <> 'ATIVO' " + CAUDA + ") limit 1";
+
+    /**
+     * Vários placares por hash_id numa consulta; o parâmetro é um {@code text[]}.
+     * Já posicional: o array é passado pela conexão JDBC.
+     */
+    static final String SELECT_ESTADOS =
+            "select p.hash_id, " + COLUNAS_ESTADO + " from placar_hash h " + PELO_HASH + "where h.hash_id = any(?)";
+
+    static final String SELECT_ESTADOS_COM_CAUDA =
+            "select p.hash_id, " + COLUNAS_ESTADO_COM_CAUDA + " from placar_hash h " + PELO_HASH + CAUDA +
+            " where h.hash_id = any(?)";
+
+    static final String SELECT_ESTADOS_ATIVOS = SELECT_ESTADOS + " and p.status = 'ATIVO'";
+
+    static final String SELECT_ESTADOS_ATIVOS_COM_CAUDA = SELECT_ESTADOS_COM_CAUDA + " and p.status = 'ATIVO'";
+
+    /** Jogos em andamento (partição {@code placar_ativo}) e o início de cada um, em ms. */
+    static final String ATIVOS =
+            "select hash_id, cast(extract(epoch from data_inicio) * 1000 as bigint) from placar where status = 'ATIVO'";
+
+    static final String PAGINA_ATIVOS =
+            "select p.hash_id, " + COLUNAS_ESTADO + " from placar p" +
+            " where p.status = 'ATIVO' order by p.data_inicio, p.id offset :o limit :l";
+
+    static final String PAGINA_ATIVOS_COM_CAUDA =
+            "select p.hash_id, " + COLUNAS_ESTADO_COM_CAUDA + " from placar p " + CAUDA +
+            " where p.status = 'ATIVO' order by p.data_inicio, p.id offset :o limit :l";
+
+    static final String CONTAR_ATIVOS = "select count(*) from placar where status = 'ATIVO'";
+
+    static final String INICIAR = "select r ->> 'hash_id', cast(r ->> 'inicio_ms' as bigint)" +
+            " from (select sp_inicia_placar(cast(:p as jsonb)) r) i";
+
+    static final String ATUALIZAR = "select sp_atualiza_placar(:h, :p)";
+
+    /** Só jogos em andamento: o status restringe a instrução à partição {@code placar_ativo}. */
+    static final String INCREMENTAR =
+            "update placar set pontos_casa = pontos_casa + :dc, pontos_visitante = pontos_visitante + :dv " +
+            "where hash_id = :h and status = 'ATIVO' returning " + COLUNAS_ESTADO;
+
+    /**
+     * Lote em JSON (ver {@link #lote}) como linhas, e ids das linhas alvo
+     * travados em ordem. Como {@link #INCREMENTAR}, só jogos em andamento.
+     */
+    private static final String LOTE_ALVO =
+            "with v as (select * from jsonb_to_recordset(cast(:lote as jsonb)) as x(hash_id text, casa int, visitante int)), " +
+            "alvo as (select p.id from placar p join v on v.hash_id = p.hash_id where p.status = 'ATIVO' " +
+            "order by p.id for update of p) ";
+
+    static final String INCREMENTAR_LOTE = LOTE_ALVO +
+            "update placar p set pontos_casa = p.pontos_casa + v.casa, pontos_visitante = p.pontos_visitante + v.visitante " +
+            "from v where p.hash_id = v.hash_id and p.id in (select id from alvo) and p.status = 'ATIVO' " +
+            "returning p.hash_id, " + COLUNAS_ESTADO;
+
+    /**
+     * Pontos absolutos do write-behind. Só vale para jogo em andamento e nunca
+     * volta o placar: uma descarga atrasada (de outra instância, ou um lote
+     * devolvido à fila depois de falhar) não desfaz pontos já gravados nem
+     * reescreve um jogo já finalizado.
+     */
+    static final String ATUALIZAR_LOTE = LOTE_ALVO +
+            "update placar p set pontos_casa = v.casa, pontos_visitante = v.visitante " +
+            "from v where p.hash_id = v.hash_id and p.id in (select id from alvo) " +
+            "and p.status = 'ATIVO' and p.pontos_casa + p.pontos_visitante <= v.casa + v.visitante";
+
+    /** Encerra o jogo; devolve a classificação atualizada dos dois times, se o jogo é de uma competição. */
+    static final String FINALIZAR = "select " + ClassificacaoRepository.COLUNAS + " from sp_finaliza_placar(:h)";
+
+    static final String ARQUIVAR = "select * from sp_arquiva_placares(:m)";
+
     @PersistenceContext
     private EntityManager em;
 
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Value("${placar.contador:banco}")
+    private String modoContador = "banco";
+
+    /**
+     * Cria o placar e devolve o hash_id gerado e o início do jogo.
+     */
     @Transactional
-    public String iniciar(String json) {
-        Object res = em.createNativeQuery("select sp_inicia_placar(:p)")
-                .setParameter("p", json)
+    public Inicio iniciar(PlacarEstado estado) {
+        return iniciar(estado, null);
+    }
+
+    /**
+     * Cria o placar de um jogo da {@code competicao} (guardada em
+     * {@code dados}; null para jogo avulso) e devolve o hash_id gerado e o
+     * início do jogo.
+     */
+    @Transactional
+    public Inicio iniciar(PlacarEstado estado, String competicao) {
+        Object[] res = (Object[]) em.createNativeQuery(INICIAR)
+                .setParameter("p", json(estado, competicao))
                 .getSingleResult();
-        return res != null ? res.toString() : null;
+        return res[0] != null ? new Inicio(res[0].toString(), ((Number) res[1]).longValue()) : null;
     }
 
     @Transactional
     public String atualizar(String hashId, String patchJson) {
-        Object res = em.createNativeQuery("select sp_atualiza_placar(:h, :p)")
+        Object res = em.createNativeQuery(ATUALIZAR)
                 .setParameter("h", hashId)
                 .setParameter("p", patchJson)
                 .getSingleResult();
         return res != null ? res.toString() : null;
     }
 
+    /**
+     * Soma os deltas às colunas de pontos numa única instrução, sem ler o
+     * placar antes, e devolve o estado atualizado.
+     *
+     * @return placar atualizado, ou vazio se o hash não existir ou o jogo já
+     *         foi finalizado
+     */
     @Transactional
-    public void finalizar(String hashId) {
-        try {
-            em.createNativeQuery("select sp_finaliza_placar(:h)")
-                    .setParameter("h", hashId)
-                    .getSingleResult();
-        } catch (NoResultException ignore) {
-            // Ok: some drivers return no result for void functions
+    public Optional<PlacarEstado> incrementar(String hashId, int deltaCasa, int deltaVisitante) {
+        List<?> res = em.createNativeQuery(INCREMENTAR)
+                .setParameter("dc", deltaCasa)
+                .setParameter("dv", deltaVisitante)
+                .setParameter("h", hashId)
+                .getResultList();
+        return res.isEmpty() ? Optional.empty() : Optional.of(estado((Object[]) res.get(0)));
+    }
+
+    /**
+     * Soma os deltas de vários placares numa única instrução, travando as
+     * linhas em ordem de id como {@link #atualizarEmLote}.
+     *
+     * @param deltas hash_id -> pontos a somar
+     * @return hash_id -> placar atualizado; hashes inexistentes e jogos
+     *         finalizados ficam de fora
+     */
+    @Transactional
+    public Map<String, PlacarEstado> incrementarEmLote(Map<String, Pontos> deltas) {
+        if (deltas.isEmpty()) return Map.of();
+        List<?> linhas = em.createNativeQuery(INCREMENTAR_LOTE)
+                .setParameter("lote", lote(deltas))
+                .getResultList();
+
+        Map<String, PlacarEstado> res = new LinkedHashMap<>();
+        for (Object linha : linhas) {
+            Object[] colunas = (Object[]) linha;
+            res.put((String) colunas[0], estado(Arrays.copyOfRange(colunas, 1, colunas.length)));
+        }
+        return res;
+    }
+
+    /**
+     * Grava os pontos de vários placares numa única instrução. Só as colunas
+     * de pontos são escritas; {@code dados} não é reescrito. As linhas são
+     * travadas em ordem de id para que lotes concorrentes não entrem em
+     * deadlock. Hashes inexistentes, jogos finalizados e placares que já têm
+     * mais pontos que os enviados são ignorados.
+     *
+     * @param pontos hash_id -> pontos atuais
+     * @return quantidade de placares atualizados
+     */
+    @Transactional
+    public int atualizarEmLote(Map<String, Pontos> pontos) {
+        if (pontos.isEmpty()) return 0;
+        return em.createNativeQuery(ATUALIZAR_LOTE)
+                .setParameter("lote", lote(pontos))
+                .executeUpdate();
+    }
+
+    /**
+     * Encerra o jogo. Na primeira vez, se o jogo é de uma competição, o
+     * resultado entra na classificação dos dois times na mesma transação.
+     *
+     * @return as linhas da classificação alteradas (vazio para jogo avulso
+     *         ou já finalizado)
+     */
+    @Transactional
+    public List<Classificacao> finalizar(String hashId) {
+        return ClassificacaoRepository.lista(em.createNativeQuery(FINALIZAR)
+                .setParameter("h", hashId)
+                .getResultList());
+    }
+
+    /**
+     * Roda {@code sp_arquiva_placares}: cria as partições de finalizados do
+     * mês atual e do próximo e move para o schema {@code placar_arquivo} as
+     * partições com mais de {@code mesesRetencao} meses. Com
+     * {@code mesesRetencao} negativo só cria as partições.
+     *
+     * @return nomes das partições arquivadas
+     */
+    @Transactional
+    public List<String> arquivarParticoes(int mesesRetencao) {
+        List<?> res = em.createNativeQuery(ARQUIVAR)
+                .setParameter("m", mesesRetencao)
+                .getResultList();
+        List<String> nomes = new ArrayList<>(res.size());
+        for (Object nome : res) nomes.add(nome.toString());
+        return nomes;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<PlacarEstado> buscarPorHash(String hashId) {
+        List<?> res = em.createNativeQuery(comCauda() ? SELECT_ESTADO_COM_CAUDA : SELECT_ESTADO)
+                .setParameter("h", hashId)
+                .getResultList();
+        return res.isEmpty() ? Optional.empty() : Optional.of(estado((Object[]) res.get(0)));
+    }
+
+    /**
+     * Os placares encontrados entre {@code hashIds}, numa única consulta
+     * ({@code hash_id = any(?)}). Quem não existe fica fora do mapa.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, PlacarEstado> buscarPorHashes(Collection<String> hashIds) {
+        return estadosPorHashes(comCauda() ? SELECT_ESTADOS_COM_CAUDA : SELECT_ESTADOS, hashIds);
+    }
+
+    /** Como {@link #buscarPorHashes}, só com os jogos ainda em andamento. */
+    @Transactional(readOnly = true)
+    public Map<String, PlacarEstado> buscarAtivosPorHashes(Collection<String> hashIds) {
+        return estadosPorHashes(comCauda() ? SELECT_ESTADOS_ATIVOS_COM_CAUDA : SELECT_ESTADOS_ATIVOS, hashIds);
+    }
+
+    /** hash_id -> início (ms) de todos os jogos em andamento, para sincronizar {@code placar:ativos}. */
+    @Transactional(readOnly = true)
+    public Map<String, Long> ativos() {
+        List<?> res = em.createNativeQuery(ATIVOS).getResultList();
+        Map<String, Long> ativos = new LinkedHashMap<>();
+        for (Object o : res) {
+            Object[] linha = (Object[]) o;
+            ativos.put((String) linha[0], ((Number) linha[1]).longValue());
         }
+        return ativos;
     }
 
+    /** Até {@code limite} jogos em andamento a partir do {@code offset}, em ordem de início. */
     @Transactional(readOnly = true)
-    public Optional<String> buscarDadosPorHash(String hashId) {
+    public Map<String, PlacarEstado> paginaAtivos(long offset, int limite) {
+        List<?> res = em.createNativeQuery(comCauda() ? PAGINA_ATIVOS_COM_CAUDA : PAGINA_ATIVOS)
+                .setParameter("o", offset)
+                .setParameter("l", limite)
+                .getResultList();
+        Map<String, PlacarEstado> pagina = new LinkedHashMap<>();
+        for (Object o : res) {
+            Object[] linha = (Object[]) o;
+            pagina.put((String) linha[0], estado(Arrays.copyOfRange(linha, 1, linha.length)));
+        }
+        return pagina;
+    }
+
+    @Transactional(readOnly = true)
+    public long contarAtivos() {
+        return ((Number) em.createNativeQuery(CONTAR_ATIVOS).getSingleResult()).longValue();
+    }
+
+    private Map<String, PlacarEstado> estadosPorHashes(String sql, Collection<String> hashIds) {
+        if (hashIds.isEmpty()) return Map.of();
+        return em.unwrap(Session.class).doReturningWork(conexao -> {
+            try (PreparedStatement ps = conexao.prepareStatement(sql)) {
+                ps.setArray(1, conexao.createArrayOf("text", hashIds.toArray()));
+                ps.setFetchSize(hashIds.size());
+                try (ResultSet rs = ps.executeQuery()) {
+                    return estadosPorHash(rs);
+                }
+            }
+        });
+    }
+
+    /** Se as leituras somam a {@link #CAUDA} do log ({@code placar.contador=eventos}). */
+    boolean comCauda() {
+        return "eventos".equalsIgnoreCase(modoContador);
+    }
+
+    String json(PlacarEstado estado) {
         try {
-            Object res = em.createNativeQuery("select dados from placar where hash_id = :h")
-                    .setParameter("h", hashId)
-                    .getSingleResult();
-            return Optional.ofNullable(res != null ? res.toString() : null);
-        } catch (NoResultException ex) {
-            return Optional.empty();
+            return mapper.writeValueAsString(estado);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Placar inválido", e);
         }
     }
-}
\ No newline at end of file
+
+    /** Como {@link #json(PlacarEstado)}, com a competição no documento quando houver. */
+    String json(PlacarEstado estado, String competicao) {
+        if (competicao == null) return json(estado);
+        ObjectNode doc = mapper.valueToTree(estado);
+        doc.put("competicao", competicao);
+        return doc.toString();
+    }
+
+    /** hash_id -> pontos como array JSON, lido por {@code jsonb_to_recordset} nas instruções em lote. */
+    String lote(Map<String, Pontos> pontos) {
+        ArrayNode lote = mapper.createArrayNode();
+        pontos.forEach((hashId, p) -> lote.addObject()
+                .put("hash_id", hashId)
+                .put("casa", p.casa())
+                .put("visitante", p.visitante()));
+        return lote.toString();
+    }
+
+    /**
+     * Linhas de {@link #SELECT_ESTADOS}, {@link #PAGINA_ATIVOS} e variantes:
+     * hash_id e as colunas de {@link #COLUNAS_ESTADO}.
+     */
+    static Map<String, PlacarEstado> estadosPorHash(ResultSet rs) throws SQLException {
+        Map<String, PlacarEstado> res = new LinkedHashMap<>();
+        while (rs.next()) {
+            res.put(rs.getString(1), PlacarEstado.of(rs.getString(2), rs.getInt(3), rs.getString(4), rs.getInt(5)));
+        }
+        return res;
+    }
+
+    static PlacarEstado estado(Object[] linha) {
+        return PlacarEstado.of(
+                (String) linha[0], ((Number) linha[1]).intValue(),
+                (String) linha[2], ((Number) linha[3]).intValue());
+    }
+}
@@ -1,10 +1,17 @@
 package com.solides.desafio.repository;
 
 import com.solides.desafio.domain.Time;
+import com.solides.desafio.domain.TimeLogo;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 import jakarta.persistence.*;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class TimeRepository {
@@ -16,6 +23,60 @@ public class TimeRepository {
         em.persist(t); return t;
     }
 
+    /**
+     * Insere o time num único comando. Nome já cadastrado não é erro: o
+     * {@code on conflict} não insere nada (esperando, se for o caso, a
+     * transação concorrente que gravou o mesmo nome).
+     *
+     * @return o time com o id gerado, ou vazio se o nome já existe
+     */
+    public Optional<Time> inserir(String nome, String logoHash){
+        return em.unwrap(Session.class).doReturningWork(conexao -> {
+            try (PreparedStatement ps = conexao.prepareStatement(
+                    "insert into time (nome, logo_hash) values (?, ?) on conflict (nome) do nothing returning id")) {
+                ps.setString(1, nome);
+                ps.setString(2, logoHash);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return Optional.<Time>empty();
+                    Time t = new Time();
+                    t.setId(rs.getInt(1));
+                    t.setNome(nome);
+                    t.setLogoHash(logoHash);
+                    return Optional.of(t);
+                }
+            }
+        });
+    }
+
+    /**
+     * Troca o nome do time num único comando. Nome de outro time não é erro:
+     * a violação da unicidade vira {@code false}, como o {@code on conflict}
+     * de {@link #inserir}. Nesse caso a transação fica abortada no banco e
+     * quem chama deve desistir dela.
+     *
+     * <p>
+     * Trocado o nome, {@code time} é recarregado do banco: já traz o nome
+     * novo e o Hibernate não o vê alterado, então o commit não repete o UPDATE.
+     *
+     * @param time entidade gerenciada
+     * @return se o nome foi trocado
+     */
+    public boolean renomear(Time time, String nome){
+        boolean trocado = em.unwrap(Session.class).doReturningWork(conexao -> {
+            try (PreparedStatement ps = conexao.prepareStatement("update time set nome = ? where id = ?")) {
+                ps.setString(1, nome);
+                ps.setInt(2, time.getId());
+                ps.executeUpdate();
+                return true;
+            } catch (SQLException e) {
+                if ("23505".equals(e.getSQLState())) return false;
+                throw e;
+            }
+        });
+        if (trocado) em.refresh(time);
+        return trocado;
+    }
+
     public Optional<Time> findById(Long id){
         return Optional.ofNullable(em.find(Time.class, id));
     }
@@ -28,11 +89,95 @@ public class TimeRepository {
         return em.createQuery("from Time", Time.class).getResultList();
     }
 
-    public Optional<Time> findByNome(String nome){
-        try{
-            Time t = em.createQuery("select t from Time t where t.nome=:n", Time.class)
-                    .setParameter("n", nome).getSingleResult();
-            return Optional.of(t);
-        }catch(Exception e){ return Optional.empty(); }
+    /**
+     * Até {@code limite} times com id maior que {@code depoisDe}, em ordem de
+     * id (paginação por chave: cada página é uma busca na PK, qualquer que
+     * seja a posição no catálogo).
+     */
+    public List<Time> pagina(long depoisDe, int limite){
+        return em.createQuery("from Time t where t.id > :a order by t.id", Time.class)
+                .setParameter("a", (int) Math.min(depoisDe, Integer.MAX_VALUE))
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    /**
+     * Entrega ao {@code consumidor}, em ordem de id, os times com id maior que
+     * {@code depoisDe}, lidos por um cursor do servidor de {@code fetchSize}
+     * linhas por vez. Os times não entram no contexto de persistência, então a
+     * memória não cresce com o catálogo. Precisa de uma transação aberta: o
+     * pgjdbc só usa cursor com autocommit desligado.
+     */
+    public void percorrer(long depoisDe, int fetchSize, Consumer<Time> consumidor){
+        em.unwrap(Session.class).doWork(conexao -> {
+            try (PreparedStatement ps = conexao.prepareStatement(
+                    "select id, nome, logo_hash from time where id > ? order by id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(fetchSize);
+                ps.setLong(1, depoisDe);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Time t = new Time();
+                        t.setId(rs.getInt(1));
+                        t.setNome(rs.getString(2));
+                        t.setLogoHash(rs.getString(3));
+                        consumidor.accept(t);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Insere os {@code nomes} num único comando (o lote vai como um array,
+     * desfeito com {@code unnest} no servidor); nomes que já existem são
+     * ignorados pelo {@code on conflict}. Os times não passam pelo contexto
+     * de persistência.
+     *
+     * @return quantos times foram inseridos
+     */
+    public int inserirNomes(List<String> nomes){
+        if (nomes.isEmpty()) return 0;
+        return em.unwrap(Session.class).doReturningWork(conexao -> {
+            try (PreparedStatement ps = conexao.prepareStatement(
+                    "insert into time (nome) select unnest(?::text[]) on conflict (nome) do nothing")) {
+                ps.setArray(1, conexao.createArrayOf("text", nomes.toArray()));
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    /** Bytes do logo, fora da entidade: só quem serve o logo lê {@code time_logo}. */
+    public Optional<TimeLogo> buscarLogo(long timeId){
+        List<?> res = em.createNativeQuery("select conteudo, tipo, hash from time_logo where time_id = :id")
+                .setParameter("id", (int) timeId)
+                .getResultList();
+        if (res.isEmpty()) return Optional.empty();
+        Object[] linha = (Object[]) res.get(0);
+        return Optional.of(new TimeLogo((byte[]) linha[0], (String) linha[1], (String) linha[2]));
+    }
+
+    /** Só o hash do logo, sem os bytes: valida a ETag de quem já tem o logo. */
+    public Optional<String> hashLogo(long timeId){
+        List<?> res = em.createNativeQuery("select hash from time_logo where time_id = :id")
+                .setParameter("id", (int) timeId)
+                .getResultList();
+        return res.isEmpty() ? Optional.empty() : Optional.of((String) res.get(0));
+    }
+
+    public void salvarLogo(int timeId, TimeLogo logo){
+        em.createNativeQuery("insert into time_logo (time_id, conteudo, tipo, hash) values (:id, :c, :t, :h) " +
+                        "on conflict (time_id) do update set conteudo = excluded.conteudo, tipo = excluded.tipo, hash = excluded.hash")
+                .setParameter("id", timeId)
+                .setParameter("c", logo.conteudo())
+                .setParameter("t", logo.tipo())
+                .setParameter("h", logo.hash())
+                .executeUpdate();
+    }
+
+    public void removerLogo(int timeId){
+        em.createNativeQuery("delete from time_logo where time_id = :id")
+                .setParameter("id", timeId)
+                .executeUpdate();
     }
 }
\ No newline at end of file
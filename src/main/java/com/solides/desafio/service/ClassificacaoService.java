@@ -0,0 +1,209 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.domain.Classificacao;
+import com.solides.desafio.infra.redis.ClassificacaoRedis;
+import com.solides.desafio.repository.ClassificacaoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Classificação das competições, atualizada a cada jogo finalizado.
+ * <p>
+ * O resultado entra na tabela {@code classificacao} na transação que finaliza
+ * o jogo; as linhas alteradas seguem para o ranking no Redis
+ * ({@link ClassificacaoRedis}), de onde saem as páginas e as posições. Sem
+ * Redis, ou com a competição fora dele, a leitura vai à tabela.
+ * <p>
+ * Uma competição que ainda não está no Redis é montada a partir da tabela
+ * no primeiro jogo finalizado dela. Se a gravação no Redis falha, a
+ * competição fica pendente e é reconstruída a cada
+ * {@code classificacao.reconstrucao.intervalo-s}; a cada
+ * {@code classificacao.reconstrucao.completa-horas} todas são
+ * reconstruídas, corrigindo qualquer divergência.
+ */
+@Service
+public class ClassificacaoService {
+
+    private static final Pattern COMPETICAO = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,99}");
+
+    /** Linha da tabela de classificação como sai na API. */
+    public record Linha(long posicao, String time, int pontos, int jogos, int vitorias, int empates,
+                        int derrotas, int marcados, int sofridos, int saldo) {
+
+        static Linha de(long posicao, Classificacao c) {
+            return new Linha(posicao, c.time(), c.pontos(), c.jogos(), c.vitorias(), c.empates(),
+                    c.derrotas(), c.marcados(), c.sofridos(), c.saldo());
+        }
+    }
+
+    private final ClassificacaoRepository repositorio;
+    private final ClassificacaoRedis redis;
+    private final Set<String> pendentes = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService scheduler;
+
+    // métricas
+    private final Counter reconstrucoes;
+    private final Counter leiturasDoBanco;
+    private final Counter falhas;
+
+    @Value("${classificacao.reconstrucao.intervalo-s:30}")
+    private long intervaloS = 30;
+
+    @Value("${classificacao.reconstrucao.completa-horas:24}")
+    private long completaHoras = 24;
+
+    public ClassificacaoService(ClassificacaoRepository repositorio, ClassificacaoRedis redis, MeterRegistry registry) {
+        this.repositorio = repositorio;
+        this.redis = redis;
+        reconstrucoes = Counter.builder("classificacao.reconstrucoes")
+                .description("Competições regravadas no Redis a partir da tabela")
+                .register(registry);
+        leiturasDoBanco = Counter.builder("classificacao.leituras.banco")
+                .description("Leituras da classificação que foram à tabela em vez do Redis")
+                .register(registry);
+        falhas = Counter.builder("classificacao.falhas")
+                .description("Falhas do Redis ao ler ou gravar a classificação")
+                .register(registry);
+        Gauge.builder("classificacao.pendentes", pendentes, Set::size)
+                .description("Competições aguardando reconstrução no Redis")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "classificacao-reconstrucao");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::reconstruirPendentes, intervaloS, intervaloS, TimeUnit.SECONDS);
+        long completa = TimeUnit.HOURS.toSeconds(completaHoras);
+        scheduler.scheduleWithFixedDelay(this::reconstruirTodasSeguro, completa, completa, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    /** Identificador aceito para competição: letras, dígitos, {@code . _ -}, até 100 caracteres. */
+    public static boolean competicaoValida(String competicao) {
+        return competicao != null && COMPETICAO.matcher(competicao).matches();
+    }
+
+    /**
+     * Leva ao Redis as linhas que {@code sp_finaliza_placar} alterou. Não
+     * falha: sem Redis, a competição fica para a reconstrução.
+     */
+    public void aplicar(List<Classificacao> linhas) {
+        if (linhas.isEmpty()) return;
+        Map<String, List<Classificacao>> porCompeticao = new LinkedHashMap<>();
+        for (Classificacao c : linhas) porCompeticao.computeIfAbsent(c.competicao(), k -> new ArrayList<>()).add(c);
+
+        porCompeticao.forEach((competicao, alteradas) -> {
+            try {
+                if (!redis.aplicar(competicao, alteradas)) reconstruir(competicao);
+            } catch (Exception e) {
+                falhas.increment();
+                pendentes.add(competicao);
+                System.err.println("Classificação de " + competicao + " não atualizada no Redis, reconstrução em até "
+                        + intervaloS + "s. CAUSA: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Até {@code limite} times a partir da posição {@code offset + 1}. */
+    public List<Linha> pagina(String competicao, long offset, int limite) {
+        List<Classificacao> linhas = null;
+        try {
+            linhas = redis.pagina(competicao, offset, limite);
+        } catch (Exception e) {
+            falhas.increment();
+        }
+        if (linhas == null) {
+            leiturasDoBanco.increment();
+            linhas = repositorio.pagina(competicao, offset, limite);
+            if (!linhas.isEmpty()) pendentes.add(competicao);
+        }
+        List<Linha> res = new ArrayList<>(linhas.size());
+        for (int i = 0; i < linhas.size(); i++) res.add(Linha.de(offset + i + 1, linhas.get(i)));
+        return res;
+    }
+
+    /** Posição e campanha do time na competição. */
+    public Optional<Linha> posicao(String competicao, String time) {
+        Optional<ClassificacaoRedis.Posicao> p = null;
+        try {
+            p = redis.posicao(competicao, time);
+        } catch (Exception e) {
+            falhas.increment();
+        }
+        if (p != null) return p.map(x -> Linha.de(x.posicao(), x.classificacao()));
+
+        leiturasDoBanco.increment();
+        Optional<Classificacao> c = repositorio.buscar(competicao, time);
+        if (c.isEmpty()) return Optional.empty();
+        pendentes.add(competicao);
+        return Optional.of(Linha.de(repositorio.posicao(competicao, time), c.get()));
+    }
+
+    /**
+     * Regrava a competição no Redis a partir da tabela.
+     *
+     * @return quantos times a competição tem
+     */
+    public int reconstruir(String competicao) {
+        List<Classificacao> linhas = repositorio.listar(competicao);
+        redis.substituir(competicao, linhas);
+        pendentes.remove(competicao);
+        reconstrucoes.increment();
+        return linhas.size();
+    }
+
+    /** Reconstrói todas as competições da tabela. */
+    public void reconstruirTodas() {
+        for (String competicao : repositorio.competicoes()) reconstruir(competicao);
+    }
+
+    public long getReconstrucoes() { return (long) reconstrucoes.count(); }
+    public long getLeiturasDoBanco() { return (long) leiturasDoBanco.count(); }
+    public long getFalhas() { return (long) falhas.count(); }
+
+    void reconstruirPendentes() {
+        for (String competicao : List.copyOf(pendentes)) {
+            try {
+                reconstruir(competicao);
+            } catch (Exception e) {
+                falhas.increment();
+                // continua pendente: nova tentativa no próximo ciclo
+                return;
+            }
+        }
+    }
+
+    private void reconstruirTodasSeguro() {
+        try {
+            reconstruirTodas();
+        } catch (Exception e) {
+            falhas.increment();
+            System.err.println("Reconstrução da classificação falhou, nova tentativa no próximo ciclo. CAUSA: " + e.getMessage());
+        }
+    }
+}
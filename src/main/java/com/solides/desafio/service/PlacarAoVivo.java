@@ -0,0 +1,298 @@
+package com.solides.desafio.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.PlacarEvento;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transmissão ao vivo dos placares por Server-Sent Events.
+ * <p>
+ * Cada evento publicado pelo {@link PlacarService} é serializado uma única
+ * vez e repassado a todos os assinantes do jogo. As conexões são assíncronas
+ * ({@link SseEmitter}): nenhuma thread fica presa por cliente, e o envio é
+ * feito por um pool pequeno ({@code placar.sse.threads}). As tarefas de um
+ * mesmo jogo são executadas em ordem, uma de cada vez.
+ * <p>
+ * O id de cada evento é o total de pontos do jogo, que só cresce. Um cliente
+ * que reconecta com {@code Last-Event-ID} recebe apenas os eventos que
+ * perdeu, tirados de um buffer circular de {@code placar.sse.buffer} eventos
+ * por jogo. Se o buffer não cobre o intervalo perdido, recebe antes o placar
+ * completo.
+ * <p>
+ * Os eventos chegam direto do {@link PlacarService} desta instância e, pelo
+ * RabbitMQ, de todas as instâncias ({@code PlacarAoVivoRabbit}); a cópia que
+ * chega depois é descartada por ter o mesmo id.
+ */
+@Component
+public class PlacarAoVivo {
+
+    /** Um ponto marcado; dados no formato de {@link PlacarEvento}. */
+    static final String EVENTO_PONTO = "ponto";
+    /** Placar completo; dados no formato de {@link PlacarEstado}. */
+    static final String EVENTO_PLACAR = "placar";
+    /** Jogo finalizado; a conexão é encerrada em seguida. */
+    static final String EVENTO_FIM = "fim";
+
+    /** Evento já serializado, pronto para ser enviado a qualquer assinante. */
+    record Evento(long seq, Set<ResponseBodyEmitter.DataWithMediaType> dados) {}
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ConcurrentHashMap<String, Jogo> jogos = new ConcurrentHashMap<>();
+    private ExecutorService despacho;
+    private ScheduledExecutorService batimento;
+
+    // métricas
+    private final AtomicInteger totalAssinantes = new AtomicInteger();
+    private final AtomicLong eventosRecebidos = new AtomicLong();
+    private final AtomicLong eventosEnviados = new AtomicLong();
+    private final AtomicLong assinantesDescartados = new AtomicLong();
+
+    @Value("${placar.sse.buffer:256}")
+    private int tamanhoBuffer = 256;
+
+    @Value("${placar.sse.threads:2}")
+    private int threads = 2;
+
+    @Value("${placar.sse.timeout-ms:1800000}")
+    private long timeoutMs = 1_800_000;
+
+    @Value("${placar.sse.heartbeat-ms:15000}")
+    private long heartbeatMs = 15_000;
+
+    /** Por quanto tempo o buffer de um jogo sem assinantes é mantido para reconexões. */
+    @Value("${placar.sse.retencao-ms:300000}")
+    private long retencaoMs = 300_000;
+
+    @PostConstruct
+    public void iniciar() {
+        AtomicInteger n = new AtomicInteger();
+        despacho = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "placar-sse-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        batimento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "placar-sse-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        batimento.scheduleWithFixedDelay(this::pulsar, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Abre uma assinatura do jogo.
+     *
+     * @param ultimoId último id recebido pelo cliente, ou -1 numa conexão nova
+     * @param atual    placar atual, enviado quando o buffer não cobre o que o
+     *                 cliente perdeu; pode ser null
+     */
+    public SseEmitter assinar(String hashId, long ultimoId, PlacarEstado atual) {
+        SseEmitter emitter = novoEmitter();
+        Assinante a = new Assinante(emitter);
+        Jogo jogo = jogos.compute(hashId, (k, j) -> {
+            Jogo res = j != null ? j : new Jogo();
+            res.semAssinantesDesde = 0L;
+            return res;
+        });
+
+        emitter.onCompletion(() -> jogo.sair(a));
+        emitter.onTimeout(() -> jogo.sair(a));
+        emitter.onError(e -> jogo.sair(a));
+
+        jogo.submeter(() -> jogo.entrar(a, ultimoId, atual));
+        return emitter;
+    }
+
+    /** Repassa um ponto aos assinantes do jogo. Jogos sem assinatura são ignorados. */
+    public void publicar(PlacarEvento evento) {
+        Jogo jogo = jogos.get(evento.hashId());
+        if (jogo == null) return;
+        eventosRecebidos.incrementAndGet();
+        jogo.submeter(() -> jogo.difundir(evento));
+    }
+
+    /** Avisa os assinantes que o jogo terminou e encerra as conexões. */
+    public void encerrar(String hashId) {
+        Jogo jogo = jogos.remove(hashId);
+        if (jogo != null) jogo.submeter(jogo::finalizar);
+    }
+
+    public int getJogos() { return jogos.size(); }
+    public int getAssinantes() { return totalAssinantes.get(); }
+    public long getEventosRecebidos() { return eventosRecebidos.get(); }
+    public long getEventosEnviados() { return eventosEnviados.get(); }
+    public long getAssinantesDescartados() { return assinantesDescartados.get(); }
+
+    @PreDestroy
+    public void fechar() {
+        if (batimento != null) batimento.shutdownNow();
+        jogos.values().forEach(j -> j.assinantes.forEach(a -> a.emitter.complete()));
+        jogos.clear();
+        if (despacho != null) despacho.shutdown();
+    }
+
+    SseEmitter novoEmitter() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    /** Envia um comentário a cada conexão, para manter proxies abertos e detectar clientes mortos. */
+    private void pulsar() {
+        long agora = System.currentTimeMillis();
+        Set<ResponseBodyEmitter.DataWithMediaType> pulso = SseEmitter.event().comment("").build();
+        jogos.forEach((hashId, jogo) -> {
+            if (!jogo.assinantes.isEmpty()) {
+                jogo.submeter(() -> jogo.assinantes.forEach(a -> jogo.enviar(a, pulso)));
+            }
+            // descarta o buffer de jogos que ficaram sem ninguém assistindo
+            jogos.computeIfPresent(hashId, (k, j) ->
+                    j.semAssinantesDesde > 0 && agora - j.semAssinantesDesde > retencaoMs ? null : j);
+        });
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> montar(String nome, long seq, Object dados) {
+        String json;
+        try {
+            json = mapper.writeValueAsString(dados);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Evento inválido", e);
+        }
+        return SseEmitter.event().name(nome).id(Long.toString(seq)).data(json).build();
+    }
+
+    private static final class Assinante {
+        final SseEmitter emitter;
+        /** Maior id já enviado; acessado só pela tarefa do jogo. */
+        long ultimo;
+        volatile boolean ativo = true;
+
+        Assinante(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    private final class Jogo {
+        final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+        /** Últimos eventos do jogo; acessado só pela tarefa do jogo. */
+        final ArrayDeque<Evento> buffer = new ArrayDeque<>();
+        final ConcurrentLinkedQueue<Runnable> tarefas = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean agendado = new AtomicBoolean();
+        volatile long semAssinantesDesde;
+
+        void submeter(Runnable tarefa) {
+            tarefas.add(tarefa);
+            agendar();
+        }
+
+        private void agendar() {
+            if (agendado.compareAndSet(false, true)) {
+                try {
+                    despacho.execute(this::drenar);
+                } catch (RuntimeException e) {
+                    agendado.set(false);
+                    System.err.println("Transmissão ao vivo indisponível. CAUSA: " + e.getMessage());
+                }
+            }
+        }
+
+        /** Executa as tarefas pendentes em ordem; cede a thread a outros jogos a cada 64. */
+        private void drenar() {
+            try {
+                Runnable tarefa;
+                int n = 0;
+                while (n++ < 64 && (tarefa = tarefas.poll()) != null) {
+                    try {
+                        tarefa.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("Falha na transmissão ao vivo. CAUSA: " + e.getMessage());
+                    }
+                }
+            } finally {
+                agendado.set(false);
+            }
+            if (!tarefas.isEmpty()) agendar();
+        }
+
+        void entrar(Assinante a, long ultimoId, PlacarEstado atual) {
+            if (!a.ativo) return;
+            a.ultimo = ultimoId;
+            boolean cobre = ultimoId >= 0 && !buffer.isEmpty() && buffer.peekFirst().seq() <= ultimoId + 1;
+            if (!cobre && atual != null) {
+                long seq = atual.getPontos().total();
+                if (seq > ultimoId && enviar(a, montar(EVENTO_PLACAR, seq, atual))) {
+                    a.ultimo = seq;
+                }
+            }
+            for (Evento ev : buffer) {
+                if (ev.seq() > a.ultimo && enviar(a, ev.dados())) a.ultimo = ev.seq();
+            }
+            if (a.ativo && assinantes.add(a)) {
+                totalAssinantes.incrementAndGet();
+            } else if (assinantes.isEmpty()) {
+                semAssinantesDesde = System.currentTimeMillis();
+            }
+        }
+
+        void difundir(PlacarEvento evento) {
+            long seq = (long) evento.pontosCasa() + evento.pontosVisitante();
+            // repetido ou atrasado: um evento mais novo, com o placar completo, já saiu
+            if (!buffer.isEmpty() && seq <= buffer.peekLast().seq()) return;
+
+            Evento ev = new Evento(seq, montar(EVENTO_PONTO, seq, evento));
+            buffer.addLast(ev);
+            while (buffer.size() > tamanhoBuffer) buffer.pollFirst();
+
+            for (Assinante a : assinantes) {
+                if (ev.seq() > a.ultimo && enviar(a, ev.dados())) a.ultimo = ev.seq();
+            }
+        }
+
+        void finalizar() {
+            Set<ResponseBodyEmitter.DataWithMediaType> fim = SseEmitter.event().name(EVENTO_FIM).data("").build();
+            for (Assinante a : assinantes) {
+                if (enviar(a, fim)) a.emitter.complete();
+            }
+        }
+
+        boolean enviar(Assinante a, Set<ResponseBodyEmitter.DataWithMediaType> dados) {
+            if (!a.ativo) return false;
+            try {
+                a.emitter.send(dados);
+                eventosEnviados.incrementAndGet();
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // cliente desconectou: o container encerra o emitter e chama onError/onCompletion
+                assinantesDescartados.incrementAndGet();
+                sair(a);
+                return false;
+            }
+        }
+
+        void sair(Assinante a) {
+            a.ativo = false;
+            if (assinantes.remove(a)) {
+                totalAssinantes.decrementAndGet();
+                if (assinantes.isEmpty()) semAssinantesDesde = System.currentTimeMillis();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.repository.PlacarRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arquivamento dos jogos finalizados. A tabela {@code placar} é particionada
+ * por status e, nos finalizados, pelo mês de início; a cada
+ * {@code placar.arquivo.intervalo-horas} as partições com mais de
+ * {@code placar.arquivo.meses-retencao} meses saem da tabela (vão para o
+ * schema {@code placar_arquivo}), e as partições do mês atual e do próximo
+ * são criadas antes de serem necessárias.
+ * <p>
+ * Buscas por hash_id de jogos arquivados passam a não encontrar o placar,
+ * por isso o arquivamento vem desligado ({@code placar.arquivo.habilitado});
+ * desligado, o ciclo só cria as partições mensais.
+ */
+@Component
+public class PlacarArquivamento {
+
+    private final PlacarRepository placarRepository;
+    private ScheduledExecutorService scheduler;
+
+    // métricas
+    private final Counter execucoes;
+    private final Counter particoesArquivadas;
+    private final Counter falhas;
+
+    @Value("${placar.arquivo.habilitado:false}")
+    private boolean habilitado = false;
+
+    @Value("${placar.arquivo.meses-retencao:3}")
+    private int mesesRetencao = 3;
+
+    @Value("${placar.arquivo.intervalo-horas:24}")
+    private long intervaloHoras = 24;
+
+    /** Atraso da primeira execução, para não disputar o banco com a subida da aplicação. */
+    @Value("${placar.arquivo.atraso-inicial-s:60}")
+    private long atrasoInicialS = 60;
+
+    public PlacarArquivamento(PlacarRepository placarRepository, MeterRegistry registry) {
+        this.placarRepository = placarRepository;
+        execucoes = Counter.builder("placar.arquivamento.execucoes")
+                .description("Ciclos de arquivamento concluídos")
+                .register(registry);
+        particoesArquivadas = Counter.builder("placar.arquivamento.particoes")
+                .description("Partições mensais de finalizados movidas para placar_arquivo")
+                .register(registry);
+        falhas = Counter.builder("placar.arquivamento.falhas")
+                .description("Ciclos de arquivamento que falharam")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!habilitado) {
+            System.out.println("Arquivamento de placares desabilitado (placar.arquivo.habilitado=false): "
+                    + "só as partições mensais são criadas.");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "placar-arquivamento");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::arquivarSeguro,
+                atrasoInicialS, TimeUnit.HOURS.toSeconds(intervaloHoras), TimeUnit.SECONDS);
+    }
+
+    /** Roda o arquivamento agora; desabilitado, só cria as partições. */
+    public List<String> arquivar() {
+        List<String> arquivadas = placarRepository.arquivarParticoes(habilitado ? mesesRetencao : -1);
+        execucoes.increment();
+        particoesArquivadas.increment(arquivadas.size());
+        if (!arquivadas.isEmpty()) {
+            System.out.println("Partições de placares finalizados arquivadas: " + arquivadas);
+        }
+        return arquivadas;
+    }
+
+    public long getExecucoes() { return (long) execucoes.count(); }
+    public long getParticoesArquivadas() { return (long) particoesArquivadas.count(); }
+    public long getFalhas() { return (long) falhas.count(); }
+
+    @PreDestroy
+    public void encerrar() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void arquivarSeguro() {
+        try {
+            arquivar();
+        } catch (Exception e) {
+            falhas.increment();
+            System.err.println("Arquivamento de placares falhou, nova tentativa no próximo ciclo. CAUSA: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.solides.desafio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.infra.redis.PlacarCache;
+import com.solides.desafio.repository.PlacarRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Listagem dos jogos em andamento com o placar de cada um.
+ * <p>
+ * Os hash_ids saem de {@code placar:ativos} no Redis, mantido por
+ * {@link PlacarService#iniciar} e {@link PlacarService#finalizar}, e os
+ * placares da página vêm num único MGET. Sem Redis, ou com o conjunto ainda
+ * não sincronizado, a página é lida da partição {@code placar_ativo}.
+ * <p>
+ * A cada {@code placar.ativos.sincronizacao-s} o conjunto é acertado com o
+ * banco, cobrindo jogos iniciados ou finalizados com o Redis fora do ar.
+ */
+@Component
+public class PlacarAtivos {
+
+    /** Página da listagem: total de jogos em andamento e hash_id -> JSON do placar, em ordem de início. */
+    public record Pagina(long total, Map<String, byte[]> placares) {}
+
+    /**
+     * Jogos iniciados até este tempo antes da leitura do banco podem ainda
+     * não estar nela (relógios de instâncias diferentes); não saem do conjunto.
+     */
+    static final long TOLERANCIA_MS = 5_000;
+
+    private final PlacarRepository placarRepository;
+    private final PlacarCache cache;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicBoolean sincronizacaoAgendada = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    // métricas
+    private final Counter sincronizacoes;
+    private final Counter leiturasDoBanco;
+    private final Counter falhas;
+
+    @Value("${placar.ativos.sincronizacao-s:60}")
+    private long sincronizacaoS = 60;
+
+    public PlacarAtivos(PlacarRepository placarRepository, PlacarCache cache, MeterRegistry registry) {
+        this.placarRepository = placarRepository;
+        this.cache = cache;
+        sincronizacoes = Counter.builder("placar.ativos.sincronizacoes")
+                .description("Sincronizações de placar:ativos com o banco")
+                .register(registry);
+        leiturasDoBanco = Counter.builder("placar.ativos.leituras.banco")
+                .description("Páginas de jogos em andamento lidas da partição placar_ativo")
+                .register(registry);
+        falhas = Counter.builder("placar.ativos.falhas")
+                .description("Falhas do Redis ao ler ou acertar placar:ativos")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "placar-ativos");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::sincronizarSeguro, sincronizacaoS, sincronizacaoS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    /** Até {@code limite} jogos em andamento a partir do {@code offset}, em ordem de início. */
+    public Pagina pagina(long offset, int limite) {
+        PlacarCache.Ativos ativos;
+        try {
+            ativos = cache.ativos(offset, limite);
+        } catch (Exception e) {
+            // Redis fora do ar: o ciclo de sincronização tenta de novo
+            falhas.increment();
+            return doBanco(offset, limite);
+        }
+        if (ativos == null) {
+            // Redis sem o conjunto (novo ou esvaziado): monta agora, sem esperar o ciclo
+            agendarSincronizacao();
+            return doBanco(offset, limite);
+        }
+
+        List<String> faltando = new ArrayList<>();
+        ativos.placares().forEach((hashId, placar) -> {
+            if (placar == null) faltando.add(hashId);
+        });
+        // fora do cache: placares do banco numa só consulta; quem não voltou já terminou e sai do conjunto
+        Map<String, PlacarEstado> doBanco = faltando.isEmpty() ? Map.of() : placarRepository.buscarAtivosPorHashes(faltando);
+
+        Map<String, byte[]> placares = new LinkedHashMap<>();
+        long total = ativos.total();
+        for (Map.Entry<String, byte[]> e : ativos.placares().entrySet()) {
+            if (e.getValue() != null) {
+                placares.put(e.getKey(), e.getValue());
+                continue;
+            }
+            PlacarEstado estado = doBanco.get(e.getKey());
+            if (estado != null) {
+                placares.put(e.getKey(), json(estado));
+            } else {
+                total--;
+                removerAtivo(e.getKey());
+            }
+        }
+        return new Pagina(total, placares);
+    }
+
+    /**
+     * Acerta {@code placar:ativos} com os jogos ativos do banco.
+     *
+     * @return quantos jogos finalizados saíram do conjunto
+     */
+    public long sincronizar() {
+        long corte = System.currentTimeMillis() - TOLERANCIA_MS;
+        long removidos = cache.sincronizarAtivos(placarRepository.ativos(), corte);
+        sincronizacoes.increment();
+        return removidos;
+    }
+
+    public long getSincronizacoes() { return (long) sincronizacoes.count(); }
+    public long getLeiturasDoBanco() { return (long) leiturasDoBanco.count(); }
+    public long getFalhas() { return (long) falhas.count(); }
+
+    private Pagina doBanco(long offset, int limite) {
+        leiturasDoBanco.increment();
+        Map<String, byte[]> placares = new LinkedHashMap<>();
+        placarRepository.paginaAtivos(offset, limite).forEach((hashId, estado) -> placares.put(hashId, json(estado)));
+        return new Pagina(placarRepository.contarAtivos(), placares);
+    }
+
+    private void agendarSincronizacao() {
+        if (scheduler != null && sincronizacaoAgendada.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                sincronizacaoAgendada.set(false);
+                sincronizarSeguro();
+            });
+        }
+    }
+
+    private void removerAtivo(String hashId) {
+        try {
+            cache.removerAtivo(hashId);
+        } catch (Exception e) {
+            // a próxima sincronização tira o jogo
+            falhas.increment();
+        }
+    }
+
+    private byte[] json(PlacarEstado estado) {
+        try {
+            return mapper.writeValueAsBytes(estado);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void sincronizarSeguro() {
+        try {
+            long removidos = sincronizar();
+            if (removidos > 0) System.out.println("Jogos finalizados retirados de placar:ativos: " + removidos);
+        } catch (Exception e) {
+            falhas.increment();
+            System.err.println("Sincronização de placar:ativos falhou, nova tentativa no próximo ciclo. CAUSA: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.domain.Lance;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontuacao;
+import com.solides.desafio.repository.PlacarEventoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gravação dos pontos no log ({@code placar_evento}) com
+ * {@code placar.contador=eventos}, e consolidação do log nas colunas de
+ * pontos do placar.
+ * <p>
+ * {@link #anexar} é síncrono para quem pontua, mas os pontos de requisições
+ * concorrentes são gravados juntos: uma thread gravadora junta o que chegou
+ * enquanto o INSERT anterior estava no banco (até {@code placar.eventos.lote})
+ * e grava tudo numa única instrução. A fila não precisa de limite: cada
+ * requisição espera o próprio ponto, então ela nunca passa do número de
+ * requisições em andamento.
+ * <p>
+ * A cada {@code placar.eventos.snapshot-intervalo-ms} os eventos pendentes
+ * são somados ao snapshot do placar, para que a cauda lida nas consultas
+ * continue curta. A gravadora e o ciclo de consolidação só rodam nesse modo;
+ * nos outros, a consolidação roda até esvaziar a cauda deixada por uma troca
+ * de modo e para, já que as consultas deixam de somar a cauda
+ * ({@link com.solides.desafio.repository.PlacarRepository}).
+ */
+@Component
+public class PlacarEventoLog {
+
+    record Pedido(Pontuacao pontuacao, CompletableFuture<PlacarEstado> gravado) {}
+
+    private final PlacarEventoRepository repositorio;
+    private final ConcurrentLinkedQueue<Pedido> fila = new ConcurrentLinkedQueue<>();
+    private volatile Thread gravador;
+    private volatile boolean rodando;
+    private ScheduledExecutorService consolidador;
+
+    // métricas
+    private final Counter lotesGravados;
+    private final Counter eventosGravados;
+    private final Counter eventosConsolidados;
+    private final Counter falhas;
+
+    @Value("${placar.contador:banco}")
+    private String modoContador = "banco";
+
+    @Value("${placar.eventos.lote:500}")
+    private int lote = 500;
+
+    @Value("${placar.eventos.timeout-ms:2000}")
+    private long timeoutMs = 2000;
+
+    @Value("${placar.eventos.snapshot-intervalo-ms:1000}")
+    private long intervaloSnapshotMs = 1000;
+
+    @Value("${placar.eventos.snapshot-lote:5000}")
+    private int loteSnapshot = 5000;
+
+    public PlacarEventoLog(PlacarEventoRepository repositorio, MeterRegistry registry) {
+        this.repositorio = repositorio;
+        lotesGravados = Counter.builder("placar.eventos.lotes")
+                .description("Lotes de pontos gravados no log")
+                .register(registry);
+        eventosGravados = Counter.builder("placar.eventos.gravados")
+                .description("Pontos gravados no log, sem contar reenvios já gravados")
+                .register(registry);
+        eventosConsolidados = Counter.builder("placar.eventos.consolidados")
+                .description("Eventos do log somados ao snapshot do placar")
+                .register(registry);
+        falhas = Counter.builder("placar.eventos.falhas")
+                .description("Lotes da thread gravadora que falharam")
+                .register(registry);
+        Gauge.builder("placar.eventos.pendentes", fila, ConcurrentLinkedQueue::size)
+                .description("Pontos aguardando a thread gravadora")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        consolidador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread c = new Thread(r, "placar-evento-snapshot");
+            c.setDaemon(true);
+            return c;
+        });
+        if (!"eventos".equalsIgnoreCase(modoContador)) {
+            consolidador.scheduleWithFixedDelay(this::esvaziarSeguro, 0, intervaloSnapshotMs, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        rodando = true;
+        Thread t = new Thread(this::gravar, "placar-evento-log");
+        t.setDaemon(true);
+        gravador = t;
+        t.start();
+
+        consolidador.scheduleWithFixedDelay(this::consolidarSeguro, 0, intervaloSnapshotMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Grava o ponto no log, no próximo lote da thread gravadora, e espera a
+     * gravação.
+     *
+     * @param pontuacao item já validado, com {@code lado} em minúsculas
+     * @return placar logo após o ponto, ou null se o placar não existir
+     */
+    public PlacarEstado anexar(Pontuacao pontuacao) {
+        Pedido pedido = new Pedido(pontuacao, new CompletableFuture<>());
+        fila.add(pedido);
+        Thread t = gravador;
+        if (t != null) LockSupport.unpark(t);
+
+        try {
+            return pedido.gravado().get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando gravação do ponto no placar " + pontuacao.hashId(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Falha ao gravar ponto no placar " + pontuacao.hashId(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Ponto no placar " + pontuacao.hashId() + " não foi gravado a tempo", e);
+        }
+    }
+
+    /**
+     * Grava um lote já montado na thread de quem chamou, numa única
+     * instrução.
+     *
+     * @return placar após o lote (hashes inexistentes ficam de fora) e os itens já gravados antes
+     */
+    public PlacarEventoRepository.Anexacao anexarEmLote(List<Pontuacao> pontuacoes) {
+        PlacarEventoRepository.Anexacao anexacao = repositorio.anexar(pontuacoes);
+        lotesGravados.increment();
+        eventosGravados.increment(pontuacoes.size() - anexacao.repetidos().size());
+        return anexacao;
+    }
+
+    /** Eventos do jogo, em ordem, com o placar após cada um. */
+    public List<Lance> lances(String hashId) {
+        return repositorio.listar(hashId);
+    }
+
+    /** Consolida todos os eventos pendentes, em lotes de {@code placar.eventos.snapshot-lote}. */
+    public void consolidar() {
+        int n;
+        do {
+            n = repositorio.consolidar(loteSnapshot);
+            eventosConsolidados.increment(n);
+        } while (n >= loteSnapshot);
+    }
+
+    public int pendentes() {
+        return fila.size();
+    }
+
+    public long getLotesGravados() { return (long) lotesGravados.count(); }
+    public long getEventosGravados() { return (long) eventosGravados.count(); }
+    public long getEventosConsolidados() { return (long) eventosConsolidados.count(); }
+    public long getFalhas() { return (long) falhas.count(); }
+
+    @PreDestroy
+    public void encerrar() {
+        rodando = false;
+        Thread t = gravador;
+        if (t != null) {
+            LockSupport.unpark(t);
+            try {
+                t.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (consolidador != null) consolidador.shutdown();
+    }
+
+    /** Laço da thread gravadora. */
+    private void gravar() {
+        List<Pedido> batch = new ArrayList<>();
+        while (rodando || !fila.isEmpty()) {
+            Pedido p;
+            while (batch.size() < lote && (p = fila.poll()) != null) {
+                batch.add(p);
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                continue;
+            }
+            gravarLote(batch);
+            batch.clear();
+        }
+    }
+
+    void gravarLote(List<Pedido> batch) {
+        List<Pontuacao> pontuacoes = new ArrayList<>(batch.size());
+        batch.forEach(p -> pontuacoes.add(p.pontuacao()));
+
+        List<PlacarEstado> apos;
+        try {
+            PlacarEventoRepository.Anexacao anexacao = anexarEmLote(pontuacoes);
+            apos = PlacarLote.aposCadaItem(pontuacoes, anexacao.finais(), anexacao.repetidos());
+        } catch (RuntimeException e) {
+            falhas.increment();
+            System.err.println("Falha ao gravar " + batch.size() + " ponto(s) no log do placar. CAUSA: " + e.getMessage());
+            batch.forEach(p -> p.gravado().completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).gravado().complete(apos.get(i));
+        }
+    }
+
+    /** Fora do modo eventos: consolida o que sobrou no log e encerra o ciclo. */
+    private void esvaziarSeguro() {
+        try {
+            consolidar();
+            consolidador.shutdown();
+        } catch (Exception e) {
+            System.err.println("Consolidação do log do placar falhou, nova tentativa no próximo ciclo. CAUSA: " + e.getMessage());
+        }
+    }
+
+    private void consolidarSeguro() {
+        try {
+            consolidar();
+        } catch (Exception e) {
+            System.err.println("Consolidação do log do placar falhou, nova tentativa no próximo ciclo. CAUSA: " + e.getMessage());
+        }
+    }
+}
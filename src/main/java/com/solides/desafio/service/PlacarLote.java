@@ -0,0 +1,61 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontos;
+import com.solides.desafio.domain.Pontuacao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Placar logo após cada item de um lote de pontos. O banco, o log e o
+ * contador devolvem só o placar final de cada jogo; o intermediário sai dele
+ * descontando o que o lote somou e reaplicando os itens na ordem recebida.
+ * Usado por {@link PlacarService#pontuarLote} e pela gravadora do
+ * {@link PlacarEventoLog}.
+ */
+final class PlacarLote {
+
+    private PlacarLote() {}
+
+    /**
+     * Placar após cada item, na ordem de {@code itens}. Itens de jogos ausentes
+     * de {@code finais} ficam null; os de {@code ignorados} (inválidos, ou
+     * repetidos que não somaram nada) recebem o placar final do jogo e não
+     * entram na conta dos demais.
+     */
+    static List<PlacarEstado> aposCadaItem(List<Pontuacao> itens, Map<String, PlacarEstado> finais, Set<Integer> ignorados) {
+        Map<String, Pontos> somados = new HashMap<>();
+        for (int i = 0; i < itens.size(); i++) {
+            Pontuacao p = itens.get(i);
+            if (finais.containsKey(p.hashId()) && !ignorados.contains(i)) somados.merge(p.hashId(), delta(p), Pontos::somar);
+        }
+        // placar de cada jogo antes do lote
+        Map<String, Pontos> correntes = new HashMap<>();
+        somados.forEach((hashId, d) -> {
+            PlacarEstado fim = finais.get(hashId);
+            correntes.put(hashId, new Pontos(fim.getPontos().casa() - d.casa(), fim.getPontos().visitante() - d.visitante()));
+        });
+
+        List<PlacarEstado> res = new ArrayList<>(itens.size());
+        for (int i = 0; i < itens.size(); i++) {
+            Pontuacao p = itens.get(i);
+            PlacarEstado fim = finais.get(p.hashId());
+            if (fim == null || ignorados.contains(i)) {
+                res.add(fim);
+                continue;
+            }
+            Pontos atual = correntes.merge(p.hashId(), delta(p), Pontos::somar);
+            res.add(PlacarEstado.of(fim.casa().nome(), atual.casa(), fim.visitante().nome(), atual.visitante()));
+        }
+        return res;
+    }
+
+    /** Pontos que o item soma ao jogo; {@code lado} já validado. */
+    static Pontos delta(Pontuacao p) {
+        return "casa".equalsIgnoreCase(p.lado()) ? new Pontos(p.delta(), 0) : new Pontos(0, p.delta());
+    }
+}
@@ -1,153 +1,648 @@
 package com.solides.desafio.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.solides.desafio.domain.Classificacao;
+import com.solides.desafio.domain.Lance;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.PlacarEvento;
+import com.solides.desafio.domain.Pontos;
+import com.solides.desafio.domain.Pontuacao;
+import com.solides.desafio.infra.metricas.PlacarMetricas;
+import com.solides.desafio.infra.metricas.PlacarMetricas.Backend;
+import com.solides.desafio.infra.metricas.PlacarMetricas.Cache;
+import com.solides.desafio.infra.metricas.PlacarMetricas.Etapa;
+import com.solides.desafio.infra.metricas.PlacarMetricas.Operacao;
+import com.solides.desafio.infra.rabbitmq.PlacarAoVivoRabbit;
 import com.solides.desafio.infra.rabbitmq.PlacarProducer;
-import com.solides.desafio.infra.redis.RedisClientProvider;
+import com.solides.desafio.infra.redis.PlacarCache;
+import com.solides.desafio.infra.redis.PlacarContadorRedis;
+import com.solides.desafio.repository.PlacarEventoRepository;
 import com.solides.desafio.repository.PlacarRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import redis.clients.jedis.exceptions.JedisException;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class PlacarService {
 
     private final PlacarRepository placarRepository;
     private final PlacarProducer producer;
-    private final RedisClientProvider redisProvider;
+    private final PlacarCache cache;
+    private final PlacarContadorRedis contador;
+    private final PlacarWriteBehind writeBehind;
+    private final PlacarAoVivo aoVivo;
+    private final PlacarAoVivoRabbit aoVivoRabbit;
+    private final PlacarEventoLog eventoLog;
+    private final PlacarMetricas metricas;
+    private final ClassificacaoService classificacao;
     private final ObjectMapper mapper = new ObjectMapper();
 
+    /** Resultado de um item de {@link #pontuarLote}. */
+    public enum StatusLote { OK, INVALIDO, NAO_ENCONTRADO }
+
+    /**
+     * Resultado de um item do lote: o placar logo após o item quando
+     * {@code OK}, ou a mensagem de erro.
+     */
+    public record ResultadoLote(StatusLote status, PlacarEstado placar, String erro) {}
+
+    /**
+     * {@code banco}: cada ponto é um incremento nas colunas do placar (padrão).
+     * {@code redis}: o placar é incrementado atomicamente no Redis e gravado
+     * no Postgres pelo {@link PlacarWriteBehind}.
+     * {@code eventos}: cada ponto é um evento anexado ao log do placar, sem
+     * reescrever a linha do jogo; ver {@link PlacarEventoLog}.
+     */
+    @Value("${placar.contador:banco}")
+    private String modoContador;
+
     public PlacarService(PlacarRepository placarRepository,
                          PlacarProducer producer,
-                         RedisClientProvider redisProvider) {
+                         PlacarCache cache,
+                         PlacarContadorRedis contador,
+                         PlacarWriteBehind writeBehind,
+                         PlacarAoVivo aoVivo,
+                         PlacarAoVivoRabbit aoVivoRabbit,
+                         PlacarEventoLog eventoLog,
+                         PlacarMetricas metricas,
+                         ClassificacaoService classificacao) {
         this.placarRepository = placarRepository;
         this.producer = producer;
-        this.redisProvider = redisProvider;
+        this.cache = cache;
+        this.contador = contador;
+        this.writeBehind = writeBehind;
+        this.aoVivo = aoVivo;
+        this.aoVivoRabbit = aoVivoRabbit;
+        this.eventoLog = eventoLog;
+        this.metricas = metricas;
+        this.classificacao = classificacao;
     }
 
-    public String iniciar(String jsonDados) {
-        String res = placarRepository.iniciar(jsonDados);
-        try {
-            if (res != null) {
-                JsonNode node = mapper.readTree(res);
-                if (node.has("hash_id")) {
-                    String hash = node.get("hash_id").asText();
-                    try (var jedis = redisProvider.getJedis()) {
-                        jedis.set(("placar:" + hash).getBytes(StandardCharsets.UTF_8),
-                                jsonDados.getBytes(StandardCharsets.UTF_8));
-                    } catch (Exception e) {
-                        System.err.println("Aviso: não foi possível salvar no Redis: " + e.getMessage());
-                    }
+    /**
+     * Cria o placar e devolve o hash_id gerado.
+     */
+    public String iniciar(PlacarEstado estado) {
+        return iniciar(estado, null);
+    }
+
+    /**
+     * Cria o placar de um jogo da {@code competicao} (null para jogo avulso):
+     * ao ser finalizado, o resultado entra na classificação dela.
+     */
+    public String iniciar(PlacarEstado estado, String competicao) {
+        return metricas.operacao(Operacao.INICIAR, () -> {
+            PlacarRepository.Inicio inicio = metricas.etapa(Operacao.INICIAR, Etapa.DB_INICIAR,
+                    () -> placarRepository.iniciar(estado, competicao));
+            if (inicio == null) return null;
+            metricas.etapa(Operacao.INICIAR, Etapa.REDIS_GRAVAR, () -> {
+                try {
+                    // placar em cache e jogo em placar:ativos numa só transação; o score é o
+                    // data_inicio do banco, o mesmo que a sincronização usa
+                    cache.gravarAtivo(inicio.hashId(), estado, inicio.inicioMs());
+                } catch (Exception e) {
+                    metricas.erroIgnorado(Operacao.INICIAR, Backend.REDIS);
+                    System.err.println("Aviso: não foi possível salvar no Redis: " + e.getMessage());
                 }
+            });
+            return inicio.hashId();
+        });
+    }
+
+    public PlacarEstado pontuar(String hashId, String lado) {
+        return pontuar(hashId, lado, null);
+    }
+
+    /**
+     * Como {@link #pontuar(String, String)}; com {@code placar.contador=eventos},
+     * um {@code eventoId} já gravado no jogo não soma de novo e devolve o
+     * placar atual.
+     */
+    public PlacarEstado pontuar(String hashId, String lado, String eventoId) {
+        return metricas.operacao(Operacao.PONTUAR, () -> pontuarSemMedir(hashId, lado, eventoId));
+    }
+
+    private PlacarEstado pontuarSemMedir(String hashId, String lado, String eventoId) {
+        int deltaCasa, deltaVisit;
+        if ("casa".equalsIgnoreCase(lado)) {
+            deltaCasa = 1; deltaVisit = 0;
+        } else if ("visitante".equalsIgnoreCase(lado)) {
+            deltaCasa = 0; deltaVisit = 1;
+        } else {
+            throw new IllegalArgumentException("lado inválido. Use 'casa' ou 'visitante'.");
+        }
+
+        if ("redis".equalsIgnoreCase(modoContador)) {
+            try {
+                return pontuarNoRedis(hashId, lado, deltaCasa, deltaVisit);
+            } catch (JedisException e) {
+                // Redis fora do ar: o ponto vai direto ao banco, como no modo banco
+                semContadorRedis(Operacao.PONTUAR, List.of(hashId), e);
             }
-        } catch (IOException e) {
+        }
 
+        PlacarEstado atualizado;
+        if ("eventos".equalsIgnoreCase(modoContador)) {
+            // 1) Anexa o ponto ao log, no mesmo INSERT dos pontos concorrentes
+            atualizado = metricas.etapa(Operacao.PONTUAR, Etapa.DB_ANEXAR,
+                    () -> eventoLog.anexar(new Pontuacao(hashId, lado.toLowerCase(), 1, eventoId)));
+        } else {
+            // 1) Incrementa direto nas colunas do placar — sem leitura prévia
+            atualizado = metricas.etapa(Operacao.PONTUAR, Etapa.DB_INCREMENTAR,
+                    () -> placarRepository.incrementar(hashId, deltaCasa, deltaVisit).orElse(null));
         }
-        return res;
+        if (atualizado == null) {
+            throw new IllegalArgumentException("Placar não encontrado: " + hashId);
+        }
+
+        // 2) Publica evento async se possível
+        publicarEvento(Operacao.PONTUAR, hashId, lado, atualizado.getPontos().casa(), atualizado.getPontos().visitante());
+
+        // 3) Atualiza Redis como cache — sem quebrar se falhar!
+        gravarNoCache(Operacao.PONTUAR, hashId, atualizado);
+
+        return atualizado;
     }
 
-    public String pontuar(String hashId, String lado) {
-        try {
-            String chaveRedis = "placar:" + hashId;
-            String dadosAtuais = null;
-
-            // 1) Tenta buscar no Redis
-            try (var jedis = redisProvider.getJedis()) {
-                byte[] raw = jedis.get(chaveRedis.getBytes(StandardCharsets.UTF_8));
-                if (raw != null) {
-                    dadosAtuais = new String(raw, StandardCharsets.UTF_8);
-                }
-            } catch (Exception e) {
-                System.err.println("Redis indisponível ao ler. CAUSA: " + e.getMessage());
-                // seguimos adiante — fallback vai para DB
+    /**
+     * Pontuação com o contador no Redis: um único script incrementa o placar e
+     * o estado em cache; o Postgres é atualizado depois, pelo write-behind.
+     */
+    private PlacarEstado pontuarNoRedis(String hashId, String lado, int deltaCasa, int deltaVisit) {
+        PlacarContadorRedis.Resultado res = metricas.etapa(Operacao.PONTUAR, Etapa.REDIS_CONTADOR,
+                () -> contador.incrementar(hashId, deltaCasa, deltaVisit));
+        PlacarEstado atualizado = aplicarNoRedis(Operacao.PONTUAR, hashId, deltaCasa, deltaVisit, res);
+        metricas.etapa(Operacao.PONTUAR, Etapa.WRITE_BEHIND,
+                () -> writeBehind.gravar(hashId, atualizado.getPontos().casa(), atualizado.getPontos().visitante()));
+        publicarEvento(Operacao.PONTUAR, hashId, lado, atualizado.getPontos().casa(), atualizado.getPontos().visitante());
+        return atualizado;
+    }
+
+    /**
+     * Completa um incremento feito no contador: semeia o contador se ainda não
+     * existia e refaz o incremento, ou busca os nomes no banco se o placar
+     * saiu do cache.
+     *
+     * @param res resultado do incremento; null se o contador não estava semeado
+     */
+    private PlacarEstado aplicarNoRedis(Operacao op, String hashId, int deltaCasa, int deltaVisit,
+                                        PlacarContadorRedis.Resultado res) {
+        PlacarEstado doBanco = null;
+        if (res == null) {
+            // contador ainda não semeado: parte do estado em cache ou do banco
+            PlacarEstado atual = buscar(op, hashId)
+                    .orElseThrow(() -> new IllegalArgumentException("Placar não encontrado: " + hashId));
+            res = metricas.etapa(op, Etapa.REDIS_CONTADOR, () -> {
+                cache.gravar(hashId, atual);
+                contador.semear(hashId, atual.getPontos().casa(), atual.getPontos().visitante());
+                return contador.incrementar(hashId, deltaCasa, deltaVisit);
+            });
+            if (res == null) {
+                throw new IllegalStateException("Contador do placar não pôde ser semeado: " + hashId);
             }
+        } else if (!res.emCache()) {
+            // contador vivo mas o placar saiu do cache: nomes vêm do banco, pontos do contador
+            doBanco = metricas.etapa(op, Etapa.DB_BUSCAR, () -> placarRepository.buscarPorHash(hashId).orElse(null));
+        }
+
+        PlacarEstado atualizado;
+        if (doBanco != null) {
+            atualizado = PlacarEstado.of(doBanco.casa().nome(), res.casa(), doBanco.visitante().nome(), res.visitante());
+            gravarNoCache(op, hashId, atualizado);
+        } else {
+            atualizado = PlacarEstado.of(res.nomeCasa(), res.casa(), res.nomeVisitante(), res.visitante());
+        }
+        return atualizado;
+    }
+
+    /**
+     * Aplica um lote de pontos, possivelmente de vários jogos. Os itens de um
+     * mesmo jogo são somados e aplicados de uma vez: um único UPDATE para todos
+     * os jogos e uma única transação no Redis (modo {@code banco}), um único
+     * INSERT no log (modo {@code eventos}), ou um único pipeline de scripts no
+     * contador (modo {@code redis}). Os eventos
+     * saem um por item, na ordem do lote, com o placar logo após aquele item.
+     *
+     * @return um resultado por item, na ordem recebida
+     */
+    public List<ResultadoLote> pontuarLote(List<Pontuacao> itens) {
+        return metricas.operacao(Operacao.PONTUAR_LOTE, () -> pontuarLoteSemMedir(itens));
+    }
 
-            // 2) Fallback: buscar no DB se Redis falhou ou não tinha chave
-            if (dadosAtuais == null) {
-                Optional<String> fromDb = placarRepository.buscarDadosPorHash(hashId);
-                if (fromDb.isEmpty())
-                    throw new IllegalArgumentException("Placar não encontrado: " + hashId);
+    private List<ResultadoLote> pontuarLoteSemMedir(List<Pontuacao> itens) {
+        ResultadoLote[] resultados = new ResultadoLote[itens.size()];
+        Map<String, Pontos> deltas = new LinkedHashMap<>();
+        List<Pontuacao> validos = new ArrayList<>(itens.size());
+        List<Integer> posicoes = new ArrayList<>(itens.size());
+        Set<Integer> ignorados = new HashSet<>();
+        for (int i = 0; i < itens.size(); i++) {
+            Pontuacao p = itens.get(i);
+            String erro = validar(p);
+            if (erro != null) {
+                resultados[i] = new ResultadoLote(StatusLote.INVALIDO, null, erro);
+                ignorados.add(i);
+            } else {
+                deltas.merge(p.hashId(), PlacarLote.delta(p), Pontos::somar);
+                validos.add(new Pontuacao(p.hashId(), p.lado().toLowerCase(), p.delta(), p.eventoId()));
+                posicoes.add(i);
+            }
+        }
 
-                dadosAtuais = fromDb.get();
+        Map<String, PlacarEstado> finais;
+        if ("redis".equalsIgnoreCase(modoContador)) {
+            finais = aplicarLoteNoRedis(deltas);
+        } else if ("eventos".equalsIgnoreCase(modoContador)) {
+            PlacarEventoRepository.Anexacao anexacao = aplicarLoteNoLog(validos);
+            finais = anexacao.finais();
+            // já estavam no log: não somaram nada e respondem com o placar atual
+            for (int r : anexacao.repetidos()) {
+                int i = posicoes.get(r);
+                ignorados.add(i);
+                PlacarEstado atual = finais.get(itens.get(i).hashId());
+                if (atual != null) resultados[i] = new ResultadoLote(StatusLote.OK, atual, null);
             }
+        } else {
+            finais = aplicarLoteNoBanco(deltas);
+        }
 
-            // 3) Manipula JSON
-            JsonNode root = mapper.readTree(dadosAtuais);
+        List<PlacarEstado> apos = PlacarLote.aposCadaItem(itens, finais, ignorados);
+        List<PlacarEvento> eventos = new ArrayList<>();
+        for (int i = 0; i < itens.size(); i++) {
+            if (resultados[i] != null) continue;
+            Pontuacao p = itens.get(i);
+            PlacarEstado estado = apos.get(i);
+            if (estado == null) {
+                resultados[i] = new ResultadoLote(StatusLote.NAO_ENCONTRADO, null, "Placar não encontrado: " + p.hashId());
+                continue;
+            }
+            resultados[i] = new ResultadoLote(StatusLote.OK, estado, null);
+            eventos.add(new PlacarEvento(p.hashId(), p.lado().toLowerCase(), estado.getPontos().casa(), estado.getPontos().visitante()));
+        }
+        publicarEventos(Operacao.PONTUAR_LOTE, eventos);
+        return Arrays.asList(resultados);
+    }
 
-            int pontosCasa = root.path("time_da_casa").path("pontos").asInt(0);
-            int pontosVisit = root.path("time_visitante").path("pontos").asInt(0);
+    private Map<String, PlacarEstado> aplicarLoteNoBanco(Map<String, Pontos> deltas) {
+        Map<String, PlacarEstado> finais = metricas.etapa(Operacao.PONTUAR_LOTE, Etapa.DB_INCREMENTAR,
+                () -> placarRepository.incrementarEmLote(deltas));
+        gravarLoteNoCache(finais);
+        return finais;
+    }
 
-            if ("casa".equalsIgnoreCase(lado))      pontosCasa++;
-            else if ("visitante".equalsIgnoreCase(lado)) pontosVisit++;
-            else throw new IllegalArgumentException("lado inválido. Use 'casa' ou 'visitante'.");
+    private PlacarEventoRepository.Anexacao aplicarLoteNoLog(List<Pontuacao> validos) {
+        if (validos.isEmpty()) return PlacarEventoRepository.Anexacao.de(Map.of());
+        PlacarEventoRepository.Anexacao anexacao = metricas.etapa(Operacao.PONTUAR_LOTE, Etapa.DB_ANEXAR,
+                () -> eventoLog.anexarEmLote(validos));
+        gravarLoteNoCache(anexacao.finais());
+        return anexacao;
+    }
 
-            ObjectNode novo = mapper.createObjectNode();
+    private void gravarLoteNoCache(Map<String, PlacarEstado> finais) {
+        metricas.etapa(Operacao.PONTUAR_LOTE, Etapa.REDIS_GRAVAR, () -> {
+            try {
+                cache.gravarEmLote(finais);
+            } catch (Exception e) {
+                finais.keySet().forEach(cache::invalidar);
+                metricas.erroIgnorado(Operacao.PONTUAR_LOTE, Backend.REDIS);
+                System.err.println("Redis indisponível ao escrever. CAUSA: " + e.getMessage());
+            }
+        });
+    }
 
-            ObjectNode casaNode = novo.putObject("time_da_casa");
-            casaNode.put("pontos", pontosCasa);
+    /**
+     * Grava o placar no cache sem interromper a operação. Se falhar, o placar
+     * em cache ficou para trás do banco: nem ele nem a ETag valem mais.
+     */
+    private void gravarNoCache(Operacao op, String hashId, PlacarEstado estado) {
+        metricas.etapa(op, Etapa.REDIS_GRAVAR, () -> {
+            try {
+                cache.gravar(hashId, estado);
+            } catch (Exception e) {
+                cache.invalidar(hashId);
+                metricas.erroIgnorado(op, Backend.REDIS);
+                System.err.println("Redis indisponível ao escrever. CAUSA: " + e.getMessage());
+            }
+        });
+    }
 
-            ObjectNode visitanteNode = novo.putObject("time_visitante");
-            visitanteNode.put("pontos", pontosVisit);
+    private Map<String, PlacarEstado> aplicarLoteNoRedis(Map<String, Pontos> deltas) {
+        Map<String, PlacarContadorRedis.Resultado> incrementados;
+        try {
+            incrementados = metricas.etapa(Operacao.PONTUAR_LOTE, Etapa.REDIS_CONTADOR,
+                    () -> contador.incrementarEmLote(deltas));
+        } catch (JedisException e) {
+            semContadorRedis(Operacao.PONTUAR_LOTE, deltas.keySet(), e);
+            return aplicarLoteNoBanco(deltas);
+        }
+        Map<String, PlacarEstado> finais = new LinkedHashMap<>();
+        Map<String, Pontos> semRedis = new LinkedHashMap<>();
+        JedisException[] erro = new JedisException[1];
+        deltas.forEach((hashId, d) -> {
+            PlacarEstado atualizado;
+            try {
+                atualizado = aplicarNoRedis(Operacao.PONTUAR_LOTE, hashId, d.casa(), d.visitante(), incrementados.get(hashId));
+            } catch (IllegalArgumentException naoEncontrado) {
+                return;
+            } catch (JedisException e) {
+                semRedis.put(hashId, d);
+                erro[0] = e;
+                return;
+            }
+            finais.put(hashId, atualizado);
+        });
+        metricas.etapa(Operacao.PONTUAR_LOTE, Etapa.WRITE_BEHIND, () -> finais.forEach((hashId, atualizado) ->
+                writeBehind.gravar(hashId, atualizado.getPontos().casa(), atualizado.getPontos().visitante())));
+        if (!semRedis.isEmpty()) {
+            semContadorRedis(Operacao.PONTUAR_LOTE, semRedis.keySet(), erro[0]);
+            finais.putAll(aplicarLoteNoBanco(semRedis));
+        }
+        return finais;
+    }
 
-            String fullPatch = novo.toString();
+    /**
+     * Redis fora do ar no modo {@code redis}: os pontos desses jogos vão direto
+     * ao banco. Antes, o write-behind pendente de cada jogo é gravado, para o
+     * incremento partir do último placar; depois, o contador (agora atrás do
+     * banco) é descartado assim que o Redis voltar.
+     */
+    private void semContadorRedis(Operacao op, Collection<String> hashIds, JedisException causa) {
+        metricas.erroIgnorado(op, Backend.REDIS);
+        System.err.println("Redis indisponível no contador, pontuando direto no banco. CAUSA: " + causa.getMessage());
+        for (String hashId : hashIds) {
+            writeBehind.descarregar(hashId);
+            contador.descartar(hashId);
+            cache.invalidar(hashId);
+        }
+    }
 
-            // 4) Persiste no DB — sempre!
-            String atualizado = placarRepository.atualizar(hashId, fullPatch);
+    private static String validar(Pontuacao p) {
+        if (p == null || p.hashId() == null || p.hashId().isBlank()) return "hash_id é obrigatório";
+        if (!"casa".equalsIgnoreCase(p.lado()) && !"visitante".equalsIgnoreCase(p.lado())) {
+            return "lado inválido. Use 'casa' ou 'visitante'.";
+        }
+        if (p.delta() <= 0) return "delta deve ser positivo";
+        return null;
+    }
 
-            // 5) Publica evento async se possível
+    private void publicarEventos(Operacao op, List<PlacarEvento> eventos) {
+        if (eventos.isEmpty()) return;
+        metricas.etapa(op, Etapa.RABBITMQ_PUBLICAR, () -> {
             try {
-                var evento = mapper.createObjectNode()
-                        .put("hashId", hashId)
-                        .put("lado", lado)
-                        .put("pontosCasa", pontosCasa)
-                        .put("pontosVisitante", pontosVisit);
+                List<String> jsons = new ArrayList<>(eventos.size());
+                for (PlacarEvento evento : eventos) {
+                    jsons.add(mapper.writeValueAsString(evento));
+                }
+                producer.enviarEventos(jsons);
+            } catch (Exception e) {
+                metricas.erroIgnorado(op, Backend.RABBITMQ);
+                System.err.println("RabbitMQ indisponível ao publicar. CAUSA: " + e.getMessage());
+            }
+        });
+        metricas.etapa(op, Etapa.SSE_PUBLICAR, () -> eventos.forEach(evento -> publicarAoVivo(op, evento)));
+    }
 
+    private void publicarEvento(Operacao op, String hashId, String lado, int pontosCasa, int pontosVisit) {
+        PlacarEvento evento = new PlacarEvento(hashId, lado, pontosCasa, pontosVisit);
+        metricas.etapa(op, Etapa.RABBITMQ_PUBLICAR, () -> {
+            try {
                 producer.enviarEvento(mapper.writeValueAsString(evento));
             } catch (Exception e) {
+                metricas.erroIgnorado(op, Backend.RABBITMQ);
                 System.err.println("RabbitMQ indisponível ao publicar. CAUSA: " + e.getMessage());
                 // ignora: não impede fluxo do sistema
             }
+        });
+        metricas.etapa(op, Etapa.SSE_PUBLICAR, () -> publicarAoVivo(op, evento));
+    }
 
-            // 6) Atualiza Redis como cache — sem quebrar se falhar!
-            try (var jedis = redisProvider.getJedis()) {
-                jedis.set(chaveRedis.getBytes(StandardCharsets.UTF_8),
-                        atualizado.getBytes(StandardCharsets.UTF_8));
-            } catch (Exception e) {
-                System.err.println("Redis indisponível ao escrever. CAUSA: " + e.getMessage());
+    private void publicarAoVivo(Operacao op, PlacarEvento evento) {
+        try {
+            aoVivo.publicar(evento);
+        } catch (Exception e) {
+            metricas.erroIgnorado(op, Backend.SSE);
+            System.err.println("Transmissão ao vivo indisponível. CAUSA: " + e.getMessage());
+        }
+    }
+
+
+    public Optional<PlacarEstado> buscar(String hashId) {
+        return metricas.operacao(Operacao.BUSCAR, () -> buscar(Operacao.BUSCAR, hashId));
+    }
+
+    private Optional<PlacarEstado> buscar(Operacao op, String hashId) {
+        try {
+            Optional<PlacarEstado> emCache = metricas.etapa(op, Etapa.REDIS_LER, () -> cache.ler(hashId));
+            if (emCache.isPresent()) {
+                metricas.cache(op, Cache.HIT);
+                return emCache;
             }
+            metricas.cache(op, Cache.MISS);
+        } catch (Exception e) {
+            // ignora e busca no DB
+            metricas.cache(op, Cache.ERRO);
+        }
+        return metricas.etapa(op, Etapa.DB_BUSCAR, () -> placarRepository.buscarPorHash(hashId));
+    }
 
-            return atualizado;
+    /**
+     * Placar como bytes JSON prontos para a resposta, com a versão usada na
+     * ETag. Com o placar em cache os bytes do Redis são devolvidos sem
+     * desserializar; sem cache, o placar vem do banco e repopula o cache.
+     * Versão 0 indica que o Redis não pôde informar uma versão.
+     */
+    public Optional<PlacarCache.Bruto> buscarBruto(String hashId) {
+        return metricas.operacao(Operacao.BUSCAR_BRUTO, () -> buscarBrutoSemMedir(hashId));
+    }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Erro ao manipular JSON do placar", e);
+    private Optional<PlacarCache.Bruto> buscarBrutoSemMedir(String hashId) {
+        try {
+            Optional<PlacarCache.Bruto> emCache = metricas.etapa(Operacao.BUSCAR_BRUTO, Etapa.REDIS_LER,
+                    () -> cache.lerBruto(hashId));
+            if (emCache.isPresent()) {
+                metricas.cache(Operacao.BUSCAR_BRUTO, Cache.HIT);
+                return emCache;
+            }
+            metricas.cache(Operacao.BUSCAR_BRUTO, Cache.MISS);
+        } catch (Exception e) {
+            // ignora e busca no DB
+            metricas.cache(Operacao.BUSCAR_BRUTO, Cache.ERRO);
+        }
+
+        Optional<PlacarEstado> doBanco = metricas.etapa(Operacao.BUSCAR_BRUTO, Etapa.DB_BUSCAR,
+                () -> placarRepository.buscarPorHash(hashId));
+        if (doBanco.isEmpty()) {
+            return Optional.empty();
+        }
+        long versao = metricas.etapa(Operacao.BUSCAR_BRUTO, Etapa.REDIS_GRAVAR, () -> {
+            try {
+                return cache.gravar(hashId, doBanco.get());
+            } catch (Exception e) {
+                metricas.erroIgnorado(Operacao.BUSCAR_BRUTO, Backend.REDIS);
+                System.err.println("Redis indisponível ao escrever. CAUSA: " + e.getMessage());
+                return 0L;
+            }
+        });
+        try {
+            return Optional.of(new PlacarCache.Bruto(mapper.writeValueAsBytes(doBanco.get()), versao));
+        } catch (Exception e) {
+            throw new IllegalStateException("Erro ao serializar placar " + hashId, e);
         }
     }
 
+    /**
+     * Vários placares como bytes JSON, na ordem pedida e sem repetições; null
+     * para os que não existem. Os que estão em cache saem de um único MGET;
+     * os demais, de uma única consulta ao banco, e voltam ao cache numa só
+     * transação.
+     */
+    public Map<String, byte[]> buscarVarios(List<String> hashIds) {
+        return metricas.operacao(Operacao.BUSCAR_VARIOS, () -> buscarVariosSemMedir(hashIds));
+    }
+
+    private Map<String, byte[]> buscarVariosSemMedir(List<String> hashIds) {
+        Map<String, byte[]> res = new LinkedHashMap<>();
+        for (String hashId : hashIds) res.put(hashId, null);
+        List<String> unicos = List.copyOf(res.keySet());
+        if (unicos.isEmpty()) return res;
 
-    public Optional<String> buscar(String hashId) {
-        String chave = "placar:" + hashId;
+        List<String> faltando = new ArrayList<>();
         try {
-            try (var jedis = redisProvider.getJedis()) {
-                byte[] raw = jedis.get(chave.getBytes(StandardCharsets.UTF_8));
-                if (raw != null) {
-                    return Optional.of(new String(raw, StandardCharsets.UTF_8));
+            List<byte[]> jsons = metricas.etapa(Operacao.BUSCAR_VARIOS, Etapa.REDIS_LER, () -> cache.lerVarios(unicos));
+            for (int i = 0; i < unicos.size(); i++) {
+                if (jsons.get(i) != null) {
+                    res.put(unicos.get(i), jsons.get(i));
+                    metricas.cache(Operacao.BUSCAR_VARIOS, Cache.HIT);
+                } else {
+                    faltando.add(unicos.get(i));
+                    metricas.cache(Operacao.BUSCAR_VARIOS, Cache.MISS);
                 }
             }
         } catch (Exception e) {
-            // ignora e busca no DB
+            // ignora e busca todos no DB
+            metricas.cache(Operacao.BUSCAR_VARIOS, Cache.ERRO);
+            faltando.addAll(unicos);
         }
-        return placarRepository.buscarDadosPorHash(hashId);
+        if (faltando.isEmpty()) return res;
+
+        Map<String, PlacarEstado> doBanco = metricas.etapa(Operacao.BUSCAR_VARIOS, Etapa.DB_BUSCAR,
+                () -> placarRepository.buscarPorHashes(faltando));
+        if (doBanco.isEmpty()) return res;
+
+        metricas.etapa(Operacao.BUSCAR_VARIOS, Etapa.REDIS_GRAVAR, () -> {
+            try {
+                cache.gravarEmLote(doBanco);
+            } catch (Exception e) {
+                metricas.erroIgnorado(Operacao.BUSCAR_VARIOS, Backend.REDIS);
+                System.err.println("Redis indisponível ao escrever. CAUSA: " + e.getMessage());
+            }
+        });
+        doBanco.forEach((hashId, estado) -> {
+            try {
+                res.put(hashId, mapper.writeValueAsBytes(estado));
+            } catch (Exception e) {
+                throw new IllegalStateException("Erro ao serializar placar " + hashId, e);
+            }
+        });
+        return res;
+    }
+
+    /**
+     * Eventos do log do placar, em ordem, com o placar após cada um. A lista
+     * fica vazia para jogos pontuados fora do modo {@code eventos}.
+     *
+     * @return vazio se o placar não existir
+     */
+    public Optional<List<Lance>> lances(String hashId) {
+        List<Lance> lances = eventoLog.lances(hashId);
+        if (lances.isEmpty() && buscar(Operacao.BUSCAR, hashId).isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(lances);
+    }
+
+    /**
+     * Versão atual do placar no Redis, sem ler o JSON; 0 se não houver ou se
+     * o Redis estiver indisponível.
+     */
+    public long versao(String hashId) {
+        return metricas.operacao(Operacao.VERSAO, () -> {
+            try {
+                return cache.versao(hashId);
+            } catch (Exception e) {
+                metricas.erroIgnorado(Operacao.VERSAO, Backend.REDIS);
+                return 0L;
+            }
+        });
     }
 
     public void finalizar(String hashId) {
-        placarRepository.finalizar(hashId);
-        try (var jedis = redisProvider.getJedis()) {
-            jedis.del(("placar:" + hashId).getBytes(StandardCharsets.UTF_8));
+        metricas.operacao(Operacao.FINALIZAR, () -> {
+            finalizarSemMedir(hashId);
+            return null;
+        });
+    }
+
+    private void finalizarSemMedir(String hashId) {
+        boolean contadorRedis = "redis".equalsIgnoreCase(modoContador);
+        if (contadorRedis) {
+            // garante que o último placar chegue ao banco antes de encerrar o jogo; a fila
+            // desta instância só tem os pontos marcados aqui, o contador tem os de todas
+            metricas.etapa(Operacao.FINALIZAR, Etapa.WRITE_BEHIND, () -> {
+                Pontos doContador = pontosDoContador(hashId);
+                if (doContador != null) {
+                    writeBehind.descarregar(hashId, doContador.casa(), doContador.visitante());
+                } else {
+                    writeBehind.descarregar(hashId);
+                }
+            });
+        }
+        List<Classificacao> linhas = metricas.etapa(Operacao.FINALIZAR, Etapa.DB_FINALIZAR,
+                () -> placarRepository.finalizar(hashId));
+        try {
+            // a tabela já foi atualizada; o ranking no Redis se recupera sozinho
+            classificacao.aplicar(linhas);
+        } catch (Exception e) {
+            metricas.erroIgnorado(Operacao.FINALIZAR, Backend.REDIS);
+        }
+        metricas.etapa(Operacao.FINALIZAR, Etapa.REDIS_REMOVER, () -> {
+            try {
+                cache.remover(hashId);
+            } catch (Exception e) {
+                // log warning: não falha se Redis falhar
+                metricas.erroIgnorado(Operacao.FINALIZAR, Backend.REDIS);
+            }
+            if (contadorRedis) {
+                try {
+                    contador.remover(hashId);
+                } catch (Exception e) {
+                    // idem: o contador expira com o jogo, não impede o encerramento
+                    metricas.erroIgnorado(Operacao.FINALIZAR, Backend.REDIS);
+                }
+            }
+        });
+        metricas.etapa(Operacao.FINALIZAR, Etapa.SSE_PUBLICAR, () -> {
+            aoVivo.encerrar(hashId);
+            // assinantes do jogo em outras instâncias
+            aoVivoRabbit.encerrar(hashId);
+        });
+    }
+
+    /** Pontos do contador no Redis; null se ele não existe ou o Redis está fora do ar. */
+    private Pontos pontosDoContador(String hashId) {
+        try {
+            return contador.pontos(hashId).orElse(null);
         } catch (Exception e) {
-            // log warning: não falha se Redis falhar
+            metricas.erroIgnorado(Operacao.FINALIZAR, Backend.REDIS);
+            return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,261 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.domain.Pontos;
+import com.solides.desafio.repository.PlacarRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persistência write-behind do placar: guarda o último estado de cada jogo e
+ * grava no Postgres em segundo plano, fora do caminho da requisição.
+ * <p>
+ * Atualizações do mesmo {@code hash_id} entre dois ciclos são coalescidas
+ * (vence o estado mais recente) e gravadas em lote, numa única instrução, a
+ * cada {@code placar.write-behind.intervalo-ms} ou assim que houver
+ * {@code placar.write-behind.lote} jogos pendentes. A fila é limitada a
+ * {@code placar.write-behind.max-pendentes} jogos; acima disso quem agenda
+ * descarrega a fila na própria thread.
+ * <p>
+ * Métricas: {@code placar.write-behind.descarga} (duração de cada lote
+ * gravado), {@code placar.write-behind.pendentes} e os contadores
+ * {@code placar.write-behind.itens|coalescidos|descargas.forcadas|falhas}.
+ */
+@Component
+public class PlacarWriteBehind {
+
+    /**
+     * Estado pendente de um jogo. {@code gravado} completa quando o estado (ou
+     * um mais novo que o substituiu) chega ao banco.
+     */
+    record Pendente(int casa, int visitante, CompletableFuture<Void> gravado) {
+        int total() {
+            return casa + visitante;
+        }
+    }
+
+    private final PlacarRepository placarRepository;
+    private final ConcurrentHashMap<String, Pendente> pendentes = new ConcurrentHashMap<>();
+    private final ReentrantLock descarga = new ReentrantLock();
+    private final AtomicBoolean descargaAgendada = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    // métricas
+    private final Timer descargas;
+    private final Counter itensGravados;
+    private final Counter coalescidos;
+    private final Counter descargasForcadas;
+    private final Counter falhas;
+
+    @Value("${placar.write-behind.intervalo-ms:200}")
+    private long intervaloMs = 200;
+
+    @Value("${placar.write-behind.lote:500}")
+    private int lote = 500;
+
+    @Value("${placar.write-behind.max-pendentes:10000}")
+    private int maxPendentes = 10000;
+
+    /** Quando true, quem pontua espera o placar ser gravado no banco. */
+    @Value("${placar.write-behind.sincrono:false}")
+    private boolean sincrono;
+
+    @Value("${placar.write-behind.timeout-sincrono-ms:2000}")
+    private long timeoutSincronoMs = 2000;
+
+    public PlacarWriteBehind(PlacarRepository placarRepository, MeterRegistry registry) {
+        this.placarRepository = placarRepository;
+        descargas = Timer.builder("placar.write-behind.descarga")
+                .description("Duração da gravação de cada lote do write-behind")
+                .register(registry);
+        itensGravados = Counter.builder("placar.write-behind.itens")
+                .description("Jogos gravados pelo write-behind")
+                .register(registry);
+        coalescidos = Counter.builder("placar.write-behind.coalescidos")
+                .description("Atualizações juntadas a um estado já pendente do mesmo jogo")
+                .register(registry);
+        descargasForcadas = Counter.builder("placar.write-behind.descargas.forcadas")
+                .description("Descargas feitas na thread de quem agendou, com a fila cheia")
+                .register(registry);
+        falhas = Counter.builder("placar.write-behind.falhas")
+                .description("Lotes que falharam e voltaram para a fila")
+                .register(registry);
+        Gauge.builder("placar.write-behind.pendentes", pendentes, Map::size)
+                .description("Jogos aguardando gravação")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "placar-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::descarregarSeguro, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Agenda a gravação do estado do jogo. Se já houver um estado pendente, o
+     * mais avançado prevalece (os pontos só crescem, então um estado com menos
+     * pontos chegou atrasado).
+     *
+     * @return future completado quando o estado estiver no banco
+     */
+    public CompletableFuture<Void> agendar(String hashId, int casa, int visitante) {
+        if (pendentes.size() >= maxPendentes && !pendentes.containsKey(hashId)) {
+            // fila cheia: aplica contrapressão descarregando na thread de quem chamou
+            descargasForcadas.increment();
+            descarregar();
+        }
+
+        Pendente res = pendentes.merge(hashId, new Pendente(casa, visitante, new CompletableFuture<>()),
+                (atual, novo) -> {
+                    coalescidos.increment();
+                    return novo.total() >= atual.total()
+                            ? new Pendente(novo.casa(), novo.visitante(), atual.gravado())
+                            : atual;
+                });
+
+        if (pendentes.size() >= lote) {
+            solicitarDescarga();
+        }
+        return res.gravado();
+    }
+
+    /**
+     * Agenda e, se {@code placar.write-behind.sincrono=true}, espera a
+     * gravação no banco. Falhas na espera são propagadas ao chamador.
+     */
+    public void gravar(String hashId, int casa, int visitante) {
+        CompletableFuture<Void> gravado = agendar(hashId, casa, visitante);
+        if (!sincrono) return;
+
+        solicitarDescarga();
+        try {
+            gravado.get(timeoutSincronoMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando gravação do placar " + hashId, e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Placar " + hashId + " não foi gravado no banco a tempo", e);
+        }
+    }
+
+    /** Grava imediatamente o estado pendente de um jogo, se houver. */
+    public void descarregar(String hashId) {
+        descarga.lock();
+        try {
+            Pendente p = pendentes.remove(hashId);
+            if (p != null) gravarLote(Map.of(hashId, p));
+        } finally {
+            descarga.unlock();
+        }
+    }
+
+    /**
+     * Grava imediatamente o estado dado do jogo, ou o pendente se ele estiver
+     * mais avançado.
+     */
+    public void descarregar(String hashId, int casa, int visitante) {
+        agendar(hashId, casa, visitante);
+        descarregar(hashId);
+    }
+
+    /** Grava todos os estados pendentes, em lotes de até {@code lote} jogos. */
+    public void descarregar() {
+        descarga.lock();
+        try {
+            while (!pendentes.isEmpty()) {
+                Map<String, Pendente> batch = new LinkedHashMap<>();
+                Iterator<String> it = pendentes.keySet().iterator();
+                while (it.hasNext() && batch.size() < lote) {
+                    String hashId = it.next();
+                    Pendente p = pendentes.remove(hashId);
+                    if (p != null) batch.put(hashId, p);
+                }
+                if (batch.isEmpty()) break;
+                gravarLote(batch);
+            }
+        } finally {
+            descarga.unlock();
+        }
+    }
+
+    public int pendentes() {
+        return pendentes.size();
+    }
+
+    public long getLotesGravados() { return descargas.count(); }
+    public long getItensGravados() { return (long) itensGravados.count(); }
+    public long getCoalescidos() { return (long) coalescidos.count(); }
+    public long getDescargasForcadas() { return (long) descargasForcadas.count(); }
+    public long getFalhas() { return (long) falhas.count(); }
+
+    @PreDestroy
+    public void encerrar() {
+        if (scheduler != null) scheduler.shutdown();
+        descarregarSeguro();
+    }
+
+    private void gravarLote(Map<String, Pendente> batch) {
+        Map<String, Pontos> pontos = new LinkedHashMap<>();
+        batch.forEach((hashId, p) -> pontos.put(hashId, new Pontos(p.casa(), p.visitante())));
+
+        long inicio = System.nanoTime();
+        try {
+            placarRepository.atualizarEmLote(pontos);
+        } catch (RuntimeException e) {
+            falhas.increment();
+            // devolve para a fila sem atropelar um estado mais novo que já tenha chegado
+            batch.forEach((hashId, p) -> pendentes.merge(hashId, p, (atual, antigo) -> {
+                Pendente vence = atual.total() >= antigo.total() ? atual : antigo;
+                Pendente perde = vence == atual ? antigo : atual;
+                vence.gravado().thenRun(() -> perde.gravado().complete(null));
+                return vence;
+            }));
+            throw e;
+        }
+        descargas.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        itensGravados.increment(batch.size());
+
+        List<CompletableFuture<Void>> concluidos = new ArrayList<>(batch.size());
+        batch.values().forEach(p -> concluidos.add(p.gravado()));
+        concluidos.forEach(f -> f.complete(null));
+    }
+
+    private void solicitarDescarga() {
+        if (scheduler != null && descargaAgendada.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                descargaAgendada.set(false);
+                descarregarSeguro();
+            });
+        }
+    }
+
+    private void descarregarSeguro() {
+        try {
+            descarregar();
+        } catch (Exception e) {
+            System.err.println("Write-behind do placar falhou, nova tentativa no próximo ciclo. CAUSA: " + e.getMessage());
+        }
+    }
+}
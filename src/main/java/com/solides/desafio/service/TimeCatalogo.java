@@ -0,0 +1,231 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.domain.Time;
+import com.solides.desafio.infra.redis.RedisClientProvider;
+import com.solides.desafio.repository.TimeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Catálogo de times em memória: a lista inteira é lida do banco uma vez e
+ * servida do snapshot até um time ser criado, alterado ou removido.
+ * <p>
+ * A versão do catálogo é um contador no Redis ({@code time:catalogo:versao})
+ * e vira a ETag de {@code GET /api/time}. Cada alteração, depois do commit,
+ * incrementa o contador e publica a nova versão no canal
+ * {@code time:catalogo}; as instâncias inscritas descartam o snapshot mais
+ * antigo que ela. Como a versão é lida antes do banco, um snapshot pode trazer
+ * dados um pouco mais novos que a própria versão até a mensagem chegar.
+ * <p>
+ * Sem Redis o catálogo continua funcionando, sem versão (e sem ETag); outras
+ * instâncias só veem a alteração quando o snapshot expira
+ * ({@code time.catalogo.ttl-ms}), o mesmo limite vale para mensagens perdidas.
+ */
+@Component
+public class TimeCatalogo {
+
+    static final String CHAVE_VERSAO = "time:catalogo:versao";
+    static final String CANAL = "time:catalogo";
+
+    /** Times e índice por id, na versão {@code versao} (0 se desconhecida). */
+    public record Snapshot(long versao, List<Time> times, Map<Long, Time> porId) {
+
+        static Snapshot de(long versao, List<Time> times) {
+            Map<Long, Time> porId = new HashMap<>();
+            for (Time t : times) {
+                if (t.getId() != null) porId.put(t.getId().longValue(), t);
+            }
+            return new Snapshot(versao, List.copyOf(times), Map.copyOf(porId));
+        }
+
+        public Optional<Time> buscar(Long id) {
+            return id == null ? Optional.empty() : Optional.ofNullable(porId.get(id));
+        }
+    }
+
+    private record Entrada(Snapshot snapshot, long expiraEmNs) {}
+
+    private final TimeRepository repo;
+    private final RedisClientProvider redisProvider;
+    private final ReentrantLock carga = new ReentrantLock();
+    private volatile Entrada atual;
+    /** Incrementada a cada invalidação local, para não instalar uma carga que começou antes dela. */
+    private final AtomicLong geracao = new AtomicLong();
+
+    private volatile boolean rodando;
+    private volatile Thread assinante;
+    private volatile JedisPubSub inscricao;
+    private boolean falhaAvisada;
+
+    // métricas
+    private final Counter cargas;
+    private final Counter invalidacoes;
+
+    @Value("${time.catalogo.ttl-ms:60000}")
+    private long ttlMs = 60000;
+
+    @Value("${time.catalogo.reconexao-ms:5000}")
+    private long reconexaoMs = 5000;
+
+    public TimeCatalogo(TimeRepository repo, RedisClientProvider redisProvider, MeterRegistry registry) {
+        this.repo = repo;
+        this.redisProvider = redisProvider;
+        cargas = Counter.builder("time.catalogo.cargas")
+                .description("Leituras do catálogo de times no banco")
+                .register(registry);
+        invalidacoes = Counter.builder("time.catalogo.invalidacoes")
+                .description("Snapshots do catálogo de times descartados")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        rodando = true;
+        Thread t = new Thread(this::assinar, "time-catalogo-assinatura");
+        t.setDaemon(true);
+        assinante = t;
+        t.start();
+    }
+
+    /** Snapshot atual, carregado do banco se não houver um válido. */
+    public Snapshot atual() {
+        Entrada e = atual;
+        if (e != null && System.nanoTime() - e.expiraEmNs() < 0) return e.snapshot();
+
+        // uma carga por vez: quem chega durante o findAll() espera e usa o snapshot que ela instalar
+        carga.lock();
+        try {
+            e = atual;
+            if (e != null && System.nanoTime() - e.expiraEmNs() < 0) return e.snapshot();
+            long g = geracao.get();
+            Snapshot s = Snapshot.de(lerVersao(), repo.findAll());
+            cargas.increment();
+            if (geracao.get() == g) {
+                atual = new Entrada(s, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs));
+            }
+            return s;
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    /**
+     * Descarta o snapshot e avisa as outras instâncias. Dentro de uma
+     * transação, só depois do commit, para que ninguém recarregue o catálogo
+     * antigo com a versão nova.
+     */
+    public void invalidar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publicarInvalidacao();
+                }
+            });
+        } else {
+            publicarInvalidacao();
+        }
+    }
+
+    public long getCargas() { return (long) cargas.count(); }
+    public long getInvalidacoes() { return (long) invalidacoes.count(); }
+
+    @PreDestroy
+    public void encerrar() {
+        rodando = false;
+        JedisPubSub p = inscricao;
+        if (p != null) {
+            try {
+                p.unsubscribe();
+            } catch (Exception ignore) {
+                // conexão já caiu
+            }
+        }
+        Thread t = assinante;
+        if (t != null) t.interrupt();
+    }
+
+    void publicarInvalidacao() {
+        descartar(Long.MAX_VALUE);
+        try (Jedis jedis = redisProvider.getJedis()) {
+            long versao = jedis.incr(CHAVE_VERSAO);
+            jedis.publish(CANAL, Long.toString(versao));
+        } catch (Exception e) {
+            System.err.println("Falha ao avisar a alteração do catálogo de times; outras instâncias verão a mudança em até "
+                    + ttlMs + "ms. CAUSA: " + e.getMessage());
+        }
+    }
+
+    /** Descarta o snapshot se ele for anterior a {@code versao}. */
+    void descartar(long versao) {
+        Entrada e = atual;
+        if (e != null && e.snapshot().versao() >= versao) return;
+        geracao.incrementAndGet();
+        atual = null;
+        invalidacoes.increment();
+    }
+
+    private long lerVersao() {
+        try (Jedis jedis = redisProvider.getJedis()) {
+            String v = jedis.get(CHAVE_VERSAO);
+            return v != null ? Long.parseLong(v) : 0L;
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+
+    /** Laço da thread de assinatura: reconecta enquanto a aplicação estiver de pé. */
+    private void assinar() {
+        while (rodando) {
+            JedisPubSub p = new JedisPubSub() {
+                @Override
+                public void onSubscribe(String canal, int inscritos) {
+                    falhaAvisada = false;
+                    // mensagens podem ter se perdido enquanto estava desconectado
+                    descartar(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onMessage(String canal, String mensagem) {
+                    try {
+                        descartar(Long.parseLong(mensagem));
+                    } catch (NumberFormatException e) {
+                        descartar(Long.MAX_VALUE);
+                    }
+                }
+            };
+            inscricao = p;
+            try (Jedis jedis = redisProvider.getJedis()) {
+                jedis.subscribe(p, CANAL);
+            } catch (Exception e) {
+                if (!rodando) return;
+                if (!falhaAvisada) {
+                    System.err.println("Sem assinatura de alterações do catálogo de times, tentando a cada "
+                            + reconexaoMs + "ms. CAUSA: " + e.getMessage());
+                    falhaAvisada = true;
+                }
+            }
+            try {
+                Thread.sleep(reconexaoMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
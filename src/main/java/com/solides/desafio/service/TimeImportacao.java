@@ -0,0 +1,119 @@
+package com.solides.desafio.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+
+/**
+ * Leitura incremental do corpo de {@code POST /api/time/import}: entrega um
+ * nome por registro, sem guardar o arquivo. CSV usa a primeira coluna (aspas
+ * com {@code ""} como escape, um registro por linha) e pula o cabeçalho
+ * {@code nome}; NDJSON usa o campo {@code nome} de cada objeto e ignora os
+ * demais.
+ */
+final class TimeImportacao {
+
+    static final String CSV = "text/csv";
+    static final String NDJSON = "application/x-ndjson";
+
+    /** Tamanho de {@code time.nome}. */
+    static final int TAMANHO_MAXIMO_NOME = 255;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /** Registro que não dá para importar; {@code registro} conta a partir de 1. */
+    static final class RegistroInvalido extends RuntimeException {
+        final long registro;
+
+        RegistroInvalido(long registro, String motivo) {
+            super("Registro " + registro + ": " + motivo);
+            this.registro = registro;
+        }
+    }
+
+    private TimeImportacao() {}
+
+    static void lerCsv(InputStream in, Charset charset, Consumer<String> destino) throws IOException {
+        BufferedReader r = new BufferedReader(new InputStreamReader(in, charset), 64 * 1024);
+        long registro = 0;
+        String linha;
+        while ((linha = r.readLine()) != null) {
+            registro++;
+            if (registro == 1 && !linha.isEmpty() && linha.charAt(0) == '\uFEFF') linha = linha.substring(1);
+            if (linha.isEmpty()) continue;
+            String nome = primeiraColuna(linha, registro);
+            if (registro == 1 && nome.equalsIgnoreCase("nome")) continue;
+            entregar(registro, nome, destino);
+        }
+    }
+
+    static void lerNdjson(InputStream in, Consumer<String> destino) throws IOException {
+        long registro = 0;
+        try (JsonParser p = JSON.createParser(in)) {
+            JsonToken tk;
+            while ((tk = proximo(p, registro + 1)) != null) {
+                registro++;
+                if (tk != JsonToken.START_OBJECT) throw new RegistroInvalido(registro, "esperado um objeto JSON");
+                String nome = null;
+                while (proximo(p, registro) == JsonToken.FIELD_NAME) {
+                    String campo = p.currentName();
+                    JsonToken valor = proximo(p, registro);
+                    if ("nome".equals(campo) && valor == JsonToken.VALUE_STRING) {
+                        nome = p.getText();
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                if (nome == null) throw new RegistroInvalido(registro, "sem \"nome\"");
+                entregar(registro, nome, destino);
+            }
+        }
+    }
+
+    private static void entregar(long registro, String nome, Consumer<String> destino) {
+        if (nome.isBlank()) throw new RegistroInvalido(registro, "nome vazio");
+        if (nome.length() > TAMANHO_MAXIMO_NOME) {
+            throw new RegistroInvalido(registro, "nome com mais de " + TAMANHO_MAXIMO_NOME + " caracteres");
+        }
+        destino.accept(nome);
+    }
+
+    private static JsonToken proximo(JsonParser p, long registro) throws IOException {
+        try {
+            return p.nextToken();
+        } catch (JsonProcessingException e) {
+            throw new RegistroInvalido(registro, "JSON inválido");
+        }
+    }
+
+    static String primeiraColuna(String linha, long registro) {
+        if (linha.isEmpty() || linha.charAt(0) != '"') {
+            int virgula = linha.indexOf(',');
+            return virgula < 0 ? linha : linha.substring(0, virgula);
+        }
+        StringBuilder sb = new StringBuilder(linha.length());
+        int i = 1;
+        while (true) {
+            int aspas = linha.indexOf('"', i);
+            if (aspas < 0) throw new RegistroInvalido(registro, "aspas sem fechamento");
+            sb.append(linha, i, aspas);
+            if (aspas + 1 < linha.length() && linha.charAt(aspas + 1) == '"') {
+                sb.append('"');
+                i = aspas + 2;
+                continue;
+            }
+            if (aspas + 1 < linha.length() && linha.charAt(aspas + 1) != ',') {
+                throw new RegistroInvalido(registro, "texto depois das aspas");
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.solides.desafio.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nomes de time que o banco já recusou por duplicidade, para que um
+ * {@code POST /api/time} repetido (reenvio de uma carga, por exemplo) receba
+ * 409 sem ir ao banco.
+ * <p>
+ * Só guarda o que o banco confirmou: o conflito do {@code on conflict} é
+ * sempre contra uma linha já gravada. Exclusão ou renomeação nesta instância
+ * esquece o nome na hora; feitas em outra instância, o nome pode seguir
+ * recusado aqui por até {@code time.nomes.ttl-ms}. Cheio
+ * ({@code time.nomes.max}), o cache recomeça do zero.
+ */
+@Component
+public class TimeNomes {
+
+    private final ConcurrentHashMap<String, Long> existentes = new ConcurrentHashMap<>();
+
+    @Value("${time.nomes.ttl-ms:10000}")
+    private long ttlMs = 10000;
+
+    @Value("${time.nomes.max:100000}")
+    private int max = 100000;
+
+    /** Se o nome está cadastrado, segundo o que o banco respondeu há pouco. */
+    public boolean existe(String nome) {
+        if (nome == null) return false;
+        Long expiraEmNs = existentes.get(nome);
+        if (expiraEmNs == null) return false;
+        if (System.nanoTime() - expiraEmNs >= 0) {
+            existentes.remove(nome, expiraEmNs);
+            return false;
+        }
+        return true;
+    }
+
+    /** Registra um nome que o banco recusou por já existir. */
+    public void existente(String nome) {
+        if (nome == null) return;
+        if (existentes.size() >= max) existentes.clear();
+        existentes.put(nome, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs));
+    }
+
+    /** O nome deixou de existir (time removido ou renomeado). */
+    public void esquecer(String nome) {
+        if (nome != null) existentes.remove(nome);
+    }
+}
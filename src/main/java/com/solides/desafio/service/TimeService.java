@@ -1,39 +1,142 @@
 package com.solides.desafio.service;
 
 import com.solides.desafio.domain.Time;
+import com.solides.desafio.domain.TimeLogo;
 import com.solides.desafio.repository.TimeRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @Transactional(readOnly = true)
 public class TimeService {
 
+    /** Resultado de uma importação: {@code ignorados} são nomes repetidos no arquivo ou já cadastrados. */
+    public record ResultadoImportacao(long lidos, long inseridos, long ignorados) {}
+
     private final TimeRepository repo;
+    private final TimeCatalogo catalogo;
+    private final TimeNomes nomes;
+
+    @Value("${time.stream.fetch-size:500}")
+    private int fetchSize = 500;
+
+    @Value("${time.logo.max-bytes:524288}")
+    private int maxBytesLogo = 524288;
 
-    public TimeService(TimeRepository repo) {
+    @Value("${time.import.lote:2000}")
+    private int loteImportacao = 2000;
+
+    public TimeService(TimeRepository repo, TimeCatalogo catalogo, TimeNomes nomes) {
         this.repo = repo;
+        this.catalogo = catalogo;
+        this.nomes = nomes;
     }
 
+    /**
+     * Cadastra o time num único insert; nome já cadastrado, por outra
+     * chamada ou em paralelo com esta, devolve 409. Nomes recusados há pouco
+     * nem chegam ao banco (ver {@link TimeNomes}).
+     */
     @Transactional
     public Time criar(Time t){
-        if (repo.findByNome(t.getNome()).isPresent()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nome duplicado");
+        if (nomes.existe(t.getNome())) throw nomeDuplicado();
+        TimeLogo logo = t.getLogo() != null ? validarLogo(logoDeTexto(t.getLogo())) : null;
+
+        Time salvo = repo.inserir(t.getNome(), logo != null ? logo.hash() : null).orElse(null);
+        if (salvo == null) {
+            nomes.existente(t.getNome());
+            throw nomeDuplicado();
+        }
+        if (logo != null) repo.salvarLogo(salvo.getId(), logo);
+        catalogo.invalidar();
+        return salvo;
+    }
+
+    /**
+     * Importa os nomes do {@code corpo} (CSV ou NDJSON, ver
+     * {@link TimeImportacao}) à medida que chegam, em lotes de
+     * {@code time.import.lote} nomes por comando. Nomes repetidos no próprio
+     * arquivo são descartados em memória antes de ir ao banco, os já
+     * cadastrados pelo {@code on conflict}. Tudo numa transação: um registro
+     * inválido devolve 400 e nada é importado, então repetir a importação
+     * é seguro.
+     */
+    @Transactional
+    public ResultadoImportacao importar(InputStream corpo, MediaType tipo){
+        Set<String> vistos = new HashSet<>();
+        List<String> lote = new ArrayList<>(loteImportacao);
+        long[] contagem = new long[2]; // lidos, inseridos
+        try {
+            Consumer<String> destino = nome -> {
+                contagem[0]++;
+                if (!vistos.add(nome)) return;
+                lote.add(nome);
+                if (lote.size() >= loteImportacao) {
+                    contagem[1] += repo.inserirNomes(lote);
+                    lote.clear();
+                }
+            };
+            if (MediaType.valueOf(TimeImportacao.NDJSON).isCompatibleWith(tipo)) {
+                TimeImportacao.lerNdjson(corpo, destino);
+            } else if (MediaType.valueOf(TimeImportacao.CSV).isCompatibleWith(tipo)) {
+                Charset charset = tipo.getCharset() != null ? tipo.getCharset() : StandardCharsets.UTF_8;
+                TimeImportacao.lerCsv(corpo, charset, destino);
+            } else {
+                throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Use text/csv ou application/x-ndjson");
+            }
+        } catch (TimeImportacao.RegistroInvalido e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return repo.save(t);
+        contagem[1] += repo.inserirNomes(lote);
+
+        if (contagem[1] > 0) catalogo.invalidar();
+        return new ResultadoImportacao(contagem[0], contagem[1], contagem[0] - contagem[1]);
     }
 
     public List<Time> listar(){
-        return repo.findAll();
+        return catalogo.atual().times();
+    }
+
+    /** Lista e versão do catálogo, para a ETag. */
+    public TimeCatalogo.Snapshot catalogo(){
+        return catalogo.atual();
+    }
+
+    /** Até {@code limite} times depois do id {@code depoisDe}, em ordem de id, lidos do banco. */
+    public List<Time> pagina(long depoisDe, int limite){
+        return repo.pagina(depoisDe, limite);
+    }
+
+    /**
+     * Entrega todos os times depois do id {@code depoisDe}, em ordem de id,
+     * sem montar a lista: a transação fica aberta enquanto o consumidor
+     * escreve a resposta.
+     */
+    public void percorrer(long depoisDe, Consumer<Time> consumidor){
+        repo.percorrer(depoisDe, fetchSize, consumidor);
     }
 
     public Optional<Time> buscar(Long id){
-        return repo.findById(id);
+        return catalogo.atual().buscar(id);
     }
 
     @Transactional
@@ -41,16 +144,100 @@ public class TimeService {
         Time existente = repo.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Time não encontrado"));
 
-        existente.setNome(t.getNome());
-        existente.setLogo(t.getLogo());
+        if (!Objects.equals(existente.getNome(), t.getNome())) {
+            // nome de outro time é 409, como no criar, e não 500 no commit
+            if (nomes.existe(t.getNome())) throw nomeDuplicado();
+            String anterior = existente.getNome();
+            // recarrega existente já com o nome novo, sem deixá-lo sujo para um segundo UPDATE no commit
+            if (!repo.renomear(existente, t.getNome())) {
+                nomes.existente(t.getNome());
+                throw nomeDuplicado();
+            }
+            nomes.esquecer(anterior);
+        }
+        // logo ausente mantém o atual; para remover, DELETE /api/time/{id}/logo
+        if (t.getLogo() != null) {
+            existente.setLogo(t.getLogo());
+            gravarLogo(existente, logoDeTexto(t.getLogo()));
+        }
+        catalogo.invalidar();
         return existente;
     }
 
+    /** Logo do time com os bytes, lido de {@code time_logo}. */
+    public Optional<TimeLogo> logo(Long id){
+        return repo.buscarLogo(id);
+    }
+
+    /**
+     * Hash do logo atual, lido do banco: o catálogo de outra instância pode
+     * ainda ter o hash anterior a uma troca.
+     */
+    public Optional<String> hashLogo(Long id){
+        return repo.hashLogo(id);
+    }
+
+    /**
+     * Troca o logo pelo conteúdo enviado em {@code PUT /api/time/{id}/logo}.
+     *
+     * @return o logo gravado, com o hash
+     */
+    @Transactional
+    public TimeLogo enviarLogo(Long id, byte[] conteudo, String tipo){
+        if (tipo == null || !tipo.regionMatches(true, 0, "image/", 0, 6)) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Logo deve ser uma imagem (image/*)");
+        }
+        Time existente = repo.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Time não encontrado"));
+
+        TimeLogo logo = TimeLogo.de(conteudo, tipo);
+        gravarLogo(existente, logo);
+        catalogo.invalidar();
+        return logo;
+    }
+
+    @Transactional
+    public void removerLogo(Long id){
+        Time existente = repo.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Time não encontrado"));
+
+        repo.removerLogo(existente.getId());
+        existente.setLogoHash(null);
+        catalogo.invalidar();
+    }
+
     @Transactional
     public void deletar(Long id){
         Time existente = repo.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Time não encontrado"));
 
         repo.delete(existente);
+        nomes.esquecer(existente.getNome());
+        catalogo.invalidar();
+    }
+
+    private void gravarLogo(Time time, TimeLogo logo){
+        validarLogo(logo);
+        repo.salvarLogo(time.getId(), logo);
+        time.setLogoHash(logo.hash());
+    }
+
+    private TimeLogo validarLogo(TimeLogo logo){
+        if (logo.conteudo().length > maxBytesLogo) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Logo maior que " + maxBytesLogo + " bytes");
+        }
+        return logo;
+    }
+
+    private static ResponseStatusException nomeDuplicado(){
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Nome duplicado");
+    }
+
+    private static TimeLogo logoDeTexto(String logo){
+        try {
+            return TimeLogo.deTexto(logo);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Logo inválido");
+        }
     }
 }
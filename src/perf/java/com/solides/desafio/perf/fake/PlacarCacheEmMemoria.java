@@ -0,0 +1,126 @@
+package com.solides.desafio.perf.fake;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.infra.redis.PlacarCache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link PlacarCache} em memória. Guarda os mesmos bytes JSON que iriam para
+ * o Redis, então serialização e desserialização continuam sendo medidas.
+ * O conjunto de jogos ativos nasce sincronizado: não há banco para acertar.
+ */
+public class PlacarCacheEmMemoria extends PlacarCache {
+
+    private record Entrada(byte[] json, long versao) {}
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final Map<String, Long> versoes = new ConcurrentHashMap<>();
+    private final Map<String, Long> ativos = new ConcurrentHashMap<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public PlacarCacheEmMemoria() {
+        super(null);
+    }
+
+    @Override
+    public Optional<PlacarEstado> ler(String hashId) {
+        Entrada e = entradas.get(hashId);
+        if (e == null) return Optional.empty();
+        try {
+            return Optional.of(mapper.readValue(e.json(), PlacarEstado.class));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Optional<Bruto> lerBruto(String hashId) {
+        Entrada e = entradas.get(hashId);
+        return e != null ? Optional.of(new Bruto(e.json(), e.versao())) : Optional.empty();
+    }
+
+    @Override
+    public List<byte[]> lerVarios(List<String> hashIds) {
+        List<byte[]> res = new ArrayList<>(hashIds.size());
+        for (String hashId : hashIds) {
+            Entrada e = entradas.get(hashId);
+            res.add(e != null ? e.json() : null);
+        }
+        return res;
+    }
+
+    @Override
+    public long versao(String hashId) {
+        return versoes.getOrDefault(hashId, 0L);
+    }
+
+    @Override
+    public long gravar(String hashId, PlacarEstado estado) {
+        byte[] json;
+        try {
+            json = mapper.writeValueAsBytes(estado);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        long versao = versoes.merge(hashId, 1L, Long::sum);
+        entradas.put(hashId, new Entrada(json, versao));
+        return versao;
+    }
+
+    @Override
+    public void gravarEmLote(Map<String, PlacarEstado> estados) {
+        estados.forEach(this::gravar);
+    }
+
+    @Override
+    public long gravarAtivo(String hashId, PlacarEstado estado, long inicioMs) {
+        long versao = gravar(hashId, estado);
+        ativos.put(hashId, inicioMs);
+        return versao;
+    }
+
+    @Override
+    public void remover(String hashId) {
+        entradas.remove(hashId);
+        ativos.remove(hashId);
+    }
+
+    @Override
+    public void invalidar(String hashId) {
+        // sem Redis para esperar: apaga na hora; a versão segue crescendo, como o piso do Redis
+        entradas.remove(hashId);
+    }
+
+    @Override
+    public void removerAtivo(String hashId) {
+        ativos.remove(hashId);
+    }
+
+    @Override
+    public Ativos ativos(long offset, int limite) {
+        Map<String, byte[]> placares = new LinkedHashMap<>();
+        ativos.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .skip(offset)
+                .limit(limite)
+                .forEach(e -> {
+                    Entrada entrada = entradas.get(e.getKey());
+                    placares.put(e.getKey(), entrada != null ? entrada.json() : null);
+                });
+        return new Ativos(ativos.size(), placares);
+    }
+
+    @Override
+    public long sincronizarAtivos(Map<String, Long> ativos, long corteMs) {
+        return 0;
+    }
+}
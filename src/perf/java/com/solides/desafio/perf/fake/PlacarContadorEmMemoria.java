@@ -0,0 +1,77 @@
+package com.solides.desafio.perf.fake;
+
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontos;
+import com.solides.desafio.infra.redis.PlacarContadorRedis;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link PlacarContadorRedis} em memória. Como o script Lua, incrementa o
+ * contador e reescreve o placar em cache quando ele existe.
+ */
+public class PlacarContadorEmMemoria extends PlacarContadorRedis {
+
+    private final Map<String, int[]> contadores = new ConcurrentHashMap<>();
+    private final PlacarCacheEmMemoria cache;
+
+    public PlacarContadorEmMemoria(PlacarCacheEmMemoria cache) {
+        super(null);
+        this.cache = cache;
+    }
+
+    @Override
+    public Resultado incrementar(String hashId, int deltaCasa, int deltaVisitante) {
+        int[] pontos = contadores.get(hashId);
+        if (pontos == null) return null;
+        int casa, visitante;
+        synchronized (pontos) {
+            casa = pontos[0] += deltaCasa;
+            visitante = pontos[1] += deltaVisitante;
+        }
+        Optional<PlacarEstado> doc = cache.ler(hashId);
+        if (doc.isEmpty()) return new Resultado(casa, visitante, null, null, false);
+
+        String nomeCasa = doc.get().casa().nome();
+        String nomeVisitante = doc.get().visitante().nome();
+        cache.gravar(hashId, PlacarEstado.of(nomeCasa, casa, nomeVisitante, visitante));
+        return new Resultado(casa, visitante, nomeCasa, nomeVisitante, true);
+    }
+
+    @Override
+    public Map<String, Resultado> incrementarEmLote(Map<String, Pontos> deltas) {
+        Map<String, Resultado> res = new LinkedHashMap<>();
+        deltas.forEach((hashId, d) -> {
+            Resultado r = incrementar(hashId, d.casa(), d.visitante());
+            if (r != null) res.put(hashId, r);
+        });
+        return res;
+    }
+
+    @Override
+    public Optional<Pontos> pontos(String hashId) {
+        int[] pontos = contadores.get(hashId);
+        if (pontos == null) return Optional.empty();
+        synchronized (pontos) {
+            return Optional.of(new Pontos(pontos[0], pontos[1]));
+        }
+    }
+
+    @Override
+    public void semear(String hashId, int casa, int visitante) {
+        contadores.putIfAbsent(hashId, new int[]{casa, visitante});
+    }
+
+    @Override
+    public void remover(String hashId) {
+        contadores.remove(hashId);
+    }
+
+    @Override
+    public void descartar(String hashId) {
+        contadores.remove(hashId);
+    }
+}
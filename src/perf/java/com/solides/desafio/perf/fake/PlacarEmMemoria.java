@@ -0,0 +1,59 @@
+package com.solides.desafio.perf.fake;
+
+import com.solides.desafio.infra.metricas.PlacarMetricas;
+import com.solides.desafio.infra.rabbitmq.PlacarAoVivoRabbit;
+import com.solides.desafio.infra.redis.ClassificacaoRedis;
+import com.solides.desafio.repository.ClassificacaoRepository;
+import com.solides.desafio.service.ClassificacaoService;
+import com.solides.desafio.service.PlacarAoVivo;
+import com.solides.desafio.service.PlacarAtivos;
+import com.solides.desafio.service.PlacarEventoLog;
+import com.solides.desafio.service.PlacarService;
+import com.solides.desafio.service.PlacarWriteBehind;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+
+/**
+ * Monta um {@link PlacarService} real sobre os dublês em memória, no modo de
+ * contador indicado ({@code banco}, {@code redis} ou {@code eventos}). O
+ * write-behind não tem agendador: grava em linha quando a fila enche, como
+ * sob contrapressão. No modo {@code eventos} a thread gravadora do log roda
+ * de verdade, agrupando os pontos concorrentes. Os jogos não têm competição,
+ * então a classificação nunca é consultada.
+ */
+public class PlacarEmMemoria {
+
+    public final PlacarRepositoryEmMemoria repositorio = new PlacarRepositoryEmMemoria();
+    public final PlacarCacheEmMemoria cache = new PlacarCacheEmMemoria();
+    public final PlacarContadorEmMemoria contador = new PlacarContadorEmMemoria(cache);
+    public final PlacarProducerSemBroker producer = new PlacarProducerSemBroker();
+    public final PlacarWriteBehind writeBehind;
+    public final PlacarAoVivo aoVivo = new PlacarAoVivo();
+    /** Nunca iniciado: sem broker, {@code encerrar} não faz nada. */
+    public final PlacarAoVivoRabbit aoVivoRabbit = new PlacarAoVivoRabbit(aoVivo);
+    public final PlacarEventoRepositoryEmMemoria eventos = new PlacarEventoRepositoryEmMemoria(repositorio);
+    public final PlacarEventoLog eventoLog;
+    public final PlacarAtivos ativos;
+    public final PlacarService service;
+
+    public PlacarEmMemoria(String modoContador) {
+        this(modoContador, new SimpleMeterRegistry());
+    }
+
+    public PlacarEmMemoria(String modoContador, MeterRegistry registry) {
+        writeBehind = new PlacarWriteBehind(repositorio, registry);
+        eventoLog = new PlacarEventoLog(eventos, registry);
+        ativos = new PlacarAtivos(repositorio, cache, registry);
+        service = new PlacarService(repositorio, producer, cache, contador, writeBehind, aoVivo, aoVivoRabbit, eventoLog,
+                new PlacarMetricas(registry),
+                new ClassificacaoService(new ClassificacaoRepository(), new ClassificacaoRedis(new RedisIndisponivel()), registry));
+        // modoContador vem de @Value; fora do Spring é preenchido aqui
+        Field modo = ReflectionUtils.findField(PlacarService.class, "modoContador");
+        ReflectionUtils.makeAccessible(modo);
+        ReflectionUtils.setField(modo, service, modoContador);
+        if ("eventos".equalsIgnoreCase(modoContador)) eventoLog.iniciar();
+    }
+}
@@ -0,0 +1,52 @@
+package com.solides.desafio.perf.fake;
+
+import com.solides.desafio.domain.Lance;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontuacao;
+import com.solides.desafio.repository.PlacarEventoRepository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link PlacarEventoRepository} em memória. Os eventos são somados direto
+ * no {@link PlacarRepositoryEmMemoria}, como se a consolidação fosse
+ * imediata, e não guardam histórico.
+ */
+public class PlacarEventoRepositoryEmMemoria extends PlacarEventoRepository {
+
+    private final PlacarRepositoryEmMemoria placares;
+    private final AtomicLong lotesGravados = new AtomicLong();
+
+    public PlacarEventoRepositoryEmMemoria(PlacarRepositoryEmMemoria placares) {
+        this.placares = placares;
+    }
+
+    @Override
+    public Anexacao anexar(List<Pontuacao> eventos) {
+        lotesGravados.incrementAndGet();
+        Map<String, PlacarEstado> res = new LinkedHashMap<>();
+        for (Pontuacao p : eventos) {
+            boolean casa = "casa".equals(p.lado());
+            placares.incrementar(p.hashId(), casa ? p.delta() : 0, casa ? 0 : p.delta())
+                    .ifPresent(estado -> res.put(p.hashId(), estado));
+        }
+        return Anexacao.de(res);
+    }
+
+    @Override
+    public int consolidar(int lote) {
+        return 0;
+    }
+
+    @Override
+    public List<Lance> listar(String hashId) {
+        return List.of();
+    }
+
+    public long getLotesGravados() {
+        return lotesGravados.get();
+    }
+}
@@ -0,0 +1,26 @@
+package com.solides.desafio.perf.fake;
+
+import com.solides.desafio.infra.rabbitmq.PlacarProducer;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/** {@link PlacarProducer} que só conta os eventos, sem RabbitMQ. */
+public class PlacarProducerSemBroker extends PlacarProducer {
+
+    private final LongAdder enviados = new LongAdder();
+
+    @Override
+    public void enviarEvento(String json) {
+        enviados.increment();
+    }
+
+    @Override
+    public void enviarEventos(List<String> jsons) {
+        enviados.add(jsons.size());
+    }
+
+    public long getEnviados() {
+        return enviados.sum();
+    }
+}
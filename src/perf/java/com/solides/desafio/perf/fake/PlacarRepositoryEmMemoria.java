@@ -0,0 +1,102 @@
+package com.solides.desafio.perf.fake;
+
+import com.solides.desafio.domain.Classificacao;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontos;
+import com.solides.desafio.repository.PlacarRepository;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link PlacarRepository} em memória, para medir o caminho de pontuação sem
+ * Postgres. Os incrementos são atômicos por placar, como o UPDATE real.
+ */
+public class PlacarRepositoryEmMemoria extends PlacarRepository {
+
+    private final Map<String, PlacarEstado> placares = new ConcurrentHashMap<>();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final AtomicLong lotesGravados = new AtomicLong();
+
+    @Override
+    public Inicio iniciar(PlacarEstado estado, String competicao) {
+        String hashId = Long.toHexString(sequencia.incrementAndGet());
+        placares.put(hashId, estado);
+        return new Inicio(hashId, System.currentTimeMillis());
+    }
+
+    @Override
+    public String atualizar(String hashId, String patchJson) {
+        return null;
+    }
+
+    @Override
+    public Optional<PlacarEstado> incrementar(String hashId, int deltaCasa, int deltaVisitante) {
+        return Optional.ofNullable(placares.computeIfPresent(hashId, (k, atual) -> PlacarEstado.of(
+                atual.casa().nome(), atual.casa().pontos() + deltaCasa,
+                atual.visitante().nome(), atual.visitante().pontos() + deltaVisitante)));
+    }
+
+    @Override
+    public Map<String, PlacarEstado> incrementarEmLote(Map<String, Pontos> deltas) {
+        Map<String, PlacarEstado> res = new LinkedHashMap<>();
+        deltas.forEach((hashId, d) -> incrementar(hashId, d.casa(), d.visitante())
+                .ifPresent(estado -> res.put(hashId, estado)));
+        return res;
+    }
+
+    @Override
+    public int atualizarEmLote(Map<String, Pontos> pontos) {
+        lotesGravados.incrementAndGet();
+        int n = 0;
+        for (Map.Entry<String, Pontos> e : pontos.entrySet()) {
+            // como o UPDATE: placar com mais pontos que os enviados fica como está
+            Pontos p = e.getValue();
+            boolean[] gravado = new boolean[1];
+            placares.computeIfPresent(e.getKey(), (k, atual) -> {
+                if (atual.casa().pontos() + atual.visitante().pontos() > p.casa() + p.visitante()) return atual;
+                gravado[0] = true;
+                return PlacarEstado.of(atual.casa().nome(), p.casa(), atual.visitante().nome(), p.visitante());
+            });
+            if (gravado[0]) n++;
+        }
+        return n;
+    }
+
+    @Override
+    public List<Classificacao> finalizar(String hashId) {
+        // sem classificação em memória: o teste de carga não usa competições
+        placares.remove(hashId);
+        return List.of();
+    }
+
+    @Override
+    public Optional<PlacarEstado> buscarPorHash(String hashId) {
+        return Optional.ofNullable(placares.get(hashId));
+    }
+
+    @Override
+    public Map<String, PlacarEstado> buscarPorHashes(Collection<String> hashIds) {
+        Map<String, PlacarEstado> res = new LinkedHashMap<>();
+        for (String hashId : hashIds) {
+            PlacarEstado estado = placares.get(hashId);
+            if (estado != null) res.put(hashId, estado);
+        }
+        return res;
+    }
+
+    @Override
+    public Map<String, PlacarEstado> buscarAtivosPorHashes(Collection<String> hashIds) {
+        // finalizar tira o placar do mapa: todo placar aqui está em andamento
+        return buscarPorHashes(hashIds);
+    }
+
+    public long getLotesGravados() {
+        return lotesGravados.get();
+    }
+}
@@ -0,0 +1,17 @@
+package com.solides.desafio.perf.fake;
+
+import com.solides.desafio.infra.redis.RedisClientProvider;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * {@link RedisClientProvider} sem Redis: toda conexão falha na hora, como um
+ * Redis fora do ar, para os componentes que seguem sem ele.
+ */
+public class RedisIndisponivel extends RedisClientProvider {
+
+    @Override
+    public Jedis getJedis() {
+        throw new JedisConnectionException("Redis indisponível (dublê em memória)");
+    }
+}
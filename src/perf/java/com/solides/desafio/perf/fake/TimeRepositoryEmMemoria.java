@@ -0,0 +1,127 @@
+package com.solides.desafio.perf.fake;
+
+import com.solides.desafio.domain.Time;
+import com.solides.desafio.domain.TimeLogo;
+import com.solides.desafio.repository.TimeRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/** {@link TimeRepository} em memória. */
+public class TimeRepositoryEmMemoria extends TimeRepository {
+
+    private final Map<Integer, Time> times = new ConcurrentHashMap<>();
+    private final Map<Integer, TimeLogo> logos = new ConcurrentHashMap<>();
+    private final AtomicInteger sequencia = new AtomicInteger();
+    private final ReentrantLock nomes = new ReentrantLock();
+
+    @Override
+    public Time save(Time t) {
+        if (t.getId() == null) t.setId(sequencia.incrementAndGet());
+        times.put(t.getId(), t);
+        return t;
+    }
+
+    @Override
+    public Optional<Time> inserir(String nome, String logoHash) {
+        // o lock faz o papel do índice único
+        nomes.lock();
+        try {
+            if (porNome(nome).isPresent()) return Optional.empty();
+            Time t = new Time();
+            t.setNome(nome);
+            t.setLogoHash(logoHash);
+            return Optional.of(save(t));
+        } finally {
+            nomes.unlock();
+        }
+    }
+
+    @Override
+    public boolean renomear(Time time, String nome) {
+        nomes.lock();
+        try {
+            Optional<Time> outro = porNome(nome);
+            if (outro.isPresent() && !outro.get().getId().equals(time.getId())) return false;
+            Time t = times.get(time.getId());
+            if (t != null) t.setNome(nome);
+            time.setNome(nome);
+            return true;
+        } finally {
+            nomes.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Time> findById(Long id) {
+        return Optional.ofNullable(times.get(id.intValue()));
+    }
+
+    @Override
+    public void delete(Time t) {
+        times.remove(t.getId());
+        logos.remove(t.getId());
+    }
+
+    @Override
+    public List<Time> findAll() {
+        return new ArrayList<>(times.values());
+    }
+
+    @Override
+    public List<Time> pagina(long depoisDe, int limite) {
+        return times.values().stream()
+                .filter(t -> t.getId() > depoisDe)
+                .sorted(Comparator.comparing(Time::getId))
+                .limit(limite)
+                .toList();
+    }
+
+    @Override
+    public void percorrer(long depoisDe, int fetchSize, Consumer<Time> consumidor) {
+        times.values().stream()
+                .filter(t -> t.getId() > depoisDe)
+                .sorted(Comparator.comparing(Time::getId))
+                .forEach(consumidor);
+    }
+
+    @Override
+    public int inserirNomes(List<String> nomes) {
+        int inseridos = 0;
+        for (String nome : nomes) {
+            if (inserir(nome, null).isPresent()) inseridos++;
+        }
+        return inseridos;
+    }
+
+    @Override
+    public Optional<TimeLogo> buscarLogo(long timeId) {
+        return Optional.ofNullable(logos.get((int) timeId));
+    }
+
+    @Override
+    public Optional<String> hashLogo(long timeId) {
+        return buscarLogo(timeId).map(TimeLogo::hash);
+    }
+
+    @Override
+    public void salvarLogo(int timeId, TimeLogo logo) {
+        logos.put(timeId, logo);
+    }
+
+    @Override
+    public void removerLogo(int timeId) {
+        logos.remove(timeId);
+    }
+
+    private Optional<Time> porNome(String nome) {
+        return times.values().stream().filter(t -> t.getNome() != null && t.getNome().equals(nome)).findFirst();
+    }
+}
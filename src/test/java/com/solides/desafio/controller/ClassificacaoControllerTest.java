@@ -0,0 +1,105 @@
+package com.solides.desafio.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solides.desafio.service.ClassificacaoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClassificacaoControllerTest {
+
+    @Mock
+    ClassificacaoService service;
+
+    MockMvc mvc;
+
+    private static final ClassificacaoService.Linha A = new ClassificacaoService.Linha(1, "A", 3, 1, 1, 0, 0, 2, 1, 1);
+
+    @BeforeEach
+    void setup() {
+        mvc = MockMvcBuilders.standaloneSetup(new ClassificacaoController(service))
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(new ObjectMapper()))
+                .build();
+    }
+
+    @Test
+    void pagina_shouldUseDefaultLimit() throws Exception {
+        when(service.pagina("br", 0, 20)).thenReturn(List.of(A));
+
+        mvc.perform(get("/api/classificacao/br"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"posicao\":1,\"time\":\"A\",\"pontos\":3,\"jogos\":1,\"vitorias\":1,"
+                        + "\"empates\":0,\"derrotas\":0,\"marcados\":2,\"sofridos\":1,\"saldo\":1}]"));
+    }
+
+    @Test
+    void pagina_shouldCapLimit() throws Exception {
+        when(service.pagina("br", 40, 100)).thenReturn(List.of());
+
+        mvc.perform(get("/api/classificacao/br").param("offset", "40").param("limit", "5000"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+    }
+
+    @Test
+    void pagina_shouldReturn400_whenParamsInvalid() throws Exception {
+        mvc.perform(get("/api/classificacao/br").param("offset", "-1"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/classificacao/br").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/classificacao/a:b"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void posicao_shouldReturnRow() throws Exception {
+        when(service.posicao("br", "A")).thenReturn(Optional.of(A));
+
+        mvc.perform(get("/api/classificacao/br/times/A"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posicao").value(1))
+                .andExpect(jsonPath("$.saldo").value(1));
+    }
+
+    @Test
+    void posicao_shouldReturn404_whenTeamNotInCompetition() throws Exception {
+        when(service.posicao("br", "Z")).thenReturn(Optional.empty());
+
+        mvc.perform(get("/api/classificacao/br/times/Z"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void reconstruir_shouldReturn204() throws Exception {
+        when(service.reconstruir("br")).thenReturn(2);
+
+        mvc.perform(post("/api/classificacao/br/reconstruir"))
+                .andExpect(status().isNoContent());
+
+        verify(service).reconstruir("br");
+    }
+
+    @Test
+    void pagina_shouldReturn500_whenServiceFails() throws Exception {
+        when(service.pagina(anyString(), anyLong(), anyInt())).thenThrow(new RuntimeException("boom"));
+
+        mvc.perform(get("/api/classificacao/br"))
+                .andExpect(status().isInternalServerError());
+    }
+}
@@ -2,6 +2,13 @@ package com.solides.desafio.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.solides.desafio.domain.Lance;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontuacao;
+import com.solides.desafio.infra.redis.PlacarCache;
+import com.solides.desafio.service.PlacarAoVivo;
+import com.solides.desafio.service.PlacarAtivos;
 import com.solides.desafio.service.PlacarService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,12 +16,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -26,15 +44,22 @@ class PlacarControllerTest {
     @Mock
     PlacarService placarService;
 
+    @Mock
+    PlacarAoVivo aoVivo;
+
+    @Mock
+    PlacarAtivos ativos;
+
+    PlacarController controller;
     MockMvc mvc;
     ObjectMapper mapper;
 
     @BeforeEach
     void setup() {
         mapper = new ObjectMapper();
-        PlacarController controller = new PlacarController(placarService);
+        controller = new PlacarController(placarService, aoVivo, ativos);
         mvc = MockMvcBuilders.standaloneSetup(controller)
-                .setMessageConverters(new MappingJackson2HttpMessageConverter(mapper))
+                .setMessageConverters(new ByteArrayHttpMessageConverter(), new MappingJackson2HttpMessageConverter(mapper))
                 .build();
     }
 
@@ -45,7 +70,7 @@ class PlacarControllerTest {
         payload.set("time_visitante", mapper.createObjectNode().put("nome", "B").put("pontos", 0));
         String response = "{\"hash_id\":\"abc123\"}";
 
-        when(placarService.iniciar(anyString())).thenReturn(response);
+        when(placarService.iniciar(any(PlacarEstado.class), isNull())).thenReturn("abc123");
 
         mvc.perform(post("/api/placar/iniciar")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -54,6 +79,104 @@ class PlacarControllerTest {
                 .andExpect(content().json(response));
     }
 
+    @Test
+    void iniciar_shouldPassCompeticao() throws Exception {
+        ObjectNode payload = mapper.createObjectNode();
+        payload.set("time_da_casa", mapper.createObjectNode().put("nome", "A").put("pontos", 0));
+        payload.set("time_visitante", mapper.createObjectNode().put("nome", "B").put("pontos", 0));
+        when(placarService.iniciar(any(PlacarEstado.class), eq("brasileirao-2025"))).thenReturn("abc123");
+
+        mvc.perform(post("/api/placar/iniciar").param("competicao", "brasileirao-2025")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(payload)))
+                .andExpect(status().isCreated())
+                .andExpect(content().json("{\"hash_id\":\"abc123\"}"));
+    }
+
+    @Test
+    void iniciar_shouldReturn400_whenCompeticaoInvalid() throws Exception {
+        ObjectNode payload = mapper.createObjectNode();
+        payload.set("time_da_casa", mapper.createObjectNode().put("nome", "A").put("pontos", 0));
+        payload.set("time_visitante", mapper.createObjectNode().put("nome", "B").put("pontos", 0));
+
+        mvc.perform(post("/api/placar/iniciar").param("competicao", "com espaço")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(payload)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(placarService);
+    }
+
+    @Test
+    void buscarVarios_shouldReturnMapKeyedByHashId() throws Exception {
+        Map<String, byte[]> placares = new LinkedHashMap<>();
+        placares.put("abc", "{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":2}}".getBytes(StandardCharsets.UTF_8));
+        placares.put("nada", null);
+        when(placarService.buscarVarios(List.of("abc", "nada"))).thenReturn(placares);
+
+        mvc.perform(post("/api/placar/buscar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"abc\",\"nada\"]"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"abc\":{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":2}},\"nada\":null}", true));
+    }
+
+    @Test
+    void buscarVarios_shouldReturn400_whenBodyIsNotArrayOfIds() throws Exception {
+        mvc.perform(post("/api/placar/buscar").contentType(MediaType.APPLICATION_JSON).content("{\"hash_id\":\"abc\"}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/placar/buscar").contentType(MediaType.APPLICATION_JSON).content("[\"abc\", 1]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(placarService);
+    }
+
+    @Test
+    void buscarVarios_shouldReturn413_whenTooManyIds() throws Exception {
+        ReflectionTestUtils.setField(controller, "maxItensBusca", 2);
+
+        mvc.perform(post("/api/placar/buscar").contentType(MediaType.APPLICATION_JSON).content("[\"a\",\"b\",\"c\"]"))
+                .andExpect(status().isPayloadTooLarge());
+
+        verifyNoInteractions(placarService);
+    }
+
+    @Test
+    void listar_shouldReturnActiveGamesWithCachedJson() throws Exception {
+        Map<String, byte[]> placares = new LinkedHashMap<>();
+        placares.put("abc", "{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":2}}".getBytes(StandardCharsets.UTF_8));
+        placares.put("xyz", "{\"time_da_casa\":{\"nome\":\"C\",\"pontos\":0}}".getBytes(StandardCharsets.UTF_8));
+        when(ativos.pagina(0, 50)).thenReturn(new PlacarAtivos.Pagina(7, placares));
+
+        mvc.perform(get("/api/placar").param("status", "ATIVO"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"total\":7,\"offset\":0,\"placares\":["
+                        + "{\"hash_id\":\"abc\",\"placar\":{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":2}}},"
+                        + "{\"hash_id\":\"xyz\",\"placar\":{\"time_da_casa\":{\"nome\":\"C\",\"pontos\":0}}}]}", true));
+    }
+
+    @Test
+    void listar_shouldCapLimit() throws Exception {
+        when(ativos.pagina(10, 200)).thenReturn(new PlacarAtivos.Pagina(0, Map.of()));
+
+        mvc.perform(get("/api/placar").param("status", "ativo").param("offset", "10").param("limit", "10000"))
+                .andExpect(status().isOk());
+
+        verify(ativos).pagina(10, 200);
+    }
+
+    @Test
+    void listar_shouldReturn400_withoutStatusAtivo() throws Exception {
+        mvc.perform(get("/api/placar"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/placar").param("status", "FINALIZADO"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/placar").param("status", "ATIVO").param("offset", "-1"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(ativos);
+    }
+
     @Test
     void iniciar_shouldReturn400_whenPayloadEmpty() throws Exception {
         mvc.perform(post("/api/placar/iniciar")
@@ -62,10 +185,33 @@ class PlacarControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void iniciar_shouldReturn400_whenPayloadHasUnknownFields() throws Exception {
+        // mesma configuração do ObjectMapper do Spring Boot, que não falha em campos desconhecidos
+        MockMvc boot = MockMvcBuilders.standaloneSetup(controller)
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build()))
+                .build();
+
+        boot.perform(post("/api/placar/iniciar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":0},"
+                                + "\"time_visitante\":{\"nome\":\"B\",\"pontos\":0},\"estadio\":\"X\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Campo desconhecido no placar: estadio"));
+        boot.perform(post("/api/placar/iniciar")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":0,\"escudo\":\"a.png\"},"
+                                + "\"time_visitante\":{\"nome\":\"B\",\"pontos\":0}}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Campo desconhecido em time: escudo"));
+
+        verifyNoInteractions(placarService);
+    }
+
     @Test
     void pontuar_shouldReturn200_whenQueryParamProvided() throws Exception {
         String updated = "{\"time_da_casa\":{\"pontos\":1},\"time_visitante\":{\"pontos\":0}}";
-        when(placarService.pontuar(eq("abc123"), eq("casa"))).thenReturn(updated);
+        when(placarService.pontuar(eq("abc123"), eq("casa"), isNull())).thenReturn(PlacarEstado.of(null, 1, null, 0));
 
         mvc.perform(post("/api/placar/pontuar/abc123")
                         .param("lado", "casa"))
@@ -77,7 +223,7 @@ class PlacarControllerTest {
     void pontuar_shouldReturn200_whenBodyContainsLado() throws Exception {
         String body = "{\"lado\":\"visitante\"}";
         String updated = "{\"time_da_casa\":{\"pontos\":1},\"time_visitante\":{\"pontos\":1}}";
-        when(placarService.pontuar(eq("abc123"), eq("visitante"))).thenReturn(updated);
+        when(placarService.pontuar(eq("abc123"), eq("visitante"), isNull())).thenReturn(PlacarEstado.of(null, 1, null, 1));
 
         mvc.perform(post("/api/placar/pontuar/abc123")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -96,7 +242,7 @@ class PlacarControllerTest {
 
     @Test
     void pontuar_shouldReturn404_whenServiceThrowsNotFound() throws Exception {
-        when(placarService.pontuar(eq("nope"), eq("casa")))
+        when(placarService.pontuar(eq("nope"), eq("casa"), isNull()))
                 .thenThrow(new IllegalArgumentException("Placar não encontrado: nope"));
 
         mvc.perform(post("/api/placar/pontuar/nope")
@@ -104,24 +250,170 @@ class PlacarControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void pontuarLote_shouldAcceptJsonArray_andReturnPerItemResults() throws Exception {
+        when(placarService.pontuarLote(List.of(new Pontuacao("a", "casa", 1), new Pontuacao("b", "meio", 2))))
+                .thenReturn(List.of(
+                        new PlacarService.ResultadoLote(PlacarService.StatusLote.OK, PlacarEstado.of("A", 1, "B", 0), null),
+                        new PlacarService.ResultadoLote(PlacarService.StatusLote.INVALIDO, null, "lado inválido")));
+
+        mvc.perform(post("/api/placar/pontuar/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"hash_id\":\"a\",\"lado\":\"casa\"},{\"hash_id\":\"b\",\"lado\":\"meio\",\"delta\":2}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"total\":2,\"aplicados\":1,\"resultados\":["
+                        + "{\"indice\":0,\"hash_id\":\"a\",\"status\":\"ok\",\"placar\":{\"time_da_casa\":{\"pontos\":1}}},"
+                        + "{\"indice\":1,\"hash_id\":\"b\",\"status\":\"invalido\",\"error\":\"lado inválido\"}]}"));
+    }
+
+    @Test
+    void pontuarLote_shouldAcceptNdjson() throws Exception {
+        when(placarService.pontuarLote(anyList())).thenAnswer(inv -> {
+            List<Pontuacao> itens = inv.getArgument(0);
+            return itens.stream()
+                    .map(p -> new PlacarService.ResultadoLote(PlacarService.StatusLote.OK, PlacarEstado.of("A", 1, "B", 0), null))
+                    .toList();
+        });
+
+        mvc.perform(post("/api/placar/pontuar/lote")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"hash_id\":\"a\",\"lado\":\"casa\"}\n{\"hash_id\":\"a\",\"lado\":\"visitante\",\"delta\":3}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"total\":2,\"aplicados\":2}"));
+
+        verify(placarService).pontuarLote(List.of(new Pontuacao("a", "casa", 1), new Pontuacao("a", "visitante", 3)));
+    }
+
+    @Test
+    void pontuarLote_shouldReturn400_whenBodyIsMalformed() throws Exception {
+        mvc.perform(post("/api/placar/pontuar/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"hash_id\":"))
+                .andExpect(status().isBadRequest());
+
+        verify(placarService, never()).pontuarLote(anyList());
+    }
+
+    @Test
+    void pontuarLote_shouldReturn413_whenAboveLimit() throws Exception {
+        ReflectionTestUtils.setField(controller, "maxItensLote", 1);
+
+        mvc.perform(post("/api/placar/pontuar/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"hash_id\":\"a\",\"lado\":\"casa\"},{\"hash_id\":\"b\",\"lado\":\"casa\"}]"))
+                .andExpect(status().isPayloadTooLarge());
+
+        verify(placarService, never()).pontuarLote(anyList());
+    }
+
     @Test
     void buscar_shouldReturn200_whenFound() throws Exception {
-        String json = "{\"time_da_casa\":{\"pontos\":1},\"time_visitante\":{\"pontos\":0}}";
-        when(placarService.buscar("abc123")).thenReturn(Optional.of(json));
+        String json = "{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":1},\"time_visitante\":{\"nome\":\"B\",\"pontos\":0}}";
+        when(placarService.buscarBruto("abc123"))
+                .thenReturn(Optional.of(new PlacarCache.Bruto(json.getBytes(StandardCharsets.UTF_8), 7)));
 
         mvc.perform(get("/api/placar/abc123"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v7\""))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(content().json(json));
     }
 
+    @Test
+    void buscar_shouldOmitEtag_whenVersionUnknown() throws Exception {
+        when(placarService.buscarBruto("abc123"))
+                .thenReturn(Optional.of(new PlacarCache.Bruto("{}".getBytes(StandardCharsets.UTF_8), 0)));
+
+        mvc.perform(get("/api/placar/abc123"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    void buscar_shouldReturn304_whenEtagMatches() throws Exception {
+        when(placarService.versao("abc123")).thenReturn(7L);
+
+        mvc.perform(get("/api/placar/abc123").header("If-None-Match", "\"v6\", W/\"v7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"v7\""));
+
+        verify(placarService, never()).buscarBruto(anyString());
+    }
+
+    @Test
+    void buscar_shouldReturn200_whenEtagIsStale() throws Exception {
+        when(placarService.versao("abc123")).thenReturn(8L);
+        when(placarService.buscarBruto("abc123"))
+                .thenReturn(Optional.of(new PlacarCache.Bruto("{}".getBytes(StandardCharsets.UTF_8), 8)));
+
+        mvc.perform(get("/api/placar/abc123").header("If-None-Match", "\"v7\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v8\""));
+    }
+
     @Test
     void buscar_shouldReturn404_whenNotFound() throws Exception {
-        when(placarService.buscar("notfound")).thenReturn(Optional.empty());
+        when(placarService.buscarBruto("notfound")).thenReturn(Optional.empty());
 
         mvc.perform(get("/api/placar/notfound"))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void stream_shouldSubscribeWithLastEventId() {
+        PlacarEstado atual = PlacarEstado.of("A", 5, "B", 3);
+        SseEmitter emitter = new SseEmitter();
+        when(placarService.buscar("abc123")).thenReturn(Optional.of(atual));
+        when(aoVivo.assinar("abc123", 7L, atual)).thenReturn(emitter);
+
+        ResponseEntity<SseEmitter> res = new PlacarController(placarService, aoVivo, ativos).stream("abc123", "7");
+
+        assertEquals(200, res.getStatusCode().value());
+        assertSame(emitter, res.getBody());
+    }
+
+    @Test
+    void stream_shouldTreatInvalidLastEventIdAsNewConnection() {
+        PlacarEstado atual = PlacarEstado.of("A", 0, "B", 0);
+        when(placarService.buscar("abc123")).thenReturn(Optional.of(atual));
+
+        new PlacarController(placarService, aoVivo, ativos).stream("abc123", "xyz");
+
+        verify(aoVivo).assinar("abc123", -1L, atual);
+    }
+
+    @Test
+    void stream_shouldReturn404_whenNotFound() throws Exception {
+        when(placarService.buscar("nope")).thenReturn(Optional.empty());
+
+        mvc.perform(get("/api/placar/nope/stream"))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(aoVivo);
+    }
+
+    @Test
+    void eventos_shouldReturnLog_withScoreAfterEachEvent() throws Exception {
+        mapper.registerModule(new JavaTimeModule());
+        when(placarService.lances("abc123")).thenReturn(Optional.of(List.of(
+                new Lance(7, "casa", 1, LocalDateTime.of(2025, 1, 1, 12, 0), 1, 0),
+                new Lance(9, "visitante", 2, LocalDateTime.of(2025, 1, 1, 12, 5), 1, 2))));
+
+        mvc.perform(get("/api/placar/abc123/eventos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].seq").value(7))
+                .andExpect(jsonPath("$[1].lado").value("visitante"))
+                .andExpect(jsonPath("$[1].pontos_casa").value(1))
+                .andExpect(jsonPath("$[1].pontos_visitante").value(2));
+    }
+
+    @Test
+    void eventos_shouldReturn404_whenNotFound() throws Exception {
+        when(placarService.lances("nope")).thenReturn(Optional.empty());
+
+        mvc.perform(get("/api/placar/nope/eventos"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void finalizar_shouldReturn204_whenOk() throws Exception {
         doNothing().when(placarService).finalizar("abc123");
@@ -2,6 +2,8 @@ package com.solides.desafio.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.solides.desafio.domain.Time;
+import com.solides.desafio.domain.TimeLogo;
+import com.solides.desafio.service.TimeCatalogo;
 import com.solides.desafio.service.TimeService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,19 +11,36 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.Mockito.any;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TimeController.class)
 class TimeControllerTest {
 
+    static final TimeLogo LOGO = TimeLogo.de(new byte[]{(byte) 0x89, 'P', 'N', 'G', 1, 2, 3}, "image/png");
+
     @Autowired MockMvc mvc;
     @MockBean TimeService service;
     @Autowired ObjectMapper mapper;
@@ -41,10 +60,183 @@ class TimeControllerTest {
     @Test
     void listar_ok() throws Exception {
         Time t1 = new Time(); t1.setNome("A");
-        when(service.listar()).thenReturn(List.of(t1));
+        when(service.catalogo()).thenReturn(new TimeCatalogo.Snapshot(3, List.of(t1), Map.of()));
 
         mvc.perform(get("/api/time"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v3\""))
                 .andExpect(jsonPath("$[0].nome").value("A"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void listar_shouldReturn304_whenIfNoneMatchIsCurrentVersion() throws Exception {
+        when(service.catalogo()).thenReturn(new TimeCatalogo.Snapshot(3, List.of(new Time()), Map.of()));
+
+        mvc.perform(get("/api/time").header("If-None-Match", "\"v3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mvc.perform(get("/api/time").header("If-None-Match", "\"v2\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void listar_shouldOmitEtag_whenVersionUnknown() throws Exception {
+        when(service.catalogo()).thenReturn(new TimeCatalogo.Snapshot(0, List.of(new Time()), Map.of()));
+
+        mvc.perform(get("/api/time").header("If-None-Match", "*"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    void buscar_shouldServeFromCatalog() throws Exception {
+        Time t = new Time(); t.setId(7); t.setNome("A");
+        when(service.catalogo()).thenReturn(new TimeCatalogo.Snapshot(3, List.of(t), Map.of(7L, t)));
+
+        mvc.perform(get("/api/time/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v3\""))
+                .andExpect(jsonPath("$.nome").value("A"));
+        mvc.perform(get("/api/time/8"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void listar_withAfter_shouldReturnKeysetPageWithNextLink() throws Exception {
+        Time t6 = new Time(); t6.setId(6); t6.setNome("F");
+        Time t7 = new Time(); t7.setId(7); t7.setNome("G");
+        when(service.pagina(5L, 2)).thenReturn(List.of(t6, t7));
+
+        mvc.perform(get("/api/time").param("after", "5").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].nome").value("G"))
+                .andExpect(header().string("Link", containsString("after=7")))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")));
+    }
+
+    @Test
+    void listar_lastPage_shouldNotHaveNextLink() throws Exception {
+        Time t6 = new Time(); t6.setId(6);
+        when(service.pagina(0L, 100)).thenReturn(List.of(t6));
+
+        mvc.perform(get("/api/time").param("limit", "100"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    void exportar_shouldStreamOneJsonPerLine() throws Exception {
+        doAnswer(inv -> {
+            Consumer<Time> consumidor = inv.getArgument(1);
+            for (int i = 1; i <= 2; i++) {
+                Time t = new Time(); t.setId(i); t.setNome("T" + i);
+                consumidor.accept(t);
+            }
+            return null;
+        }).when(service).percorrer(eq(0L), any());
+
+        MvcResult res = mvc.perform(get("/api/time").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(res))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(
+                        "{\"id\":1,\"nome\":\"T1\",\"logo_url\":null}\n{\"id\":2,\"nome\":\"T2\",\"logo_url\":null}\n"));
+    }
+
+    @Test
+    void buscar_shouldReturnLogoUrlInsteadOfContent() throws Exception {
+        Time t = new Time(); t.setId(7); t.setNome("A"); t.setLogoHash(LOGO.hash());
+        when(service.catalogo()).thenReturn(new TimeCatalogo.Snapshot(3, List.of(t), Map.of(7L, t)));
+
+        mvc.perform(get("/api/time/7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.logo").doesNotExist())
+                .andExpect(jsonPath("$.logo_url").value("/api/time/7/logo?v=" + LOGO.hash().substring(0, 16)));
+    }
+
+    @Test
+    void logo_shouldServeBytesWithHashEtag_andImmutableCacheWhenVersioned() throws Exception {
+        when(service.logo(7L)).thenReturn(Optional.of(LOGO));
+
+        mvc.perform(get("/api/time/7/logo").param("v", LOGO.hash().substring(0, 16)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(LOGO.conteudo()))
+                .andExpect(header().string("ETag", "\"" + LOGO.hash() + "\""))
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"));
+
+        mvc.perform(get("/api/time/7/logo"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("no-cache")));
+    }
+
+    @Test
+    void logo_shouldReturn304AgainstStoredHash_withoutReadingBytes() throws Exception {
+        when(service.hashLogo(7L)).thenReturn(Optional.of(LOGO.hash()));
+
+        mvc.perform(get("/api/time/7/logo").header("If-None-Match", "\"" + LOGO.hash() + "\""))
+                .andExpect(status().isNotModified());
+        verify(service, never()).logo(any());
+        verify(service, never()).buscar(any());
+    }
+
+    @Test
+    void logo_shouldServeNewLogo_whenCatalogStillHasOldHash() throws Exception {
+        // outra instância trocou o logo; o catálogo daqui ainda tem o hash antigo
+        Time t = new Time(); t.setId(7); t.setLogoHash("antigo");
+        when(service.buscar(7L)).thenReturn(Optional.of(t));
+        when(service.hashLogo(7L)).thenReturn(Optional.of(LOGO.hash()));
+        when(service.logo(7L)).thenReturn(Optional.of(LOGO));
+
+        mvc.perform(get("/api/time/7/logo").header("If-None-Match", "\"antigo\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + LOGO.hash() + "\""));
+    }
+
+    @Test
+    void logo_notFound() throws Exception {
+        when(service.logo(7L)).thenReturn(Optional.empty());
+
+        mvc.perform(get("/api/time/7/logo"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void enviarLogo_shouldStoreBinaryBody() throws Exception {
+        when(service.enviarLogo(eq(7L), aryEq(LOGO.conteudo()), eq("image/png"))).thenReturn(LOGO);
+
+        mvc.perform(put("/api/time/7/logo").contentType("image/png").content(LOGO.conteudo()))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"" + LOGO.hash() + "\""));
+    }
+
+    @Test
+    void enviarLogo_shouldReturn413_whenContentLengthAboveLimit() throws Exception {
+        mvc.perform(put("/api/time/7/logo").contentType("image/png").content(new byte[524289]))
+                .andExpect(status().isPayloadTooLarge());
+        verify(service, never()).enviarLogo(any(), any(), any());
+    }
+
+    @Test
+    void importar_shouldPassBodyAndContentTypeToService() throws Exception {
+        when(service.importar(any(), eq(MediaType.parseMediaType("text/csv;charset=UTF-8"))))
+                .thenReturn(new TimeService.ResultadoImportacao(3, 2, 1));
+
+        mvc.perform(post("/api/time/import").contentType("text/csv;charset=UTF-8").content("nome\nA\nB\nA\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lidos").value(3))
+                .andExpect(jsonPath("$.inseridos").value(2))
+                .andExpect(jsonPath("$.ignorados").value(1));
+    }
+
+    @Test
+    void importar_unsupportedFormat_shouldReturn415() throws Exception {
+        mvc.perform(post("/api/time/import").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+}
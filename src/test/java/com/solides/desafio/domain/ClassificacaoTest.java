@@ -0,0 +1,20 @@
+package com.solides.desafio.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassificacaoTest {
+
+    @Test
+    void score_shouldOrderByPontosThenVitoriasThenSaldoThenMarcados() {
+        Classificacao base = new Classificacao("br", "X", 10, 5, 3, 1, 1, 20, 10);
+        assertTrue(new Classificacao("br", "Y", 11, 5, 0, 0, 5, 0, 99).score() > base.score());
+        assertTrue(new Classificacao("br", "Y", 10, 5, 3, 1, 1, 21, 10).score() > base.score());
+        assertTrue(new Classificacao("br", "Y", 10, 5, 3, 1, 1, 30, 21).score() < base.score());
+        assertTrue(new Classificacao("br", "Y", 10, 5, 2, 4, 0, 99, 0).score() < base.score());
+        // saldo negativo continua abaixo de saldo zero com os mesmos pontos e vitórias
+        assertTrue(new Classificacao("br", "Y", 10, 5, 3, 1, 1, 20, 21).score()
+                < new Classificacao("br", "Z", 10, 5, 3, 1, 1, 0, 0).score());
+    }
+}
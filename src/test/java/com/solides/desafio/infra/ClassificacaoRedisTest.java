@@ -0,0 +1,151 @@
+package com.solides.desafio.infra;
+
+import com.solides.desafio.domain.Classificacao;
+import com.solides.desafio.infra.redis.ClassificacaoRedis;
+import com.solides.desafio.infra.redis.RedisClientProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.resps.Tuple;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClassificacaoRedisTest {
+
+    @Mock
+    RedisClientProvider redisProvider;
+
+    @Mock
+    Jedis jedis;
+
+    @Mock
+    Pipeline pipeline;
+
+    @InjectMocks
+    ClassificacaoRedis redis;
+
+    private static final Classificacao A = new Classificacao("br", "A", 3, 1, 1, 0, 0, 2, 1);
+    private static final Classificacao B = new Classificacao("br", "B", 0, 1, 0, 0, 1, 1, 2);
+
+    @BeforeEach
+    void setup() {
+        when(redisProvider.getJedis()).thenReturn(jedis);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aplicar_shouldSendJogosScoreAndCampanhaOfEachTeam() {
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+        when(jedis.evalsha(anyString(), keys.capture(), args.capture())).thenReturn(2L);
+
+        assertTrue(redis.aplicar("br", List.of(A, B)));
+
+        assertEquals(List.of("classificacao:br", "classificacao:br:times"), keys.getValue());
+        assertEquals(List.of("1",
+                "A", "1", Long.toString(A.score()), "1:3:1:0:0:2:1",
+                "B", "1", Long.toString(B.score()), "1:0:0:0:1:1:2"), args.getValue());
+        verify(jedis).close();
+    }
+
+    @Test
+    void aplicar_shouldReturnFalse_whenCompetitionIsNotInRedis() {
+        when(jedis.evalsha(anyString(), anyList(), anyList())).thenReturn(-1L);
+
+        assertFalse(redis.aplicar("br", List.of(A)));
+    }
+
+    @Test
+    void aplicar_shouldFallBackToEval_whenScriptIsNotLoaded() {
+        when(jedis.evalsha(anyString(), anyList(), anyList())).thenThrow(new JedisNoScriptException("NOSCRIPT"));
+        when(jedis.eval(anyString(), anyList(), anyList())).thenReturn(1L);
+
+        assertTrue(redis.aplicar("br", List.of(A)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void substituir_shouldNotRequireCompetitionInRedis() {
+        ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+        when(jedis.evalsha(anyString(), anyList(), args.capture())).thenReturn(2L);
+
+        redis.substituir("br", List.of(A, B));
+
+        assertEquals("0", args.getValue().get(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pagina_shouldReadRankingThenCampanhas() {
+        Response<Boolean> existe = mock(Response.class);
+        Response<List<Tuple>> topo = mock(Response.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
+        when(pipeline.exists("classificacao:br:times")).thenReturn(existe);
+        when(pipeline.zrevrangeWithScores("classificacao:br", 0, 9)).thenReturn(topo);
+        when(existe.get()).thenReturn(true);
+        when(topo.get()).thenReturn(List.of(new Tuple("A", (double) A.score()), new Tuple("B", (double) B.score())));
+        when(jedis.hmget("classificacao:br:times", "A", "B")).thenReturn(Arrays.asList("1:3:1:0:0:2:1", "1:0:0:0:1:1:2"));
+
+        assertEquals(List.of(A, B), redis.pagina("br", 0, 10));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pagina_shouldReturnNull_whenCompetitionIsNotInRedis() {
+        Response<Boolean> existe = mock(Response.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
+        when(pipeline.exists("classificacao:br:times")).thenReturn(existe);
+        when(pipeline.zrevrangeWithScores(anyString(), anyLong(), anyLong())).thenReturn(mock(Response.class));
+        when(existe.get()).thenReturn(false);
+
+        assertNull(redis.pagina("br", 0, 10));
+        verify(jedis, never()).hmget(anyString(), any(String[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void posicao_shouldBeRankPlusOne() {
+        Response<Boolean> existe = mock(Response.class);
+        Response<Long> rank = mock(Response.class);
+        Response<String> valor = mock(Response.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
+        when(pipeline.exists("classificacao:br:times")).thenReturn(existe);
+        when(pipeline.zrevrank("classificacao:br", "B")).thenReturn(rank);
+        when(pipeline.hget("classificacao:br:times", "B")).thenReturn(valor);
+        when(existe.get()).thenReturn(true);
+        when(rank.get()).thenReturn(1L);
+        when(valor.get()).thenReturn("1:0:0:0:1:1:2");
+
+        assertEquals(Optional.of(new ClassificacaoRedis.Posicao(2, B)), redis.posicao("br", "B"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void posicao_shouldBeEmpty_whenTeamIsNotInCompetition() {
+        Response<Boolean> existe = mock(Response.class);
+        Response<Long> rank = mock(Response.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
+        when(pipeline.exists("classificacao:br:times")).thenReturn(existe);
+        when(pipeline.zrevrank("classificacao:br", "Z")).thenReturn(rank);
+        when(pipeline.hget("classificacao:br:times", "Z")).thenReturn(mock(Response.class));
+        when(existe.get()).thenReturn(true);
+        when(rank.get()).thenReturn(null);
+
+        assertEquals(Optional.empty(), redis.posicao("br", "Z"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.solides.desafio.infra;
+
+import com.solides.desafio.infra.metricas.InfraMetricas;
+import com.solides.desafio.infra.rabbitmq.PlacarConsumer;
+import com.solides.desafio.infra.rabbitmq.PlacarProducer;
+import com.solides.desafio.infra.redis.RedisClientProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InfraMetricasTest {
+
+    @Mock
+    RedisClientProvider redis;
+
+    @Mock
+    PlacarProducer producer;
+
+    @Mock
+    PlacarConsumer consumer;
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setup() {
+        new InfraMetricas(redis, producer, Optional.of(consumer)).bindTo(registry);
+    }
+
+    @Test
+    void bindTo_shouldReadRedisPoolGettersOnEachScrape() {
+        when(redis.getConexoesAtivas()).thenReturn(3, 5);
+        when(redis.getConexoesOciosas()).thenReturn(7);
+        when(redis.getThreadsAguardando()).thenReturn(2);
+        when(redis.getEsperaMediaMs()).thenReturn(12L);
+
+        assertEquals(3.0, registry.get("redis.pool.conexoes").tag("estado", "ativas").gauge().value());
+        assertEquals(5.0, registry.get("redis.pool.conexoes").tag("estado", "ativas").gauge().value());
+        assertEquals(7.0, registry.get("redis.pool.conexoes").tag("estado", "ociosas").gauge().value());
+        assertEquals(2.0, registry.get("redis.pool.aguardando").gauge().value());
+        assertEquals(12.0, registry.get("redis.pool.espera.media").timeGauge().value(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void bindTo_shouldExposeProducerCountersByResult() {
+        when(producer.getPublicados()).thenReturn(10L);
+        when(producer.getConfirmados()).thenReturn(8L);
+        when(producer.getRejeitados()).thenReturn(1L);
+        when(producer.getDescartados()).thenReturn(2L);
+        when(producer.getPendentes()).thenReturn(4);
+
+        assertEquals(10.0, registry.get("placar.publicador.eventos").tag("resultado", "publicado").functionCounter().count());
+        assertEquals(8.0, registry.get("placar.publicador.eventos").tag("resultado", "confirmado").functionCounter().count());
+        assertEquals(1.0, registry.get("placar.publicador.eventos").tag("resultado", "rejeitado").functionCounter().count());
+        assertEquals(2.0, registry.get("placar.publicador.eventos").tag("resultado", "descartado").functionCounter().count());
+        assertEquals(4.0, registry.get("placar.publicador.pendentes").gauge().value());
+    }
+
+    @Test
+    void bindTo_shouldExposeConsumerLagAndRateAsGauges() {
+        when(consumer.getLag()).thenReturn(42L);
+        when(consumer.getTaxaPorSegundo()).thenReturn(1500.0);
+        when(consumer.getProcessados()).thenReturn(9000L);
+
+        assertEquals(42.0, registry.get("placar.consumidor.lag").gauge().value());
+        assertEquals(1500.0, registry.get("placar.consumidor.taxa").gauge().value());
+        assertEquals(9000.0, registry.get("placar.consumidor.processados").functionCounter().count());
+    }
+
+    @Test
+    void bindTo_shouldSkipConsumerMeters_whenRabbitIsDisabled() {
+        SimpleMeterRegistry semConsumidor = new SimpleMeterRegistry();
+
+        new InfraMetricas(redis, producer, Optional.empty()).bindTo(semConsumidor);
+
+        assertNull(semConsumidor.find("placar.consumidor.lag").gauge());
+        assertNotNull(semConsumidor.find("placar.publicador.pendentes").gauge());
+    }
+}
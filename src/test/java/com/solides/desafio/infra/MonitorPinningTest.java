@@ -0,0 +1,70 @@
+package com.solides.desafio.infra;
+
+import com.solides.desafio.infra.jvm.MonitorPinning;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonitorPinningTest {
+
+    MonitorPinning monitor;
+
+    @BeforeEach
+    void setup() {
+        monitor = new MonitorPinning(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(monitor, "limiarMs", 1L);
+        monitor.iniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.fechar();
+    }
+
+    @Test
+    void shouldCountPinning_whenVirtualThreadBlocksInsideSynchronized() throws Exception {
+        Object lock = new Object();
+        Thread t = Thread.ofVirtual().start(() -> {
+            synchronized (lock) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        t.join();
+
+        aguardarEventos(1);
+        assertTrue(monitor.getTempoPresoMs() > 0);
+        assertTrue(monitor.getPorOrigem().keySet().stream().anyMatch(o -> o.startsWith(getClass().getName())));
+    }
+
+    @Test
+    void shouldNotCount_whenVirtualThreadBlocksWithoutMonitor() throws Exception {
+        Thread t = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        t.join();
+
+        Thread.sleep(1500);
+        assertEquals(0, monitor.getEventos());
+    }
+
+    private void aguardarEventos(long quantidade) throws InterruptedException {
+        // o stream do JFR entrega os eventos em lotes, cerca de uma vez por segundo
+        long limite = System.currentTimeMillis() + 10_000;
+        while (monitor.getEventos() < quantidade && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+        }
+        assertTrue(monitor.getEventos() >= quantidade, "nenhum evento de pinning registrado");
+    }
+}
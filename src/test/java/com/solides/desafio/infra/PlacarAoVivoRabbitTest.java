@@ -0,0 +1,119 @@
+package com.solides.desafio.infra;
+
+import com.rabbitmq.client.*;
+import com.solides.desafio.domain.PlacarEvento;
+import com.solides.desafio.infra.rabbitmq.PlacarAoVivoRabbit;
+import com.solides.desafio.service.PlacarAoVivo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedConstruction;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PlacarAoVivoRabbitTest {
+
+    Connection connMock;
+    Channel channelMock;
+    MockedConstruction<ConnectionFactory> mocked;
+    PlacarAoVivo aoVivo;
+    PlacarAoVivoRabbit rabbit;
+
+    @BeforeEach
+    void setup() throws Exception {
+        connMock = mock(Connection.class);
+        channelMock = mock(Channel.class);
+        aoVivo = mock(PlacarAoVivo.class);
+        AMQP.Queue.DeclareOk declarada = mock(AMQP.Queue.DeclareOk.class);
+        when(declarada.getQueue()).thenReturn("amq.gen-1");
+        when(channelMock.queueDeclare()).thenReturn(declarada);
+        when(channelMock.isOpen()).thenReturn(true);
+
+        mocked = mockConstruction(ConnectionFactory.class, (factoryMock, context) -> {
+            try {
+                when(factoryMock.newConnection()).thenReturn(connMock);
+                when(connMock.createChannel()).thenReturn(channelMock);
+            } catch (IOException | TimeoutException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        rabbit = new PlacarAoVivoRabbit(aoVivo);
+        ReflectionTestUtils.setField(rabbit, "rabbitEnabled", true);
+        ReflectionTestUtils.setField(rabbit, "rabbitHost", "localhost");
+    }
+
+    @AfterEach
+    void tearDown() {
+        rabbit.shutdown();
+        mocked.close();
+    }
+
+    @Test
+    void init_shouldBindOwnQueueToBothFanouts() throws Exception {
+        rabbit.init();
+
+        verify(channelMock).exchangeDeclare("placar_eventos", BuiltinExchangeType.FANOUT, true);
+        verify(channelMock).exchangeDeclare("placar_eventos.fim", BuiltinExchangeType.FANOUT, true);
+        verify(channelMock).queueBind("amq.gen-1", "placar_eventos", "");
+        verify(channelMock).queueBind("amq.gen-1", "placar_eventos.fim", "");
+        verify(channelMock).basicConsume(eq("amq.gen-1"), eq(true), any(Consumer.class));
+    }
+
+    @Test
+    void handleDelivery_shouldFeedPointsAndEndOfGameToLocalSubscribers() throws Exception {
+        ArgumentCaptor<Consumer> consumer = ArgumentCaptor.forClass(Consumer.class);
+        rabbit.init();
+        verify(channelMock).basicConsume(eq("amq.gen-1"), eq(true), consumer.capture());
+
+        consumer.getValue().handleDelivery("ctag", null, new AMQP.BasicProperties(),
+                "{\"hashId\":\"abc\",\"lado\":\"casa\",\"pontosCasa\":2,\"pontosVisitante\":1}".getBytes(StandardCharsets.UTF_8));
+        consumer.getValue().handleDelivery("ctag", null, new AMQP.BasicProperties.Builder().type("fim").build(),
+                "abc".getBytes(StandardCharsets.UTF_8));
+
+        verify(aoVivo).publicar(new PlacarEvento("abc", "casa", 2, 1));
+        verify(aoVivo).encerrar("abc");
+    }
+
+    @Test
+    void handleDelivery_shouldIgnoreInvalidEvent() throws Exception {
+        ArgumentCaptor<Consumer> consumer = ArgumentCaptor.forClass(Consumer.class);
+        rabbit.init();
+        verify(channelMock).basicConsume(anyString(), eq(true), consumer.capture());
+
+        assertDoesNotThrow(() -> consumer.getValue().handleDelivery("ctag", null, new AMQP.BasicProperties(),
+                "{nope".getBytes(StandardCharsets.UTF_8)));
+
+        verifyNoInteractions(aoVivo);
+    }
+
+    @Test
+    void encerrar_shouldBroadcastEndOfGame() throws Exception {
+        rabbit.init();
+
+        rabbit.encerrar("abc");
+
+        ArgumentCaptor<AMQP.BasicProperties> props = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+        verify(channelMock).basicPublish(eq("placar_eventos.fim"), eq(""), props.capture(),
+                eq("abc".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("fim", props.getValue().getType());
+    }
+
+    @Test
+    void encerrar_shouldDoNothing_withoutBroker() throws Exception {
+        ReflectionTestUtils.setField(rabbit, "rabbitEnabled", false);
+        rabbit.init();
+
+        assertDoesNotThrow(() -> rabbit.encerrar("abc"));
+
+        verify(channelMock, never()).basicPublish(anyString(), anyString(), any(), any(byte[].class));
+    }
+}
@@ -0,0 +1,302 @@
+package com.solides.desafio.infra;
+
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.infra.redis.PlacarCache;
+import com.solides.desafio.infra.redis.RedisClientProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.params.SetParams;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlacarCacheTest {
+
+    @Mock
+    RedisClientProvider redisProvider;
+
+    @Mock
+    Jedis jedis;
+
+    @InjectMocks
+    PlacarCache cache;
+
+    private static final byte[] CHAVE = "placar:abc".getBytes(StandardCharsets.UTF_8);
+
+    @BeforeEach
+    void setup() {
+        when(redisProvider.getJedis()).thenReturn(jedis);
+    }
+
+    @Test
+    void ler_shouldDeserializeCachedJson() {
+        when(jedis.get(CHAVE)).thenReturn(
+                "{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":2},\"time_visitante\":{\"nome\":\"B\",\"pontos\":1},\"extra\":1}"
+                        .getBytes(StandardCharsets.UTF_8));
+
+        Optional<PlacarEstado> r = cache.ler("abc");
+
+        assertEquals(Optional.of(PlacarEstado.of("A", 2, "B", 1)), r);
+        verify(jedis).close();
+    }
+
+    @Test
+    void ler_shouldReturnEmpty_whenMissing() {
+        when(jedis.get(CHAVE)).thenReturn(null);
+
+        assertTrue(cache.ler("abc").isEmpty());
+    }
+
+    @Test
+    void ler_shouldThrow_whenJsonIsInvalid() {
+        when(jedis.get(CHAVE)).thenReturn("{nope".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(UncheckedIOException.class, () -> cache.ler("abc"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void gravar_shouldWriteJsonBytesAndBumpVersionInOneTransaction() {
+        Transaction tx = mock(Transaction.class);
+        Response<Long> versao = mock(Response.class);
+        when(jedis.multi()).thenReturn(tx);
+        when(tx.incr("placar:abc:versao")).thenReturn(versao);
+        when(versao.get()).thenReturn(5L);
+        long antes = System.currentTimeMillis();
+
+        long v = cache.gravar("abc", PlacarEstado.of("A", 1, "B", 0));
+
+        assertEquals(5L, v);
+        ArgumentCaptor<byte[]> valor = ArgumentCaptor.forClass(byte[].class);
+        ArgumentCaptor<String> piso = ArgumentCaptor.forClass(String.class);
+        InOrder ordem = inOrder(tx);
+        ordem.verify(tx).set(eq(CHAVE), valor.capture(), any(SetParams.class));
+        ordem.verify(tx).set(eq("placar:abc:versao"), piso.capture(), any(SetParams.class));
+        ordem.verify(tx).incr("placar:abc:versao");
+        ordem.verify(tx).expire("placar:abc:versao", 86400L);
+        ordem.verify(tx).exec();
+        // versão recriada parte do instante atual em µs, acima de qualquer ETag já entregue
+        assertTrue(Long.parseLong(piso.getValue()) >= antes * 1000);
+        assertEquals("{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":1},\"time_visitante\":{\"nome\":\"B\",\"pontos\":0}}",
+                new String(valor.getValue(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void gravarEmLote_shouldWriteAllPlacaresInOneTransaction() {
+        Transaction tx = mock(Transaction.class);
+        when(jedis.multi()).thenReturn(tx);
+
+        cache.gravarEmLote(Map.of("abc", PlacarEstado.of("A", 1, "B", 0), "xyz", PlacarEstado.of("C", 0, "D", 2)));
+
+        verify(jedis, times(1)).multi();
+        verify(tx).set(eq(CHAVE), any(byte[].class), any(SetParams.class));
+        verify(tx).set(eq("placar:xyz".getBytes(StandardCharsets.UTF_8)), any(byte[].class), any(SetParams.class));
+        verify(tx).incr("placar:abc:versao");
+        verify(tx).incr("placar:xyz:versao");
+        verify(tx).expire("placar:abc:versao", 86400L);
+        verify(tx).expire("placar:xyz:versao", 86400L);
+        verify(tx, times(1)).exec();
+        verify(jedis).close();
+    }
+
+    @Test
+    void gravarEmLote_shouldSkipRedis_whenEmpty() {
+        reset(redisProvider);
+
+        cache.gravarEmLote(Map.of());
+
+        verifyNoInteractions(redisProvider);
+    }
+
+    @Test
+    void lerBruto_shouldReturnStoredBytesAndVersion() {
+        byte[] json = "{\"time_da_casa\":{}}".getBytes(StandardCharsets.UTF_8);
+        when(jedis.mget(CHAVE, "placar:abc:versao".getBytes(StandardCharsets.UTF_8)))
+                .thenReturn(Arrays.asList(json, "12".getBytes(StandardCharsets.UTF_8)));
+
+        PlacarCache.Bruto bruto = cache.lerBruto("abc").orElseThrow();
+
+        assertSame(json, bruto.json());
+        assertEquals(12L, bruto.versao());
+    }
+
+    @Test
+    void lerBruto_shouldReturnEmpty_whenPlacarNotCached() {
+        when(jedis.mget(any(byte[].class), any(byte[].class))).thenReturn(Arrays.asList(null, "3".getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(cache.lerBruto("abc").isEmpty());
+    }
+
+    @Test
+    void lerVarios_shouldReadAllPlacaresInOneMget() {
+        byte[] json = "{}".getBytes(StandardCharsets.UTF_8);
+        when(jedis.mget(CHAVE, "placar:xyz".getBytes(StandardCharsets.UTF_8))).thenReturn(Arrays.asList(json, null));
+
+        List<byte[]> r = cache.lerVarios(List.of("abc", "xyz"));
+
+        assertSame(json, r.get(0));
+        assertNull(r.get(1));
+        verify(jedis).close();
+    }
+
+    @Test
+    void lerVarios_shouldNotCallRedisCommand_whenEmpty() {
+        assertTrue(cache.lerVarios(List.of()).isEmpty());
+        verify(jedis, never()).mget(any(byte[][].class));
+    }
+
+    @Test
+    void versao_shouldReadOnlyVersionKey() {
+        when(jedis.get("placar:abc:versao")).thenReturn("9");
+
+        assertEquals(9L, cache.versao("abc"));
+        verify(jedis, never()).get(CHAVE);
+    }
+
+    @Test
+    void remover_shouldDeleteKeyAndVersionAndLeaveActiveSet() {
+        Transaction tx = mock(Transaction.class);
+        when(jedis.multi()).thenReturn(tx);
+
+        cache.remover("abc");
+
+        verify(tx).del(CHAVE);
+        verify(tx).del("placar:abc:versao");
+        verify(tx).zrem("placar:ativos", "abc");
+        verify(tx).exec();
+    }
+
+    @Test
+    void invalidar_shouldSkipRedisOnReads_untilPlacarAndVersionAreDeleted() {
+        reset(redisProvider);
+
+        cache.invalidar("abc");
+
+        // placar atrasado em relação ao banco: nem o JSON nem a ETag saem do Redis
+        assertTrue(cache.ler("abc").isEmpty());
+        assertTrue(cache.lerBruto("abc").isEmpty());
+        assertEquals(0L, cache.versao("abc"));
+        verifyNoInteractions(redisProvider);
+
+        when(redisProvider.getJedis()).thenReturn(jedis);
+        cache.invalidarPendentes();
+
+        verify(jedis).del(CHAVE, "placar:abc:versao".getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, cache.getPendentesInvalidacao());
+    }
+
+    @Test
+    void invalidarPendentes_shouldKeepMark_whenRedisIsDown() {
+        when(jedis.del(any(byte[].class), any(byte[].class))).thenThrow(new JedisConnectionException("down"));
+        cache.invalidar("abc");
+
+        assertThrows(JedisConnectionException.class, () -> cache.invalidarPendentes());
+
+        assertEquals(1, cache.getPendentesInvalidacao());
+        assertEquals(0L, cache.versao("abc"));
+    }
+
+    @Test
+    void lerVarios_shouldReturnNull_forInvalidatedPlacar() {
+        byte[] json = "{}".getBytes(StandardCharsets.UTF_8);
+        when(jedis.mget(CHAVE, "placar:xyz".getBytes(StandardCharsets.UTF_8))).thenReturn(Arrays.asList(json, json));
+        cache.invalidar("xyz");
+
+        List<byte[]> r = cache.lerVarios(List.of("abc", "xyz"));
+
+        assertSame(json, r.get(0));
+        assertNull(r.get(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void gravarAtivo_shouldWriteJsonAndJoinActiveSetInOneTransaction() {
+        Transaction tx = mock(Transaction.class);
+        Response<Long> versao = mock(Response.class);
+        when(jedis.multi()).thenReturn(tx);
+        when(tx.incr("placar:abc:versao")).thenReturn(versao);
+        when(versao.get()).thenReturn(1L);
+
+        assertEquals(1L, cache.gravarAtivo("abc", PlacarEstado.of("A", 0, "B", 0), 1_700_000_000_000L));
+
+        verify(tx).set(eq(CHAVE), any(byte[].class), any(SetParams.class));
+        verify(tx).zadd("placar:ativos", 1_700_000_000_000d, "abc");
+        verify(tx).exec();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ativos_shouldReadPageThenPlacaresInOneMget() {
+        Pipeline p = mock(Pipeline.class);
+        Response<Boolean> sincronizado = mock(Response.class);
+        Response<Long> total = mock(Response.class);
+        Response<List<String>> pagina = mock(Response.class);
+        when(jedis.pipelined()).thenReturn(p);
+        when(p.exists("placar:ativos:sincronizado")).thenReturn(sincronizado);
+        when(p.zcard("placar:ativos")).thenReturn(total);
+        when(p.zrange("placar:ativos", 0, 1)).thenReturn(pagina);
+        when(sincronizado.get()).thenReturn(true);
+        when(total.get()).thenReturn(3L);
+        when(pagina.get()).thenReturn(List.of("abc", "xyz"));
+        byte[] json = "{}".getBytes(StandardCharsets.UTF_8);
+        when(jedis.mget(CHAVE, "placar:xyz".getBytes(StandardCharsets.UTF_8))).thenReturn(Arrays.asList(json, null));
+
+        PlacarCache.Ativos r = cache.ativos(0, 2);
+
+        assertEquals(3L, r.total());
+        assertEquals(List.of("abc", "xyz"), List.copyOf(r.placares().keySet()));
+        assertSame(json, r.placares().get("abc"));
+        assertNull(r.placares().get("xyz"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ativos_shouldReturnNull_whenSetWasNeverSynchronized() {
+        Pipeline p = mock(Pipeline.class);
+        Response<Boolean> sincronizado = mock(Response.class);
+        when(jedis.pipelined()).thenReturn(p);
+        when(p.exists("placar:ativos:sincronizado")).thenReturn(sincronizado);
+        when(p.zcard("placar:ativos")).thenReturn(mock(Response.class));
+        when(p.zrange(eq("placar:ativos"), anyLong(), anyLong())).thenReturn(mock(Response.class));
+        when(sincronizado.get()).thenReturn(false);
+
+        assertNull(cache.ativos(0, 50));
+        verify(jedis, never()).mget(any(byte[][].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sincronizarAtivos_shouldSendCutoffAndActiveGames() {
+        ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+        when(jedis.evalsha(anyString(), eq(List.of("placar:ativos", "placar:ativos:sincronizado")), args.capture()))
+                .thenReturn(1L);
+        Map<String, Long> ativos = new LinkedHashMap<>();
+        ativos.put("abc", 10L);
+        ativos.put("xyz", 20L);
+
+        assertEquals(1L, cache.sincronizarAtivos(ativos, 100L));
+
+        assertEquals(List.of("100", "abc", "10", "xyz", "20"), args.getValue());
+    }
+}
@@ -5,16 +5,20 @@ import com.solides.desafio.infra.rabbitmq.PlacarConsumer;
 import com.solides.desafio.infra.redis.RedisClientProvider;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedConstruction;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import redis.clients.jedis.Jedis;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -28,13 +32,14 @@ class PlacarConsumerTest {
     Jedis jedis;
 
     @Test
+    @SuppressWarnings("unchecked")
     void init_shouldDeclareQueue_and_consume_and_handleDelivery_shouldUseRedis() throws Exception {
         Connection connMock = mock(Connection.class);
         Channel channelMock = mock(Channel.class);
 
         when(redisProvider.getJedis()).thenReturn(jedis);
 
-        AtomicReference<Consumer> captured = new AtomicReference<>();
+        List<Consumer> captured = new ArrayList<>();
 
         try (MockedConstruction<ConnectionFactory> mocked = mockConstruction(ConnectionFactory.class,
                 (factoryMock, context) -> {
@@ -46,43 +51,147 @@ class PlacarConsumerTest {
                     }
                 })) {
 
-            // capture the consumer passed to basicConsume
+            // capture the consumers passed to basicConsume
             doAnswer(invocation -> {
                 // args: queue, autoAck, consumer
-                String queue = invocation.getArgument(0);
-                boolean autoAck = invocation.getArgument(1);
-                Consumer consumer = invocation.getArgument(2);
-                // store consumer for later use
-                captured.set(consumer);
+                captured.add(invocation.getArgument(2));
                 // return a consumer tag as basicConsume would
-                return "ctag-1";
-            }).when(channelMock).basicConsume(eq("placar_eventos"), eq(true), any(Consumer.class));
+                return "ctag-" + captured.size();
+            }).when(channelMock).basicConsume(eq("placar_eventos"), eq(false), any(Consumer.class));
 
             PlacarConsumer consumerInstance = new PlacarConsumer(redisProvider);
+            ReflectionTestUtils.setField(consumerInstance, "workers", 2);
+            ReflectionTestUtils.setField(consumerInstance, "prefetch", 50);
+            ReflectionTestUtils.setField(consumerInstance, "lote", 2);
+            ReflectionTestUtils.setField(consumerInstance, "lingerMs", 60_000L);
 
             // call init which will use the mocked ConnectionFactory
             consumerInstance.init();
 
             verify(channelMock, times(1)).queueDeclare(eq("placar_eventos"), eq(true), eq(false), eq(false), isNull());
-            verify(channelMock, times(1)).basicConsume(eq("placar_eventos"), eq(true), any(Consumer.class));
+            verify(channelMock, times(2)).basicQos(50);
+            verify(channelMock, times(2)).basicConsume(eq("placar_eventos"), eq(false), any(Consumer.class));
 
-            // get captured consumer
-            Consumer capturedConsumer = captured.get();
+            Consumer capturedConsumer = captured.get(0);
             assert capturedConsumer != null;
 
-            // simulate delivery
-            Envelope env = mock(Envelope.class);
-            AMQP.BasicProperties props = mock(AMQP.BasicProperties.class);
-            String message = "{\"hashId\":\"abc123\",\"lado\":\"casa\",\"pontosCasa\":1}";
-            byte[] body = message.getBytes(StandardCharsets.UTF_8);
+            // simulate two deliveries of the same game: one batch, coalesced per game
+            String primeira = "{\"hashId\":\"abc123\",\"lado\":\"casa\",\"pontosCasa\":1}";
+            String segunda = "{\"hashId\":\"abc123\",\"lado\":\"casa\",\"pontosCasa\":2}";
+            capturedConsumer.handleDelivery("ctag", envelope(1), mock(AMQP.BasicProperties.class),
+                    primeira.getBytes(StandardCharsets.UTF_8));
+            verifyNoInteractions(redisProvider);
+            capturedConsumer.handleDelivery("ctag", envelope(2), mock(AMQP.BasicProperties.class),
+                    segunda.getBytes(StandardCharsets.UTF_8));
+
+            // one script call for the whole batch, then a single multiple ack
+            verify(redisProvider, times(1)).getJedis();
+            ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+            ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+            verify(jedis, times(1)).evalsha(anyString(), keys.capture(), args.capture());
+            assertEquals(List.of("placar_eventos_last", "placar_eventos_last_em", "placar_eventos_last:abc123"),
+                    keys.getValue());
+            // ttl, último geral e instante dele, depois pontos + evento mais novo de cada jogo
+            assertEquals("86400", args.getValue().get(0));
+            assertEquals(segunda, args.getValue().get(1));
+            assertEquals(List.of("2", segunda), args.getValue().subList(3, 5));
+            verify(channelMock, times(1)).basicAck(2L, true);
+
+            consumerInstance.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void handleDelivery_shouldSendHighestScorePerGame_whenOlderEventArrivesLater() throws Exception {
+        Connection connMock = mock(Connection.class);
+        Channel channelMock = mock(Channel.class);
+        when(redisProvider.getJedis()).thenReturn(jedis);
+
+        List<Consumer> captured = new ArrayList<>();
+        try (MockedConstruction<ConnectionFactory> mocked = mockConstruction(ConnectionFactory.class,
+                (factoryMock, context) -> {
+                    try {
+                        when(factoryMock.newConnection()).thenReturn(connMock);
+                        when(connMock.createChannel()).thenReturn(channelMock);
+                    } catch (IOException | TimeoutException e) {
+                        throw new RuntimeException(e);
+                    }
+                })) {
+            doAnswer(invocation -> {
+                captured.add(invocation.getArgument(2));
+                return "ctag";
+            }).when(channelMock).basicConsume(anyString(), eq(false), any(Consumer.class));
+
+            PlacarConsumer consumerInstance = new PlacarConsumer(redisProvider);
+            ReflectionTestUtils.setField(consumerInstance, "workers", 1);
+            ReflectionTestUtils.setField(consumerInstance, "lote", 2);
+            ReflectionTestUtils.setField(consumerInstance, "lingerMs", 60_000L);
+            consumerInstance.init();
+
+            // requeue entregou o evento mais velho depois do mais novo, no mesmo lote
+            String novo = "{\"hashId\":\"abc\",\"pontosCasa\":2,\"pontosVisitante\":1}";
+            String velho = "{\"hashId\":\"abc\",\"pontosCasa\":1,\"pontosVisitante\":1}";
+            captured.get(0).handleDelivery("ctag", envelope(1), mock(AMQP.BasicProperties.class),
+                    novo.getBytes(StandardCharsets.UTF_8));
+            captured.get(0).handleDelivery("ctag", envelope(2), mock(AMQP.BasicProperties.class),
+                    velho.getBytes(StandardCharsets.UTF_8));
+
+            ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+            verify(jedis).evalsha(anyString(), anyList(), args.capture());
+            // o jogo leva o de mais pontos; o script ainda compara com o que já está no Redis
+            assertEquals(List.of("3", novo), args.getValue().subList(3, 5));
+            assertEquals(velho, args.getValue().get(1));
+
+            consumerInstance.shutdown();
+        }
+    }
 
-            // invoke handler
-            capturedConsumer.handleDelivery("ctag", env, props, body);
+    @Test
+    void handleDelivery_shouldBackOffAndKeepBatch_whenRedisFails_andNackOnlyOnShutdown() throws Exception {
+        Connection connMock = mock(Connection.class);
+        Channel channelMock = mock(Channel.class);
+        when(redisProvider.getJedis()).thenThrow(new RuntimeException("redis down"));
 
-            // verify redis usage
-            verify(redisProvider, atLeastOnce()).getJedis();
-            // in our PlacarConsumer example we used jedis.set("placar_eventos_last", msg)
-            verify(jedis, atLeastOnce()).set(eq("placar_eventos_last"), eq(message));
+        List<Consumer> captured = new ArrayList<>();
+        try (MockedConstruction<ConnectionFactory> mocked = mockConstruction(ConnectionFactory.class,
+                (factoryMock, context) -> {
+                    try {
+                        when(factoryMock.newConnection()).thenReturn(connMock);
+                        when(connMock.createChannel()).thenReturn(channelMock);
+                    } catch (IOException | TimeoutException e) {
+                        throw new RuntimeException(e);
+                    }
+                })) {
+            doAnswer(invocation -> {
+                captured.add(invocation.getArgument(2));
+                return "ctag";
+            }).when(channelMock).basicConsume(anyString(), eq(false), any(Consumer.class));
+
+            PlacarConsumer consumerInstance = new PlacarConsumer(redisProvider);
+            ReflectionTestUtils.setField(consumerInstance, "workers", 1);
+            ReflectionTestUtils.setField(consumerInstance, "lote", 1);
+            consumerInstance.init();
+
+            captured.get(0).handleDelivery("ctag", envelope(7), mock(AMQP.BasicProperties.class),
+                    "{\"hashId\":\"x\"}".getBytes(StandardCharsets.UTF_8));
+            // dentro do backoff: a entrega seguinte não volta ao Redis
+            captured.get(0).handleDelivery("ctag", envelope(8), mock(AMQP.BasicProperties.class),
+                    "{\"hashId\":\"x\"}".getBytes(StandardCharsets.UTF_8));
+
+            verify(redisProvider, times(1)).getJedis();
+            verify(channelMock, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+            verify(channelMock, never()).basicAck(anyLong(), anyBoolean());
+            assertEquals(1, consumerInstance.getFalhas());
+
+            consumerInstance.shutdown();
+
+            // ao encerrar, o lote retido volta para a fila
+            verify(channelMock, times(1)).basicNack(8L, true, true);
         }
     }
+
+    private static Envelope envelope(long tag) {
+        return new Envelope(tag, false, "", "placar_eventos");
+    }
 }
@@ -0,0 +1,101 @@
+package com.solides.desafio.infra;
+
+import com.solides.desafio.domain.Pontos;
+import com.solides.desafio.infra.redis.PlacarContadorRedis;
+import com.solides.desafio.infra.redis.RedisClientProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlacarContadorRedisTest {
+
+    @Mock
+    RedisClientProvider redisProvider;
+
+    @Mock
+    Jedis jedis;
+
+    @InjectMocks
+    PlacarContadorRedis contador;
+
+    @BeforeEach
+    void setup() {
+        when(redisProvider.getJedis()).thenReturn(jedis);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void incrementar_shouldSendTtlsAndVersionFloorToScript() {
+        long antes = System.currentTimeMillis();
+        ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+        when(jedis.evalsha(anyString(), anyList(), args.capture())).thenReturn(List.of(1L, 0L, "A", "B", 1L));
+
+        assertEquals(new PlacarContadorRedis.Resultado(1, 0, "A", "B", true), contador.incrementar("abc", 1, 0));
+
+        assertEquals(List.of("1", "0", "86400", "86400"), args.getValue().subList(0, 4));
+        assertTrue(Long.parseLong(args.getValue().get(4)) >= antes * 1000);
+    }
+
+    @Test
+    void pontos_shouldReadCounter_orBeEmptyWhenNotSeeded() {
+        when(jedis.hmget("placar:abc:pontos", "casa", "visitante")).thenReturn(List.of("3", "2"));
+        when(jedis.hmget("placar:xyz:pontos", "casa", "visitante")).thenReturn(Arrays.asList(null, null));
+
+        assertEquals(Optional.of(new Pontos(3, 2)), contador.pontos("abc"));
+        assertEquals(Optional.empty(), contador.pontos("xyz"));
+    }
+
+    @Test
+    void semear_shouldExpireCounterInSameTransaction() {
+        Transaction tx = mock(Transaction.class);
+        when(jedis.multi()).thenReturn(tx);
+
+        contador.semear("abc", 2, 1);
+
+        InOrder ordem = inOrder(tx);
+        ordem.verify(tx).hsetnx("placar:abc:pontos", "casa", "2");
+        ordem.verify(tx).hsetnx("placar:abc:pontos", "visitante", "1");
+        ordem.verify(tx).expire("placar:abc:pontos", 86400L);
+        ordem.verify(tx).exec();
+    }
+
+    @Test
+    void descartar_shouldDeleteCounterCachedPlacarAndVersion_beforeNextIncrement() {
+        when(jedis.evalsha(anyString(), anyList(), anyList())).thenReturn(null);
+
+        contador.descartar("abc");
+        assertNull(contador.incrementar("abc", 1, 0));
+
+        InOrder ordem = inOrder(jedis);
+        ordem.verify(jedis).del("placar:abc:pontos", "placar:abc", "placar:abc:versao");
+        ordem.verify(jedis).evalsha(anyString(), anyList(), anyList());
+        assertEquals(0, contador.getPendentesDescarte());
+    }
+
+    @Test
+    void descartarPendentes_shouldKeepMark_whenRedisIsStillDown() {
+        when(jedis.del("placar:abc:pontos", "placar:abc", "placar:abc:versao")).thenThrow(new JedisConnectionException("down"));
+        contador.descartar("abc");
+
+        assertThrows(JedisConnectionException.class, () -> contador.descartarPendentes());
+
+        assertEquals(1, contador.getPendentesDescarte());
+    }
+}
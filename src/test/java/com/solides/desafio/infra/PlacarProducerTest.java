@@ -0,0 +1,147 @@
+package com.solides.desafio.infra;
+
+import com.rabbitmq.client.*;
+import com.solides.desafio.infra.rabbitmq.PlacarProducer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedConstruction;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PlacarProducerTest {
+
+    Connection connMock;
+    Channel channelMock;
+    MockedConstruction<ConnectionFactory> mocked;
+    PlacarProducer producer;
+    final AtomicBoolean aberto = new AtomicBoolean(true);
+
+    @BeforeEach
+    void setup() throws Exception {
+        connMock = mock(Connection.class);
+        channelMock = mock(Channel.class);
+        AtomicLong seq = new AtomicLong(1);
+        when(channelMock.isOpen()).thenAnswer(inv -> aberto.get());
+        when(channelMock.getNextPublishSeqNo()).thenAnswer(inv -> seq.getAndIncrement());
+
+        mocked = mockConstruction(ConnectionFactory.class, (factoryMock, context) -> {
+            try {
+                when(factoryMock.newConnection()).thenReturn(connMock);
+                when(connMock.createChannel()).thenReturn(channelMock);
+            } catch (IOException | TimeoutException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        producer = new PlacarProducer();
+        ReflectionTestUtils.setField(producer, "rabbitEnabled", true);
+        ReflectionTestUtils.setField(producer, "rabbitHost", "localhost");
+        ReflectionTestUtils.setField(producer, "queueName", "placar_eventos");
+        ReflectionTestUtils.setField(producer, "lingerMs", 1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        producer.close();
+        mocked.close();
+    }
+
+    @Test
+    void init_shouldBindQueueToFanoutAndEnableConfirms() throws Exception {
+        producer.init();
+
+        verify(channelMock).exchangeDeclare("placar_eventos", BuiltinExchangeType.FANOUT, true);
+        verify(channelMock).queueDeclare(eq("placar_eventos"), eq(true), eq(false), eq(false), isNull());
+        verify(channelMock).queueBind("placar_eventos", "placar_eventos", "");
+        verify(channelMock).confirmSelect();
+        verify(channelMock).addConfirmListener(any(ConfirmCallback.class), any(ConfirmCallback.class));
+    }
+
+    @Test
+    void enviarEvento_shouldPublishFromPublisherThread() throws Exception {
+        producer.init();
+
+        producer.enviarEvento("{\"hashId\":\"abc\"}");
+        producer.enviarEvento("{\"hashId\":\"def\"}");
+
+        ArgumentCaptor<byte[]> corpo = ArgumentCaptor.forClass(byte[].class);
+        verify(channelMock, timeout(1000).times(2))
+                .basicPublish(eq("placar_eventos"), eq(""), any(AMQP.BasicProperties.class), corpo.capture());
+        assertEquals("{\"hashId\":\"abc\"}", new String(corpo.getAllValues().get(0), StandardCharsets.UTF_8));
+        assertEquals("{\"hashId\":\"def\"}", new String(corpo.getAllValues().get(1), StandardCharsets.UTF_8));
+        assertEquals(2, producer.getPublicados());
+        assertEquals(2, producer.getSemConfirmacao());
+    }
+
+    @Test
+    void confirmacoes_shouldCountAcksAndRepublishNacks() throws Exception {
+        ArgumentCaptor<ConfirmCallback> ack = ArgumentCaptor.forClass(ConfirmCallback.class);
+        ArgumentCaptor<ConfirmCallback> nack = ArgumentCaptor.forClass(ConfirmCallback.class);
+        producer.init();
+        verify(channelMock).addConfirmListener(ack.capture(), nack.capture());
+
+        producer.enviarEvento("a");
+        producer.enviarEvento("b");
+        producer.enviarEvento("c");
+        verify(channelMock, timeout(1000).times(3)).basicPublish(anyString(), anyString(), any(), any(byte[].class));
+
+        ack.getValue().handle(2, true);
+        assertEquals(2, producer.getConfirmados());
+
+        nack.getValue().handle(3, false);
+        assertEquals(1, producer.getRejeitados());
+        verify(channelMock, timeout(1000).times(4)).basicPublish(anyString(), anyString(), any(), any(byte[].class));
+        assertEquals(4, producer.getPublicados());
+    }
+
+    @Test
+    void publicador_shouldGiveUpOnClosedChannel_andDropConnection() throws Exception {
+        ReflectionTestUtils.setField(producer, "maxEsperasCanal", 2);
+        ReflectionTestUtils.setField(producer, "reconexaoMs", 60_000L);
+        when(connMock.isOpen()).thenReturn(true);
+        producer.init();
+        aberto.set(false);
+
+        producer.enviarEvento("a");
+
+        // 50 + 100 ms de espera, depois a conexão é descartada em vez de esperar para sempre
+        verify(connMock, timeout(2000)).close();
+        assertEquals(1, producer.getFalhas());
+        assertEquals(1, producer.getPendentes());
+        verify(channelMock, never()).basicPublish(anyString(), anyString(), any(), any(byte[].class));
+    }
+
+    @Test
+    void enviarEvento_shouldDropAndCount_whenQueueIsFull() {
+        ReflectionTestUtils.setField(producer, "capacidade", 1);
+
+        // sem init: nada consome a fila
+        producer.enviarEvento("a");
+        producer.enviarEvento("b");
+
+        assertEquals(1, producer.getPendentes());
+        assertEquals(1, producer.getDescartados());
+    }
+
+    @Test
+    void enviarEvento_shouldIgnore_whenDisabled() {
+        ReflectionTestUtils.setField(producer, "rabbitEnabled", false);
+        producer.init();
+
+        producer.enviarEvento("a");
+
+        assertEquals(0, producer.getPendentes());
+        verifyNoInteractions(channelMock);
+    }
+}
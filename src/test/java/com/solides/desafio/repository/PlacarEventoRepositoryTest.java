@@ -0,0 +1,101 @@
+package com.solides.desafio.repository;
+
+import com.solides.desafio.domain.Lance;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontuacao;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlacarEventoRepositoryTest {
+
+    @Mock
+    EntityManager em;
+
+    @Mock
+    Query nativeQuery;
+
+    @InjectMocks
+    PlacarEventoRepository repo;
+
+    @Test
+    void anexar_shouldInsertAllEventsInOneStatement_andReturnScoreWithTail() {
+        when(em.createNativeQuery(contains("insert into placar_evento"))).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter(eq("lote"), anyString())).thenReturn(nativeQuery);
+        when(nativeQuery.getResultList()).thenReturn(Collections.singletonList(new Object[]{"a", "A", 3L, "B", 1L, null}));
+
+        PlacarEventoRepository.Anexacao res = repo.anexar(List.of(
+                new Pontuacao("a", "casa", 2), new Pontuacao("a", "visitante", 1), new Pontuacao("x", "casa", 1)));
+
+        assertEquals(Map.of("a", PlacarEstado.of("A", 3, "B", 1)), res.finais());
+        assertEquals(Set.of(), res.repetidos());
+        verify(em, times(1)).createNativeQuery(anyString());
+        verify(nativeQuery).setParameter("lote",
+                "[{\"ordem\":0,\"hash_id\":\"a\",\"lado\":\"casa\",\"delta\":2}," +
+                "{\"ordem\":1,\"hash_id\":\"a\",\"lado\":\"visitante\",\"delta\":1}," +
+                "{\"ordem\":2,\"hash_id\":\"x\",\"lado\":\"casa\",\"delta\":1}]");
+    }
+
+    @Test
+    void anexar_shouldSkipRepeatedEventIds_inBatchAndAlreadyLogged() {
+        when(em.createNativeQuery(contains("on conflict (placar_id, evento_id) do nothing"))).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter(eq("lote"), anyString())).thenReturn(nativeQuery);
+        // o item 0 já estava no log
+        when(nativeQuery.getResultList()).thenReturn(Collections.singletonList(new Object[]{"a", "A", 1L, "B", 0L, "0"}));
+
+        PlacarEventoRepository.Anexacao res = repo.anexar(List.of(
+                new Pontuacao("a", "casa", 1, "e1"), new Pontuacao("a", "casa", 1, "e2"), new Pontuacao("a", "casa", 1, "e2")));
+
+        assertEquals(Map.of("a", PlacarEstado.of("A", 1, "B", 0)), res.finais());
+        assertEquals(Set.of(0, 2), res.repetidos());
+        verify(nativeQuery).setParameter("lote",
+                "[{\"ordem\":0,\"hash_id\":\"a\",\"lado\":\"casa\",\"delta\":1,\"evento_id\":\"e1\"}," +
+                "{\"ordem\":1,\"hash_id\":\"a\",\"lado\":\"casa\",\"delta\":1,\"evento_id\":\"e2\"}]");
+    }
+
+    @Test
+    void anexar_empty_shouldNotHitDatabase() {
+        assertEquals(Map.of(), repo.anexar(List.of()).finais());
+        verifyNoInteractions(em);
+    }
+
+    @Test
+    void consolidar_shouldReturnNumberOfEventsApplied() {
+        when(em.createNativeQuery(contains("set aplicado = true"))).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter("n", 500)).thenReturn(nativeQuery);
+        when(nativeQuery.getSingleResult()).thenReturn(42L);
+
+        assertEquals(42, repo.consolidar(500));
+    }
+
+    @Test
+    void listar_shouldMapEventsInOrder() {
+        when(em.createNativeQuery(contains("window w as (order by e.seq)"))).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter("h", "a")).thenReturn(nativeQuery);
+        LocalDateTime quando = LocalDateTime.of(2025, 3, 1, 20, 30);
+        when(nativeQuery.getResultList()).thenReturn(List.<Object>of(
+                new Object[]{10L, "casa", 1, Timestamp.valueOf(quando), 1L, 0L},
+                new Object[]{12L, "visitante", 2, quando, 1L, 2L}));
+
+        List<Lance> res = repo.listar("a");
+
+        assertEquals(List.of(
+                new Lance(10, "casa", 1, quando, 1, 0),
+                new Lance(12, "visitante", 2, quando, 1, 2)), res);
+    }
+}
@@ -0,0 +1,173 @@
+package com.solides.desafio.repository;
+
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGStatement;
+import org.springframework.dao.DataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlacarJdbcRepositoryTest {
+
+    @Mock
+    DataSource dataSource;
+
+    @Mock
+    Connection conexao;
+
+    @Mock
+    PreparedStatement ps;
+
+    @Mock
+    ResultSet rs;
+
+    PlacarJdbcRepository repo;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        repo = new PlacarJdbcRepository(dataSource);
+        lenient().when(dataSource.getConnection()).thenReturn(conexao);
+        lenient().when(conexao.getAutoCommit()).thenReturn(true);
+        lenient().when(conexao.prepareStatement(anyString())).thenReturn(ps);
+        lenient().when(ps.executeQuery()).thenReturn(rs);
+    }
+
+    @Test
+    void posicional_shouldReplaceNamedParametersInOrder() {
+        assertEquals(
+                "update placar set pontos_casa = pontos_casa + ?, pontos_visitante = pontos_visitante + ? " +
+                "where hash_id = ? and status = 'ATIVO' returning " + PlacarRepository.COLUNAS_ESTADO,
+                PlacarJdbcRepository.INCREMENTAR_JDBC);
+        assertEquals("select x::text from t where a = ?", PlacarJdbcRepository.posicional("select x::text from t where a = :a"));
+        assertFalse(PlacarJdbcRepository.SELECT_ESTADO_JDBC.contains(":h"));
+    }
+
+    @Test
+    void buscarPorHash_shouldPrepareOnServerAndMapRow() throws SQLException {
+        PGStatement pg = mock(PGStatement.class);
+        when(ps.isWrapperFor(PGStatement.class)).thenReturn(true);
+        when(ps.unwrap(PGStatement.class)).thenReturn(pg);
+        when(rs.next()).thenReturn(true);
+        when(rs.getString(1)).thenReturn("A");
+        when(rs.getInt(2)).thenReturn(2);
+        when(rs.getString(3)).thenReturn("B");
+        when(rs.getInt(4)).thenReturn(1);
+
+        Optional<PlacarEstado> r = repo.buscarPorHash("abc");
+
+        assertEquals(Optional.of(PlacarEstado.of("A", 2, "B", 1)), r);
+        verify(conexao).prepareStatement(PlacarJdbcRepository.SELECT_ESTADO_JDBC);
+        verify(pg).setPrepareThreshold(1);
+        verify(ps).setFetchSize(1);
+        verify(ps).setObject(1, "abc");
+        verify(conexao).close();
+    }
+
+    @Test
+    void incrementar_shouldBindDeltasBeforeHash_andReturnEmptyWhenNotFound() throws SQLException {
+        when(rs.next()).thenReturn(false);
+
+        assertTrue(repo.incrementar("abc", 1, 0).isEmpty());
+
+        verify(ps).setObject(1, 1);
+        verify(ps).setObject(2, 0);
+        verify(ps).setObject(3, "abc");
+    }
+
+    @Test
+    void incrementarEmLote_shouldMapRowsByHash() throws SQLException {
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getString(1)).thenReturn("a");
+        when(rs.getString(2)).thenReturn("A");
+        when(rs.getInt(3)).thenReturn(3);
+        when(rs.getString(4)).thenReturn("B");
+        when(rs.getInt(5)).thenReturn(0);
+
+        Map<String, PlacarEstado> r = repo.incrementarEmLote(Map.of("a", new Pontos(3, 0)));
+
+        assertEquals(Map.of("a", PlacarEstado.of("A", 3, "B", 0)), r);
+        verify(ps).setObject(1, "[{\"hash_id\":\"a\",\"casa\":3,\"visitante\":0}]");
+    }
+
+    @Test
+    void paginaAtivos_shouldBindOffsetAndLimit_andFetchOnePage() throws SQLException {
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getString(1)).thenReturn("a");
+        when(rs.getString(2)).thenReturn("A");
+        when(rs.getInt(3)).thenReturn(1);
+        when(rs.getString(4)).thenReturn("B");
+        when(rs.getInt(5)).thenReturn(0);
+
+        Map<String, PlacarEstado> r = repo.paginaAtivos(50, 25);
+
+        assertEquals(Map.of("a", PlacarEstado.of("A", 1, "B", 0)), r);
+        verify(conexao).prepareStatement(PlacarJdbcRepository.PAGINA_ATIVOS_JDBC);
+        verify(ps).setFetchSize(25);
+        verify(ps).setObject(1, 50L);
+        verify(ps).setObject(2, 25);
+    }
+
+    @Test
+    void ativos_shouldMapHashToStartMillis() throws SQLException {
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getString(1)).thenReturn("a", "b");
+        when(rs.getLong(2)).thenReturn(1000L, 2000L);
+
+        assertEquals(Map.of("a", 1000L, "b", 2000L), repo.ativos());
+        verify(conexao).prepareStatement(PlacarRepository.ATIVOS);
+    }
+
+    @Test
+    void contarAtivos_shouldReadSingleCount() throws SQLException {
+        when(rs.next()).thenReturn(true);
+        when(rs.getLong(1)).thenReturn(7L);
+
+        assertEquals(7L, repo.contarAtivos());
+        verify(conexao).prepareStatement(PlacarRepository.CONTAR_ATIVOS);
+    }
+
+    @Test
+    void buscarAtivosPorHashes_shouldBindOneArray() throws SQLException {
+        Array array = mock(Array.class);
+        when(conexao.createArrayOf(eq("text"), any())).thenReturn(array);
+        when(rs.next()).thenReturn(false);
+
+        assertEquals(Map.of(), repo.buscarAtivosPorHashes(List.of("a", "b")));
+
+        verify(conexao).prepareStatement(PlacarRepository.SELECT_ESTADOS_ATIVOS);
+        verify(ps).setObject(1, array);
+        verify(ps).setFetchSize(2);
+    }
+
+    @Test
+    void atualizarEmLote_empty_shouldNotHitDatabase() throws SQLException {
+        assertEquals(0, repo.atualizarEmLote(Map.of()));
+        verify(dataSource, never()).getConnection();
+    }
+
+    @Test
+    void shouldTranslateSqlException() throws SQLException {
+        when(ps.executeQuery()).thenThrow(new SQLException("falhou", "08006"));
+
+        assertThrows(DataAccessException.class, () -> repo.buscarPorHash("abc"));
+        verify(ps).close();
+    }
+}
@@ -1,14 +1,26 @@
 package com.solides.desafio.repository;
 
+import com.solides.desafio.domain.Classificacao;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontos;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.NoResultException;
 import jakarta.persistence.Query;
-import jakarta.persistence.StoredProcedureQuery;
+import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,9 +32,6 @@ class PlacarRepositoryTest {
     @Mock
     EntityManager em;
 
-    @Mock
-    StoredProcedureQuery spQuery;
-
     @Mock
     Query nativeQuery;
 
@@ -31,89 +40,216 @@ class PlacarRepositoryTest {
 
     @Test
     void iniciar_ok() {
-        when(em.createStoredProcedureQuery("sp_inicia_placar")).thenReturn(spQuery);
-        when(spQuery.registerStoredProcedureParameter(anyInt(), eq(String.class), eq(jakarta.persistence.ParameterMode.IN)))
-                .thenReturn(spQuery);
-        when(spQuery.setParameter(1, "json")).thenReturn(spQuery);
-        when(spQuery.getSingleResult()).thenReturn("RESULT");
+        when(em.createNativeQuery(contains("sp_inicia_placar"))).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter(eq("p"), anyString())).thenReturn(nativeQuery);
+        when(nativeQuery.getSingleResult()).thenReturn(new Object[]{"RESULT", 1_700_000_000_000L});
 
-        String r = repo.iniciar("json");
+        PlacarRepository.Inicio r = repo.iniciar(PlacarEstado.of("A", 0, "B", 0));
 
-        assertEquals("RESULT", r);
-        verify(spQuery).execute();
+        assertEquals(new PlacarRepository.Inicio("RESULT", 1_700_000_000_000L), r);
+        verify(nativeQuery).setParameter("p",
+                "{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":0},\"time_visitante\":{\"nome\":\"B\",\"pontos\":0}}");
     }
 
     @Test
     void atualizar_ok() {
-        when(em.createStoredProcedureQuery("sp_atualiza_placar")).thenReturn(spQuery);
-        when(spQuery.registerStoredProcedureParameter(anyInt(), eq(String.class), eq(jakarta.persistence.ParameterMode.IN)))
-                .thenReturn(spQuery);
-        when(spQuery.setParameter(1, "abc")).thenReturn(spQuery);
-        when(spQuery.setParameter(2, "{x}")).thenReturn(spQuery);
-        when(spQuery.getSingleResult()).thenReturn("OK");
+        when(em.createNativeQuery(PlacarRepository.ATUALIZAR)).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter(anyString(), anyString())).thenReturn(nativeQuery);
+        when(nativeQuery.getSingleResult()).thenReturn("OK");
 
         String r = repo.atualizar("abc", "{x}");
 
         assertEquals("OK", r);
-        verify(spQuery).execute();
+        verify(nativeQuery).setParameter("h", "abc");
+        verify(nativeQuery).setParameter("p", "{x}");
     }
 
     @Test
     void atualizar_nullResult() {
-        when(em.createStoredProcedureQuery("sp_atualiza_placar")).thenReturn(spQuery);
-        when(spQuery.registerStoredProcedureParameter(anyInt(), eq(String.class), eq(jakarta.persistence.ParameterMode.IN)))
-                .thenReturn(spQuery);
-        when(spQuery.setParameter(anyInt(), anyString())).thenReturn(spQuery);
-        when(spQuery.getSingleResult()).thenReturn(null);
+        when(em.createNativeQuery(PlacarRepository.ATUALIZAR)).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter(anyString(), anyString())).thenReturn(nativeQuery);
+        when(nativeQuery.getSingleResult()).thenReturn(null);
 
         String r = repo.atualizar("abc", "{x}");
 
         assertNull(r);
     }
 
+    @Test
+    void iniciar_comCompeticao_gravaNoDocumento() {
+        when(em.createNativeQuery(contains("sp_inicia_placar"))).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter(eq("p"), anyString())).thenReturn(nativeQuery);
+        when(nativeQuery.getSingleResult()).thenReturn(new Object[]{"RESULT", 1L});
+
+        repo.iniciar(PlacarEstado.of("A", 0, "B", 0), "brasileirao");
+
+        verify(nativeQuery).setParameter("p",
+                "{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":0},\"time_visitante\":{\"nome\":\"B\",\"pontos\":0},"
+                        + "\"competicao\":\"brasileirao\"}");
+    }
+
     @Test
     void finalizar_ok() {
-        when(em.createStoredProcedureQuery("sp_finaliza_placar")).thenReturn(spQuery);
-        when(spQuery.registerStoredProcedureParameter(anyInt(), eq(String.class), eq(jakarta.persistence.ParameterMode.IN)))
-                .thenReturn(spQuery);
-        when(spQuery.setParameter(1, "abc")).thenReturn(spQuery);
+        when(em.createNativeQuery(PlacarRepository.FINALIZAR)).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter("h", "abc")).thenReturn(nativeQuery);
+        when(nativeQuery.getResultList()).thenReturn(List.<Object>of(
+                new Object[]{"brasileirao", "A", 3, 1, 1, 0, 0, 2, 1},
+                new Object[]{"brasileirao", "B", 0, 1, 0, 0, 1, 1, 2}));
+
+        List<Classificacao> r = repo.finalizar("abc");
+
+        assertEquals(List.of(
+                new Classificacao("brasileirao", "A", 3, 1, 1, 0, 0, 2, 1),
+                new Classificacao("brasileirao", "B", 0, 1, 0, 0, 1, 1, 2)), r);
+    }
 
-        repo.finalizar("abc");
+    @Test
+    void finalizar_jogoAvulso_semLinhas() {
+        when(em.createNativeQuery(PlacarRepository.FINALIZAR)).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter("h", "abc")).thenReturn(nativeQuery);
+        when(nativeQuery.getResultList()).thenReturn(List.of());
 
-        verify(spQuery).execute();
+        assertTrue(repo.finalizar("abc").isEmpty());
     }
 
     @Test
-    void buscarDadosPorHash_ok() {
-        when(em.createNativeQuery("select dados from placar where hash_id = :h")).thenReturn(nativeQuery);
+    void buscarPorHashes_shouldQueryAllWithOneArrayParameter() throws SQLException {
+        Session session = mock(Session.class);
+        Connection conexao = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        Array array = mock(Array.class);
+        when(em.unwrap(Session.class)).thenReturn(session);
+        when(session.doReturningWork(any())).thenAnswer(inv -> inv.<ReturningWork<?>>getArgument(0).execute(conexao));
+        when(conexao.prepareStatement(PlacarRepository.SELECT_ESTADOS)).thenReturn(ps);
+        when(conexao.createArrayOf("text", new Object[]{"abc", "xyz"})).thenReturn(array);
+        when(ps.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getString(1)).thenReturn("abc");
+        when(rs.getString(2)).thenReturn("A");
+        when(rs.getInt(3)).thenReturn(2);
+        when(rs.getString(4)).thenReturn("B");
+        when(rs.getInt(5)).thenReturn(1);
+
+        Map<String, PlacarEstado> r = repo.buscarPorHashes(List.of("abc", "xyz"));
+
+        assertEquals(Map.of("abc", PlacarEstado.of("A", 2, "B", 1)), r);
+        verify(ps).setArray(1, array);
+    }
+
+    @Test
+    void buscarPorHashes_shouldNotQuery_whenEmpty() {
+        assertTrue(repo.buscarPorHashes(List.of()).isEmpty());
+        verifyNoInteractions(em);
+    }
+
+    @Test
+    void buscarPorHash_ok() {
+        when(em.createNativeQuery(PlacarRepository.SELECT_ESTADO)).thenReturn(nativeQuery);
         when(nativeQuery.setParameter("h", "abc")).thenReturn(nativeQuery);
-        when(nativeQuery.getSingleResult()).thenReturn("DATA");
+        when(nativeQuery.getResultList()).thenReturn(Collections.singletonList(new Object[]{"A", 2, "B", 1}));
 
-        Optional<String> r = repo.buscarDadosPorHash("abc");
+        Optional<PlacarEstado> r = repo.buscarPorHash("abc");
 
         assertTrue(r.isPresent());
-        assertEquals("DATA", r.get());
+        assertEquals(PlacarEstado.of("A", 2, "B", 1), r.get());
     }
 
     @Test
-    void buscarDadosPorHash_nullResult() {
-        when(em.createNativeQuery("select dados from placar where hash_id = :h")).thenReturn(nativeQuery);
+    void buscarPorHash_shouldAddLogTail_onlyInEventsMode() {
+        assertFalse(PlacarRepository.SELECT_ESTADO.contains("placar_evento"));
+        ReflectionTestUtils.setField(repo, "modoContador", "eventos");
+        when(em.createNativeQuery(PlacarRepository.SELECT_ESTADO_COM_CAUDA)).thenReturn(nativeQuery);
         when(nativeQuery.setParameter("h", "abc")).thenReturn(nativeQuery);
-        when(nativeQuery.getSingleResult()).thenReturn(null);
+        when(nativeQuery.getResultList()).thenReturn(Collections.singletonList(new Object[]{"A", 3L, "B", 1L}));
 
-        Optional<String> r = repo.buscarDadosPorHash("abc");
+        assertEquals(Optional.of(PlacarEstado.of("A", 3, "B", 1)), repo.buscarPorHash("abc"));
+    }
 
-        assertTrue(r.isEmpty());
+    @Test
+    void buscarPorHash_shouldResolveThroughPlacarHash_andTryLivePartitionFirst() {
+        for (String sql : List.of(PlacarRepository.SELECT_ESTADO, PlacarRepository.SELECT_ESTADO_COM_CAUDA)) {
+            assertTrue(sql.startsWith("with h as (select placar_id, data_inicio from placar_hash where hash_id = :h) "));
+            assertTrue(sql.indexOf("p.status = 'ATIVO'") < sql.indexOf("p.status <> 'ATIVO'"));
+            assertTrue(sql.endsWith(" limit 1"));
+        }
+        assertTrue(PlacarRepository.SELECT_ESTADOS.contains("from placar_hash h join placar p on p.id = h.placar_id and p.data_inicio = h.data_inicio"));
+    }
+
+    @Test
+    void escritasAoVivo_shouldOnlyTouchActivePartition() {
+        assertTrue(PlacarRepository.INCREMENTAR.contains("where hash_id = :h and status = 'ATIVO'"));
+        for (String sql : List.of(PlacarRepository.INCREMENTAR_LOTE, PlacarRepository.ATUALIZAR_LOTE)) {
+            assertTrue(sql.contains("join v on v.hash_id = p.hash_id where p.status = 'ATIVO'"));
+            assertTrue(sql.contains("p.id in (select id from alvo) and p.status = 'ATIVO'"));
+        }
     }
 
     @Test
-    void buscarDadosPorHash_noResult() {
-        when(em.createNativeQuery("select dados from placar where hash_id = :h")).thenReturn(nativeQuery);
+    void buscarPorHash_noResult() {
+        when(em.createNativeQuery(PlacarRepository.SELECT_ESTADO)).thenReturn(nativeQuery);
         when(nativeQuery.setParameter("h", "abc")).thenReturn(nativeQuery);
-        when(nativeQuery.getSingleResult()).thenThrow(new NoResultException());
+        when(nativeQuery.getResultList()).thenReturn(List.of());
 
-        Optional<String> r = repo.buscarDadosPorHash("abc");
+        Optional<PlacarEstado> r = repo.buscarPorHash("abc");
 
         assertTrue(r.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void arquivarParticoes_shouldReturnArchivedPartitionNames() {
+        when(em.createNativeQuery(contains("sp_arquiva_placares"))).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter("m", 3)).thenReturn(nativeQuery);
+        when(nativeQuery.getResultList()).thenReturn(List.<Object>of("placar_finalizado_202501", "placar_finalizado_202502"));
+
+        assertEquals(List.of("placar_finalizado_202501", "placar_finalizado_202502"), repo.arquivarParticoes(3));
+    }
+
+    @Test
+    void atualizarEmLote_shouldIssueSingleStatement() {
+        when(em.createNativeQuery(contains("jsonb_to_recordset"))).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter(eq("lote"), anyString())).thenReturn(nativeQuery);
+        when(nativeQuery.executeUpdate()).thenReturn(2);
+
+        int n = repo.atualizarEmLote(Map.of("a", new Pontos(1, 0), "b", new Pontos(0, 2)));
+
+        assertEquals(2, n);
+        verify(em, times(1)).createNativeQuery(anyString());
+    }
+
+    @Test
+    void atualizarEmLote_shouldOnlyMoveActiveScoresForward() {
+        // descarga atrasada de outra instância, ou lote devolvido à fila, não volta o placar
+        assertTrue(PlacarRepository.ATUALIZAR_LOTE.endsWith(
+                "and p.status = 'ATIVO' and p.pontos_casa + p.pontos_visitante <= v.casa + v.visitante"));
+    }
+
+    @Test
+    void atualizarEmLote_empty_shouldNotHitDatabase() {
+        assertEquals(0, repo.atualizarEmLote(Map.of()));
+        verifyNoInteractions(em);
+    }
+
+    @Test
+    void incrementar_ok() {
+        when(em.createNativeQuery(contains("pontos_casa = pontos_casa + :dc"))).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter(anyString(), any())).thenReturn(nativeQuery);
+        when(nativeQuery.getResultList()).thenReturn(Collections.singletonList(new Object[]{"A", 1L, "B", 0L}));
+
+        Optional<PlacarEstado> r = repo.incrementar("abc", 1, 0);
+
+        assertEquals(Optional.of(PlacarEstado.of("A", 1, "B", 0)), r);
+        verify(nativeQuery).setParameter("h", "abc");
+        verify(nativeQuery).setParameter("dc", 1);
+        verify(nativeQuery).setParameter("dv", 0);
+    }
+
+    @Test
+    void incrementar_notFound() {
+        when(em.createNativeQuery(anyString())).thenReturn(nativeQuery);
+        when(nativeQuery.setParameter(anyString(), any())).thenReturn(nativeQuery);
+        when(nativeQuery.getResultList()).thenReturn(List.of());
+
+        assertTrue(repo.incrementar("abc", 0, 1).isEmpty());
+    }
+}
@@ -6,8 +6,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
@@ -75,19 +81,56 @@ class TimeRepositoryTest {
     }
 
     @Test
-    void findByNome_ok() {
+    void inserir_shouldReturnGeneratedId_orEmptyOnConflict() throws SQLException {
+        Session session = mock(Session.class);
+        Connection conexao = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(em.unwrap(Session.class)).thenReturn(session);
+        when(session.doReturningWork(any())).thenAnswer(inv -> inv.<ReturningWork<?>>getArgument(0).execute(conexao));
+        when(conexao.prepareStatement(
+                "insert into time (nome, logo_hash) values (?, ?) on conflict (nome) do nothing returning id")).thenReturn(ps);
+        when(ps.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getInt(1)).thenReturn(7);
+
+        Optional<Time> criado = repo.inserir("A", "abc");
+        assertEquals(7, criado.orElseThrow().getId());
+        assertEquals("abc", criado.get().getLogoHash());
+        verify(ps).setString(1, "A");
+        verify(ps).setString(2, "abc");
+
+        assertEquals(Optional.empty(), repo.inserir("A", null));
+    }
+
+    @Test
+    void renomear_shouldRefreshEntity_onlyWhenNameChanged() throws SQLException {
+        Session session = mock(Session.class);
+        Connection conexao = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(em.unwrap(Session.class)).thenReturn(session);
+        when(session.doReturningWork(any())).thenAnswer(inv -> inv.<ReturningWork<?>>getArgument(0).execute(conexao));
+        when(conexao.prepareStatement("update time set nome = ? where id = ?")).thenReturn(ps);
+        when(ps.executeUpdate()).thenReturn(1).thenThrow(new SQLException("duplicado", "23505"));
         Time t = new Time();
-        when(em.createQuery("select t from Time t where t.nome=:n", Time.class)).thenReturn(typedQuery);
-        when(typedQuery.setParameter("n", "A")).thenReturn(typedQuery);
-        when(typedQuery.getSingleResult()).thenReturn(t);
-        assertEquals(Optional.of(t), repo.findByNome("A"));
+        t.setId(7);
+
+        assertTrue(repo.renomear(t, "Novo"));
+        verify(ps).setInt(2, 7);
+        verify(em).refresh(t);
+
+        assertFalse(repo.renomear(t, "Outro"));
+        verify(em, times(1)).refresh(t);
     }
 
     @Test
-    void findByNome_empty() {
-        when(em.createQuery("select t from Time t where t.nome=:n", Time.class)).thenReturn(typedQuery);
-        when(typedQuery.setParameter("n", "A")).thenReturn(typedQuery);
-        when(typedQuery.getSingleResult()).thenThrow(new RuntimeException());
-        assertEquals(Optional.empty(), repo.findByNome("A"));
+    void pagina_shouldQueryByKeyInIdOrder() {
+        Time t = new Time();
+        when(em.createQuery("from Time t where t.id > :a order by t.id", Time.class)).thenReturn(typedQuery);
+        when(typedQuery.setParameter("a", 10)).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(50)).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(t));
+
+        assertEquals(List.of(t), repo.pagina(10L, 50));
     }
-}
\ No newline at end of file
+}
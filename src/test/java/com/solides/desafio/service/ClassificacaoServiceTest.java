@@ -0,0 +1,186 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.domain.Classificacao;
+import com.solides.desafio.infra.redis.ClassificacaoRedis;
+import com.solides.desafio.repository.ClassificacaoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClassificacaoServiceTest {
+
+    @Mock
+    ClassificacaoRepository repositorio;
+
+    @Mock
+    ClassificacaoRedis redis;
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    ClassificacaoService service;
+
+    @BeforeEach
+    void setup() {
+        service = new ClassificacaoService(repositorio, redis, registry);
+    }
+
+    private static final Classificacao A = new Classificacao("br", "A", 3, 1, 1, 0, 0, 2, 1);
+    private static final Classificacao B = new Classificacao("br", "B", 0, 1, 0, 0, 1, 1, 2);
+    private static final Classificacao C = new Classificacao("copa", "C", 1, 1, 0, 1, 0, 0, 0);
+
+    @Test
+    void competicaoValida() {
+        assertTrue(ClassificacaoService.competicaoValida("brasileirao-2025"));
+        assertTrue(ClassificacaoService.competicaoValida("serie_a.2025"));
+        assertFalse(ClassificacaoService.competicaoValida(null));
+        assertFalse(ClassificacaoService.competicaoValida(""));
+        assertFalse(ClassificacaoService.competicaoValida("-abc"));
+        assertFalse(ClassificacaoService.competicaoValida("com espaço"));
+        assertFalse(ClassificacaoService.competicaoValida("a:b"));
+        assertFalse(ClassificacaoService.competicaoValida("a".repeat(101)));
+    }
+
+    @Test
+    void aplicar_shouldGroupRowsByCompetition() {
+        when(redis.aplicar(anyString(), anyList())).thenReturn(true);
+
+        service.aplicar(List.of(A, C, B));
+
+        verify(redis).aplicar("br", List.of(A, B));
+        verify(redis).aplicar("copa", List.of(C));
+        verifyNoInteractions(repositorio);
+    }
+
+    @Test
+    void aplicar_shouldRebuildFromDatabase_whenCompetitionIsNotInRedis() {
+        when(redis.aplicar("br", List.of(A, B))).thenReturn(false);
+        List<Classificacao> todos = List.of(A, B, new Classificacao("br", "D", 6, 2, 2, 0, 0, 4, 0));
+        when(repositorio.listar("br")).thenReturn(todos);
+
+        service.aplicar(List.of(A, B));
+
+        verify(redis).substituir("br", todos);
+        assertEquals(1, service.getReconstrucoes());
+    }
+
+    @Test
+    void aplicar_shouldNotPropagate_andRebuildLater_whenRedisFails() {
+        when(redis.aplicar("br", List.of(A))).thenThrow(new JedisConnectionException("down"));
+
+        assertDoesNotThrow(() -> service.aplicar(List.of(A)));
+        assertEquals(1, service.getFalhas());
+        assertEquals(1.0, registry.get("classificacao.pendentes").gauge().value());
+
+        when(repositorio.listar("br")).thenReturn(List.of(A));
+        service.reconstruirPendentes();
+        verify(redis).substituir("br", List.of(A));
+        assertEquals(0.0, registry.get("classificacao.pendentes").gauge().value());
+
+        // reconstruída: não volta a ser lida do banco no próximo ciclo
+        service.reconstruirPendentes();
+        verify(repositorio, times(1)).listar("br");
+    }
+
+    @Test
+    void aplicar_shouldDoNothing_forGamesOutsideCompetitions() {
+        service.aplicar(List.of());
+
+        verifyNoInteractions(redis, repositorio);
+    }
+
+    @Test
+    void pagina_shouldNumberRowsFromOffset() {
+        when(redis.pagina("br", 10, 2)).thenReturn(List.of(A, B));
+
+        List<ClassificacaoService.Linha> r = service.pagina("br", 10, 2);
+
+        assertEquals(List.of(
+                new ClassificacaoService.Linha(11, "A", 3, 1, 1, 0, 0, 2, 1, 1),
+                new ClassificacaoService.Linha(12, "B", 0, 1, 0, 0, 1, 1, 2, -1)), r);
+        verifyNoInteractions(repositorio);
+    }
+
+    @Test
+    void pagina_shouldReadDatabase_whenRedisIsDown() {
+        when(redis.pagina("br", 0, 20)).thenThrow(new JedisConnectionException("down"));
+        when(repositorio.pagina("br", 0, 20)).thenReturn(List.of(A, B));
+
+        List<ClassificacaoService.Linha> r = service.pagina("br", 0, 20);
+
+        assertEquals(2, r.size());
+        assertEquals(1, r.get(0).posicao());
+        assertEquals(1, service.getLeiturasDoBanco());
+    }
+
+    @Test
+    void pagina_shouldReadDatabase_andScheduleRebuild_whenCompetitionIsNotInRedis() {
+        when(redis.pagina("br", 0, 20)).thenReturn(null);
+        when(repositorio.pagina("br", 0, 20)).thenReturn(List.of(A));
+        when(repositorio.listar("br")).thenReturn(List.of(A));
+
+        service.pagina("br", 0, 20);
+        service.reconstruirPendentes();
+
+        verify(redis).substituir("br", List.of(A));
+    }
+
+    @Test
+    void pagina_shouldBeEmpty_forUnknownCompetition() {
+        when(redis.pagina("nada", 0, 20)).thenReturn(null);
+        when(repositorio.pagina("nada", 0, 20)).thenReturn(List.of());
+
+        assertTrue(service.pagina("nada", 0, 20).isEmpty());
+
+        service.reconstruirPendentes();
+        verify(repositorio, never()).listar(anyString());
+    }
+
+    @Test
+    void posicao_shouldComeFromRedis() {
+        when(redis.posicao("br", "B")).thenReturn(Optional.of(new ClassificacaoRedis.Posicao(2, B)));
+
+        assertEquals(Optional.of(new ClassificacaoService.Linha(2, "B", 0, 1, 0, 0, 1, 1, 2, -1)),
+                service.posicao("br", "B"));
+        verifyNoInteractions(repositorio);
+    }
+
+    @Test
+    void posicao_shouldBeEmpty_whenRedisHasCompetitionButNotTeam() {
+        when(redis.posicao("br", "Z")).thenReturn(Optional.empty());
+
+        assertTrue(service.posicao("br", "Z").isEmpty());
+        verifyNoInteractions(repositorio);
+    }
+
+    @Test
+    void posicao_shouldReadDatabase_whenCompetitionIsNotInRedis() {
+        when(redis.posicao("br", "A")).thenReturn(null);
+        when(repositorio.buscar("br", "A")).thenReturn(Optional.of(A));
+        when(repositorio.posicao("br", "A")).thenReturn(1L);
+
+        assertEquals(1, service.posicao("br", "A").orElseThrow().posicao());
+    }
+
+    @Test
+    void reconstruirTodas_shouldRebuildEveryCompetition() {
+        when(repositorio.competicoes()).thenReturn(List.of("br", "copa"));
+        when(repositorio.listar("br")).thenReturn(List.of(A, B));
+        when(repositorio.listar("copa")).thenReturn(List.of(C));
+
+        service.reconstruirTodas();
+
+        verify(redis).substituir("br", List.of(A, B));
+        verify(redis).substituir("copa", List.of(C));
+        assertEquals(2, service.getReconstrucoes());
+    }
+}
@@ -0,0 +1,147 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.PlacarEvento;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PlacarAoVivoTest {
+
+    PlacarAoVivo aoVivo;
+
+    @BeforeEach
+    void setup() {
+        aoVivo = spy(new PlacarAoVivo());
+        ReflectionTestUtils.setField(aoVivo, "threads", 1);
+        ReflectionTestUtils.setField(aoVivo, "heartbeatMs", 60_000L);
+        ReflectionTestUtils.setField(aoVivo, "tamanhoBuffer", 3);
+        aoVivo.iniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        aoVivo.fechar();
+    }
+
+    @Test
+    void assinar_shouldSendSnapshotThenLivePoints() throws Exception {
+        SseEmitter emitter = emitter();
+
+        aoVivo.assinar("abc", -1, PlacarEstado.of("A", 1, "B", 0));
+        aoVivo.publicar(new PlacarEvento("abc", "visitante", 1, 1));
+
+        List<String> enviados = enviados(emitter, 2);
+        assertTrue(enviados.get(0).contains("event:placar") && enviados.get(0).contains("id:1"));
+        assertTrue(enviados.get(1).contains("event:ponto") && enviados.get(1).contains("id:2"));
+        assertTrue(enviados.get(1).contains("\"pontosVisitante\":1"));
+    }
+
+    @Test
+    void assinar_shouldResumeFromBuffer_withoutSnapshot() throws Exception {
+        SseEmitter primeiro = emitter();
+        aoVivo.assinar("abc", -1, PlacarEstado.of("A", 0, "B", 0));
+        aoVivo.publicar(new PlacarEvento("abc", "casa", 1, 0));
+        aoVivo.publicar(new PlacarEvento("abc", "casa", 2, 0));
+        aoVivo.publicar(new PlacarEvento("abc", "visitante", 2, 1));
+        enviados(primeiro, 4);
+
+        SseEmitter reconectado = emitter();
+        aoVivo.assinar("abc", 1, PlacarEstado.of("A", 2, "B", 1));
+
+        List<String> enviados = enviados(reconectado, 2);
+        assertTrue(enviados.get(0).contains("id:2"));
+        assertTrue(enviados.get(1).contains("id:3"));
+        assertTrue(enviados.stream().noneMatch(e -> e.contains("event:placar")));
+    }
+
+    @Test
+    void assinar_shouldSendSnapshot_whenBufferNoLongerCoversLastEventId() throws Exception {
+        SseEmitter primeiro = emitter();
+        aoVivo.assinar("abc", -1, PlacarEstado.of("A", 0, "B", 0));
+        for (int i = 1; i <= 5; i++) {
+            aoVivo.publicar(new PlacarEvento("abc", "casa", i, 0));
+        }
+        enviados(primeiro, 6);
+
+        SseEmitter reconectado = emitter();
+        aoVivo.assinar("abc", 1, PlacarEstado.of("A", 5, "B", 0));
+
+        List<String> enviados = enviados(reconectado, 1);
+        assertTrue(enviados.get(0).contains("event:placar") && enviados.get(0).contains("id:5"));
+    }
+
+    @Test
+    void publicar_shouldIgnoreStaleOrDuplicatedEvents() throws Exception {
+        SseEmitter emitter = emitter();
+        aoVivo.assinar("abc", -1, PlacarEstado.of("A", 0, "B", 0));
+        aoVivo.publicar(new PlacarEvento("abc", "casa", 2, 0));
+        aoVivo.publicar(new PlacarEvento("abc", "casa", 1, 0));
+        aoVivo.publicar(new PlacarEvento("abc", "casa", 2, 0));
+        aoVivo.encerrar("abc");
+
+        verify(emitter, timeout(1000)).complete();
+        List<String> enviados = capturados(emitter);
+        assertEquals(3, enviados.size());
+        assertTrue(enviados.get(1).contains("id:2"));
+        assertTrue(enviados.get(2).contains("event:fim"));
+    }
+
+    @Test
+    void publicar_shouldDropSubscriber_whenSendFails() throws Exception {
+        SseEmitter emitter = emitter();
+        aoVivo.assinar("abc", -1, PlacarEstado.of("A", 0, "B", 0));
+        enviados(emitter, 1);
+        doThrow(new IOException("broken pipe")).when(emitter).send(anySet());
+
+        aoVivo.publicar(new PlacarEvento("abc", "casa", 1, 0));
+
+        verify(emitter, timeout(1000).times(2)).send(anySet());
+        assertEquals(1, aoVivo.getAssinantesDescartados());
+        assertEquals(0, aoVivo.getAssinantes());
+    }
+
+    @Test
+    void publicar_shouldIgnoreGamesWithoutSubscribers() {
+        aoVivo.publicar(new PlacarEvento("ninguem", "casa", 1, 0));
+
+        assertEquals(0, aoVivo.getJogos());
+        assertEquals(0, aoVivo.getEventosRecebidos());
+    }
+
+    private SseEmitter emitter() {
+        SseEmitter emitter = mock(SseEmitter.class);
+        doReturn(emitter).when(aoVivo).novoEmitter();
+        return emitter;
+    }
+
+    private List<String> enviados(SseEmitter emitter, int quantidade) throws IOException {
+        verify(emitter, timeout(1000).atLeast(quantidade)).send(anySet());
+        return capturados(emitter);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> capturados(SseEmitter emitter) throws IOException {
+        ArgumentCaptor<Set<ResponseBodyEmitter.DataWithMediaType>> captor = ArgumentCaptor.forClass(Set.class);
+        verify(emitter, atLeastOnce()).send(captor.capture());
+        List<String> res = new ArrayList<>();
+        for (Set<ResponseBodyEmitter.DataWithMediaType> dados : captor.getAllValues()) {
+            res.add(dados.stream().map(d -> String.valueOf(d.getData())).collect(Collectors.joining()));
+        }
+        return res;
+    }
+}
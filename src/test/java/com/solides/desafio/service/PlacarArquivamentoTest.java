@@ -0,0 +1,52 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.repository.PlacarRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlacarArquivamentoTest {
+
+    @Mock
+    PlacarRepository placarRepository;
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    PlacarArquivamento arquivamento;
+
+    @BeforeEach
+    void setup() {
+        arquivamento = new PlacarArquivamento(placarRepository, registry);
+    }
+
+    @Test
+    void arquivar_shouldUseConfiguredRetention_andCountPartitions() {
+        ReflectionTestUtils.setField(arquivamento, "habilitado", true);
+        ReflectionTestUtils.setField(arquivamento, "mesesRetencao", 6);
+        when(placarRepository.arquivarParticoes(6)).thenReturn(List.of("placar_finalizado_202401"), List.of());
+
+        assertEquals(List.of("placar_finalizado_202401"), arquivamento.arquivar());
+        assertEquals(List.of(), arquivamento.arquivar());
+
+        assertEquals(2, arquivamento.getExecucoes());
+        assertEquals(1, arquivamento.getParticoesArquivadas());
+    }
+
+    @Test
+    void arquivar_shouldOnlyCreatePartitions_byDefault() {
+        when(placarRepository.arquivarParticoes(-1)).thenReturn(List.of());
+
+        assertEquals(List.of(), arquivamento.arquivar());
+
+        verify(placarRepository).arquivarParticoes(-1);
+    }
+}
@@ -0,0 +1,145 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.infra.redis.PlacarCache;
+import com.solides.desafio.repository.PlacarRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlacarAtivosTest {
+
+    @Mock
+    PlacarRepository placarRepository;
+
+    @Mock
+    PlacarCache cache;
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    PlacarAtivos ativos;
+
+    @BeforeEach
+    void setup() {
+        ativos = new PlacarAtivos(placarRepository, cache, registry);
+    }
+
+    private static final byte[] JSON_ABC = "{\"abc\":1}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void pagina_shouldComeFromRedis_whenAllPlacaresAreCached() {
+        Map<String, byte[]> placares = new LinkedHashMap<>();
+        placares.put("abc", JSON_ABC);
+        when(cache.ativos(0, 50)).thenReturn(new PlacarCache.Ativos(1, placares));
+
+        PlacarAtivos.Pagina r = ativos.pagina(0, 50);
+
+        assertEquals(1, r.total());
+        assertSame(JSON_ABC, r.placares().get("abc"));
+        verifyNoInteractions(placarRepository);
+    }
+
+    @Test
+    void pagina_shouldFillMissingPlacarFromDatabase() {
+        Map<String, byte[]> placares = new LinkedHashMap<>();
+        placares.put("abc", JSON_ABC);
+        placares.put("xyz", null);
+        when(cache.ativos(0, 50)).thenReturn(new PlacarCache.Ativos(2, placares));
+        when(placarRepository.buscarAtivosPorHashes(List.of("xyz"))).thenReturn(Map.of("xyz", PlacarEstado.of("C", 1, "D", 0)));
+
+        PlacarAtivos.Pagina r = ativos.pagina(0, 50);
+
+        assertEquals(2, r.total());
+        assertEquals(List.of("abc", "xyz"), List.copyOf(r.placares().keySet()));
+        assertEquals("{\"time_da_casa\":{\"nome\":\"C\",\"pontos\":1},\"time_visitante\":{\"nome\":\"D\",\"pontos\":0}}",
+                new String(r.placares().get("xyz"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void pagina_shouldDropAndForgetGamesNoLongerActive() {
+        Map<String, byte[]> placares = new LinkedHashMap<>();
+        placares.put("fim", null);
+        placares.put("abc", JSON_ABC);
+        when(cache.ativos(0, 50)).thenReturn(new PlacarCache.Ativos(2, placares));
+        when(placarRepository.buscarAtivosPorHashes(List.of("fim"))).thenReturn(Map.of());
+
+        PlacarAtivos.Pagina r = ativos.pagina(0, 50);
+
+        assertEquals(1, r.total());
+        assertEquals(List.of("abc"), List.copyOf(r.placares().keySet()));
+        verify(cache).removerAtivo("fim");
+    }
+
+    @Test
+    void pagina_shouldFetchAllMissingPlacaresInOneQuery() {
+        Map<String, byte[]> placares = new LinkedHashMap<>();
+        placares.put("a", null);
+        placares.put("abc", JSON_ABC);
+        placares.put("b", null);
+        placares.put("c", null);
+        when(cache.ativos(0, 50)).thenReturn(new PlacarCache.Ativos(4, placares));
+        when(placarRepository.buscarAtivosPorHashes(List.of("a", "b", "c"))).thenReturn(Map.of(
+                "a", PlacarEstado.of("A", 0, "B", 0), "c", PlacarEstado.of("E", 0, "F", 0)));
+
+        PlacarAtivos.Pagina r = ativos.pagina(0, 50);
+
+        assertEquals(3, r.total());
+        assertEquals(List.of("a", "abc", "c"), List.copyOf(r.placares().keySet()));
+        verify(placarRepository, times(1)).buscarAtivosPorHashes(any());
+        verify(cache).removerAtivo("b");
+    }
+
+    @Test
+    void pagina_shouldReadDatabase_whenRedisIsDown() {
+        when(cache.ativos(0, 50)).thenThrow(new JedisConnectionException("down"));
+        Map<String, PlacarEstado> doBanco = new LinkedHashMap<>();
+        doBanco.put("abc", PlacarEstado.of("A", 2, "B", 1));
+        when(placarRepository.paginaAtivos(0, 50)).thenReturn(doBanco);
+        when(placarRepository.contarAtivos()).thenReturn(1L);
+
+        PlacarAtivos.Pagina r = ativos.pagina(0, 50);
+
+        assertEquals(1, r.total());
+        assertEquals("{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":2},\"time_visitante\":{\"nome\":\"B\",\"pontos\":1}}",
+                new String(r.placares().get("abc"), StandardCharsets.UTF_8));
+        assertEquals(1, ativos.getLeiturasDoBanco());
+    }
+
+    @Test
+    void pagina_shouldReadDatabase_whenSetIsNotSynchronized() {
+        when(cache.ativos(0, 50)).thenReturn(null);
+        when(placarRepository.paginaAtivos(0, 50)).thenReturn(Map.of());
+        when(placarRepository.contarAtivos()).thenReturn(0L);
+
+        assertEquals(0, ativos.pagina(0, 50).total());
+        assertEquals(1, ativos.getLeiturasDoBanco());
+        assertEquals(1.0, registry.get("placar.ativos.leituras.banco").counter().count());
+    }
+
+    @Test
+    void sincronizar_shouldSendActiveGamesWithCutoffBeforeTheRead() {
+        Map<String, Long> doBanco = Map.of("abc", 1L);
+        when(placarRepository.ativos()).thenReturn(doBanco);
+        when(cache.sincronizarAtivos(eq(doBanco), anyLong())).thenReturn(2L);
+        long antes = System.currentTimeMillis();
+
+        assertEquals(2L, ativos.sincronizar());
+
+        verify(cache).sincronizarAtivos(eq(doBanco),
+                longThat(corte -> corte <= antes && corte >= antes - PlacarAtivos.TOLERANCIA_MS - 1_000));
+        assertEquals(1, ativos.getSincronizacoes());
+    }
+}
@@ -0,0 +1,159 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontuacao;
+import com.solides.desafio.repository.PlacarEventoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlacarEventoLogTest {
+
+    @Mock
+    PlacarEventoRepository repositorio;
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    PlacarEventoLog log;
+
+    @BeforeEach
+    void setup() {
+        log = new PlacarEventoLog(repositorio, registry);
+    }
+
+    @Test
+    void gravarLote_shouldCompleteEachRequest_withScoreRightAfterIt() {
+        PlacarEventoLog.Pedido a1 = pedido("a", "casa", 1);
+        PlacarEventoLog.Pedido b1 = pedido("b", "visitante", 1);
+        PlacarEventoLog.Pedido a2 = pedido("a", "visitante", 2);
+        PlacarEventoLog.Pedido x1 = pedido("x", "casa", 1);
+        when(repositorio.anexar(anyList())).thenReturn(PlacarEventoRepository.Anexacao.de(Map.of(
+                "a", PlacarEstado.of("A", 4, "B", 2),
+                "b", PlacarEstado.of("C", 0, "D", 1))));
+
+        log.gravarLote(List.of(a1, b1, a2, x1));
+
+        verify(repositorio, times(1)).anexar(anyList());
+        assertEquals(PlacarEstado.of("A", 4, "B", 0), a1.gravado().join());
+        assertEquals(PlacarEstado.of("C", 0, "D", 1), b1.gravado().join());
+        assertEquals(PlacarEstado.of("A", 4, "B", 2), a2.gravado().join());
+        assertNull(x1.gravado().join());
+        assertEquals(4, log.getEventosGravados());
+    }
+
+    @Test
+    void gravarLote_shouldFailEveryRequest_whenInsertFails() {
+        PlacarEventoLog.Pedido a1 = pedido("a", "casa", 1);
+        PlacarEventoLog.Pedido b1 = pedido("b", "casa", 1);
+        when(repositorio.anexar(anyList())).thenThrow(new RuntimeException("db down"));
+
+        log.gravarLote(List.of(a1, b1));
+
+        assertTrue(a1.gravado().isCompletedExceptionally());
+        assertTrue(b1.gravado().isCompletedExceptionally());
+        assertEquals(1, log.getFalhas());
+    }
+
+    @Test
+    void anexar_shouldGroupConcurrentPointsIntoFewInserts() throws Exception {
+        // o primeiro INSERT segura a gravadora; o que chega enquanto isso sai no próximo, junto
+        CountDownLatch primeiro = new CountDownLatch(1);
+        List<Integer> tamanhos = new ArrayList<>();
+        when(repositorio.anexar(anyList())).thenAnswer(inv -> {
+            List<Pontuacao> lote = inv.getArgument(0);
+            synchronized (tamanhos) {
+                tamanhos.add(lote.size());
+            }
+            primeiro.await(5, TimeUnit.SECONDS);
+            return PlacarEventoRepository.Anexacao.de(Map.of("a", PlacarEstado.of("A", lote.size(), "B", 0)));
+        });
+        ReflectionTestUtils.setField(log, "intervaloSnapshotMs", 60_000L);
+        ReflectionTestUtils.setField(log, "modoContador", "eventos");
+        log.iniciar();
+        ExecutorService clientes = Executors.newFixedThreadPool(10);
+        try {
+            Future<?>[] respostas = new Future<?>[10];
+            for (int i = 0; i < respostas.length; i++) {
+                respostas[i] = clientes.submit(() -> log.anexar(new Pontuacao("a", "casa", 1)));
+            }
+            Thread.sleep(200);
+            primeiro.countDown();
+            for (Future<?> r : respostas) assertNotNull(r.get(5, TimeUnit.SECONDS));
+        } finally {
+            clientes.shutdownNow();
+            log.encerrar();
+        }
+
+        assertEquals(10, tamanhos.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(tamanhos.size() < 10, "pontos concorrentes deveriam sair em lote: " + tamanhos);
+    }
+
+    @Test
+    void consolidar_shouldRepeatWhileBatchesComeFull() {
+        ReflectionTestUtils.setField(log, "loteSnapshot", 100);
+        when(repositorio.consolidar(100)).thenReturn(100, 100, 7);
+
+        log.consolidar();
+
+        verify(repositorio, times(3)).consolidar(100);
+        assertEquals(207, log.getEventosConsolidados());
+    }
+
+    @Test
+    void gravarLote_shouldAnswerRepeatedEventWithCurrentScore_withoutCountingIt() {
+        PlacarEventoLog.Pedido a1 = pedido("a", "casa", 1, "e1");
+        PlacarEventoLog.Pedido a2 = pedido("a", "casa", 1, "e2");
+        when(repositorio.anexar(anyList())).thenReturn(new PlacarEventoRepository.Anexacao(
+                Map.of("a", PlacarEstado.of("A", 5, "B", 0)), Set.of(0)));
+
+        log.gravarLote(List.of(a1, a2));
+
+        assertEquals(PlacarEstado.of("A", 5, "B", 0), a1.gravado().join());
+        assertEquals(PlacarEstado.of("A", 5, "B", 0), a2.gravado().join());
+        assertEquals(1, log.getEventosGravados());
+    }
+
+    @Test
+    void iniciar_shouldOnlyDrainLeftoverEvents_outsideEventsMode() throws Exception {
+        ReflectionTestUtils.setField(log, "intervaloSnapshotMs", 10L);
+        when(repositorio.consolidar(anyInt())).thenReturn(3);
+
+        log.iniciar();
+        try {
+            Thread.sleep(200);
+        } finally {
+            log.encerrar();
+        }
+
+        // uma passada que esvazia a cauda e o ciclo para; sem thread gravadora
+        verify(repositorio, times(1)).consolidar(anyInt());
+        assertEquals(3, log.getEventosConsolidados());
+    }
+
+    private static PlacarEventoLog.Pedido pedido(String hashId, String lado, int delta) {
+        return pedido(hashId, lado, delta, null);
+    }
+
+    private static PlacarEventoLog.Pedido pedido(String hashId, String lado, int delta, String eventoId) {
+        return new PlacarEventoLog.Pedido(new Pontuacao(hashId, lado, delta, eventoId), new CompletableFuture<>());
+    }
+}
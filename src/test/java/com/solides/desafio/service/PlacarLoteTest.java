@@ -0,0 +1,35 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.Pontuacao;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlacarLoteTest {
+
+    @Test
+    void aposCadaItem_shouldRebuildIntermediateScores() {
+        List<PlacarEstado> res = PlacarLote.aposCadaItem(
+                Arrays.asList(new Pontuacao("a", "casa", 2), new Pontuacao("a", "casa", 1)),
+                Map.of("a", PlacarEstado.of("A", 10, "B", 0)), Set.of());
+
+        assertEquals(List.of(PlacarEstado.of("A", 9, "B", 0), PlacarEstado.of("A", 10, "B", 0)), res);
+    }
+
+    @Test
+    void aposCadaItem_shouldAnswerIgnoredWithFinalScore_andMissingGamesWithNull() {
+        List<PlacarEstado> res = PlacarLote.aposCadaItem(
+                Arrays.asList(new Pontuacao("a", "casa", 1), new Pontuacao("a", "VISITANTE", 2),
+                        new Pontuacao("x", "casa", 1), new Pontuacao("a", "casa", 1)),
+                Map.of("a", PlacarEstado.of("A", 5, "B", 2)), Set.of(0));
+
+        assertEquals(Arrays.asList(PlacarEstado.of("A", 5, "B", 2), PlacarEstado.of("A", 4, "B", 2),
+                null, PlacarEstado.of("A", 5, "B", 2)), res);
+    }
+}
@@ -1,18 +1,35 @@
 package com.solides.desafio.service;
 
+import com.solides.desafio.domain.Classificacao;
+import com.solides.desafio.domain.Lance;
+import com.solides.desafio.domain.PlacarEstado;
+import com.solides.desafio.domain.PlacarEvento;
+import com.solides.desafio.domain.Pontos;
+import com.solides.desafio.domain.Pontuacao;
+import com.solides.desafio.infra.metricas.PlacarMetricas;
+import com.solides.desafio.infra.rabbitmq.PlacarAoVivoRabbit;
 import com.solides.desafio.infra.rabbitmq.PlacarProducer;
-import com.solides.desafio.infra.redis.RedisClientProvider;
+import com.solides.desafio.infra.redis.PlacarCache;
+import com.solides.desafio.infra.redis.PlacarContadorRedis;
+import com.solides.desafio.repository.PlacarEventoRepository;
 import com.solides.desafio.repository.PlacarRepository;
-import org.junit.jupiter.api.BeforeEach;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import redis.clients.jedis.Jedis;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.exceptions.JedisConnectionException;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,126 +47,356 @@ class PlacarServiceTest {
     PlacarProducer producer;
 
     @Mock
-    RedisClientProvider redisProvider;
+    PlacarCache cache;
 
     @Mock
-    Jedis jedis;
+    PlacarContadorRedis contador;
+
+    @Mock
+    PlacarWriteBehind writeBehind;
+
+    @Mock
+    PlacarAoVivo aoVivo;
+
+    @Mock
+    PlacarAoVivoRabbit aoVivoRabbit;
+
+    @Mock
+    PlacarEventoLog eventoLog;
+
+    @Mock
+    ClassificacaoService classificacao;
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Spy
+    PlacarMetricas metricas = new PlacarMetricas(registry);
 
     @InjectMocks
     PlacarService service;
 
-    private final String initialPayload = "{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":0},\"time_visitante\":{\"nome\":\"B\",\"pontos\":0}}";
-    private final String initialResponse = "{\"hash_id\":\"abc123\"}";
-
-    @BeforeEach
-    void setup() {
-        when(redisProvider.getJedis()).thenReturn(jedis);
-    }
+    private final PlacarEstado initialPayload = PlacarEstado.of("A", 0, "B", 0);
 
 
     @Test
-    void iniciar_shouldCallRepositoryAndStoreInRedis_whenProcedureReturnsHash() throws Exception {
-        when(placarRepository.iniciar(initialPayload)).thenReturn(initialResponse);
+    void iniciar_shouldCallRepositoryAndStoreInRedis_whenProcedureReturnsHash() {
+        when(placarRepository.iniciar(initialPayload, null)).thenReturn(new PlacarRepository.Inicio("abc123", 1_700_000_000_000L));
 
         String res = service.iniciar(initialPayload);
 
-        assertEquals(initialResponse, res);
-        byte[] expectedKey = "placar:abc123".getBytes(StandardCharsets.UTF_8);
-        byte[] expectedValue = initialPayload.getBytes(StandardCharsets.UTF_8);
-        verify(jedis, times(1)).set(eq(expectedKey), eq(expectedValue));
-        verify(placarRepository, times(1)).iniciar(initialPayload);
+        assertEquals("abc123", res);
+        // o score em placar:ativos é o data_inicio do banco, não o relógio da aplicação
+        verify(cache, times(1)).gravarAtivo("abc123", initialPayload, 1_700_000_000_000L);
+        verify(placarRepository, times(1)).iniciar(initialPayload, null);
     }
 
     @Test
-    void iniciar_shouldNotPropagate_whenRedisSetThrows() throws Exception {
-        when(placarRepository.iniciar(initialPayload)).thenReturn(initialResponse);
-        doThrow(new RuntimeException("redis down")).when(jedis).set((byte[]) any(), any());
+    void iniciar_shouldNotPropagate_whenRedisSetThrows() {
+        when(placarRepository.iniciar(initialPayload, null)).thenReturn(new PlacarRepository.Inicio("abc123", 1L));
+        doThrow(new RuntimeException("redis down")).when(cache).gravarAtivo(anyString(), any(), anyLong());
 
         String res = service.iniciar(initialPayload);
 
-        assertEquals(initialResponse, res);
-        verify(placarRepository, times(1)).iniciar(initialPayload);
-        verify(jedis, times(1)).set((byte[]) any(), any());
+        assertEquals("abc123", res);
+        verify(placarRepository, times(1)).iniciar(initialPayload, null);
+        verify(cache, times(1)).gravarAtivo(anyString(), any(), anyLong());
     }
 
 
     @Test
-    void pontuar_shouldFallbackToDb_whenRedisDoesNotHaveValue() throws Exception {
+    void pontuar_shouldIncrementInDbWithoutReading_andRefreshCache() throws Exception {
         String hash = "abc123";
-        when(jedis.get(("placar:" + hash).getBytes(StandardCharsets.UTF_8))).thenReturn(null);
+        PlacarEstado updated = PlacarEstado.of("A", 1, "B", 0);
+        when(placarRepository.incrementar(hash, 1, 0)).thenReturn(Optional.of(updated));
 
-        when(placarRepository.buscarDadosPorHash(hash)).thenReturn(Optional.of(initialPayload));
+        PlacarEstado result = service.pontuar(hash, "casa");
 
-        String updatedJson = "{\"time_da_casa\":{\"pontos\":1},\"time_visitante\":{\"pontos\":0}}";
-        when(placarRepository.atualizar(eq(hash), anyString())).thenReturn(updatedJson);
-
-        String result = service.pontuar(hash, "casa");
-
-        assertEquals(updatedJson, result);
-        verify(placarRepository, times(1)).buscarDadosPorHash(hash);
-        verify(placarRepository, times(1)).atualizar(eq(hash), anyString());
+        assertEquals(updated, result);
+        verify(placarRepository, never()).buscarPorHash(anyString());
+        verify(cache, never()).ler(anyString());
+        verify(placarRepository, times(1)).incrementar(hash, 1, 0);
         verify(producer, times(1)).enviarEvento(anyString());
-        verify(jedis, times(1)).set(eq(("placar:" + hash).getBytes(StandardCharsets.UTF_8)),
-                eq(updatedJson.getBytes(StandardCharsets.UTF_8)));
+        verify(aoVivo, times(1)).publicar(new PlacarEvento(hash, "casa", 1, 0));
+        verify(cache, times(1)).gravar(hash, updated);
     }
 
     @Test
-    void pontuar_shouldThrowIllegalArgument_whenNotFoundInDbAndRedis() {
+    void pontuar_shouldThrowIllegalArgument_whenNotFoundInDb() {
         String hash = "noexist";
-        when(jedis.get(("placar:" + hash).getBytes(StandardCharsets.UTF_8))).thenReturn(null);
-        when(placarRepository.buscarDadosPorHash(hash)).thenReturn(Optional.empty());
+        when(placarRepository.incrementar(hash, 1, 0)).thenReturn(Optional.empty());
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.pontuar(hash, "casa"));
         assertTrue(ex.getMessage().contains("Placar não encontrado"));
-        verify(placarRepository, times(1)).buscarDadosPorHash(hash);
+        verify(placarRepository, times(1)).incrementar(hash, 1, 0);
+    }
+
+    @Test
+    void pontuar_shouldRecordFailedOperation_whenNotFoundInDb() {
+        when(placarRepository.incrementar("x", 0, 1)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> service.pontuar("x", "visitante"));
+
+        assertEquals(1L, registry.get("placar.operacao").tags("operacao", "pontuar", "resultado", "erro").timer().count());
+        assertEquals(1L, registry.get("placar.etapa").tags("operacao", "pontuar", "etapa", "db_incrementar").timer().count());
+        assertNull(registry.find("placar.operacao").tags("resultado", "ok").timer());
     }
 
     @Test
     void pontuar_shouldThrowIllegalArgument_whenLadoInvalid() {
         String hash = "abc123";
-        when(jedis.get(("placar:" + hash).getBytes(StandardCharsets.UTF_8)))
-                .thenReturn(initialPayload.getBytes(StandardCharsets.UTF_8));
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.pontuar(hash, "meio"));
         assertTrue(ex.getMessage().contains("lado inválido"));
-        verify(placarRepository, never()).atualizar(anyString(), anyString());
+        verify(placarRepository, never()).incrementar(anyString(), anyInt(), anyInt());
     }
 
     @Test
     void pontuar_shouldContinue_whenProducerThrowsException() throws Exception {
         String hash = "abc123";
-        when(jedis.get(("placar:" + hash).getBytes(StandardCharsets.UTF_8)))
-                .thenReturn(initialPayload.getBytes(StandardCharsets.UTF_8));
-
-        String updatedJson = "{\"time_da_casa\":{\"pontos\":1},\"time_visitante\":{\"pontos\":0}}";
-        when(placarRepository.atualizar(eq(hash), anyString())).thenReturn(updatedJson);
+        PlacarEstado updated = PlacarEstado.of("A", 1, "B", 0);
+        when(placarRepository.incrementar(hash, 1, 0)).thenReturn(Optional.of(updated));
 
         doThrow(new RuntimeException("rabbit failed")).when(producer).enviarEvento(anyString());
 
-        String res = service.pontuar(hash, "casa");
+        PlacarEstado res = service.pontuar(hash, "casa");
+
+        assertEquals(updated, res);
+        verify(producer, times(1)).enviarEvento(anyString());
+        verify(aoVivo, times(1)).publicar(any(PlacarEvento.class));
+        verify(cache, times(1)).gravar(hash, updated);
+        assertEquals(1.0, registry.get("placar.erros.ignorados")
+                .tags("operacao", "pontuar", "backend", "rabbitmq").counter().count());
+    }
+
+    @Test
+    void pontuar_shouldNotPropagate_whenRedisSetThrowsAfterUpdate() {
+        String hash = "abc123";
+        PlacarEstado updated = PlacarEstado.of("A", 1, "B", 0);
+        when(placarRepository.incrementar(hash, 1, 0)).thenReturn(Optional.of(updated));
+
+        doThrow(new RuntimeException("redis set fail")).when(cache).gravar(hash, updated);
+
+        PlacarEstado res = service.pontuar(hash, "casa");
+
+        assertEquals(updated, res);
+        verify(cache, times(1)).gravar(hash, updated);
+        // o placar em cache ficou para trás do banco: não pode responder 304 com a versão antiga
+        verify(cache).invalidar(hash);
+        assertEquals(1.0, registry.get("placar.erros.ignorados")
+                .tags("operacao", "pontuar", "backend", "redis").counter().count());
+        assertEquals(1L, registry.get("placar.operacao")
+                .tags("operacao", "pontuar", "resultado", "ok").timer().count());
+    }
+
+    @Test
+    void pontuar_redis_shouldSeedCounterIncrementAndScheduleWriteBehind() throws Exception {
+        ReflectionTestUtils.setField(service, "modoContador", "redis");
+        String hash = "abc123";
+        when(cache.ler(hash)).thenReturn(Optional.of(initialPayload));
+        when(contador.incrementar(hash, 1, 0))
+                .thenReturn(null, new PlacarContadorRedis.Resultado(1, 0, "A", "B", true));
+
+        PlacarEstado res = service.pontuar(hash, "casa");
 
-        assertEquals(updatedJson, res);
+        assertEquals(PlacarEstado.of("A", 1, "B", 0), res);
+        verify(contador, times(1)).semear(hash, 0, 0);
+        verify(writeBehind, times(1)).gravar(hash, 1, 0);
         verify(producer, times(1)).enviarEvento(anyString());
-        verify(jedis, times(1)).set(eq(("placar:" + hash).getBytes(StandardCharsets.UTF_8)),
-                eq(updatedJson.getBytes(StandardCharsets.UTF_8)));
+        verify(placarRepository, never()).incrementar(anyString(), anyInt(), anyInt());
     }
 
     @Test
-    void pontuar_shouldNotPropagate_whenRedisSetThrowsAfterUpdate() throws Exception {
+    void pontuar_redis_shouldTakeNamesFromDb_whenCachedPlacarWasEvicted() {
+        ReflectionTestUtils.setField(service, "modoContador", "redis");
         String hash = "abc123";
-        when(jedis.get(("placar:" + hash).getBytes(StandardCharsets.UTF_8)))
-                .thenReturn(initialPayload.getBytes(StandardCharsets.UTF_8));
+        when(contador.incrementar(hash, 0, 1))
+                .thenReturn(new PlacarContadorRedis.Resultado(3, 2, null, null, false));
+        when(placarRepository.buscarPorHash(hash)).thenReturn(Optional.of(PlacarEstado.of("A", 3, "B", 1)));
+
+        PlacarEstado res = service.pontuar(hash, "visitante");
+
+        assertEquals(PlacarEstado.of("A", 3, "B", 2), res);
+        verify(cache, times(1)).gravar(hash, res);
+        verify(writeBehind, times(1)).gravar(hash, 3, 2);
+    }
+
+    @Test
+    void pontuar_redis_shouldFallBackToDatabase_whenRedisIsDown() {
+        ReflectionTestUtils.setField(service, "modoContador", "redis");
+        String hash = "abc123";
+        when(contador.incrementar(hash, 1, 0)).thenThrow(new JedisConnectionException("down"));
+        when(placarRepository.incrementar(hash, 1, 0)).thenReturn(Optional.of(PlacarEstado.of("A", 4, "B", 1)));
+
+        PlacarEstado res = service.pontuar(hash, "casa");
+
+        assertEquals(PlacarEstado.of("A", 4, "B", 1), res);
+        // o pendente do write-behind chega ao banco antes do incremento, e o contador fica para descarte
+        var ordem = inOrder(writeBehind, placarRepository);
+        ordem.verify(writeBehind).descarregar(hash);
+        ordem.verify(placarRepository).incrementar(hash, 1, 0);
+        verify(contador).descartar(hash);
+        verify(cache).invalidar(hash);
+        verify(writeBehind, never()).gravar(anyString(), anyInt(), anyInt());
+        verify(producer, times(1)).enviarEvento(anyString());
+    }
+
+    @Test
+    void pontuar_eventos_shouldAppendToLog_withoutUpdatingRow() {
+        ReflectionTestUtils.setField(service, "modoContador", "eventos");
+        PlacarEstado updated = PlacarEstado.of("A", 2, "B", 0);
+        when(eventoLog.anexar(new Pontuacao("abc123", "casa", 1))).thenReturn(updated);
+
+        PlacarEstado res = service.pontuar("abc123", "CASA");
+
+        assertEquals(updated, res);
+        verify(placarRepository, never()).incrementar(anyString(), anyInt(), anyInt());
+        verify(cache, times(1)).gravar("abc123", updated);
+        verify(aoVivo, times(1)).publicar(new PlacarEvento("abc123", "CASA", 2, 0));
+    }
+
+    @Test
+    void pontuar_eventos_shouldThrowIllegalArgument_whenNotFound() {
+        ReflectionTestUtils.setField(service, "modoContador", "eventos");
+        when(eventoLog.anexar(any())).thenReturn(null);
+
+        assertThrows(IllegalArgumentException.class, () -> service.pontuar("x", "visitante"));
+        verifyNoInteractions(producer, cache);
+    }
+
+    // ---------- pontuarLote ----------
+
+    @Test
+    void pontuarLote_shouldGroupPerGame_andApplyInOneBatch() throws Exception {
+        when(placarRepository.incrementarEmLote(Map.of("a", new Pontos(2, 1), "b", new Pontos(0, 3))))
+                .thenReturn(Map.of("a", PlacarEstado.of("A", 5, "B", 1), "b", PlacarEstado.of("C", 0, "D", 3)));
+
+        List<PlacarService.ResultadoLote> res = service.pontuarLote(List.of(
+                new Pontuacao("a", "casa", 1),
+                new Pontuacao("b", "visitante", 3),
+                new Pontuacao("a", "visitante", 1),
+                new Pontuacao("a", "casa", 1)));
+
+        assertEquals(PlacarEstado.of("A", 4, "B", 0), res.get(0).placar());
+        assertEquals(PlacarEstado.of("C", 0, "D", 3), res.get(1).placar());
+        assertEquals(PlacarEstado.of("A", 4, "B", 1), res.get(2).placar());
+        assertEquals(PlacarEstado.of("A", 5, "B", 1), res.get(3).placar());
+        assertTrue(res.stream().allMatch(r -> r.status() == PlacarService.StatusLote.OK));
+        verify(placarRepository, never()).incrementar(anyString(), anyInt(), anyInt());
+        verify(cache, times(1)).gravarEmLote(anyMap());
+        verify(producer, times(1)).enviarEventos(argThat(l -> l.size() == 4));
+        verify(aoVivo, times(1)).publicar(new PlacarEvento("a", "visitante", 4, 1));
+    }
+
+    @Test
+    void pontuarLote_shouldReportInvalidAndMissingItems_withoutFailingOthers() {
+        when(placarRepository.incrementarEmLote(Map.of("a", new Pontos(1, 0), "x", new Pontos(1, 0))))
+                .thenReturn(Map.of("a", PlacarEstado.of("A", 1, "B", 0)));
+
+        List<PlacarService.ResultadoLote> res = service.pontuarLote(List.of(
+                new Pontuacao("a", "casa", 1),
+                new Pontuacao("a", "meio", 1),
+                new Pontuacao("a", "casa", 0),
+                new Pontuacao("x", "casa", 1)));
+
+        assertEquals(PlacarService.StatusLote.OK, res.get(0).status());
+        assertEquals(PlacarService.StatusLote.INVALIDO, res.get(1).status());
+        assertEquals(PlacarService.StatusLote.INVALIDO, res.get(2).status());
+        assertEquals(PlacarService.StatusLote.NAO_ENCONTRADO, res.get(3).status());
+        verify(producer, times(1)).enviarEventos(argThat(l -> l.size() == 1));
+    }
+
+    @Test
+    void pontuarLote_shouldNotPropagate_whenRedisBatchWriteFails() {
+        when(placarRepository.incrementarEmLote(anyMap())).thenReturn(Map.of("a", PlacarEstado.of("A", 1, "B", 0)));
+        doThrow(new RuntimeException("redis down")).when(cache).gravarEmLote(anyMap());
+
+        List<PlacarService.ResultadoLote> res = service.pontuarLote(List.of(new Pontuacao("a", "casa", 1)));
+
+        assertEquals(PlacarService.StatusLote.OK, res.get(0).status());
+        verify(cache).invalidar("a");
+    }
+
+    @Test
+    void pontuarLote_redis_shouldIncrementInOnePipeline_andSeedMissingCounters() {
+        ReflectionTestUtils.setField(service, "modoContador", "redis");
+        when(contador.incrementarEmLote(Map.of("a", new Pontos(2, 0), "b", new Pontos(0, 1))))
+                .thenReturn(Map.of("a", new PlacarContadorRedis.Resultado(2, 0, "A", "B", true)));
+        when(cache.ler("b")).thenReturn(Optional.of(PlacarEstado.of("C", 0, "D", 0)));
+        when(contador.incrementar("b", 0, 1)).thenReturn(new PlacarContadorRedis.Resultado(0, 1, "C", "D", true));
+
+        List<PlacarService.ResultadoLote> res = service.pontuarLote(List.of(
+                new Pontuacao("a", "casa", 2),
+                new Pontuacao("b", "visitante", 1)));
+
+        assertEquals(PlacarEstado.of("A", 2, "B", 0), res.get(0).placar());
+        assertEquals(PlacarEstado.of("C", 0, "D", 1), res.get(1).placar());
+        verify(contador, times(1)).semear("b", 0, 0);
+        verify(writeBehind, times(1)).gravar("a", 2, 0);
+        verify(writeBehind, times(1)).gravar("b", 0, 1);
+        verify(placarRepository, never()).incrementarEmLote(anyMap());
+    }
+
+    @Test
+    void pontuarLote_redis_shouldFallBackToDatabase_whenRedisIsDown() {
+        ReflectionTestUtils.setField(service, "modoContador", "redis");
+        Map<String, Pontos> deltas = Map.of("a", new Pontos(1, 0));
+        when(contador.incrementarEmLote(deltas)).thenThrow(new JedisConnectionException("down"));
+        when(placarRepository.incrementarEmLote(deltas)).thenReturn(Map.of("a", PlacarEstado.of("A", 3, "B", 0)));
+
+        List<PlacarService.ResultadoLote> res = service.pontuarLote(List.of(new Pontuacao("a", "casa", 1)));
+
+        assertEquals(PlacarEstado.of("A", 3, "B", 0), res.get(0).placar());
+        verify(writeBehind).descarregar("a");
+        verify(contador).descartar("a");
+        verify(writeBehind, never()).gravar(anyString(), anyInt(), anyInt());
+    }
 
-        String updatedJson = "{\"time_da_casa\":{\"pontos\":1},\"time_visitante\":{\"pontos\":0}}";
-        when(placarRepository.atualizar(eq(hash), anyString())).thenReturn(updatedJson);
+    @Test
+    void pontuarLote_eventos_shouldAppendValidItemsInOneInsert() {
+        ReflectionTestUtils.setField(service, "modoContador", "eventos");
+        when(eventoLog.anexarEmLote(List.of(new Pontuacao("a", "casa", 1), new Pontuacao("a", "visitante", 2))))
+                .thenReturn(PlacarEventoRepository.Anexacao.de(Map.of("a", PlacarEstado.of("A", 1, "B", 2))));
+
+        List<PlacarService.ResultadoLote> res = service.pontuarLote(List.of(
+                new Pontuacao("a", "Casa", 1),
+                new Pontuacao("a", "meio", 1),
+                new Pontuacao("a", "visitante", 2)));
+
+        assertEquals(PlacarEstado.of("A", 1, "B", 0), res.get(0).placar());
+        assertEquals(PlacarService.StatusLote.INVALIDO, res.get(1).status());
+        assertEquals(PlacarEstado.of("A", 1, "B", 2), res.get(2).placar());
+        verify(placarRepository, never()).incrementarEmLote(anyMap());
+        verify(cache, times(1)).gravarEmLote(Map.of("a", PlacarEstado.of("A", 1, "B", 2)));
+    }
 
-        doThrow(new RuntimeException("redis set fail")).when(jedis)
-                .set(eq(("placar:" + hash).getBytes(StandardCharsets.UTF_8)), eq(updatedJson.getBytes(StandardCharsets.UTF_8)));
+    @Test
+    void pontuarLote_eventos_shouldAnswerRepeatedEventWithCurrentScore() {
+        ReflectionTestUtils.setField(service, "modoContador", "eventos");
+        // o primeiro item já estava no log; o placar final só soma o segundo
+        when(eventoLog.anexarEmLote(List.of(new Pontuacao("a", "casa", 1, "e1"), new Pontuacao("a", "visitante", 1, "e2"))))
+                .thenReturn(new PlacarEventoRepository.Anexacao(Map.of("a", PlacarEstado.of("A", 1, "B", 1)), Set.of(0)));
+
+        List<PlacarService.ResultadoLote> res = service.pontuarLote(List.of(
+                new Pontuacao("a", "casa", 1, "e1"),
+                new Pontuacao("a", "visitante", 1, "e2")));
+
+        assertEquals(PlacarService.StatusLote.OK, res.get(0).status());
+        assertEquals(PlacarEstado.of("A", 1, "B", 1), res.get(0).placar());
+        assertEquals(PlacarEstado.of("A", 1, "B", 1), res.get(1).placar());
+        verify(aoVivo, times(1)).publicar(any());
+    }
 
-        String res = service.pontuar(hash, "casa");
+    // ---------- lances ----------
 
-        assertEquals(updatedJson, res);
-        verify(jedis, times(1)).set(eq(("placar:" + hash).getBytes(StandardCharsets.UTF_8)), any(byte[].class));
+    @Test
+    void lances_shouldReturnEmpty_onlyWhenPlacarDoesNotExist() {
+        when(eventoLog.lances(anyString())).thenReturn(List.of());
+        when(cache.ler("a")).thenReturn(Optional.of(initialPayload));
+        when(cache.ler("x")).thenReturn(Optional.empty());
+        when(placarRepository.buscarPorHash("x")).thenReturn(Optional.empty());
+
+        assertEquals(Optional.of(List.<Lance>of()), service.lances("a"));
+        assertTrue(service.lances("x").isEmpty());
     }
 
     // ---------- buscar ----------
@@ -157,62 +404,217 @@ class PlacarServiceTest {
     @Test
     void buscar_shouldReturnFromRedis_whenExists() {
         String hash = "abc123";
-        when(jedis.get(("placar:" + hash).getBytes(StandardCharsets.UTF_8)))
-                .thenReturn(initialPayload.getBytes(StandardCharsets.UTF_8));
+        when(cache.ler(hash)).thenReturn(Optional.of(initialPayload));
 
-        Optional<String> opt = service.buscar(hash);
+        Optional<PlacarEstado> opt = service.buscar(hash);
         assertTrue(opt.isPresent());
         assertEquals(initialPayload, opt.get());
-        verify(redisProvider, times(1)).getJedis();
+        verify(placarRepository, never()).buscarPorHash(anyString());
+        assertEquals(1.0, registry.get("placar.cache").tags("operacao", "buscar", "resultado", "hit").counter().count());
+        assertNull(registry.find("placar.etapa").tags("etapa", "db_buscar").timer());
     }
 
     @Test
     void buscar_shouldFallbackToDb_whenRedisThrows() {
         String hash = "abc123";
-        when(redisProvider.getJedis()).thenReturn(jedis);
-        when(jedis.get((byte[]) any())).thenThrow(new RuntimeException("redis fail"));
+        when(cache.ler(hash)).thenThrow(new RuntimeException("redis fail"));
 
-        when(placarRepository.buscarDadosPorHash(hash)).thenReturn(Optional.of(initialPayload));
+        when(placarRepository.buscarPorHash(hash)).thenReturn(Optional.of(initialPayload));
 
-        Optional<String> opt = service.buscar(hash);
+        Optional<PlacarEstado> opt = service.buscar(hash);
         assertTrue(opt.isPresent());
         assertEquals(initialPayload, opt.get());
-        verify(placarRepository, times(1)).buscarDadosPorHash(hash);
+        verify(placarRepository, times(1)).buscarPorHash(hash);
+        assertEquals(1.0, registry.get("placar.cache").tags("operacao", "buscar", "resultado", "erro").counter().count());
+        assertEquals(1L, registry.get("placar.etapa").tags("operacao", "buscar", "etapa", "db_buscar").timer().count());
     }
 
     @Test
     void buscar_shouldReturnEmpty_whenNotFoundAnywhere() {
         String hash = "none";
-        when(jedis.get(("placar:" + hash).getBytes(StandardCharsets.UTF_8))).thenReturn(null);
-        when(placarRepository.buscarDadosPorHash(hash)).thenReturn(Optional.empty());
+        when(cache.ler(hash)).thenReturn(Optional.empty());
+        when(placarRepository.buscarPorHash(hash)).thenReturn(Optional.empty());
 
-        Optional<String> opt = service.buscar(hash);
+        Optional<PlacarEstado> opt = service.buscar(hash);
         assertTrue(opt.isEmpty());
-        verify(placarRepository, times(1)).buscarDadosPorHash(hash);
+        verify(placarRepository, times(1)).buscarPorHash(hash);
+        assertEquals(1.0, registry.get("placar.cache").tags("operacao", "buscar", "resultado", "miss").counter().count());
+    }
+
+
+    @Test
+    void buscarBruto_shouldReturnCachedBytes_withoutDeserializing() {
+        String hash = "abc123";
+        PlacarCache.Bruto bruto = new PlacarCache.Bruto("{}".getBytes(StandardCharsets.UTF_8), 3);
+        when(cache.lerBruto(hash)).thenReturn(Optional.of(bruto));
+
+        assertSame(bruto, service.buscarBruto(hash).orElseThrow());
+        verify(cache, never()).ler(anyString());
+        verify(placarRepository, never()).buscarPorHash(anyString());
+    }
+
+    @Test
+    void buscarBruto_shouldLoadFromDbAndRepopulateCache_whenMissing() {
+        String hash = "abc123";
+        PlacarEstado estado = PlacarEstado.of("A", 2, "B", 1);
+        when(cache.lerBruto(hash)).thenReturn(Optional.empty());
+        when(placarRepository.buscarPorHash(hash)).thenReturn(Optional.of(estado));
+        when(cache.gravar(hash, estado)).thenReturn(4L);
+
+        PlacarCache.Bruto bruto = service.buscarBruto(hash).orElseThrow();
+
+        assertEquals(4L, bruto.versao());
+        assertEquals("{\"time_da_casa\":{\"nome\":\"A\",\"pontos\":2},\"time_visitante\":{\"nome\":\"B\",\"pontos\":1}}",
+                new String(bruto.json(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void buscarBruto_shouldServeWithoutVersion_whenRedisDown() {
+        String hash = "abc123";
+        when(cache.lerBruto(hash)).thenThrow(new RuntimeException("redis fail"));
+        when(placarRepository.buscarPorHash(hash)).thenReturn(Optional.of(initialPayload));
+        when(cache.gravar(hash, initialPayload)).thenThrow(new RuntimeException("redis fail"));
+
+        assertEquals(0L, service.buscarBruto(hash).orElseThrow().versao());
+    }
+
+    @Test
+    void buscarVarios_shouldServeCacheHitsWithoutDatabase() {
+        byte[] a = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        byte[] b = "{\"b\":1}".getBytes(StandardCharsets.UTF_8);
+        when(cache.lerVarios(List.of("a", "b"))).thenReturn(List.of(a, b));
+
+        Map<String, byte[]> r = service.buscarVarios(List.of("a", "b", "a"));
+
+        assertEquals(List.of("a", "b"), List.copyOf(r.keySet()));
+        assertSame(a, r.get("a"));
+        assertSame(b, r.get("b"));
+        verifyNoInteractions(placarRepository);
     }
 
+    @Test
+    void buscarVarios_shouldLoadMissesInOneQueryAndBackfillCache() {
+        byte[] a = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        PlacarEstado estadoB = PlacarEstado.of("C", 3, "D", 0);
+        when(cache.lerVarios(List.of("a", "b", "nada"))).thenReturn(Arrays.asList(a, null, null));
+        when(placarRepository.buscarPorHashes(List.of("b", "nada"))).thenReturn(Map.of("b", estadoB));
+
+        Map<String, byte[]> r = service.buscarVarios(List.of("a", "b", "nada"));
+
+        assertEquals(List.of("a", "b", "nada"), List.copyOf(r.keySet()));
+        assertSame(a, r.get("a"));
+        assertEquals("{\"time_da_casa\":{\"nome\":\"C\",\"pontos\":3},\"time_visitante\":{\"nome\":\"D\",\"pontos\":0}}",
+                new String(r.get("b"), StandardCharsets.UTF_8));
+        assertNull(r.get("nada"));
+        verify(cache).gravarEmLote(Map.of("b", estadoB));
+    }
+
+    @Test
+    void buscarVarios_shouldReadAllFromDatabase_whenRedisDown() {
+        when(cache.lerVarios(anyList())).thenThrow(new RuntimeException("redis fail"));
+        when(placarRepository.buscarPorHashes(List.of("a", "b"))).thenReturn(Map.of("a", initialPayload));
+        doThrow(new RuntimeException("redis fail")).when(cache).gravarEmLote(anyMap());
+
+        Map<String, byte[]> r = service.buscarVarios(List.of("a", "b"));
+
+        assertNotNull(r.get("a"));
+        assertNull(r.get("b"));
+    }
+
+    @Test
+    void versao_shouldReturnZero_whenRedisThrows() {
+        when(cache.versao("abc123")).thenThrow(new RuntimeException("redis fail"));
+
+        assertEquals(0L, service.versao("abc123"));
+    }
 
     @Test
     void finalizar_shouldCallRepoAndDeleteRedis() {
         String hash = "abc123";
 
-        doNothing().when(placarRepository).finalizar(hash);
+        when(placarRepository.finalizar(hash)).thenReturn(List.of());
 
         service.finalizar(hash);
 
         verify(placarRepository, times(1)).finalizar(hash);
-        verify(jedis, times(1)).del(eq(("placar:" + hash).getBytes(StandardCharsets.UTF_8)));
+        verify(cache, times(1)).remover(hash);
+        verify(aoVivo, times(1)).encerrar(hash);
+        verify(aoVivoRabbit, times(1)).encerrar(hash);
+    }
+
+    @Test
+    void finalizar_redis_shouldWriteCounterValueBeforeClosingTheGame() {
+        ReflectionTestUtils.setField(service, "modoContador", "redis");
+        String hash = "abc123";
+        // pontos marcados em outra instância: a fila desta não os tem, o contador sim
+        when(contador.pontos(hash)).thenReturn(Optional.of(new Pontos(3, 2)));
+        when(placarRepository.finalizar(hash)).thenReturn(List.of());
+
+        service.finalizar(hash);
+
+        InOrder ordem = inOrder(writeBehind, placarRepository);
+        ordem.verify(writeBehind).descarregar(hash, 3, 2);
+        ordem.verify(placarRepository).finalizar(hash);
+        verify(contador).remover(hash);
+    }
+
+    @Test
+    void finalizar_redis_shouldFlushLocalQueue_whenCounterIsUnavailable() {
+        ReflectionTestUtils.setField(service, "modoContador", "redis");
+        String hash = "abc123";
+        when(contador.pontos(hash)).thenThrow(new JedisConnectionException("down"));
+        when(placarRepository.finalizar(hash)).thenReturn(List.of());
+
+        service.finalizar(hash);
+
+        verify(writeBehind).descarregar(hash);
+        verify(placarRepository).finalizar(hash);
     }
 
     @Test
     void finalizar_shouldNotPropagate_whenRedisDelThrows() {
         String hash = "abc123";
-        doNothing().when(placarRepository).finalizar(hash);
-        doThrow(new RuntimeException("redis del fail")).when(jedis).del((byte[]) any());
+        when(placarRepository.finalizar(hash)).thenReturn(List.of());
+        doThrow(new RuntimeException("redis del fail")).when(cache).remover(hash);
 
         service.finalizar(hash);
 
         verify(placarRepository, times(1)).finalizar(hash);
-        verify(jedis, times(1)).del(eq(("placar:" + hash).getBytes(StandardCharsets.UTF_8)));
+        verify(cache, times(1)).remover(hash);
+    }
+
+    @Test
+    void iniciar_shouldPassCompeticaoToRepository() {
+        when(placarRepository.iniciar(initialPayload, "brasileirao")).thenReturn(new PlacarRepository.Inicio("abc123", 1L));
+
+        assertEquals("abc123", service.iniciar(initialPayload, "brasileirao"));
+
+        verify(cache).gravarAtivo(eq("abc123"), eq(initialPayload), anyLong());
+    }
+
+    @Test
+    void finalizar_shouldApplyStandingsChangedByTheGame() {
+        String hash = "abc123";
+        List<Classificacao> linhas = List.of(
+                new Classificacao("brasileirao", "A", 3, 1, 1, 0, 0, 2, 1),
+                new Classificacao("brasileirao", "B", 0, 1, 0, 0, 1, 1, 2));
+        when(placarRepository.finalizar(hash)).thenReturn(linhas);
+
+        service.finalizar(hash);
+
+        verify(classificacao).aplicar(linhas);
+        verify(cache).remover(hash);
+    }
+
+    @Test
+    void finalizar_shouldNotPropagate_whenStandingsUpdateThrows() {
+        String hash = "abc123";
+        when(placarRepository.finalizar(hash)).thenReturn(List.of());
+        doThrow(new RuntimeException("redis fail")).when(classificacao).aplicar(anyList());
+
+        service.finalizar(hash);
+
+        verify(cache).remover(hash);
+        verify(aoVivo).encerrar(hash);
     }
 }
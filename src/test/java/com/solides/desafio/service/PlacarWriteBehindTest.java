@@ -0,0 +1,153 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.domain.Pontos;
+import com.solides.desafio.repository.PlacarRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlacarWriteBehindTest {
+
+    @Mock
+    PlacarRepository placarRepository;
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    PlacarWriteBehind writeBehind;
+
+    @BeforeEach
+    void setup() {
+        writeBehind = new PlacarWriteBehind(placarRepository, registry);
+    }
+
+    @Test
+    void descarregar_shouldCoalesceUpdatesOfSameGameIntoOneBatch() {
+        CompletableFuture<Void> f1 = writeBehind.agendar("abc", 1, 0);
+        CompletableFuture<Void> f2 = writeBehind.agendar("abc", 2, 0);
+        writeBehind.agendar("xyz", 0, 1);
+
+        writeBehind.descarregar();
+
+        verify(placarRepository, times(1)).atualizarEmLote(Map.of("abc", new Pontos(2, 0), "xyz", new Pontos(0, 1)));
+        verifyNoMoreInteractions(placarRepository);
+        assertTrue(f1.isDone());
+        assertTrue(f2.isDone());
+        assertEquals(0, writeBehind.pendentes());
+        assertEquals(1, writeBehind.getCoalescidos());
+        assertEquals(2, writeBehind.getItensGravados());
+    }
+
+    @Test
+    void descarregar_shouldSplitIntoBatchesOfConfiguredSize() {
+        ReflectionTestUtils.setField(writeBehind, "lote", 2);
+        writeBehind.agendar("a", 1, 0);
+        writeBehind.agendar("b", 1, 0);
+        writeBehind.agendar("c", 1, 0);
+
+        writeBehind.descarregar();
+
+        verify(placarRepository, times(2)).atualizarEmLote(anyMap());
+        assertEquals(2, writeBehind.getLotesGravados());
+    }
+
+    @Test
+    void descarregar_shouldRecordBatchDurationAndPendingInRegistry() {
+        writeBehind.agendar("a", 1, 0);
+        writeBehind.agendar("b", 1, 0);
+        assertEquals(2.0, registry.get("placar.write-behind.pendentes").gauge().value());
+
+        writeBehind.descarregar();
+
+        Timer descarga = registry.get("placar.write-behind.descarga").timer();
+        assertEquals(1, descarga.count());
+        assertEquals(2.0, registry.get("placar.write-behind.itens").counter().count());
+        assertEquals(0.0, registry.get("placar.write-behind.pendentes").gauge().value());
+    }
+
+    @Test
+    void agendar_shouldKeepMostAdvancedState_whenOlderArrivesLate() {
+        writeBehind.agendar("abc", 2, 1);
+        writeBehind.agendar("abc", 1, 1);
+
+        writeBehind.descarregar("abc");
+
+        verify(placarRepository, times(1)).atualizarEmLote(Map.of("abc", new Pontos(2, 1)));
+    }
+
+    @Test
+    void descarregar_shouldRequeue_whenRepositoryFails() {
+        CompletableFuture<Void> f = writeBehind.agendar("abc", 1, 0);
+        when(placarRepository.atualizarEmLote(anyMap())).thenThrow(new RuntimeException("db down"));
+
+        assertThrows(RuntimeException.class, () -> writeBehind.descarregar("abc"));
+
+        assertEquals(1, writeBehind.pendentes());
+        assertFalse(f.isDone());
+        assertEquals(1, writeBehind.getFalhas());
+    }
+
+    @Test
+    void descarregar_shouldNotMoveScoreBackwards_whenFlushesArriveOutOfOrder() {
+        // duas instâncias gravando o mesmo jogo; o banco aplica a regra de ATUALIZAR_LOTE
+        Map<String, Pontos> banco = new HashMap<>(Map.of("abc", new Pontos(0, 0)));
+        when(placarRepository.atualizarEmLote(anyMap())).thenAnswer(inv -> {
+            Map<String, Pontos> lote = inv.getArgument(0);
+            int gravados = 0;
+            for (Map.Entry<String, Pontos> e : lote.entrySet()) {
+                Pontos atual = banco.get(e.getKey());
+                Pontos novo = e.getValue();
+                if (atual != null && atual.casa() + atual.visitante() <= novo.casa() + novo.visitante()) {
+                    banco.put(e.getKey(), novo);
+                    gravados++;
+                }
+            }
+            return gravados;
+        });
+        PlacarWriteBehind outraInstancia = new PlacarWriteBehind(placarRepository, new SimpleMeterRegistry());
+        outraInstancia.agendar("abc", 1, 1);
+        writeBehind.agendar("abc", 2, 1);
+
+        // a instância mais adiantada descarrega primeiro; a atrasada chega depois
+        writeBehind.descarregar();
+        outraInstancia.descarregar();
+
+        assertEquals(new Pontos(2, 1), banco.get("abc"));
+    }
+
+    @Test
+    void descarregar_withState_shouldWriteItOrMoreAdvancedPending() {
+        writeBehind.agendar("abc", 1, 0);
+        writeBehind.agendar("xyz", 5, 0);
+
+        writeBehind.descarregar("abc", 3, 2);
+        writeBehind.descarregar("xyz", 1, 0);
+
+        verify(placarRepository).atualizarEmLote(Map.of("abc", new Pontos(3, 2)));
+        verify(placarRepository).atualizarEmLote(Map.of("xyz", new Pontos(5, 0)));
+    }
+
+    @Test
+    void agendar_shouldFlushInline_whenQueueIsFull() {
+        ReflectionTestUtils.setField(writeBehind, "maxPendentes", 1);
+        writeBehind.agendar("a", 1, 0);
+
+        writeBehind.agendar("b", 1, 0);
+
+        verify(placarRepository, times(1)).atualizarEmLote(Map.of("a", new Pontos(1, 0)));
+        assertEquals(1, writeBehind.getDescargasForcadas());
+        assertEquals(1, writeBehind.pendentes());
+    }
+}
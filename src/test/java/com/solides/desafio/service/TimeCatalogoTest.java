@@ -0,0 +1,110 @@
+package com.solides.desafio.service;
+
+import com.solides.desafio.domain.Time;
+import com.solides.desafio.infra.redis.RedisClientProvider;
+import com.solides.desafio.repository.TimeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimeCatalogoTest {
+
+    @Mock
+    TimeRepository repo;
+
+    @Mock
+    RedisClientProvider redisProvider;
+
+    @Mock
+    Jedis jedis;
+
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    TimeCatalogo catalogo;
+
+    @BeforeEach
+    void setup() {
+        catalogo = new TimeCatalogo(repo, redisProvider, registry);
+    }
+
+    private static Time time(int id, String nome) {
+        Time t = new Time();
+        t.setId(id);
+        t.setNome(nome);
+        return t;
+    }
+
+    @Test
+    void atual_shouldLoadOnce_andServeBuscarFromSnapshot() {
+        Time a = time(1, "A");
+        when(redisProvider.getJedis()).thenReturn(jedis);
+        when(jedis.get(TimeCatalogo.CHAVE_VERSAO)).thenReturn("4");
+        when(repo.findAll()).thenReturn(List.of(a, time(2, "B")));
+
+        TimeCatalogo.Snapshot s = catalogo.atual();
+
+        assertEquals(4, s.versao());
+        assertEquals(2, s.times().size());
+        assertSame(s, catalogo.atual());
+        assertEquals(Optional.of(a), catalogo.atual().buscar(1L));
+        assertEquals(Optional.empty(), catalogo.atual().buscar(3L));
+        verify(repo, times(1)).findAll();
+        assertEquals(1, catalogo.getCargas());
+    }
+
+    @Test
+    void invalidar_shouldBumpVersionPublishAndReload() {
+        when(redisProvider.getJedis()).thenReturn(jedis);
+        when(jedis.get(TimeCatalogo.CHAVE_VERSAO)).thenReturn("4", "5");
+        when(jedis.incr(TimeCatalogo.CHAVE_VERSAO)).thenReturn(5L);
+        when(repo.findAll()).thenReturn(List.of(time(1, "A")), List.of(time(1, "A"), time(2, "B")));
+        catalogo.atual();
+
+        catalogo.invalidar();
+
+        verify(jedis).publish(TimeCatalogo.CANAL, "5");
+        TimeCatalogo.Snapshot s = catalogo.atual();
+        assertEquals(5, s.versao());
+        assertEquals(2, s.times().size());
+        verify(repo, times(2)).findAll();
+    }
+
+    @Test
+    void descartar_shouldKeepSnapshot_whenMessageIsNotNewer() {
+        when(redisProvider.getJedis()).thenReturn(jedis);
+        when(jedis.get(TimeCatalogo.CHAVE_VERSAO)).thenReturn("5");
+        when(repo.findAll()).thenReturn(List.of(time(1, "A")));
+        TimeCatalogo.Snapshot s = catalogo.atual();
+
+        // a própria instância recebe o aviso que publicou
+        catalogo.descartar(5);
+        assertSame(s, catalogo.atual());
+
+        catalogo.descartar(6);
+        assertNotSame(s, catalogo.atual());
+        verify(repo, times(2)).findAll();
+    }
+
+    @Test
+    void shouldServeWithoutVersion_whenRedisIsDown() {
+        when(redisProvider.getJedis()).thenThrow(new JedisConnectionException("down"));
+        when(repo.findAll()).thenReturn(List.of(time(1, "A")));
+
+        assertEquals(0, catalogo.atual().versao());
+
+        catalogo.invalidar();
+        assertEquals(1, catalogo.atual().times().size());
+        verify(repo, times(2)).findAll();
+    }
+}
@@ -0,0 +1,52 @@
+package com.solides.desafio.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeImportacaoTest {
+
+    private static List<String> csv(String s) throws IOException {
+        List<String> nomes = new ArrayList<>();
+        TimeImportacao.lerCsv(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, nomes::add);
+        return nomes;
+    }
+
+    private static List<String> ndjson(String s) throws IOException {
+        List<String> nomes = new ArrayList<>();
+        TimeImportacao.lerNdjson(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8)), nomes::add);
+        return nomes;
+    }
+
+    @Test
+    void csv_shouldReadFirstColumn_skippingBomHeaderAndBlankLines() throws IOException {
+        assertEquals(List.of("Flamengo", "Atlético, MG", "Diz \"oi\"", "Santos"),
+                csv("\uFEFFnome,sigla\r\nFlamengo,FLA\r\n\"Atlético, MG\",CAM\n\"Diz \"\"oi\"\"\"\n\nSantos"));
+    }
+
+    @Test
+    void csv_unclosedQuote_shouldReportLine() {
+        TimeImportacao.RegistroInvalido e = assertThrows(TimeImportacao.RegistroInvalido.class, () -> csv("A\n\"B"));
+        assertEquals(2, e.registro);
+    }
+
+    @Test
+    void ndjson_shouldReadTopLevelNome_ignoringOtherFields() throws IOException {
+        assertEquals(List.of("A", "B"),
+                ndjson("{\"x\":{\"nome\":\"não\"},\"nome\":\"A\"}\n\n{\"id\":3,\"nome\":\"B\"}\n"));
+    }
+
+    @Test
+    void ndjson_shouldRejectMissingBlankOrTooLongNames() {
+        assertThrows(TimeImportacao.RegistroInvalido.class, () -> ndjson("{\"id\":1}"));
+        assertThrows(TimeImportacao.RegistroInvalido.class, () -> ndjson("{\"nome\":\"  \"}"));
+        assertThrows(TimeImportacao.RegistroInvalido.class, () -> ndjson("{\"nome\":\"" + "x".repeat(256) + "\"}"));
+        assertThrows(TimeImportacao.RegistroInvalido.class, () -> ndjson("{\"nome\":\"A\"}\n{oops"));
+    }
+}
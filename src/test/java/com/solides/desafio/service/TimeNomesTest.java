@@ -0,0 +1,45 @@
+package com.solides.desafio.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeNomesTest {
+
+    @Test
+    void existente_shouldBeKnownUntilForgotten() {
+        TimeNomes nomes = new TimeNomes();
+        assertFalse(nomes.existe("A"));
+
+        nomes.existente("A");
+        assertTrue(nomes.existe("A"));
+        assertFalse(nomes.existe("B"));
+
+        nomes.esquecer("A");
+        assertFalse(nomes.existe("A"));
+    }
+
+    @Test
+    void shouldExpireAfterTtl() {
+        TimeNomes nomes = new TimeNomes();
+        ReflectionTestUtils.setField(nomes, "ttlMs", 0L);
+
+        nomes.existente("A");
+
+        assertFalse(nomes.existe("A"));
+    }
+
+    @Test
+    void shouldStartOver_whenFull() {
+        TimeNomes nomes = new TimeNomes();
+        ReflectionTestUtils.setField(nomes, "max", 2);
+
+        nomes.existente("A");
+        nomes.existente("B");
+        nomes.existente("C");
+
+        assertFalse(nomes.existe("A"));
+        assertTrue(nomes.existe("C"));
+    }
+}
@@ -1,15 +1,23 @@
 package com.solides.desafio.service;
 
 import com.solides.desafio.domain.Time;
+import com.solides.desafio.domain.TimeLogo;
 import com.solides.desafio.repository.TimeRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,6 +29,12 @@ class TimeServiceTest {
     @Mock
     TimeRepository repo;
 
+    @Mock
+    TimeCatalogo catalogo;
+
+    @Mock
+    TimeNomes nomes;
+
     @InjectMocks
     TimeService service;
 
@@ -28,11 +42,14 @@ class TimeServiceTest {
     void criar_ok() {
         Time t = new Time();
         t.setNome("A");
+        Time salvo = new Time();
+        salvo.setId(1);
+        salvo.setNome("A");
 
-        when(repo.findByNome("A")).thenReturn(Optional.empty());
-        when(repo.save(t)).thenReturn(t);
+        when(repo.inserir("A", null)).thenReturn(Optional.of(salvo));
 
-        assertEquals(t, service.criar(t));
+        assertEquals(salvo, service.criar(t));
+        verify(catalogo).invalidar();
     }
 
     @Test
@@ -40,37 +57,69 @@ class TimeServiceTest {
         Time t = new Time();
         t.setNome("A");
 
-        when(repo.findByNome("A")).thenReturn(Optional.of(t));
+        when(repo.inserir("A", null)).thenReturn(Optional.empty());
 
         ResponseStatusException ex =
                 assertThrows(ResponseStatusException.class, () -> service.criar(t));
 
-        assertEquals(HttpStatus.BAD_REQUEST.value(), ex.getStatusCode().value());
+        assertEquals(HttpStatus.CONFLICT.value(), ex.getStatusCode().value());
+        verify(nomes).existente("A");
+        verify(catalogo, never()).invalidar();
+    }
+
+    @Test
+    void criar_nomeRecusadoHaPouco_shouldNotHitDatabase() {
+        Time t = new Time();
+        t.setNome("A");
+        when(nomes.existe("A")).thenReturn(true);
+
+        ResponseStatusException ex =
+                assertThrows(ResponseStatusException.class, () -> service.criar(t));
+
+        assertEquals(HttpStatus.CONFLICT.value(), ex.getStatusCode().value());
+        verifyNoInteractions(repo);
     }
 
     @Test
     void listar_ok() {
         List<Time> lista = List.of(new Time(), new Time());
-        when(repo.findAll()).thenReturn(lista);
+        when(catalogo.atual()).thenReturn(new TimeCatalogo.Snapshot(1, lista, Map.of()));
         assertEquals(lista, service.listar());
+        verifyNoInteractions(repo);
     }
 
     @Test
     void buscar_ok() {
         Time t = new Time();
-        when(repo.findById(1L)).thenReturn(Optional.of(t));
+        when(catalogo.atual()).thenReturn(new TimeCatalogo.Snapshot(1, List.of(t), Map.of(1L, t)));
         assertEquals(Optional.of(t), service.buscar(1L));
+        verifyNoInteractions(repo);
     }
 
     @Test
     void buscar_naoEncontrado() {
-        when(repo.findById(1L)).thenReturn(Optional.empty());
+        when(catalogo.atual()).thenReturn(new TimeCatalogo.Snapshot(1, List.of(), Map.of()));
         assertEquals(Optional.empty(), service.buscar(1L));
     }
 
+    @Test
+    void pagina_shouldReadFromDatabase() {
+        List<Time> lista = List.of(new Time());
+        when(repo.pagina(10L, 50)).thenReturn(lista);
+        assertEquals(lista, service.pagina(10L, 50));
+        verifyNoInteractions(catalogo);
+    }
+
+    @Test
+    void percorrer_shouldUseConfiguredFetchSize() {
+        service.percorrer(0L, t -> {});
+        verify(repo).percorrer(eq(0L), eq(500), any());
+    }
+
     @Test
     void atualizar_ok() {
         Time existente = new Time();
+        existente.setId(1);
         existente.setNome("X");
         existente.setLogo("L1");
 
@@ -79,11 +128,176 @@ class TimeServiceTest {
         novo.setLogo("L2");
 
         when(repo.findById(1L)).thenReturn(Optional.of(existente));
+        when(repo.renomear(existente, "Novo")).thenAnswer(renomeia("Novo"));
 
         Time res = service.atualizar(1L, novo);
 
         assertEquals("Novo", res.getNome());
         assertEquals("L2", res.getLogo());
+        assertEquals(TimeLogo.deTexto("L2").hash(), res.getLogoHash());
+        verify(nomes).esquecer("X");
+        verify(repo).salvarLogo(eq(1), any(TimeLogo.class));
+        verify(catalogo).invalidar();
+    }
+
+    @Test
+    void atualizar_nomeDeOutroTime_shouldReturn409() {
+        Time existente = new Time();
+        existente.setId(1);
+        existente.setNome("X");
+        Time novo = new Time();
+        novo.setNome("Y");
+        when(repo.findById(1L)).thenReturn(Optional.of(existente));
+        when(repo.renomear(existente, "Y")).thenReturn(false);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.atualizar(1L, novo));
+
+        assertEquals(HttpStatus.CONFLICT.value(), ex.getStatusCode().value());
+        assertEquals("X", existente.getNome());
+        verify(nomes).existente("Y");
+        verify(nomes, never()).esquecer(any());
+        verify(catalogo, never()).invalidar();
+    }
+
+    @Test
+    void atualizar_nomeRecusadoHaPouco_shouldReturn409WithoutDatabase() {
+        Time existente = new Time();
+        existente.setId(1);
+        existente.setNome("X");
+        Time novo = new Time();
+        novo.setNome("Y");
+        when(repo.findById(1L)).thenReturn(Optional.of(existente));
+        when(nomes.existe("Y")).thenReturn(true);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.atualizar(1L, novo));
+
+        assertEquals(HttpStatus.CONFLICT.value(), ex.getStatusCode().value());
+        verify(repo, never()).renomear(any(), any());
+    }
+
+    @Test
+    void criar_withLogo_shouldStoreItOutsideTimeTable() {
+        Time t = new Time();
+        t.setNome("A");
+        t.setLogo("data:image/png;base64,iVBORw0KGgo=");
+        when(repo.inserir(eq("A"), anyString())).thenAnswer(inv -> {
+            Time salvo = new Time();
+            salvo.setId(1);
+            salvo.setNome("A");
+            salvo.setLogoHash(inv.getArgument(1));
+            return Optional.of(salvo);
+        });
+
+        Time salvo = service.criar(t);
+
+        ArgumentCaptor<TimeLogo> logo = ArgumentCaptor.forClass(TimeLogo.class);
+        verify(repo).salvarLogo(eq(1), logo.capture());
+        assertEquals("image/png", logo.getValue().tipo());
+        assertEquals(8, logo.getValue().conteudo().length);
+        assertEquals(logo.getValue().hash(), salvo.getLogoHash());
+    }
+
+    @Test
+    void atualizar_withoutLogo_shouldKeepCurrentLogo() {
+        Time existente = new Time();
+        existente.setId(1);
+        existente.setLogoHash("abc");
+        Time novo = new Time();
+        novo.setNome("Novo");
+        when(repo.findById(1L)).thenReturn(Optional.of(existente));
+        when(repo.renomear(existente, "Novo")).thenAnswer(renomeia("Novo"));
+
+        service.atualizar(1L, novo);
+
+        assertEquals("abc", existente.getLogoHash());
+        verify(repo, never()).salvarLogo(anyInt(), any());
+        verify(repo, never()).removerLogo(anyInt());
+    }
+
+    @Test
+    void enviarLogo_shouldRejectNonImage() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.enviarLogo(1L, new byte[]{1}, "text/html"));
+
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), ex.getStatusCode().value());
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    void enviarLogo_shouldRejectOversizedLogo() {
+        ReflectionTestUtils.setField(service, "maxBytesLogo", 4);
+        when(repo.findById(1L)).thenReturn(Optional.of(new Time()));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.enviarLogo(1L, new byte[5], "image/png"));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE.value(), ex.getStatusCode().value());
+        verify(repo, never()).salvarLogo(anyInt(), any());
+    }
+
+    @Test
+    void removerLogo_shouldClearHashAndInvalidateCatalog() {
+        Time existente = new Time();
+        existente.setId(1);
+        existente.setLogoHash("abc");
+        when(repo.findById(1L)).thenReturn(Optional.of(existente));
+
+        service.removerLogo(1L);
+
+        verify(repo).removerLogo(1);
+        assertNull(existente.getLogoHash());
+        verify(catalogo).invalidar();
+    }
+
+    @Test
+    void importar_shouldDeduplicateInMemory_andInsertInBatches() {
+        ReflectionTestUtils.setField(service, "loteImportacao", 2);
+        List<List<String>> lotes = new ArrayList<>();
+        when(repo.inserirNomes(anyList())).thenAnswer(inv -> {
+            List<String> lote = inv.getArgument(0);
+            lotes.add(List.copyOf(lote));
+            return lote.contains("B") ? lote.size() - 1 : lote.size(); // B já existe
+        });
+
+        TimeService.ResultadoImportacao r = service.importar(
+                corpo("nome\nA\nB\nA\nC\n"), MediaType.parseMediaType("text/csv"));
+
+        assertEquals(List.of(List.of("A", "B"), List.of("C")), lotes);
+        assertEquals(new TimeService.ResultadoImportacao(4, 2, 2), r);
+        verify(catalogo).invalidar();
+    }
+
+    @Test
+    void importar_ndjson_nothingInserted_shouldNotInvalidateCatalog() {
+        when(repo.inserirNomes(anyList())).thenReturn(0);
+
+        TimeService.ResultadoImportacao r = service.importar(
+                corpo("{\"nome\":\"A\"}\n{\"nome\":\"B\",\"logo\":null}\n"), MediaType.parseMediaType("application/x-ndjson"));
+
+        assertEquals(new TimeService.ResultadoImportacao(2, 0, 2), r);
+        verify(catalogo, never()).invalidar();
+    }
+
+    @Test
+    void importar_invalidRecord_shouldReturn400WithRecordNumber() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.importar(corpo("{\"nome\":\"A\"}\n{\"id\":2}\n"), MediaType.parseMediaType("application/x-ndjson")));
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), ex.getStatusCode().value());
+        assertTrue(ex.getReason().startsWith("Registro 2"));
+        verify(catalogo, never()).invalidar();
+    }
+
+    private static ByteArrayInputStream corpo(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Como o refresh de {@link TimeRepository#renomear}: a entidade volta com o nome novo. */
+    private static Answer<Boolean> renomeia(String nome) {
+        return inv -> {
+            inv.<Time>getArgument(0).setNome(nome);
+            return true;
+        };
     }
 
     @Test
@@ -99,11 +313,14 @@ class TimeServiceTest {
     @Test
     void deletar_ok() {
         Time t = new Time();
+        t.setNome("A");
         when(repo.findById(1L)).thenReturn(Optional.of(t));
 
         service.deletar(1L);
 
         verify(repo, times(1)).delete(t);
+        verify(nomes).esquecer("A");
+        verify(catalogo).invalidar();
     }
 
     @Test